@@ -0,0 +1,241 @@
+package com.xhaleera.whiteshark;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.xhaleera.whiteshark.exceptions.WhiteSharkBatchException;
+
+/**
+ * Batch deserializer class
+ * <p>
+ * This class deserializes batches of independent, completely buffered WhiteShark messages,
+ * such as the messages drained from a queue. Messages are byte arrays or ByteBuffers,
+ * and are split into ranges decoded in parallel on an executor, such as a ForkJoinPool.
+ * The calling thread decodes a range itself. Results are returned in message order.
+ * <p>
+ * Each thread decodes its ranges with its own reusable deserializer (see {@link WhiteSharkImmediateDeserializer}),
+ * while class resolutions and instantiators are shared through the class mapper.
+ * Batch deserializers are immutable and can be used by several threads at once.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkBatchDeserializer {
+
+	/** Number of ranges per available processor, for load balancing */
+	private static final int RANGES_PER_PROCESSOR = 4;
+	
+	/** Custom stream identifier */
+	private final String identifier;
+	/** External class mapper */
+	private final WhiteSharkExternalClassMapper classMapper;
+	/** Executor, or <code>null</code> to deserialize on the calling thread */
+	private final Executor executor;
+	
+	/**
+	 * Constructor
+	 * @param identifier Custom stream identifier
+	 * @param classMapper External class mapper
+	 * @param executor Executor running the deserialization tasks, or <code>null</code> to deserialize on the calling thread
+	 */
+	public WhiteSharkBatchDeserializer(String identifier, WhiteSharkExternalClassMapper classMapper, Executor executor) {
+		this.identifier = identifier;
+		this.classMapper = classMapper;
+		this.executor = executor;
+	}
+	
+	/**
+	 * Deserializes a batch of messages, aborting on the first failure
+	 * <p>
+	 * Messages can be byte arrays or ByteBuffers. The positions of the buffers are not modified.
+	 * 
+	 * @param messages Messages to deserialize
+	 * @return the deserialized values, in message order
+	 * @throws WhiteSharkBatchException If a message cannot be deserialized. If several messages fail, one of the failures is reported.
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the deserialization tasks.
+	 */
+	public List<Object> deserializeAll(List<?> messages) throws WhiteSharkBatchException, InterruptedException {
+		Object[] values = new Object[messages.size()];
+		Exception[] errors = new Exception[values.length];
+		int failedIndex = run(messages, values, errors, true);
+		if (failedIndex >= 0)
+			throw new WhiteSharkBatchException(String.format("Message %d cannot be deserialized", failedIndex), failedIndex, errors[failedIndex]);
+		return Arrays.asList(values);
+	}
+	
+	/**
+	 * Deserializes a batch of messages, reporting failures per message
+	 * <p>
+	 * Messages can be byte arrays or ByteBuffers. The positions of the buffers are not modified.
+	 * A failed message does not abort the batch.
+	 * 
+	 * @param messages Messages to deserialize
+	 * @return the deserialized values and errors, in message order
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the deserialization tasks.
+	 */
+	public WhiteSharkBatchResult deserializeEach(List<?> messages) throws InterruptedException {
+		Object[] values = new Object[messages.size()];
+		Exception[] errors = new Exception[values.length];
+		run(messages, values, errors, false);
+		return new WhiteSharkBatchResult(values, errors);
+	}
+	
+	/**
+	 * Deserializes a batch of messages
+	 * @param messages Messages to deserialize
+	 * @param values Deserialized values
+	 * @param errors Errors
+	 * @param abortOnError If set, remaining messages are skipped after the first failure
+	 * @return the index of the first recorded failure if aborting on errors, -1 either.
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the deserialization tasks.
+	 */
+	private int run(List<?> messages, Object[] values, Exception[] errors, boolean abortOnError) throws InterruptedException {
+		int size = values.length;
+		if (size == 0)
+			return -1;
+		
+		int rangeCount = 1;
+		if (executor != null)
+			rangeCount = Math.min(size, Runtime.getRuntime().availableProcessors() * RANGES_PER_PROCESSOR);
+		int rangeSize = (size + rangeCount - 1) / rangeCount;
+		rangeCount = (size + rangeSize - 1) / rangeSize;
+		
+		Batch batch = new Batch(messages, values, errors, abortOnError, rangeCount);
+		for (int start = rangeSize; start < size; start += rangeSize)
+			executor.execute(batch.new Range(start, Math.min(start + rangeSize, size)));
+		batch.new Range(0, Math.min(rangeSize, size)).run();
+		batch.await();
+		
+		return batch.failedIndex.get();
+	}
+	
+	/**
+	 * Deserializes a single message
+	 * @param message Byte array or ByteBuffer
+	 * @return the deserialized value
+	 * @throws Exception If the message cannot be deserialized.
+	 */
+	private Object deserialize(Object message) throws Exception {
+		if (message instanceof byte[])
+			return WhiteSharkImmediateDeserializer.deserialize(identifier, (byte[]) message, classMapper);
+		else if (message instanceof ByteBuffer)
+			return WhiteSharkImmediateDeserializer.deserialize(identifier, ((ByteBuffer) message).duplicate(), classMapper);
+		else
+			throw new IllegalArgumentException(String.format("Unsupported message type %s", (message == null) ? "null" : message.getClass().getName()));
+	}
+	
+	/**
+	 * State of a running batch
+	 */
+	private final class Batch {
+	
+		/** Messages to deserialize */
+		private final List<?> messages;
+		/** Deserialized values */
+		private final Object[] values;
+		/** Errors */
+		private final Exception[] errors;
+		/** Flag indicating if remaining messages are skipped after the first failure */
+		private final boolean abortOnError;
+		/** Latch counting the remaining ranges */
+		private final CountDownLatch remainingRanges;
+		/** Error stopping a range */
+		private final AtomicReference<Error> fatal;
+		/** Index of the first recorded failure if aborting on errors, -1 either */
+		private final AtomicInteger failedIndex;
+		
+		/**
+		 * Constructor
+		 * @param messages Messages to deserialize
+		 * @param values Deserialized values
+		 * @param errors Errors
+		 * @param abortOnError If set, remaining messages are skipped after the first failure
+		 * @param rangeCount Number of ranges
+		 */
+		private Batch(List<?> messages, Object[] values, Exception[] errors, boolean abortOnError, int rangeCount) {
+			this.messages = messages;
+			this.values = values;
+			this.errors = errors;
+			this.abortOnError = abortOnError;
+			remainingRanges = new CountDownLatch(rangeCount);
+			fatal = new AtomicReference<>();
+			failedIndex = new AtomicInteger(-1);
+		}
+		
+		/**
+		 * Records the failure of a message
+		 * @param index Message index
+		 * @param e Exception thrown by the deserialization of the message
+		 */
+		private void fail(int index, Exception e) {
+			errors[index] = e;
+			if (abortOnError)
+				failedIndex.compareAndSet(-1, index);
+		}
+		
+		/**
+		 * Waits for all ranges to complete
+		 * <p>
+		 * Errors stopping a range are rethrown.
+		 * 
+		 * @throws InterruptedException If the calling thread is interrupted.
+		 */
+		private void await() throws InterruptedException {
+			remainingRanges.await();
+			
+			Error error = fatal.get();
+			if (error != null)
+				throw error;
+		}
+		
+		/**
+		 * Range of messages deserialized by a single task
+		 */
+		private final class Range implements Runnable {
+		
+			/** Index of the first message */
+			private final int start;
+			/** Index after the last message */
+			private final int end;
+			
+			/**
+			 * Constructor
+			 * @param start Index of the first message
+			 * @param end Index after the last message
+			 */
+			private Range(int start, int end) {
+				this.start = start;
+				this.end = end;
+			}
+			
+			@Override
+			public void run() {
+				try {
+					for (int i = start; i < end && failedIndex.get() < 0; i++) {
+						try {
+							values[i] = deserialize(messages.get(i));
+						}
+						catch (Exception e) {
+							fail(i, e);
+						}
+					}
+				}
+				catch (Error e) {
+					fatal.compareAndSet(null, e);
+				}
+				finally {
+					remainingRanges.countDown();
+				}
+			}
+		
+		}
+	
+	}
+
+}
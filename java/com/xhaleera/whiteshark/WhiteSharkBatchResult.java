@@ -0,0 +1,84 @@
+package com.xhaleera.whiteshark;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Result of a batch deserialization with per-message error reporting
+ * <p>
+ * Each message of the batch has either a deserialized value or an error.
+ * See {@link WhiteSharkBatchDeserializer#deserializeEach(List)}.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkBatchResult {
+
+	/** Deserialized values, in message order */
+	private final Object[] values;
+	/** Errors, in message order */
+	private final Exception[] errors;
+	/** Number of failed messages */
+	private final int errorCount;
+	
+	/**
+	 * Constructor
+	 * @param values Deserialized values
+	 * @param errors Errors
+	 */
+	WhiteSharkBatchResult(Object[] values, Exception[] errors) {
+		this.values = values;
+		this.errors = errors;
+		
+		int errorCount = 0;
+		for (Exception e : errors) {
+			if (e != null)
+				errorCount++;
+		}
+		this.errorCount = errorCount;
+	}
+	
+	/**
+	 * Gets the number of messages
+	 * @return the number of messages of the batch
+	 */
+	public int size() {
+		return values.length;
+	}
+	
+	/**
+	 * Gets a deserialized value
+	 * @param index Message index
+	 * @return the deserialized value, or <code>null</code> if the message failed.
+	 */
+	public Object getValue(int index) {
+		return values[index];
+	}
+	
+	/**
+	 * Gets the error of a message
+	 * @param index Message index
+	 * @return the exception thrown by the deserialization of the message, or <code>null</code> if it succeeded.
+	 */
+	public Exception getError(int index) {
+		return errors[index];
+	}
+	
+	/**
+	 * Gets the number of failed messages
+	 * @return the number of failed messages
+	 */
+	public int getErrorCount() {
+		return errorCount;
+	}
+	
+	/**
+	 * Gets the deserialized values
+	 * @return the deserialized values, in message order, with <code>null</code> for failed messages
+	 */
+	public List<Object> getValues() {
+		return Arrays.asList(values);
+	}
+
+}
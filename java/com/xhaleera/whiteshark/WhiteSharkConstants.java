@@ -28,6 +28,16 @@ public final class WhiteSharkConstants {
 	public static final String MAP_PROPERTY_NAME_PREFIX = ":m:";
 	public static final String COLLECTION_ITEM_PROPERTY_NAME = ":ci:";
 	
+	/** Class name length marker indicating that a numeric type identifier follows instead of the class name */
+	public static final short TYPE_ID_MARKER = -1;
+	/** Maximum numeric type identifier */
+	public static final int MAX_TYPE_ID = 0xffff;
+	
+	/** Offset index identifier, ending streams serialized with {@link #OPTIONS_OFFSET_INDEX} */
+	public static final String OFFSET_INDEX_IDENTIFIER = "WSIX";
+	/** Default number of root elements between two offset index entries */
+	public static final int DEFAULT_INDEX_STRIDE = 1024;
+	
 	/** Default serialization version for objects */
 	public static final int DEFAULT_SERIALIZATION_VERSION = 1;
 	
@@ -36,4 +46,10 @@ public final class WhiteSharkConstants {
 	public static final short OPTIONS_DEFAULT 						= 0x0000;
 	/** Options to serialize objects as generic class-less objects */
 	public static final short OPTIONS_OBJECTS_AS_GENERICS 			= 0x0001;
+	/** Options to serialize floating-point numbers with the smallest lossless encoding, and fixed-point fields with their annotated precision */
+	public static final short OPTIONS_COMPACT_REALS 				= 0x0002;
+	/** Options to serialize byte arrays as raw binary data instead of arrays of integers */
+	public static final short OPTIONS_BINARY_BLOBS 					= 0x0004;
+	/** Options to append an offset index to the stream, for random access to the root properties and elements */
+	public static final short OPTIONS_OFFSET_INDEX 					= 0x0008;
 }
@@ -5,9 +5,15 @@ package com.xhaleera.whiteshark;
  * 
  * @author Christophe SAUVEUR (christophe@xhaleera.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
 enum WhiteSharkDataType {
+	/** Identifies raw binary data */
+	BINARY		( (byte) 11 ),
+	/** Identifies a pre-encoded fragment, using its own dictionaries */
+	FRAGMENT	( (byte) 10 ),
+	/** Identifies a value encoded by a type adapter */
+	CUSTOM		( (byte) 9 ),
 	/** Identifies a property */
 	PROPERTY	( (byte) 8 ),
 	/** Identifies an object */
@@ -0,0 +1,213 @@
+package com.xhaleera.whiteshark;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkAlias;
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+/**
+ * Schema evolution plan of a class
+ * <p>
+ * An evolution plan resolves the properties found in streams written by other versions of a class.
+ * It is compiled once per class from the public fields of the class and their {@link WhiteSharkAlias} annotations, then shared:
+ * <ul>
+ * <li>properties named after a field, or after one of its aliases, are bound to the field;</li>
+ * <li>unknown properties are bound to a skipped binding, so their values are skipped without being decoded;</li>
+ * <li>serializable fields missing from the stream keep their default value, the one assigned by the class constructor.</li>
+ * </ul>
+ * Objects created by deserializers already hold their default values. Existing objects populated in place
+ * have their missing fields reset to default values captured once, when the plan is compiled, from an instance
+ * created with the public no-arg constructor of the class. Classes without such constructor default to <code>null</code>, zero or <code>false</code>.
+ * As captured values are shared, only strings, enums, boxed primitives and <code>null</code> are restored:
+ * fields defaulting to other objects are reset to <code>null</code>. All serializable fields are tracked, whatever their number.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkEvolutionPlan {
+
+	/** Evolution plans cache */
+	private static final ConcurrentHashMap<Class<?>, WhiteSharkEvolutionPlan> plans = new ConcurrentHashMap<>();
+	
+	/** Binding of skipped properties */
+	private static final WhiteSharkPropertyBinding SKIPPED_BINDING = new WhiteSharkPropertyBinding(null, -1);
+	
+	/** Class of the plan */
+	private final Class<?> c;
+	/** Field bindings, by property name and alias */
+	private final HashMap<String, WhiteSharkPropertyBinding> bindings;
+	/** Tracked fields, by field index */
+	private final Field[] trackedFields;
+	/** Default values of the tracked fields, by field index */
+	private final Object[] defaults;
+	/** Mask of the tracked fields that can be reset to their default value, 64 fields per word */
+	private final long[] defaultsMask;
+	
+	/**
+	 * Constructor
+	 * @param c Class of the plan
+	 */
+	private WhiteSharkEvolutionPlan(Class<?> c) {
+		this.c = c;
+		bindings = new HashMap<>();
+		ArrayList<Field> tracked = new ArrayList<>();
+		ArrayList<Integer> resettable = new ArrayList<>();
+		
+		Field[] fields = c.getFields();
+		for (Field f : fields) {
+			if (Modifier.isStatic(f.getModifiers()))
+				continue;
+			
+			int fieldIndex = -1;
+			if (f.getAnnotation(WhiteSharkSerializable.class) != null) {
+				fieldIndex = tracked.size();
+				tracked.add(f);
+				if (!Modifier.isFinal(f.getModifiers()))
+					resettable.add(fieldIndex);
+			}
+			bindings.put(f.getName(), new WhiteSharkPropertyBinding(f, fieldIndex));
+		}
+		
+		for (Field f : fields) {
+			WhiteSharkAlias alias = f.getAnnotation(WhiteSharkAlias.class);
+			if (alias == null || Modifier.isStatic(f.getModifiers()))
+				continue;
+			
+			WhiteSharkPropertyBinding binding = bindings.get(f.getName());
+			for (String name : alias.value()) {
+				if (!bindings.containsKey(name))
+					bindings.put(name, binding);
+			}
+		}
+		
+		trackedFields = tracked.toArray(new Field[tracked.size()]);
+		defaults = captureDefaults(c, trackedFields);
+		defaultsMask = newFieldMask();
+		for (int fieldIndex : resettable)
+			markField(defaultsMask, fieldIndex);
+	}
+	
+	/**
+	 * Captures the default values of tracked fields
+	 * @param c Class of the plan
+	 * @param fields Tracked fields
+	 * @return the default values, by field index
+	 */
+	private static Object[] captureDefaults(Class<?> c, Field[] fields) {
+		Object prototype;
+		try {
+			prototype = WhiteSharkInstantiator.forClass(c).newInstance();
+		}
+		catch (ReflectiveOperationException | RuntimeException e) {
+			prototype = null;
+		}
+		
+		Object[] values = new Object[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			Class<?> type = fields[i].getType();
+			Object value = null;
+			if (prototype != null) {
+				try {
+					value = fields[i].get(prototype);
+				}
+				catch (IllegalAccessException e) {
+					value = null;
+				}
+			}
+			if (type.isPrimitive()) {
+				if (value == null)
+					value = Array.get(Array.newInstance(type, 1), 0);
+			}
+			else if (!(value instanceof String || value instanceof Enum || value instanceof Boolean || value instanceof Character
+					|| (value instanceof Number && value.getClass().getPackage() == Number.class.getPackage())))
+				value = null;
+			values[i] = value;
+		}
+		return values;
+	}
+	
+	/**
+	 * Gets the evolution plan of a class, compiling it the first time
+	 * @param c Class
+	 * @return the evolution plan
+	 */
+	static WhiteSharkEvolutionPlan of(Class<?> c) {
+		WhiteSharkEvolutionPlan plan = plans.get(c);
+		if (plan == null) {
+			plan = new WhiteSharkEvolutionPlan(c);
+			WhiteSharkEvolutionPlan previous = plans.putIfAbsent(c, plan);
+			if (previous != null)
+				plan = previous;
+		}
+		return plan;
+	}
+	
+	/**
+	 * Resolves the binding of a property
+	 * @param name Property name
+	 * @return the property binding, skipped if the class has no matching field
+	 */
+	WhiteSharkPropertyBinding binding(String name) {
+		if (name.equals(WhiteSharkConstants.COLLECTION_ITEM_PROPERTY_NAME) || name.startsWith(WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX)) {
+			try {
+				return WhiteSharkPropertyBinding.resolve(c, name);
+			}
+			catch (NoSuchFieldException e) {
+				throw new AssertionError(e);
+			}
+		}
+		
+		WhiteSharkPropertyBinding binding = bindings.get(name);
+		return (binding == null) ? SKIPPED_BINDING : binding;
+	}
+	
+	/**
+	 * Creates an empty mask of tracked fields
+	 * @return the mask, with a bit per tracked field
+	 */
+	long[] newFieldMask() {
+		return new long[(trackedFields.length + 63) >>> 6];
+	}
+	
+	/**
+	 * Sets the bit of a tracked field in a mask
+	 * @param mask Mask of tracked fields
+	 * @param fieldIndex Index of the field
+	 */
+	static void markField(long[] mask, int fieldIndex) {
+		mask[fieldIndex >>> 6] |= 1L << fieldIndex;
+	}
+	
+	/**
+	 * Tells if tracked fields are missing from a deserialized object
+	 * @param seen Mask of the tracked fields found in the stream
+	 * @return <code>true</code> if some fields have to be reset to their default value, <code>false</code> either.
+	 */
+	boolean hasMissingFields(long[] seen) {
+		for (int i = 0; i < defaultsMask.length; i++) {
+			if ((defaultsMask[i] & ~seen[i]) != 0)
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Resets the tracked fields missing from the stream to their default value
+	 * @param o Object populated in place
+	 * @param seen Mask of the tracked fields found in the stream
+	 * @throws IllegalAccessException
+	 */
+	void applyDefaults(Object o, long[] seen) throws IllegalAccessException {
+		for (int i = 0; i < trackedFields.length; i++) {
+			if ((defaultsMask[i >>> 6] & ~seen[i >>> 6] & (1L << i)) != 0)
+				trackedFields[i].set(o, defaults[i]);
+		}
+	}
+
+}
@@ -1,7 +1,15 @@
 package com.xhaleera.whiteshark;
 
-import java.util.HashMap;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkImmutable;
+import com.xhaleera.whiteshark.annotations.WhiteSharkTypeId;
 
 /**
  * WhiteShark external class mapper
@@ -9,6 +17,31 @@ import java.util.Map;
  * This class is used to map Java classes to external classes,
  * allowing class mapping with other languages, such as PHP,
  * C# or even other Java implementations.
+ * <p>
+ * Classes can also be registered with a numeric type identifier. Registered classes
+ * are serialized with their identifier instead of their name, and are resolved without reflection.
+ * Both the serialization and deserialization sides must register the same identifiers.
+ * <p>
+ * Type adapters can be registered to provide custom binary encodings for specific classes.
+ * See {@link WhiteSharkTypeAdapter}.
+ * <p>
+ * Classes can be registered as immutable, in addition to the {@link WhiteSharkImmutable} annotation,
+ * so their encoded instances are cached by the serializer. See {@link WhiteSharkFragmentCache}.
+ * <p>
+ * Instance factories can be registered to create the deserialized objects of classes
+ * without a public no-arg constructor. See {@link WhiteSharkInstanceFactory}.
+ * An instance provider can also supply all deserialized objects and arrays, for example from pools.
+ * See {@link WhiteSharkInstanceProvider}.
+ * <p>
+ * A string cache can be set to intern the strings read by deserializers. See {@link WhiteSharkStringCache}.
+ * Strings can also be deserialized as lazily decoded UTF-8 strings. See {@link WhiteSharkUtf8String}.
+ * Binary values can be deserialized as read-only slices of the input. See {@link #setBinarySlices(boolean)}.
+ * Streams written by other versions of a class can be read with schema evolution. See {@link #setSchemaEvolution(boolean)}.
+ * The spacing of offset index entries can be tuned. See {@link #setIndexStride(int)}.
+ * <p>
+ * Class mappings and resolved class names are indexed in both directions, so resolving a class
+ * from its external name does not involve any scan or repeated reflection. Lookups do not lock, and
+ * classes can be mapped or unmapped while other threads serialize or deserialize.
  * 
  * @author Christophe SAUVEUR (christophe@xhaleera.com)
  * @since 1.0
@@ -17,30 +50,136 @@ import java.util.Map;
 public final class WhiteSharkExternalClassMapper {
 
 	/** Classes map */
-	private HashMap<Class<?>, String> map;
+	private final ConcurrentHashMap<Class<?>, String> map;
+	/** Reverse classes map, indexed by external class name */
+	private final ConcurrentHashMap<String, Class<?>> reverseMap;
+	/** Resolved classes cache, mapping unmapped class names to their class or to {@link #UNRESOLVED_CLASS} */
+	private final ConcurrentHashMap<String, Object> resolvedClasses;
+	/** Marker of class names without matching class in the resolved classes cache */
+	private static final Object UNRESOLVED_CLASS = new Object();
+	/** Maximum number of class names with a matching class kept in the resolved classes cache */
+	private static final int MAX_RESOLVED_CLASSES = 256;
+	/** Number of class names with a matching class in the resolved classes cache */
+	private final AtomicInteger resolvedClassCount;
+	/** Maximum number of class names without matching class kept in the resolved classes cache */
+	private static final int MAX_UNRESOLVED_CLASSES = 256;
+	/** Number of class names without matching class in the resolved classes cache */
+	private final AtomicInteger unresolvedClassCount;
+	
+	/** Type identifiers map */
+	private final ConcurrentHashMap<Class<?>, Integer> typeIds;
+	/** Registered classes, indexed by type identifier */
+	private volatile Class<?>[] typeIdClasses;
+	
+	/** Type adapters map */
+	private final ConcurrentHashMap<Class<?>, WhiteSharkTypeAdapter<?>> adapters;
+	/** Adapted classes cache, mapping classes to their applicable adapter and the class it is registered for */
+	private final ConcurrentHashMap<Class<?>, Resolution> adaptedClasses;
+	/** Version of the type adapters map, only updated while holding the class mapper lock */
+	private volatile int adaptersVersion;
+	/** Marker of classes without adapter in the adapted classes cache */
+	private static final Object NO_TYPE_ADAPTER = new Object();
+	
+	/** Classes registered as immutable */
+	private final ConcurrentHashMap<Class<?>, Boolean> immutableClasses;
+	/** Immutability cache */
+	private final ConcurrentHashMap<Class<?>, Resolution> immutabilityCache;
+	/** Version of the immutable classes map, only updated while holding the class mapper lock */
+	private volatile int immutableClassesVersion;
+	
+	/** Instantiators of classes with a registered instance factory */
+	private final ConcurrentHashMap<Class<?>, WhiteSharkInstantiator> factoryInstantiators;
+	/** Instance provider, or <code>null</code> */
+	private volatile WhiteSharkInstanceProvider instanceProvider;
+	/** String cache, or <code>null</code> */
+	private volatile WhiteSharkStringCache stringCache;
+	/** Flag indicating if strings are deserialized as lazily decoded UTF-8 strings */
+	private volatile boolean lazyStrings;
+	/** Flag indicating if binary values are deserialized as slices of the input */
+	private volatile boolean binarySlices;
+	/** Flag indicating if schema evolution is enabled */
+	private volatile boolean schemaEvolution;
+	/** Number of root elements between two offset index entries */
+	private volatile int indexStride;
+	
+	/** Modification count, used to invalidate cached fragments, only updated while holding the class mapper lock */
+	private volatile int modificationCount;
 	
 	/**
 	 * Construtor
 	 */
 	public WhiteSharkExternalClassMapper() {
-		map = new HashMap<>();
+		map = new ConcurrentHashMap<>();
+		reverseMap = new ConcurrentHashMap<>();
+		resolvedClasses = new ConcurrentHashMap<>();
+		resolvedClassCount = new AtomicInteger();
+		unresolvedClassCount = new AtomicInteger();
+		typeIds = new ConcurrentHashMap<>();
+		typeIdClasses = new Class<?>[0];
+		adapters = new ConcurrentHashMap<>();
+		adaptedClasses = new ConcurrentHashMap<>();
+		immutableClasses = new ConcurrentHashMap<>();
+		immutabilityCache = new ConcurrentHashMap<>();
+		factoryInstantiators = new ConcurrentHashMap<>();
+		instanceProvider = null;
+		stringCache = null;
+		lazyStrings = false;
+		binarySlices = false;
+		schemaEvolution = false;
+		indexStride = WhiteSharkConstants.DEFAULT_INDEX_STRIDE;
+		modificationCount = 0;
 	}
-
+	
 	/**
 	 * Maps a Java to an external class' name
+	 * <p>
+	 * If several classes are mapped to the same external class' name, the last mapped class is used for deserialization.
+	 * 
 	 * @param cls Java class
 	 * @param externalClass External class' name
+	 * @throws IllegalArgumentException If the external class' name is <code>null</code>.
 	 */
-	public void mapClass(Class<?> cls, String externalClass) {
-		map.put(cls, externalClass);
+	public synchronized void mapClass(Class<?> cls, String externalClass) {
+		if (externalClass == null)
+			throw new IllegalArgumentException("External class name cannot be null");
+		String previous = map.put(cls, externalClass);
+		if (previous != null && !previous.equals(externalClass))
+			unmapReverse(cls, previous);
+		reverseMap.put(externalClass, cls);
+		modificationCount++;
 	}
 	
 	/**
 	 * Unmaps a Java class
 	 * @param cls Java class
 	 */
-	public void unmapClass(Class<?> cls) {
-		map.remove(cls);
+	public synchronized void unmapClass(Class<?> cls) {
+		String previous = map.remove(cls);
+		if (previous != null) {
+			unmapReverse(cls, previous);
+			modificationCount++;
+		}
+	}
+	
+	/**
+	 * Removes a class from the reverse classes map
+	 * <p>
+	 * If other classes are still mapped to the same external class' name, one of them takes its place.
+	 * 
+	 * @param cls Java class
+	 * @param externalClass External class' name the class was mapped to
+	 */
+	private void unmapReverse(Class<?> cls, String externalClass) {
+		if (reverseMap.get(externalClass) != cls)
+			return;
+		
+		for (Map.Entry<Class<?>, String> entry : map.entrySet()) {
+			if (entry.getValue().equals(externalClass)) {
+				reverseMap.put(externalClass, entry.getKey());
+				return;
+			}
+		}
+		reverseMap.remove(externalClass);
 	}
 	
 	/**
@@ -49,23 +188,511 @@ public final class WhiteSharkExternalClassMapper {
 	 * @return the mapped external class' name, or the Java class' canonical name if it is not mapped.
 	 */
 	public String getExternalFromClass(Class<?> cls) {
-		return map.containsKey(cls) ? map.get(cls) : cls.getCanonicalName();
+		String externalClass = map.get(cls);
+		return (externalClass != null) ? externalClass : cls.getCanonicalName();
 	}
 	
 	/**
 	 * Get Java class from an external class' name.
+	 * <p>
+	 * Names that are not mapped are resolved once, and their resolution is cached, including failed ones.
+	 * As names come from streams, the cache is bounded: past 256 successful and 256 failed resolutions,
+	 * further names are resolved on every call.
+	 * 
 	 * @param externalClass External class' name
 	 * @return the mapped Java class, or the Java class matching the name if it is not mapped.
 	 * @throws ClassNotFoundException If the external class' name is not mapped and no Java class matches it.
 	 */
 	public Class<?> getClassFromExternal(String externalClass) throws ClassNotFoundException {
-		if (map.containsValue(externalClass)) {
-			for (Map.Entry<Class<?>, String> entry : map.entrySet()) {
-				if (entry.getValue().equals(externalClass))
-					return entry.getKey();
+		Class<?> cls = reverseMap.get(externalClass);
+		if (cls != null)
+			return cls;
+		
+		Object resolved = resolvedClasses.get(externalClass);
+		if (resolved == null) {
+			try {
+				cls = WhiteSharkUtils.classForName(externalClass);
+				if (resolvedClassCount.get() < MAX_RESOLVED_CLASSES && resolvedClasses.putIfAbsent(externalClass, cls) == null)
+					resolvedClassCount.incrementAndGet();
+				return cls;
+			}
+			catch (ClassNotFoundException e) {
+				if (unresolvedClassCount.get() < MAX_UNRESOLVED_CLASSES && resolvedClasses.putIfAbsent(externalClass, UNRESOLVED_CLASS) == null)
+					unresolvedClassCount.incrementAndGet();
+				throw e;
 			}
 		}
-		return WhiteSharkUtils.classForName(externalClass);
+		
+		if (resolved == UNRESOLVED_CLASS)
+			throw new ClassNotFoundException(externalClass);
+		return (Class<?>) resolved;
+	}
+	
+	/**
+	 * Clears the cache of resolved class names
+	 * <p>
+	 * Class names that could not be resolved are also cached. This method must be called
+	 * if classes become available at runtime, for example from a new class loader.
+	 */
+	public void clearResolvedClasses() {
+		resolvedClasses.clear();
+		resolvedClassCount.set(0);
+		unresolvedClassCount.set(0);
+	}
+	
+	/**
+	 * Registers a class with the type identifier provided by its {@link WhiteSharkTypeId} annotation
+	 * @param cls Java class
+	 * @throws IllegalArgumentException If the class is not annotated, or if its identifier is invalid or already registered for another class.
+	 */
+	public void registerClass(Class<?> cls) {
+		WhiteSharkTypeId typeIdAnnotation = cls.getAnnotation(WhiteSharkTypeId.class);
+		if (typeIdAnnotation == null)
+			throw new IllegalArgumentException(String.format("Class %s has no type identifier", cls.getName()));
+		registerClass(cls, typeIdAnnotation.value());
+	}
+	
+	/**
+	 * Registers a class with a type identifier
+	 * @param cls Java class
+	 * @param typeId Type identifier, between 0 and {@link WhiteSharkConstants#MAX_TYPE_ID}
+	 * @throws IllegalArgumentException If the identifier is invalid or already registered for another class.
+	 */
+	public synchronized void registerClass(Class<?> cls, int typeId) {
+		if (typeId < 0 || typeId > WhiteSharkConstants.MAX_TYPE_ID)
+			throw new IllegalArgumentException(String.format("Invalid type identifier %d", typeId));
+		Class<?>[] classes = typeIdClasses;
+		if (typeId < classes.length && classes[typeId] != null && classes[typeId] != cls)
+			throw new IllegalArgumentException(String.format("Type identifier %d is already registered for class %s", typeId, classes[typeId].getName()));
+		
+		// Registered classes are published copy-on-write, so lookups never see a partially updated array
+		classes = Arrays.copyOf(classes, Math.max(typeId + 1, classes.length));
+		Integer previous = typeIds.get(cls);
+		if (previous != null)
+			classes[previous] = null;
+		classes[typeId] = cls;
+		typeIdClasses = classes;
+		typeIds.put(cls, typeId);
+		modificationCount++;
+	}
+	
+	/**
+	 * Unregisters the type identifier of a class
+	 * @param cls Java class
+	 */
+	public synchronized void unregisterClass(Class<?> cls) {
+		Integer typeId = typeIds.remove(cls);
+		if (typeId != null) {
+			Class<?>[] classes = Arrays.copyOf(typeIdClasses, typeIdClasses.length);
+			classes[typeId] = null;
+			typeIdClasses = classes;
+			modificationCount++;
+		}
+	}
+	
+	/**
+	 * Get type identifier from a Java class
+	 * @param cls Java class
+	 * @return the registered type identifier of the class, or -1 if it is not registered.
+	 */
+	public int getTypeIdFromClass(Class<?> cls) {
+		Integer typeId = typeIds.get(cls);
+		return (typeId == null) ? -1 : typeId;
+	}
+	
+	/**
+	 * Get Java class from a type identifier
+	 * @param typeId Type identifier
+	 * @return the registered Java class
+	 * @throws ClassNotFoundException If no class is registered with this type identifier.
+	 */
+	public Class<?> getClassFromTypeId(int typeId) throws ClassNotFoundException {
+		Class<?>[] classes = typeIdClasses;
+		Class<?> cls = (typeId >= 0 && typeId < classes.length) ? classes[typeId] : null;
+		if (cls == null)
+			throw new ClassNotFoundException(String.format("No class registered with type identifier %d", typeId));
+		return cls;
+	}
+	
+	/**
+	 * Registers a type adapter
+	 * <p>
+	 * The adapter also applies to the subclasses and implementations of the class
+	 * that have no adapter of their own.
+	 * 
+	 * @param cls Java class
+	 * @param adapter Type adapter
+	 */
+	public synchronized <T> void registerTypeAdapter(Class<T> cls, WhiteSharkTypeAdapter<T> adapter) {
+		if (adapter == null)
+			throw new IllegalArgumentException("Type adapter cannot be null");
+		adapters.put(cls, adapter);
+		adaptersVersion++;
+		adaptedClasses.clear();
+		modificationCount++;
+	}
+	
+	/**
+	 * Unregisters the type adapter of a class
+	 * @param cls Java class
+	 */
+	public synchronized void unregisterTypeAdapter(Class<?> cls) {
+		if (adapters.remove(cls) != null) {
+			adaptersVersion++;
+			adaptedClasses.clear();
+			modificationCount++;
+		}
+	}
+	
+	/**
+	 * Get the class whose type adapter applies to a Java class
+	 * <p>
+	 * Resolutions are cached per class, so this method is a single map lookup once warmed.
+	 * Cached resolutions are tagged with the version of the adapters they were resolved against,
+	 * so a resolution racing with a registration is never reused.
+	 * 
+	 * @param cls Java class
+	 * @return the class for which the applicable type adapter is registered, or <code>null</code> if no adapter applies.
+	 */
+	public Class<?> getAdaptedClass(Class<?> cls) {
+		Map.Entry<Class<?>, WhiteSharkTypeAdapter<Object>> entry = getTypeAdapterEntry(cls);
+		return (entry == null) ? null : entry.getKey();
+	}
+	
+	/**
+	 * Get the type adapter applying to a Java class
+	 * @param cls Java class
+	 * @return the applicable type adapter, or <code>null</code> if no adapter applies.
+	 */
+	public WhiteSharkTypeAdapter<Object> getTypeAdapter(Class<?> cls) {
+		Map.Entry<Class<?>, WhiteSharkTypeAdapter<Object>> entry = getTypeAdapterEntry(cls);
+		return (entry == null) ? null : entry.getValue();
+	}
+	
+	/**
+	 * Get the type adapter applying to a Java class, along with the class it is registered for
+	 * <p>
+	 * Both are resolved at once, so they stay consistent if adapters are registered or unregistered concurrently.
+	 * 
+	 * @param cls Java class
+	 * @return the class for which the applicable type adapter is registered and the adapter, or <code>null</code> if no adapter applies.
+	 */
+	@SuppressWarnings("unchecked")
+	Map.Entry<Class<?>, WhiteSharkTypeAdapter<Object>> getTypeAdapterEntry(Class<?> cls) {
+		if (adapters.isEmpty())
+			return null;
+		
+		int version = adaptersVersion;
+		Resolution resolution = adaptedClasses.get(cls);
+		if (resolution == null || resolution.version != version) {
+			resolution = new Resolution(resolveTypeAdapter(cls), version);
+			adaptedClasses.put(cls, resolution);
+		}
+		return (resolution.value == NO_TYPE_ADAPTER) ? null : (Map.Entry<Class<?>, WhiteSharkTypeAdapter<Object>>) resolution.value;
+	}
+	
+	/**
+	 * Resolves the type adapter applying to a Java class
+	 * <p>
+	 * The class itself and its superclasses are looked up first, then its interfaces.
+	 * 
+	 * @param cls Java class
+	 * @return the class for which the applicable type adapter is registered and the adapter, or {@link #NO_TYPE_ADAPTER} if no adapter applies.
+	 */
+	@SuppressWarnings("unchecked")
+	private Object resolveTypeAdapter(Class<?> cls) {
+		for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+			WhiteSharkTypeAdapter<?> adapter = adapters.get(c);
+			if (adapter != null)
+				return new AbstractMap.SimpleImmutableEntry<Class<?>, WhiteSharkTypeAdapter<Object>>(c, (WhiteSharkTypeAdapter<Object>) adapter);
+		}
+		for (Map.Entry<Class<?>, WhiteSharkTypeAdapter<?>> entry : adapters.entrySet()) {
+			if (entry.getKey().isInterface() && entry.getKey().isAssignableFrom(cls))
+				return new AbstractMap.SimpleImmutableEntry<Class<?>, WhiteSharkTypeAdapter<Object>>(entry.getKey(), (WhiteSharkTypeAdapter<Object>) entry.getValue());
+		}
+		return NO_TYPE_ADAPTER;
+	}
+	
+	/**
+	 * Registers a class as immutable
+	 * <p>
+	 * Instances of immutable classes must not be modified once serialized,
+	 * as their encoded bytes are cached and reused.
+	 * 
+	 * @param cls Java class
+	 */
+	public synchronized void registerImmutableClass(Class<?> cls) {
+		if (immutableClasses.put(cls, Boolean.TRUE) == null) {
+			immutableClassesVersion++;
+			immutabilityCache.clear();
+			modificationCount++;
+		}
+	}
+	
+	/**
+	 * Unregisters an immutable class
+	 * <p>
+	 * This method does not affect classes annotated with {@link WhiteSharkImmutable}.
+	 * 
+	 * @param cls Java class
+	 */
+	public synchronized void unregisterImmutableClass(Class<?> cls) {
+		if (immutableClasses.remove(cls) != null) {
+			immutableClassesVersion++;
+			immutabilityCache.clear();
+			modificationCount++;
+		}
+	}
+	
+	/**
+	 * Tells if a class is immutable
+	 * @param cls Java class
+	 * @return <code>true</code> if the class is registered as immutable or annotated with {@link WhiteSharkImmutable}, <code>false</code> either.
+	 */
+	public boolean isImmutableClass(Class<?> cls) {
+		int version = immutableClassesVersion;
+		Resolution resolution = immutabilityCache.get(cls);
+		if (resolution == null || resolution.version != version) {
+			boolean immutable = immutableClasses.containsKey(cls) || (cls.getAnnotation(WhiteSharkImmutable.class) != null);
+			resolution = new Resolution(immutable, version);
+			immutabilityCache.put(cls, resolution);
+		}
+		return (Boolean) resolution.value;
+	}
+	
+	/**
+	 * Registers an instance factory
+	 * <p>
+	 * The factory creates the deserialized objects of the class, in place of its public no-arg constructor.
+	 * It does not apply to subclasses.
+	 * 
+	 * @param cls Java class
+	 * @param factory Instance factory
+	 * @throws IllegalArgumentException If the factory is <code>null</code>.
+	 */
+	public <T> void registerInstanceFactory(Class<T> cls, WhiteSharkInstanceFactory<? extends T> factory) {
+		if (factory == null)
+			throw new IllegalArgumentException("Instance factory cannot be null");
+		factoryInstantiators.put(cls, WhiteSharkInstantiator.fromFactory(factory));
+	}
+	
+	/**
+	 * Unregisters the instance factory of a class
+	 * @param cls Java class
+	 */
+	public void unregisterInstanceFactory(Class<?> cls) {
+		factoryInstantiators.remove(cls);
+	}
+	
+	/**
+	 * Gets the instantiator of a Java class
+	 * @param cls Java class
+	 * @return the instantiator using the registered instance factory of the class if any, or its public no-arg constructor.
+	 * @throws NoSuchMethodException If the class has no instance factory and no public no-arg constructor.
+	 * @throws IllegalAccessException If the class has no instance factory and is not accessible.
+	 * @throws InstantiationException If the class has no instance factory and is abstract.
+	 */
+	WhiteSharkInstantiator getInstantiator(Class<?> cls) throws NoSuchMethodException, IllegalAccessException, InstantiationException {
+		if (!factoryInstantiators.isEmpty()) {
+			WhiteSharkInstantiator instantiator = factoryInstantiators.get(cls);
+			if (instantiator != null)
+				return instantiator;
+		}
+		return WhiteSharkInstantiator.forClass(cls);
+	}
+	
+	/**
+	 * Sets the instance provider
+	 * @param instanceProvider Instance provider, or <code>null</code> to remove the current one
+	 */
+	public void setInstanceProvider(WhiteSharkInstanceProvider instanceProvider) {
+		this.instanceProvider = instanceProvider;
+	}
+	
+	/**
+	 * Gets the instance provider
+	 * @return the instance provider, or <code>null</code> if none is set.
+	 */
+	public WhiteSharkInstanceProvider getInstanceProvider() {
+		return instanceProvider;
+	}
+	
+	/**
+	 * Sets the string cache
+	 * @param stringCache String cache, or <code>null</code> to remove the current one
+	 */
+	public void setStringCache(WhiteSharkStringCache stringCache) {
+		this.stringCache = stringCache;
+	}
+	
+	/**
+	 * Gets the string cache
+	 * @return the string cache, or <code>null</code> if none is set.
+	 */
+	public WhiteSharkStringCache getStringCache() {
+		return stringCache;
+	}
+	
+	/**
+	 * Enables or disables lazy strings
+	 * <p>
+	 * When enabled, the immediate deserializer returns string values as {@link WhiteSharkUtf8String} instances
+	 * wherever the destination accepts them: stream roots, generic objects, and fields or arrays whose type is
+	 * <code>Object</code> or <code>CharSequence</code>. Strings assigned to <code>String</code> fields or arrays, and strings
+	 * added to collections and maps, are still decoded.
+	 * 
+	 * @param lazyStrings If set, lazy strings are enabled
+	 */
+	public void setLazyStrings(boolean lazyStrings) {
+		this.lazyStrings = lazyStrings;
 	}
 	
+	/**
+	 * Tells if lazy strings are enabled
+	 * @return <code>true</code> if strings are deserialized as {@link WhiteSharkUtf8String} instances when possible, <code>false</code> either.
+	 */
+	public boolean hasLazyStrings() {
+		return lazyStrings;
+	}
+	
+	/**
+	 * Enables or disables binary slices
+	 * <p>
+	 * Binary values are written for <code>ByteBuffer</code> values, and for byte arrays with {@link WhiteSharkConstants#OPTIONS_BINARY_BLOBS}.
+	 * By default, they are deserialized as byte arrays. When binary slices are enabled, they are deserialized as read-only
+	 * <code>ByteBuffer</code> slices of the input, without copying them. Slices share the bytes of the input, so the input
+	 * must not be modified or reused while they are in use. Stream inputs are buffered, so their binary values are still copied.
+	 * <p>
+	 * In both cases, binary values assigned to <code>byte[]</code> fields are copied, and binary values assigned to
+	 * <code>ByteBuffer</code> fields are wrapped.
+	 * 
+	 * @param binarySlices If set, binary slices are enabled
+	 */
+	public void setBinarySlices(boolean binarySlices) {
+		this.binarySlices = binarySlices;
+	}
+	
+	/**
+	 * Tells if binary slices are enabled
+	 * @return <code>true</code> if binary values are deserialized as <code>ByteBuffer</code> slices, <code>false</code> either.
+	 */
+	public boolean hasBinarySlices() {
+		return binarySlices;
+	}
+	
+	/**
+	 * Enables or disables schema evolution
+	 * <p>
+	 * By default, deserializers fail on properties that have no matching public field, and on streams written
+	 * with a newer serialization version of a class. When schema evolution is enabled, all serialization versions are accepted and
+	 * properties are resolved through an evolution plan compiled once per class: properties matching a field name or a
+	 * {@link com.xhaleera.whiteshark.annotations.WhiteSharkAlias} of a field are assigned to the field, unknown properties are skipped
+	 * without being decoded, and fields missing from the stream keep their default value.
+	 * 
+	 * @param schemaEvolution If set, schema evolution is enabled
+	 */
+	public void setSchemaEvolution(boolean schemaEvolution) {
+		this.schemaEvolution = schemaEvolution;
+	}
+	
+	/**
+	 * Tells if schema evolution is enabled
+	 * @return <code>true</code> if deserializers tolerate schema changes, <code>false</code> either.
+	 */
+	public boolean hasSchemaEvolution() {
+		return schemaEvolution;
+	}
+	
+	/**
+	 * Sets the number of root elements between two offset index entries
+	 * <p>
+	 * Streams serialized with {@link WhiteSharkConstants#OPTIONS_OFFSET_INDEX} end with an offset index,
+	 * recording the offset of every root property and of one root element out of <code>indexStride</code>.
+	 * Smaller strides make random access to elements faster, and indexes larger. See {@link WhiteSharkIndexedDocument}.
+	 * 
+	 * @param indexStride Number of root elements between two index entries, {@link WhiteSharkConstants#DEFAULT_INDEX_STRIDE} by default
+	 * @throws IllegalArgumentException If the stride is not positive.
+	 */
+	public void setIndexStride(int indexStride) {
+		if (indexStride < 1)
+			throw new IllegalArgumentException("Index stride must be positive");
+		this.indexStride = indexStride;
+	}
+	
+	/**
+	 * Gets the number of root elements between two offset index entries
+	 * @return the index stride
+	 */
+	public int getIndexStride() {
+		return indexStride;
+	}
+	
+	/**
+	 * Creates a deserialized object
+	 * @param cls Java class
+	 * @return the object supplied by the instance provider if any, or a new object created by the instantiator of the class.
+	 * @throws NoSuchMethodException If the class has no instance factory and no public no-arg constructor.
+	 * @throws IllegalAccessException If the class has no instance factory and is not accessible.
+	 * @throws InstantiationException If the class has no instance factory and is abstract.
+	 * @throws InvocationTargetException If the constructor throws an exception.
+	 */
+	Object newInstance(Class<?> cls) throws NoSuchMethodException, IllegalAccessException, InstantiationException, InvocationTargetException {
+		WhiteSharkInstanceProvider provider = instanceProvider;
+		if (provider != null) {
+			Object o = provider.newInstance(cls);
+			if (o != null)
+				return o;
+		}
+		return getInstantiator(cls).newInstance();
+	}
+	
+	/**
+	 * Creates a deserialized array
+	 * @param componentType Component type of the array
+	 * @param length Length of the array
+	 * @return the array supplied by the instance provider if any, or a new array.
+	 */
+	Object newArray(Class<?> componentType, int length) {
+		WhiteSharkInstanceProvider provider = instanceProvider;
+		if (provider != null) {
+			Object arr = provider.newArray(componentType, length);
+			if (arr != null)
+				return arr;
+		}
+		return Array.newInstance(componentType, length);
+	}
+	
+	/**
+	 * Gets the modification count of the class mapper
+	 * <p>
+	 * The count changes each time a change to the class mapper may alter encoded bytes.
+	 * 
+	 * @return the modification count
+	 */
+	int getModificationCount() {
+		return modificationCount;
+	}
+	
+	/**
+	 * Cached resolution, tagged with the version of the registrations it was resolved against
+	 */
+	private static final class Resolution {
+	
+		/** Resolved value */
+		final Object value;
+		/** Version of the registrations */
+		final int version;
+		
+		/**
+		 * Constructor
+		 * @param value Resolved value
+		 * @param version Version of the registrations
+		 */
+		Resolution(Object value, int version) {
+			this.value = value;
+			this.version = version;
+		}
+	
+	}
+
 }
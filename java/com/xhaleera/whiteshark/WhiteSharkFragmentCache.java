@@ -0,0 +1,384 @@
+package com.xhaleera.whiteshark;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Pre-encoded fragments cache
+ * <p>
+ * This class holds the encoded bytes of immutable instances, so they are spliced
+ * into later streams instead of being encoded again.
+ * Fragments are encoded with their own dictionaries, so their bytes do not depend
+ * on the stream they are spliced into. As a consequence, each spliced fragment
+ * repeats the full names of its classes and properties, even if the enclosing stream
+ * already declared them, and an instance referenced several times is spliced every time.
+ * Small immutable instances can then make streams larger than they would be without fragments:
+ * fragments pay off for large subtrees, not for small values.
+ * <p>
+ * The cache is bounded both by a number of entries and by a total number of bytes,
+ * least recently used fragments being evicted first.
+ * Cached instances and class mappers are weakly referenced: fragments are dropped once
+ * their instance or class mapper is garbage collected, and once their class mapper is modified.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkFragmentCache {
+
+	/** Default maximum number of cached fragments */
+	public static final int DEFAULT_MAX_ENTRIES = 256;
+	/** Default maximum total size in bytes of cached fragments */
+	public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+	
+	/** Cached fragments, in access order */
+	private final LinkedHashMap<Key, byte[]> fragments;
+	/** Queue of the cleared references held by fragment keys */
+	private final ReferenceQueue<Object> clearedReferences;
+	/** Last known modification counts of the class mappers of cached fragments */
+	private final WeakHashMap<WhiteSharkExternalClassMapper, Integer> modificationCounts;
+	/** Maximum number of cached fragments */
+	private int maxEntries;
+	/** Maximum total size in bytes of cached fragments */
+	private long maxBytes;
+	/** Total size in bytes of cached fragments */
+	private long byteSize;
+	
+	/** Number of cache hits */
+	private long hitCount;
+	/** Number of cache misses */
+	private long missCount;
+	/** Number of evicted fragments */
+	private long evictionCount;
+	
+	/**
+	 * Constructor
+	 */
+	WhiteSharkFragmentCache() {
+		fragments = new LinkedHashMap<>(16, 0.75f, true);
+		clearedReferences = new ReferenceQueue<>();
+		modificationCounts = new WeakHashMap<>();
+		maxEntries = DEFAULT_MAX_ENTRIES;
+		maxBytes = DEFAULT_MAX_BYTES;
+	}
+	
+	/**
+	 * Sets the maximum number of cached fragments
+	 * @param maxEntries Maximum number of fragments. Zero disables the cache.
+	 */
+	public synchronized void setMaxEntries(int maxEntries) {
+		if (maxEntries < 0)
+			throw new IllegalArgumentException("Maximum number of entries cannot be negative");
+		this.maxEntries = maxEntries;
+		evict();
+	}
+	
+	/**
+	 * Gets the maximum number of cached fragments
+	 * @return the maximum number of fragments
+	 */
+	public synchronized int getMaxEntries() {
+		return maxEntries;
+	}
+	
+	/**
+	 * Sets the maximum total size of cached fragments
+	 * @param maxBytes Maximum total size in bytes. Fragments larger than this size are never cached.
+	 */
+	public synchronized void setMaxBytes(long maxBytes) {
+		if (maxBytes < 0)
+			throw new IllegalArgumentException("Maximum size cannot be negative");
+		this.maxBytes = maxBytes;
+		evict();
+	}
+	
+	/**
+	 * Gets the maximum total size of cached fragments
+	 * @return the maximum total size in bytes
+	 */
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+	
+	/**
+	 * Removes all cached fragments
+	 * <p>
+	 * Statistics are not reset.
+	 */
+	public synchronized void clear() {
+		fragments.clear();
+		modificationCounts.clear();
+		byteSize = 0;
+	}
+	
+	/**
+	 * Resets hit, miss and eviction counts
+	 */
+	public synchronized void resetStatistics() {
+		hitCount = 0;
+		missCount = 0;
+		evictionCount = 0;
+	}
+	
+	/**
+	 * Gets the number of cached fragments
+	 * @return the number of fragments
+	 */
+	public synchronized int size() {
+		expunge();
+		return fragments.size();
+	}
+	
+	/**
+	 * Gets the total size of cached fragments
+	 * @return the total size in bytes
+	 */
+	public synchronized long getByteSize() {
+		expunge();
+		return byteSize;
+	}
+	
+	/**
+	 * Gets the number of cache hits
+	 * @return the number of fragments spliced from the cache
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	
+	/**
+	 * Gets the number of cache misses
+	 * @return the number of fragments that had to be encoded
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+	
+	/**
+	 * Gets the number of evicted fragments
+	 * @return the number of fragments evicted to respect the cache bounds
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+	
+	/**
+	 * Gets the cache hit rate
+	 * @return the ratio of hits to lookups, between 0 and 1, or 0 if no lookup occurred.
+	 */
+	public synchronized double getHitRate() {
+		long lookupCount = hitCount + missCount;
+		return (lookupCount == 0) ? 0 : (double) hitCount / lookupCount;
+	}
+	
+	/**
+	 * Creates a fragment key
+	 * @param obj Encoded instance
+	 * @param classMapper Class mapper
+	 * @param options Serialization options
+	 * @param serializableMap If set, the instance is encoded as a serializable map
+	 * @param serializableCollection If set, the instance is encoded as a serializable collection
+	 * @param fixedPointDecimals Number of decimal digits of fixed-point values, or a negative value if not applicable
+	 * @return the fragment key
+	 */
+	Key key(Object obj, WhiteSharkExternalClassMapper classMapper, short options, boolean serializableMap, boolean serializableCollection, int fixedPointDecimals) {
+		return new Key(obj, classMapper, options, serializableMap, serializableCollection, fixedPointDecimals, clearedReferences);
+	}
+	
+	/**
+	 * Looks up a fragment
+	 * @param key Fragment key
+	 * @return the encoded fragment, or <code>null</code> if it is not cached.
+	 */
+	synchronized byte[] get(Key key) {
+		expunge();
+		byte[] fragment = isCurrent(key) ? fragments.get(key) : null;
+		if (fragment == null)
+			missCount++;
+		else
+			hitCount++;
+		return fragment;
+	}
+	
+	/**
+	 * Stores a fragment
+	 * @param key Fragment key
+	 * @param fragment Encoded fragment
+	 */
+	synchronized void put(Key key, byte[] fragment) {
+		expunge();
+		if (maxEntries == 0 || fragment.length > maxBytes || !isCurrent(key))
+			return;
+		
+		byte[] previous = fragments.put(key, fragment);
+		if (previous != null)
+			byteSize -= previous.length;
+		byteSize += fragment.length;
+		evict();
+	}
+	
+	/**
+	 * Checks the modification count of a key against the last known modification count of its class mapper
+	 * <p>
+	 * When the class mapper has been modified since its fragments were cached, these fragments are dropped.
+	 *
+	 * @param key Fragment key
+	 * @return <code>true</code> if the key was created with the latest known modification count of its class mapper,
+	 * 		<code>false</code> if the class mapper has been modified since.
+	 */
+	private boolean isCurrent(Key key) {
+		WhiteSharkExternalClassMapper classMapper = key.classMapper.get();
+		if (classMapper == null)
+			return false;
+		
+		Integer count = modificationCounts.get(classMapper);
+		if (count != null && key.classMapperModificationCount - count < 0)
+			return false;
+		if (count == null || key.classMapperModificationCount != count) {
+			modificationCounts.put(classMapper, key.classMapperModificationCount);
+			if (count != null)
+				remove(classMapper);
+		}
+		return true;
+	}
+	
+	/**
+	 * Drops the fragments cached for a class mapper
+	 * @param classMapper Class mapper
+	 */
+	private void remove(WhiteSharkExternalClassMapper classMapper) {
+		Iterator<Map.Entry<Key, byte[]>> it = fragments.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Key, byte[]> entry = it.next();
+			if (entry.getKey().classMapper.get() == classMapper) {
+				byteSize -= entry.getValue().length;
+				it.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Drops the fragments whose instance or class mapper has been garbage collected
+	 */
+	private void expunge() {
+		Reference<?> reference;
+		while ((reference = clearedReferences.poll()) != null) {
+			byte[] fragment = fragments.remove(((KeyReference<?>) reference).key);
+			if (fragment != null)
+				byteSize -= fragment.length;
+		}
+	}
+	
+	/**
+	 * Evicts least recently used fragments until the cache bounds are respected
+	 */
+	private void evict() {
+		Iterator<Map.Entry<Key, byte[]>> it = fragments.entrySet().iterator();
+		while (it.hasNext() && (fragments.size() > maxEntries || byteSize > maxBytes)) {
+			byteSize -= it.next().getValue().length;
+			it.remove();
+			evictionCount++;
+		}
+	}
+	
+	/**
+	 * Fragment key
+	 * <p>
+	 * Fragments are identified by the identity of the encoded instance and by everything affecting its encoding.
+	 * The instance and the class mapper are weakly referenced, and a key whose references have been cleared
+	 * is only equal to itself.
+	 */
+	static final class Key {
+	
+		/** Encoded instance */
+		private final KeyReference<Object> obj;
+		/** Class mapper */
+		private final KeyReference<WhiteSharkExternalClassMapper> classMapper;
+		/** Modification count of the class mapper */
+		private final int classMapperModificationCount;
+		/** Serialization options */
+		private final short options;
+		/** Flags of the serializable map and serializable collection modes */
+		private final int flags;
+		/** Number of decimal digits of fixed-point values */
+		private final int fixedPointDecimals;
+		/** Hash code */
+		private final int hashCode;
+		
+		/**
+		 * Constructor
+		 * @param obj Encoded instance
+		 * @param classMapper Class mapper
+		 * @param options Serialization options
+		 * @param serializableMap If set, the instance is encoded as a serializable map
+		 * @param serializableCollection If set, the instance is encoded as a serializable collection
+		 * @param fixedPointDecimals Number of decimal digits of fixed-point values, or a negative value if not applicable
+		 * @param queue Queue of the cleared references
+		 */
+		private Key(Object obj, WhiteSharkExternalClassMapper classMapper, short options, boolean serializableMap, boolean serializableCollection, int fixedPointDecimals, ReferenceQueue<Object> queue) {
+			this.obj = new KeyReference<>(obj, queue, this);
+			this.classMapper = new KeyReference<>(classMapper, queue, this);
+			this.classMapperModificationCount = classMapper.getModificationCount();
+			this.options = options;
+			this.flags = (serializableMap ? 1 : 0) | (serializableCollection ? 2 : 0);
+			this.fixedPointDecimals = fixedPointDecimals;
+			
+			int h = System.identityHashCode(obj);
+			h = 31 * h + System.identityHashCode(classMapper);
+			h = 31 * h + classMapperModificationCount;
+			h = 31 * h + options;
+			h = 31 * h + flags;
+			h = 31 * h + fixedPointDecimals;
+			hashCode = h;
+		}
+		
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (o == this)
+				return true;
+			if (!(o instanceof Key))
+				return false;
+			
+			Key k = (Key) o;
+			Object instance = obj.get();
+			WhiteSharkExternalClassMapper mapper = classMapper.get();
+			return (instance != null && mapper != null && instance == k.obj.get() && mapper == k.classMapper.get() && classMapperModificationCount == k.classMapperModificationCount
+					&& options == k.options && flags == k.flags && fixedPointDecimals == k.fixedPointDecimals);
+		}
+	
+	}
+	
+	/**
+	 * Weak reference held by a fragment key
+	 *
+	 * @param <T> Type of the referent
+	 */
+	private static final class KeyReference<T> extends WeakReference<T> {
+	
+		/** Fragment key holding the reference */
+		private final Key key;
+		
+		/**
+		 * Constructor
+		 * @param referent Referent
+		 * @param queue Queue of the cleared references
+		 * @param key Fragment key holding the reference
+		 */
+		KeyReference(T referent, ReferenceQueue<? super T> queue, Key key) {
+			super(referent, queue);
+			this.key = key;
+		}
+	
+	}
+
+}
@@ -1,27 +1,370 @@
 package com.xhaleera.whiteshark;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * WhiteShark generic object class
  * <p>
  * This class is used to store data of objects serialized as generics.
- * Internally, it is implemented as a {@link HashMap}{@code <String,Object>}.
- * 
+ * Internally, property values are stored in a flat array, in property order. During deserialization, objects
+ * with the same property sequence share the same immutable array of property names, taken from the properties dictionary.
+ * Objects modified with new properties or removals get their own array of property names.
+ * <p>
+ * Generic objects are not thread-safe, and their entries are invalidated by removals.
+ *
  * @author Christophe SAUVEUR (christophe@xhaleera.com)
  * @since 1.0
- * @version 1.0
+ * @version 1.1
  */
-public final class WhiteSharkGenericObject extends HashMap<String, Object> {
-
-	static final long serialVersionUID = 1;
+public final class WhiteSharkGenericObject extends AbstractMap<String, Object> implements Cloneable, Serializable {
 
+	static final long serialVersionUID = 2;
+	
+	/** Shared shape, or <code>null</code> if the object has its own property names */
+	private transient WhiteSharkObjectShape shape;
+	/** Property names, shared with the shape if any */
+	private transient String[] keys;
+	/** Property values */
+	private transient Object[] values;
+	/** Number of properties */
+	private transient int size;
+	/** Property indices, by name, only built for large objects having their own property names */
+	private transient HashMap<String, Integer> indices;
+	/** Entry set view */
+	private transient Set<Map.Entry<String, Object>> entrySet;
+	
 	/**
 	 * Constructor
-	 * @param initialCapacity Initial capacity of the map. See {@link HashMap}
+	 * @param initialCapacity Initial number of properties
+	 * @throws IllegalArgumentException If the initial capacity is negative.
 	 */
 	public WhiteSharkGenericObject(int initialCapacity) {
-		super(initialCapacity);
+		this(WhiteSharkObjectShape.EMPTY, initialCapacity);
+	}
+	
+	/**
+	 * Constructor for deserializers
+	 * @param root Root shape of the deserialization
+	 * @param initialCapacity Initial number of properties
+	 * @throws IllegalArgumentException If the initial capacity is negative.
+	 */
+	WhiteSharkGenericObject(WhiteSharkObjectShape root, int initialCapacity) {
+		if (initialCapacity < 0)
+			throw new IllegalArgumentException(String.format("Illegal capacity: %d", initialCapacity));
+		shape = root;
+		keys = root.keys;
+		values = new Object[initialCapacity];
+	}
+	
+	/**
+	 * Appends a deserialized property, following shape transitions
+	 * <p>
+	 * If the object already has the property, its value is replaced.
+	 *
+	 * @param key Property name
+	 * @param value Property value
+	 */
+	void add(String key, Object value) {
+		if (shape != null) {
+			WhiteSharkObjectShape next = shape.next(key);
+			if (next != null) {
+				ensureCapacity(size + 1);
+				shape = next;
+				keys = next.keys;
+				values[size++] = value;
+				return;
+			}
+		}
+		put(key, value);
+	}
+	
+	/**
+	 * Gets the index of a property
+	 * @param key Property name
+	 * @return the property index, or -1 if the object has no such property.
+	 */
+	private int indexOf(Object key) {
+		if (shape != null)
+			return shape.indexOf(key);
+		
+		if (size > WhiteSharkObjectShape.INDEX_THRESHOLD) {
+			if (indices == null) {
+				indices = new HashMap<>(size * 2);
+				for (int i = 0; i < size; i++)
+					indices.put(keys[i], i);
+			}
+			Integer index = indices.get(key);
+			return (index == null) ? -1 : index;
+		}
+		
+		for (int i = 0; i < size; i++) {
+			if (Objects.equals(keys[i], key))
+				return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Gives the object its own property names, before modifying them
+	 */
+	private void detach() {
+		if (shape != null) {
+			keys = Arrays.copyOf(keys, values.length);
+			shape = null;
+		}
+	}
+	
+	/**
+	 * Ensures the object can store a specific number of properties
+	 * @param capacity Number of properties
+	 */
+	private void ensureCapacity(int capacity) {
+		if (values.length < capacity) {
+			int newCapacity = Math.max(capacity, values.length * 2);
+			values = Arrays.copyOf(values, newCapacity);
+			if (shape == null)
+				keys = Arrays.copyOf(keys, newCapacity);
+		}
+	}
+	
+	/**
+	 * Removes a property
+	 * @param index Property index
+	 */
+	private void removeAt(int index) {
+		detach();
+		int moved = size - index - 1;
+		System.arraycopy(keys, index + 1, keys, index, moved);
+		System.arraycopy(values, index + 1, values, index, moved);
+		size--;
+		keys[size] = null;
+		values[size] = null;
+		indices = null;
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return (indexOf(key) >= 0);
+	}
+	
+	@Override
+	public Object get(Object key) {
+		int index = indexOf(key);
+		return (index < 0) ? null : values[index];
+	}
+	
+	@Override
+	public Object put(String key, Object value) {
+		int index = indexOf(key);
+		if (index >= 0) {
+			Object previous = values[index];
+			values[index] = value;
+			return previous;
+		}
+		
+		detach();
+		ensureCapacity(size + 1);
+		keys[size] = key;
+		values[size] = value;
+		if (indices != null)
+			indices.put(key, size);
+		size++;
+		return null;
+	}
+	
+	@Override
+	public Object remove(Object key) {
+		int index = indexOf(key);
+		if (index < 0)
+			return null;
+		
+		Object previous = values[index];
+		removeAt(index);
+		return previous;
+	}
+	
+	@Override
+	public void clear() {
+		shape = WhiteSharkObjectShape.EMPTY;
+		keys = shape.keys;
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+		indices = null;
+	}
+	
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+			
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					return new Iterator<Map.Entry<String, Object>>() {
+					
+						/** Next property index */
+						private int next = 0;
+						/** Index of the last returned property, or -1 */
+						private int last = -1;
+						
+						@Override
+						public boolean hasNext() {
+							return (next < size);
+						}
+						
+						@Override
+						public Map.Entry<String, Object> next() {
+							if (next >= size)
+								throw new NoSuchElementException();
+							last = next++;
+							return new Entry(last);
+						}
+						
+						@Override
+						public void remove() {
+							if (last < 0)
+								throw new IllegalStateException();
+							if (last >= size)
+								throw new ConcurrentModificationException();
+							removeAt(last);
+							next = last;
+							last = -1;
+						}
+					
+					};
+				}
+				
+				@Override
+				public int size() {
+					return size;
+				}
+				
+				@Override
+				public void clear() {
+					WhiteSharkGenericObject.this.clear();
+				}
+			
+			};
+		}
+		return entrySet;
+	}
+	
+	@Override
+	public WhiteSharkGenericObject clone() {
+		try {
+			WhiteSharkGenericObject o = (WhiteSharkGenericObject) super.clone();
+			o.values = values.clone();
+			if (shape == null)
+				o.keys = keys.clone();
+			o.indices = null;
+			o.entrySet = null;
+			return o;
+		}
+		catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);
+		}
+	}
+	
+	/**
+	 * Writes the object for Java serialization
+	 * @param out Object output stream
+	 * @throws IOException
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeObject(keys[i]);
+			out.writeObject(values[i]);
+		}
+	}
+	
+	/**
+	 * Reads the object for Java serialization
+	 * @param in Object input stream
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		size = in.readInt();
+		keys = new String[size];
+		values = new Object[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = (String) in.readObject();
+			values[i] = in.readObject();
+		}
+	}
+	
+	/**
+	 * Property entry
+	 */
+	private final class Entry implements Map.Entry<String, Object> {
+	
+		/** Property index */
+		private final int index;
+		
+		/**
+		 * Constructor
+		 * @param index Property index
+		 */
+		private Entry(int index) {
+			this.index = index;
+		}
+		
+		@Override
+		public String getKey() {
+			return keys[index];
+		}
+		
+		@Override
+		public Object getValue() {
+			return values[index];
+		}
+		
+		@Override
+		public Object setValue(Object value) {
+			Object previous = values[index];
+			values[index] = value;
+			return previous;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+		}
+		
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	
 	}
 
 }
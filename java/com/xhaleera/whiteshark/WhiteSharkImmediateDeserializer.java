@@ -3,21 +3,24 @@ package com.xhaleera.whiteshark;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Vector;
 
-import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
 import com.xhaleera.whiteshark.annotations.WhiteSharkSerializableCollection;
 import com.xhaleera.whiteshark.annotations.WhiteSharkSerializableMap;
+
 import com.xhaleera.whiteshark.exceptions.WhiteSharkException;
 import com.xhaleera.whiteshark.exceptions.WhiteSharkIncompatibleSerializationVersionException;
 import com.xhaleera.whiteshark.exceptions.WhiteSharkMismatchingIdentifierException;
 import com.xhaleera.whiteshark.exceptions.WhiteSharkMissingFormatIdentifierException;
+import com.xhaleera.whiteshark.exceptions.WhiteSharkMissingTypeAdapterException;
 import com.xhaleera.whiteshark.exceptions.WhiteSharkNotAPropertyException;
 import com.xhaleera.whiteshark.exceptions.WhiteSharkUnsupportedVersionException;
 
@@ -26,6 +29,13 @@ import com.xhaleera.whiteshark.exceptions.WhiteSharkUnsupportedVersionException;
  * <p>
  * This class is used to deserialize completely buffered WhiteShark streams.
  * To deserialize incomplete (unbuffered) streams, use WhiteSharkProgressiveDeserializer.
+ * <p>
+ * Byte arrays and ByteBuffers are decoded in place, with an index cursor and absolute reads.
+ * Streams are read through the same cursor, by blocks when they support marks.
+ * <p>
+ * Deserializer instances hold their own dictionaries, which are reused from one stream to the next.
+ * An instance deserializes one stream at a time, but different instances can be used concurrently.
+ * Static methods use an instance per thread, so they can be called from several threads at once.
  * 
  * @author Christophe SAUVEUR (christophe@xhaleera.com)
  * @since 1.0
@@ -34,14 +44,74 @@ import com.xhaleera.whiteshark.exceptions.WhiteSharkUnsupportedVersionException;
 public class WhiteSharkImmediateDeserializer {
 
 	/** Default class mapper */
-	private static final WhiteSharkExternalClassMapper defaultClassMapper = new WhiteSharkExternalClassMapper();
-	/** Class mapper used for deserialization */
-	private static WhiteSharkExternalClassMapper classMapper;
+	static final WhiteSharkExternalClassMapper defaultClassMapper = new WhiteSharkExternalClassMapper();
+	/** Per-thread deserializers, used by static methods */
+	private static final ThreadLocal<WhiteSharkImmediateDeserializer> threadDeserializers = new ThreadLocal<WhiteSharkImmediateDeserializer>() {
+		
+		@Override
+		protected WhiteSharkImmediateDeserializer initialValue() {
+			return new WhiteSharkImmediateDeserializer(null, null);
+		}
+		
+	};
+	
+	/** Custom stream identifier of the instance */
+	private final String identifier;
+	/** External class mapper of the instance */
+	private final WhiteSharkExternalClassMapper instanceClassMapper;
+	
+	/** Class mapper used for the current deserialization */
+	private WhiteSharkExternalClassMapper classMapper;
+	/** Flag indicating if a deserialization is in progress */
+	private boolean busy;
+	/** Flag indicating if strings are deserialized as lazy strings */
+	private boolean lazyStrings;
+	/** Flag indicating if binary values are deserialized as slices */
+	private boolean binarySlices;
+	/** Flag indicating if schema evolution is enabled */
+	private boolean schemaEvolution;
 	
-	/** Classes dictionary */
-	private static Vector<Class<?>> classDictionary = new Vector<>();
+	/** Classes dictionary, holding unresolved references for classes only found in skipped values */
+	private ArrayList<Object> classDictionary;
 	/** Properties dictionary */
-	private static Vector<String> propertyDictionary = new Vector<>();
+	private ArrayList<String> propertyDictionary;
+	/** Property binding tables, by class, indexed like the properties dictionary */
+	private HashMap<Class<?>, WhiteSharkPropertyBinding.Table> bindingTables;
+	/** Root shape of generic objects, kept across deserializations */
+	private WhiteSharkObjectShape genericShapes;
+	
+	/**
+	 * Constructor
+	 * @param identifier Custom stream identifier
+	 */
+	public WhiteSharkImmediateDeserializer(String identifier) {
+		this(identifier, defaultClassMapper);
+	}
+	
+	/**
+	 * Constructor
+	 * @param identifier Custom stream identifier
+	 * @param classMapper External class mapper
+	 */
+	public WhiteSharkImmediateDeserializer(String identifier, WhiteSharkExternalClassMapper classMapper) {
+		this.identifier = identifier;
+		instanceClassMapper = classMapper;
+		busy = false;
+		
+		classDictionary = new ArrayList<>();
+		propertyDictionary = new ArrayList<>();
+		bindingTables = new HashMap<>();
+		genericShapes = new WhiteSharkObjectShape();
+	}
+	
+	/**
+	 * Gets the deserializer of the current thread
+	 * @return the deserializer of the current thread, or a new deserializer if it is already in use (by a nested deserialization).
+	 */
+	static WhiteSharkImmediateDeserializer threadDeserializer() {
+		WhiteSharkImmediateDeserializer deserializer = threadDeserializers.get();
+		return deserializer.busy ? new WhiteSharkImmediateDeserializer(null, null) : deserializer;
+	}
 	
 	/**
 	 * Deserializes a completely buffered WhiteShark stream
@@ -63,13 +133,252 @@ public class WhiteSharkImmediateDeserializer {
 	public static Object deserialize(String identifier, InputStream stream) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
 		return deserialize(identifier, stream, defaultClassMapper);
 	}
-
+	
 	/**
 	 * Deserializes a completely buffered WhiteShark stream
+	 * <p>
+	 * The stream is left positioned right after the deserialized data. Streams not supporting marks are read
+	 * with many small reads, so they should be wrapped in a BufferedInputStream.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param stream Stream to deserialize
+	 * @param classMapper External class mapper
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, InputStream stream, WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserialize(identifier, stream, classMapper, null);
+	}
+	
+	/**
+	 * Deserializes selected properties of a completely buffered WhiteShark stream
+	 * <p>
+	 * The stream is left positioned right after the deserialized data. Streams not supporting marks are read
+	 * with many small reads, so they should be wrapped in a BufferedInputStream.
 	 * 
 	 * @param identifier Custom WhiteShark stream identifier to handle
 	 * @param stream Stream to deserialize
 	 * @param classMapper External class mapper
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, InputStream stream, WhiteSharkExternalClassMapper classMapper, WhiteSharkProjection projection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return threadDeserializer().read(identifier, stream, classMapper, projection, null);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param bytes Byte array to deserialize
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, byte[] bytes) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserialize(identifier, bytes, defaultClassMapper);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param bytes Byte array to deserialize
+	 * @param classMapper External class mapper
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, byte[] bytes, WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserialize(identifier, bytes, classMapper, null);
+	}
+	
+	/**
+	 * Deserializes selected properties of a completely buffered WhiteShark stream
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param bytes Byte array to deserialize
+	 * @param classMapper External class mapper
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, byte[] bytes, WhiteSharkExternalClassMapper classMapper, WhiteSharkProjection projection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return threadDeserializer().read(identifier, bytes, classMapper, projection, null);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream
+	 * <p>
+	 * Deserialization starts at the current position of the buffer, which can be a direct buffer.
+	 * The position of the buffer is then advanced right after the deserialized data.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer to deserialize
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, ByteBuffer buffer) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserialize(identifier, buffer, defaultClassMapper);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream
+	 * <p>
+	 * Deserialization starts at the current position of the buffer, which can be a direct buffer.
+	 * The position of the buffer is then advanced right after the deserialized data.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer to deserialize
+	 * @param classMapper External class mapper
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, ByteBuffer buffer, WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserialize(identifier, buffer, classMapper, null);
+	}
+	
+	/**
+	 * Deserializes selected properties of a completely buffered WhiteShark stream
+	 * <p>
+	 * Deserialization starts at the current position of the buffer, which can be a direct buffer.
+	 * The position of the buffer is then advanced right after the deserialized data.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer to deserialize
+	 * @param classMapper External class mapper
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, ByteBuffer buffer, WhiteSharkExternalClassMapper classMapper, WhiteSharkProjection projection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return threadDeserializer().read(identifier, buffer, classMapper, projection, null);
+	}
+	
+	/**
+	 * Deserializes a WhiteShark file using memory mapping
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param path Path of the file to deserialize
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, Path path) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserialize(identifier, path, defaultClassMapper);
+	}
+	
+	/**
+	 * Deserializes a WhiteShark file using memory mapping
+	 * <p>
+	 * The file is mapped by windows of 256 MB, so files larger than 2 GB are supported.
+	 * Data is decoded directly from the mapped buffers, without read calls nor copies to the heap.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param path Path of the file to deserialize
+	 * @param classMapper External class mapper
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, Path path, WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserialize(identifier, path, classMapper, null);
+	}
+	
+	/**
+	 * Deserializes selected properties of a WhiteShark file using memory mapping
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param path Path of the file to deserialize
+	 * @param classMapper External class mapper
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
 	 * @return a generic Object containing the deserialized value
 	 * @throws ClassNotFoundException
 	 * @throws NoSuchMethodException
@@ -78,45 +387,880 @@ public class WhiteSharkImmediateDeserializer {
 	 * @throws IllegalAccessException
 	 * @throws IllegalArgumentException
 	 * @throws InvocationTargetException
-	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, Path path, WhiteSharkExternalClassMapper classMapper, WhiteSharkProjection projection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return threadDeserializer().read(identifier, path, classMapper, projection, null);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream into an existing value
+	 * <p>
+	 * Objects of the same class as the existing ones, and arrays of the same type and length, are populated in place.
+	 * Serializable collections and maps are cleared before being populated. Other values are allocated.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param stream Stream to deserialize
+	 * @param target Existing value to populate
+	 * @return the target if it has been populated in place, or the new deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserializeInto(String identifier, InputStream stream, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserializeInto(identifier, stream, defaultClassMapper, target);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream into an existing value
+	 * <p>
+	 * Objects of the same class as the existing ones, and arrays of the same type and length, are populated in place.
+	 * Serializable collections and maps are cleared before being populated. Other values are allocated.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param stream Stream to deserialize
+	 * @param classMapper External class mapper
+	 * @param target Existing value to populate
+	 * @return the target if it has been populated in place, or the new deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserializeInto(String identifier, InputStream stream, WhiteSharkExternalClassMapper classMapper, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return threadDeserializer().read(identifier, stream, classMapper, null, target);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream into an existing value
+	 * <p>
+	 * Objects of the same class as the existing ones, and arrays of the same type and length, are populated in place.
+	 * Serializable collections and maps are cleared before being populated. Other values are allocated.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param bytes Byte array to deserialize
+	 * @param target Existing value to populate
+	 * @return the target if it has been populated in place, or the new deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserializeInto(String identifier, byte[] bytes, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserializeInto(identifier, bytes, defaultClassMapper, target);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream into an existing value
+	 * <p>
+	 * Objects of the same class as the existing ones, and arrays of the same type and length, are populated in place.
+	 * Serializable collections and maps are cleared before being populated. Other values are allocated.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param bytes Byte array to deserialize
+	 * @param classMapper External class mapper
+	 * @param target Existing value to populate
+	 * @return the target if it has been populated in place, or the new deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserializeInto(String identifier, byte[] bytes, WhiteSharkExternalClassMapper classMapper, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return threadDeserializer().read(identifier, bytes, classMapper, null, target);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream into an existing value
+	 * <p>
+	 * Objects of the same class as the existing ones, and arrays of the same type and length, are populated in place.
+	 * Serializable collections and maps are cleared before being populated. Other values are allocated.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer to deserialize
+	 * @param target Existing value to populate
+	 * @return the target if it has been populated in place, or the new deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserializeInto(String identifier, ByteBuffer buffer, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserializeInto(identifier, buffer, defaultClassMapper, target);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream into an existing value
+	 * <p>
+	 * Objects of the same class as the existing ones, and arrays of the same type and length, are populated in place.
+	 * Serializable collections and maps are cleared before being populated. Other values are allocated.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer to deserialize
+	 * @param classMapper External class mapper
+	 * @param target Existing value to populate
+	 * @return the target if it has been populated in place, or the new deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public static Object deserializeInto(String identifier, ByteBuffer buffer, WhiteSharkExternalClassMapper classMapper, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return threadDeserializer().read(identifier, buffer, classMapper, null, target);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream from an input cursor
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param in Input cursor
+	 * @param classMapper External class mapper
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	static Object deserialize(String identifier, WhiteSharkInputCursor in, WhiteSharkExternalClassMapper classMapper, WhiteSharkProjection projection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return threadDeserializer().read(identifier, in, classMapper, projection, null);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream
+	 * <p>
+	 * The stream is left positioned right after the deserialized data.
+	 * 
+	 * @param stream Stream to deserialize
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object read(InputStream stream) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(stream, null);
+	}
+	
+	/**
+	 * Deserializes selected properties of a completely buffered WhiteShark stream
+	 * <p>
+	 * The stream is left positioned right after the deserialized data.
+	 * 
+	 * @param stream Stream to deserialize
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object read(InputStream stream, WhiteSharkProjection projection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(identifier, stream, instanceClassMapper, projection, null);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream
+	 * 
+	 * @param bytes Byte array to deserialize
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object read(byte[] bytes) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(bytes, null);
+	}
+	
+	/**
+	 * Deserializes selected properties of a completely buffered WhiteShark stream
+	 * 
+	 * @param bytes Byte array to deserialize
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object read(byte[] bytes, WhiteSharkProjection projection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(identifier, bytes, instanceClassMapper, projection, null);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream
+	 * <p>
+	 * The position of the buffer is advanced right after the deserialized data.
+	 * 
+	 * @param buffer Buffer to deserialize
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object read(ByteBuffer buffer) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(buffer, null);
+	}
+	
+	/**
+	 * Deserializes selected properties of a completely buffered WhiteShark stream
+	 * <p>
+	 * The position of the buffer is advanced right after the deserialized data.
+	 * 
+	 * @param buffer Buffer to deserialize
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object read(ByteBuffer buffer, WhiteSharkProjection projection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(identifier, buffer, instanceClassMapper, projection, null);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream
+	 * <p>
+	 * The file is deserialized using memory mapping.
+	 * 
+	 * @param path Path of the file to deserialize
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object read(Path path) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(path, null);
+	}
+	
+	/**
+	 * Deserializes selected properties of a completely buffered WhiteShark stream
+	 * <p>
+	 * The file is deserialized using memory mapping.
+	 * 
+	 * @param path Path of the file to deserialize
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object read(Path path, WhiteSharkProjection projection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(identifier, path, instanceClassMapper, projection, null);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream into an existing value
+	 * <p>
+	 * Objects of the same class as the existing ones, and arrays of the same type and length, are populated in place.
+	 * Serializable collections and maps are cleared before being populated. Other values are allocated.
+	 * 
+	 * @param stream Stream to deserialize
+	 * @param target Existing value to populate
+	 * @return the target if it has been populated in place, or the new deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object readInto(InputStream stream, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(identifier, stream, instanceClassMapper, null, target);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream into an existing value
+	 * <p>
+	 * Objects of the same class as the existing ones, and arrays of the same type and length, are populated in place.
+	 * Serializable collections and maps are cleared before being populated. Other values are allocated.
+	 * 
+	 * @param bytes Byte array to deserialize
+	 * @param target Existing value to populate
+	 * @return the target if it has been populated in place, or the new deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object readInto(byte[] bytes, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(identifier, bytes, instanceClassMapper, null, target);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream into an existing value
+	 * <p>
+	 * Objects of the same class as the existing ones, and arrays of the same type and length, are populated in place.
+	 * Serializable collections and maps are cleared before being populated. Other values are allocated.
+	 * 
+	 * @param buffer Buffer to deserialize
+	 * @param target Existing value to populate
+	 * @return the target if it has been populated in place, or the new deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object readInto(ByteBuffer buffer, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(identifier, buffer, instanceClassMapper, null, target);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream with this deserializer
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param stream Stream to deserialize
+	 * @param classMapper External class mapper
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @param target Existing value to populate, or <code>null</code> to allocate a new value
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	private Object read(String identifier, InputStream stream, WhiteSharkExternalClassMapper classMapper, WhiteSharkProjection projection, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		WhiteSharkInputCursor in = new WhiteSharkStreamInputCursor(stream);
+		try {
+			return read(identifier, in, classMapper, projection, target);
+		}
+		finally {
+			in.release();
+		}
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream with this deserializer
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param bytes Byte array to deserialize
+	 * @param classMapper External class mapper
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @param target Existing value to populate, or <code>null</code> to allocate a new value
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	private Object read(String identifier, byte[] bytes, WhiteSharkExternalClassMapper classMapper, WhiteSharkProjection projection, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return read(identifier, new WhiteSharkInputCursor(bytes), classMapper, projection, target);
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream with this deserializer
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer to deserialize
+	 * @param classMapper External class mapper
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @param target Existing value to populate, or <code>null</code> to allocate a new value
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	private Object read(String identifier, ByteBuffer buffer, WhiteSharkExternalClassMapper classMapper, WhiteSharkProjection projection, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		WhiteSharkInputCursor in = new WhiteSharkInputCursor(buffer);
+		Object result = read(identifier, in, classMapper, projection, target);
+		buffer.position(buffer.position() + (int) in.position());
+		return result;
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream with this deserializer
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param path Path of the file to deserialize
+	 * @param classMapper External class mapper
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @param target Existing value to populate, or <code>null</code> to allocate a new value
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	private Object read(String identifier, Path path, WhiteSharkExternalClassMapper classMapper, WhiteSharkProjection projection, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(identifier, new WhiteSharkMappedFileInputCursor(channel, WhiteSharkMappedFileInputCursor.DEFAULT_WINDOW_SIZE), classMapper, projection, target);
+		}
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream from an input cursor with this deserializer
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param in Input cursor
+	 * @param classMapper External class mapper
+	 * @param projection Property paths to deserialize, or <code>null</code> to deserialize everything
+	 * @param target Existing value to populate, or <code>null</code> to allocate a new value
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	private Object read(String identifier, WhiteSharkInputCursor in, WhiteSharkExternalClassMapper classMapper, WhiteSharkProjection projection, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		begin(classMapper);
+		try {
+			short options = readHeader(identifier, in);
+			Object result = deserialize(in, in.readByte(), options, false, false, (projection == null || projection.isComplete()) ? null : projection, target);
+			if (WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OFFSET_INDEX))
+				WhiteSharkOffsetIndex.skip(in);
+			return result;
+		}
+		finally {
+			end();
+		}
+	}
+	
+	/**
+	 * Starts a deserialization
+	 * @param classMapper External class mapper
+	 * @throws IllegalStateException If a deserialization is already in progress.
+	 */
+	private void begin(WhiteSharkExternalClassMapper classMapper) {
+		if (busy)
+			throw new IllegalStateException("A deserialization is already in progress");
+		busy = true;
+		
+		this.classMapper = (classMapper == null) ? defaultClassMapper : classMapper;
+		lazyStrings = this.classMapper.hasLazyStrings();
+		binarySlices = this.classMapper.hasBinarySlices();
+		schemaEvolution = this.classMapper.hasSchemaEvolution();
+		if (genericShapes.isFull())
+			genericShapes = new WhiteSharkObjectShape();
+	}
+	
+	/**
+	 * Ends a deserialization, successful or not, resetting the dictionaries
+	 * <p>
+	 * Deserializers are reused by the thread that owns them, so nothing decoded from the stream is retained once it ends.
+	 */
+	private void end() {
+		classMapper = null;
+		classDictionary.clear();
+		propertyDictionary.clear();
+		bindingTables.clear();
+		busy = false;
+	}
+	
+	/**
+	 * Scans the elements of a root array or collection, without decoding them
+	 * <p>
+	 * The root value must be an array, or an object of a collection class annotated with {@link WhiteSharkSerializableCollection}
+	 * having collection items only. Elements are skipped, registering the dictionary entries they define.
+	 * 
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param in Input cursor, positioned at the start of the stream
+	 * @param classMapper External class mapper
+	 * @param maxRanges Maximum number of ranges
+	 * @param minRangeSize Minimum number of elements per range
+	 * @return the layout of the root value, or <code>null</code> if the root value cannot be split into several ranges.
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	WhiteSharkRootLayout scan(String identifier, WhiteSharkInputCursor in, WhiteSharkExternalClassMapper classMapper, int maxRanges, int minRangeSize) throws ClassNotFoundException, WhiteSharkException, IOException {
+		begin(classMapper);
+		try {
+			short options = readHeader(identifier, in);
+			byte mask = in.readByte();
+			byte dataType = (byte) (mask & 0xf);
+			
+			boolean array = (dataType == WhiteSharkDataType.ARRAY.getMask());
+			Class<?> rootClass;
+			if (array)
+				rootClass = readClassName(in);
+			else if (dataType == WhiteSharkDataType.OBJECT.getMask() && !WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS) && (mask & 0x80) == 0) {
+				rootClass = readClassName(in);
+				checkSerializationVersion(rootClass, in.readInt());
+				if (!Collection.class.isAssignableFrom(rootClass) || rootClass.getAnnotation(WhiteSharkSerializableCollection.class) == null)
+					return null;
+			}
+			else
+				return null;
+			classDictionary.add(rootClass);
+			
+			int count = readCount(in, (mask & 0x30) >> 4);
+			int rangeCount = Math.min(maxRanges, count / Math.max(minRangeSize, 1));
+			if (rangeCount < 2)
+				return null;
+			int rangeSize = (count + rangeCount - 1) / rangeCount;
+			rangeCount = (count + rangeSize - 1) / rangeSize;
+			
+			WhiteSharkRootLayout layout = new WhiteSharkRootLayout(options, rootClass, array, count, rangeCount, classDictionary, propertyDictionary);
+			int range = 0;
+			for (int i = 0; i < count; i++) {
+				if (i == layout.starts[range]) {
+					layout.positions[range] = in.position;
+					layout.classCounts[range] = classDictionary.size();
+					layout.propertyCounts[range] = propertyDictionary.size();
+					range++;
+				}
+				if (!array && !readPropertyName(in).equals(WhiteSharkConstants.COLLECTION_ITEM_PROPERTY_NAME))
+					return null;
+				skip(in, options);
+			}
+			if (WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OFFSET_INDEX))
+				WhiteSharkOffsetIndex.skip(in);
+			layout.end = in.position;
+			
+			classDictionary = new ArrayList<>();
+			propertyDictionary = new ArrayList<>();
+			return layout;
+		}
+		finally {
+			end();
+		}
+	}
+	
+	/**
+	 * Decodes a range of elements of a scanned root array or collection
+	 * @param in Input cursor over the stream
+	 * @param classMapper External class mapper
+	 * @param layout Layout of the root value
+	 * @param range Range index
+	 * @param sink Root array, or list receiving the items of the root collection
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	void readRange(WhiteSharkInputCursor in, WhiteSharkExternalClassMapper classMapper, WhiteSharkRootLayout layout, int range, Object sink) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		begin(classMapper);
+		try {
+			classDictionary.addAll(layout.classes.subList(0, layout.classCounts[range]));
+			propertyDictionary.addAll(layout.properties.subList(0, layout.propertyCounts[range]));
+			in.position = layout.positions[range];
+			int from = layout.starts[range];
+			int to = layout.starts[range + 1];
+			if (layout.array)
+				deserializeElements(in, layout.options, sink, layout.rootClass, from, to, null, false);
+			else {
+				WhiteSharkPropertyBinding.Table bindings = new WhiteSharkPropertyBinding.Table(layout.rootClass, schemaEvolution);
+				bindingTables.put(layout.rootClass, bindings);
+				for (int i = from; i < to; i++)
+					deserializeProperty(in, sink, bindings, false, true, layout.options, null, false);
+			}
+		}
+		finally {
+			end();
+		}
+	}
+	
+	/**
+	 * Decodes a root element or property located by an offset index
+	 * <p>
+	 * Root array elements are decoded to the component class of the array, and properties of typed root objects to the type of their field.
+	 * Collection items, map entries and properties of generic root objects are decoded as they would be in their parent.
+	 * 
+	 * @param in Input cursor, positioned on the indexed element or property
+	 * @param classMapper External class mapper
+	 * @param index Offset index of the stream
+	 * @param options Serialization options of the stream
+	 * @param rootClass Component class of the root array, class of the root object, or <code>null</code> if the root object is generic
+	 * @param array If set, the root value is an array
+	 * @param classCount Size of the classes dictionary at the cursor position
+	 * @param propertyCount Size of the properties dictionary at the cursor position
+	 * @param skipCount Number of elements to skip before the decoded one
+	 * @return the decoded value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	Object readIndexed(WhiteSharkInputCursor in, WhiteSharkExternalClassMapper classMapper, WhiteSharkOffsetIndex index, short options, Class<?> rootClass, boolean array, int classCount, int propertyCount, int skipCount) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		begin(classMapper);
+		try {
+			classDictionary.addAll(index.classes.subList(0, classCount));
+			propertyDictionary.addAll(index.properties.subList(0, propertyCount));
+			
+			if (array) {
+				for (int i = 0; i < skipCount; i++)
+					skip(in, options);
+				Object arr = Array.newInstance(rootClass, 1);
+				deserializeElements(in, options, arr, rootClass, 0, 1, null, false);
+				return Array.get(arr, 0);
+			}
+			
+			for (int i = 0; i < skipCount; i++) {
+				readPropertyName(in);
+				skip(in, options);
+			}
+			String name = readPropertyName(in);
+			if (rootClass == null)
+				return deserialize(in, options, false, false, null);
+			
+			WhiteSharkPropertyBinding binding = schemaEvolution ? WhiteSharkEvolutionPlan.of(rootClass).binding(name) : WhiteSharkPropertyBinding.resolve(rootClass, name);
+			if (binding.kind != WhiteSharkPropertyBinding.FIELD) {
+				Object o = deserialize(in, options, false, false, null);
+				return (o instanceof WhiteSharkUtf8String) ? o.toString() : o;
+			}
+			else if (binding.serializableMap || binding.serializableCollection)
+				return adaptValue(deserialize(in, in.readByte(), options, binding.serializableMap, binding.serializableCollection, null, null), binding.field.getType());
+			else {
+				Object value = Array.newInstance(binding.field.getType(), 1);
+				deserializeElements(in, options, value, binding.field.getType(), 0, 1, null, false);
+				return Array.get(value, 0);
+			}
+		}
+		finally {
+			end();
+		}
+	}
+	
+	/**
+	 * Reads a property name, registering it in the properties dictionary if needed
+	 * @param in Input cursor
+	 * @return the property name
+	 * @throws IOException
+	 * @throws WhiteSharkNotAPropertyException
+	 */
+	private String readPropertyName(WhiteSharkInputCursor in) throws IOException, WhiteSharkNotAPropertyException {
+		byte mask = in.readByte();
+		if ((mask & 0xf) != WhiteSharkDataType.PROPERTY.getMask())
+			throw new WhiteSharkNotAPropertyException("Not a property");
+		
+		if ((mask & 0x20) != 0)
+			return propertyDictionary.get(in.readShort());
+		
+		String name = in.readAscii(((mask & 0x10) != 0) ? in.readShort() : in.readUnsignedByte());
+		propertyDictionary.add(name);
+		return name;
+	}
+	
+	/**
+	 * Reads and checks a stream header
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param in Input cursor
+	 * @return the serialization options of the stream
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	static short readHeader(String identifier, WhiteSharkInputCursor in) throws WhiteSharkException, IOException {
+		identifier = WhiteSharkUtils.sanitizeIdentifier(identifier);
+		
+		if (!readAscii(in, WhiteSharkConstants.FORMAT_IDENTIFIER))
+			throw new WhiteSharkMissingFormatIdentifierException("Format identifier unfound");
+		
+		if (!readAscii(in, identifier))
+			throw new WhiteSharkMismatchingIdentifierException("Identifiers do not match");
+		
+		if (in.readShort() != WhiteSharkConstants.VERSION)
+			throw new WhiteSharkUnsupportedVersionException("Versions do not match");
+		
+		return in.readShort();
+	}
+	
+	/**
+	 * Reads an ASCII string and compares it to an expected value, without decoding it
+	 * @param in Input cursor
+	 * @param expected Expected value
+	 * @return <code>true</code> if the read bytes match the expected value, <code>false</code> either.
+	 * @throws IOException
+	 */
+	private static boolean readAscii(WhiteSharkInputCursor in, String expected) throws IOException {
+		boolean match = true;
+		int length = expected.length();
+		for (int i = 0; i < length; i++) {
+			if (in.readByte() != expected.charAt(i))
+				match = false;
+		}
+		return match;
+	}
+	
+	/**
+	 * Generic deserialization method
+	 * @param in Input cursor
+	 * @param options Serialization options
+	 * @param serializableMap If set, the deserializable object is a serializable map
+	 * @param serializableCollection If set, the deserializable object is a serializable collection
+	 * @param projection Properties to deserialize, or <code>null</code> to deserialize everything
+	 * @return the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkNotAPropertyException
 	 * @throws NoSuchFieldException
 	 * @throws IOException
 	 */
-	public static Object deserialize(String identifier, InputStream stream, WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
-		WhiteSharkImmediateDeserializer.classMapper = (classMapper == null) ? defaultClassMapper : classMapper;
-		
-		classDictionary.clear();
-		propertyDictionary.clear();
-		
-		identifier = WhiteSharkUtils.sanitizeIdentifier(identifier);
-		
-		byte[] b = new byte[12];
-		ByteBuffer buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-		stream.read(b);
-		
-		byte[] b4 = new byte[4];
-		buf.get(b4);
-		if (new String(b4, "US-ASCII").equals(WhiteSharkConstants.FORMAT_IDENTIFIER) == false)
-			throw new WhiteSharkMissingFormatIdentifierException("Format identifier unfound");
-		
-		buf.get(b4);
-		if (new String(b4, "US-ASCII").equals(identifier) == false)
-			throw new WhiteSharkMismatchingIdentifierException("Identifiers do not match");
-		
-		if (buf.getShort() != WhiteSharkConstants.VERSION)
-			throw new WhiteSharkUnsupportedVersionException("Versions do not match");
-		
-		short options = buf.getShort();
-		return deserialize(stream, options, false, false);
+	private Object deserialize(WhiteSharkInputCursor in, short options, boolean serializableMap, boolean serializableCollection, WhiteSharkProjection projection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, WhiteSharkMissingTypeAdapterException, NoSuchFieldException, IOException {
+		return deserialize(in, in.readByte(), options, serializableMap, serializableCollection, projection, null);
 	}
 	
 	/**
-	 * Generic deserialization method
-	 * @param stream Stream to deserialize
+	 * Generic deserialization method, once the value mask has been read
+	 * @param in Input cursor, positioned after the value mask
+	 * @param mask Value mask
 	 * @param options Serialization options
 	 * @param serializableMap If set, the deserializable object is a serializable map
 	 * @param serializableCollection If set, the deserializable object is a serializable collection
-	 * @return a generic Object containing the deserialized value
+	 * @param projection Properties to deserialize, or <code>null</code> to deserialize everything
+	 * @param target Existing value to populate, or <code>null</code> to allocate a new value
+	 * @return the deserialized value
 	 * @throws ClassNotFoundException
 	 * @throws NoSuchMethodException
 	 * @throws SecurityException
@@ -128,8 +1272,7 @@ public class WhiteSharkImmediateDeserializer {
 	 * @throws NoSuchFieldException
 	 * @throws IOException
 	 */
-	private static Object deserialize(InputStream stream, short options, boolean serializableMap, boolean serializableCollection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, NoSuchFieldException, IOException {
-		byte mask = (byte) stream.read();
+	private Object deserialize(WhiteSharkInputCursor in, byte mask, short options, boolean serializableMap, boolean serializableCollection, WhiteSharkProjection projection, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, WhiteSharkMissingTypeAdapterException, NoSuchFieldException, IOException {
 		byte dataType = (byte) (mask & 0xf);
 		
 		// Null
@@ -142,29 +1285,116 @@ public class WhiteSharkImmediateDeserializer {
 		
 		// Integer
 		else if (dataType == WhiteSharkDataType.INTEGER.getMask())
-			return deserializeInteger(stream, mask, options);
+			return deserializeInteger(in, mask, options);
 		
 		// Real
 		else if (dataType == WhiteSharkDataType.REAL.getMask())
-			return deserializeReal(stream, mask, options);
+			return deserializeReal(in, mask, options);
 		
 		// Character
 		else if (dataType == WhiteSharkDataType.CHAR.getMask())
-			return deserializeCharacter(stream, mask, options);
+			return deserializeCharacter(in, mask, options);
 		
 		// String
 		else if (dataType == WhiteSharkDataType.STRING.getMask())
-			return deserializeString(stream, mask, options);
+			return lazyStrings ? deserializeUtf8String(in, mask, options) : deserializeString(in, mask, options, classMapper.getStringCache());
+		
+		// Binary
+		else if (dataType == WhiteSharkDataType.BINARY.getMask())
+			return deserializeBinary(in, mask, options, binarySlices, target);
 		
 		// Array
 		else if (dataType == WhiteSharkDataType.ARRAY.getMask())
-			return deserializeArray(stream, mask, options);
+			return deserializeArray(in, mask, options, projection, target);
+		
+		// Custom
+		else if (dataType == WhiteSharkDataType.CUSTOM.getMask())
+			return deserializeCustom(in, mask, options);
+		
+		// Fragment
+		else if (dataType == WhiteSharkDataType.FRAGMENT.getMask()) {
+			in.skip(4);
+			return deserializeFragment(in, options, serializableMap, serializableCollection, projection, target);
+		}
 		
 		// Object
 		else
-			return deserializeObject(stream, mask, options, serializableMap, serializableCollection);
+			return deserializeObject(in, mask, options, serializableMap, serializableCollection, projection, target);
 	}
-
+	
+	/**
+	 * Deserializes the content of a pre-encoded fragment
+	 * <p>
+	 * Fragments are encoded with their own dictionaries, which are discarded once the fragment is read.
+	 * 
+	 * @param in Input cursor
+	 * @param options Serialization options
+	 * @param serializableMap If set, the deserializable value is a serializable map
+	 * @param serializableCollection If set, the deserializable value is a serializable collection
+	 * @param projection Properties to deserialize, or <code>null</code> to deserialize everything
+	 * @param target Existing value to populate, or <code>null</code> to allocate a new value
+	 * @return the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkNotAPropertyException
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	private Object deserializeFragment(WhiteSharkInputCursor in, short options, boolean serializableMap, boolean serializableCollection, WhiteSharkProjection projection, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, WhiteSharkMissingTypeAdapterException, NoSuchFieldException, IOException {
+		ArrayList<Object> parentClassDictionary = classDictionary;
+		ArrayList<String> parentPropertyDictionary = propertyDictionary;
+		HashMap<Class<?>, WhiteSharkPropertyBinding.Table> parentBindingTables = bindingTables;
+		classDictionary = new ArrayList<>();
+		propertyDictionary = new ArrayList<>();
+		bindingTables = new HashMap<>();
+		try {
+			return deserialize(in, in.readByte(), options, serializableMap, serializableCollection, projection, target);
+		}
+		finally {
+			classDictionary = parentClassDictionary;
+			propertyDictionary = parentPropertyDictionary;
+			bindingTables = parentBindingTables;
+		}
+	}
+	
+	/**
+	 * Deserializes a standalone pre-encoded fragment
+	 * <p>
+	 * This method is used by the progressive deserializer, once all the bytes of a fragment are available.
+	 * 
+	 * @param in Input cursor over the fragment content
+	 * @param options Serialization options
+	 * @param classMapper External class mapper
+	 * @param serializableMap If set, the deserializable value is a serializable map
+	 * @param serializableCollection If set, the deserializable value is a serializable collection
+	 * @return the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	static Object deserializeFragment(WhiteSharkInputCursor in, short options, WhiteSharkExternalClassMapper classMapper, boolean serializableMap, boolean serializableCollection) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		WhiteSharkImmediateDeserializer deserializer = threadDeserializer();
+		deserializer.begin(classMapper);
+		try {
+			return deserializer.deserializeFragment(in, options, serializableMap, serializableCollection, null, null);
+		}
+		finally {
+			deserializer.end();
+		}
+	}
+	
 	/**
 	 * Deseralizes a boolean value
 	 * @param mask Byte mask
@@ -177,187 +1407,411 @@ public class WhiteSharkImmediateDeserializer {
 	
 	/**
 	 * Deserializes an integer value
-	 * @param stream Stream to deserialize
+	 * @param in Input cursor
 	 * @param mask Byte mask
 	 * @param options Serialization options
 	 * @return a Number instance representing the deserialized integer value
 	 * @throws IOException
 	 */
-	private static Number deserializeInteger(InputStream stream, byte mask, short options) throws IOException {
-		ByteBuffer buf;
-		byte[] b;
-		
+	static Number deserializeInteger(WhiteSharkInputCursor in, byte mask, short options) throws IOException {
 		int integerType = (mask & 0xf0) >> 4;
 		switch (integerType)
 		{
 			case 1:
-				return (byte) stream.read();
-				
+				return in.readByte();
+			
 			case 2:
-				b = new byte[2];
-				stream.read(b);
-				buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-				return buf.getShort();
-				
+				return in.readShort();
+			
 			case 4:
-				b = new byte[4];
-				stream.read(b);
-				buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-				return buf.getInt();
-				
+				return in.readInt();
+			
 			default:
-				b = new byte[8];
-				stream.read(b);
-				buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-				return buf.getLong();
+				return in.readLong();
 		}
 	}
 	
 	/**
 	 * Deserializes a floating-point number value
-	 * @param stream Stream to deserialize
+	 * @param in Input cursor
 	 * @param mask Byte mask
 	 * @param options Serialization options
 	 * @return a Number instance representing the deserialized floating-point value
 	 * @throws IOException
 	 */
-	private static Number deserializeReal(InputStream stream, byte mask, short options) throws IOException {
-		if ((mask & 0xf0) != 0)
-		{
-			byte[] b = new byte[8];
-			stream.read(b);
-			ByteBuffer buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-			return buf.getDouble();
-		}
-		else {
-			byte[] b = new byte[4];
-			stream.read(b);
-			ByteBuffer buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-			return buf.getFloat();
-		}
+	static Number deserializeReal(WhiteSharkInputCursor in, byte mask, short options) throws IOException {
+		return WhiteSharkRealEncoding.decode(mask, in);
 	}
 	
 	/**
 	 * Deserializes a character
-	 * @param stream Stream to deserialize
+	 * @param in Input cursor
 	 * @param mask Byte mask
 	 * @param options Serialization options
 	 * @return the deserialized character
 	 * @throws IOException
 	 */
-	private static Character deserializeCharacter(InputStream stream, byte mask, short options) throws IOException {
-		byte[] b = new byte[2];
-		stream.read(b);
-		ByteBuffer buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-		return buf.getChar();
+	static Character deserializeCharacter(WhiteSharkInputCursor in, byte mask, short options) throws IOException {
+		return in.readChar();
 	}
 	
 	/**
 	 * Deserializes a string
-	 * @param stream Stream to deserialize
+	 * @param in Input cursor
 	 * @param mask Byte mask
 	 * @param options Serialization options
+	 * @param cache String cache, or <code>null</code>
 	 * @return the deserialized string
 	 * @throws IOException
 	 */
-	private static String deserializeString(InputStream stream, byte mask, short options) throws IOException {
-		ByteBuffer buf;
-		byte[] b;
-		
+	static String deserializeString(WhiteSharkInputCursor in, byte mask, short options, WhiteSharkStringCache cache) throws IOException {
 		int length;
 		int lengthByteCount = ((mask & 0xf0) >> 4);
 		switch (lengthByteCount) {
 			case 1:
-				length = stream.read();
+				length = in.readUnsignedByte();
 				break;
-				
+			
 			case 2:
-				b = new byte[2];
-				stream.read(b);
-				buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-				length = buf.getShort();
+				length = in.readShort();
 				break;
-				
+			
 			default:
-				b = new byte[4];
-				stream.read(b);
-				buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-				length = buf.getInt();
+				length = in.readInt();
 				break;
 		}
 		
-		b = new byte[length];
-		stream.read(b);
-		return new String(b, "UTF-8");
+		return in.readUtf8(length, cache);
+	}
+	
+	/**
+	 * Deserializes a string as a lazy string, without decoding it
+	 * @param in Input cursor
+	 * @param mask Byte mask
+	 * @param options Serialization options
+	 * @return the deserialized lazy string
+	 * @throws IOException
+	 */
+	static WhiteSharkUtf8String deserializeUtf8String(WhiteSharkInputCursor in, byte mask, short options) throws IOException {
+		return WhiteSharkUtf8String.wrap(in.readBytes(readCount(in, (mask & 0xf0) >> 4)));
+	}
+	
+	/**
+	 * Deserializes binary data
+	 * @param in Input cursor
+	 * @param mask Byte mask
+	 * @param options Serialization options
+	 * @param slice If set, the data is returned as a read-only slice of the input
+	 * @param target Existing byte array to fill if its length matches, or <code>null</code>
+	 * @return the deserialized data, as a byte array or a read-only <code>ByteBuffer</code>
+	 * @throws IOException
+	 */
+	static Object deserializeBinary(WhiteSharkInputCursor in, byte mask, short options, boolean slice, Object target) throws IOException {
+		int length = readCount(in, (mask & 0xf0) >> 4);
+		if (slice)
+			return in.readSlice(length);
+		
+		byte[] b = (target instanceof byte[] && ((byte[]) target).length == length) ? (byte[]) target : new byte[length];
+		in.readBytes(b, 0, length);
+		return b;
+	}
+	
+	/**
+	 * Adapts a lazy string or binary data to the type of its destination
+	 * <p>
+	 * Lazy strings are decoded, and binary data is copied or wrapped, if the destination does not accept them as is.
+	 * 
+	 * @param o Deserialized value
+	 * @param type Field type or array component type
+	 * @return the adapted value
+	 */
+	static Object adaptValue(Object o, Class<?> type) {
+		if (o == null || type.isInstance(o))
+			return o;
+		else if (o instanceof WhiteSharkUtf8String)
+			return o.toString();
+		else if (o instanceof ByteBuffer && type == byte[].class) {
+			ByteBuffer buf = ((ByteBuffer) o).duplicate();
+			byte[] b = new byte[buf.remaining()];
+			buf.get(b);
+			return b;
+		}
+		else if (o instanceof byte[] && type.isAssignableFrom(ByteBuffer.class))
+			return ByteBuffer.wrap((byte[]) o);
+		else
+			return o;
+	}
+	
+	/**
+	 * Reads a length or a count
+	 * @param in Input cursor
+	 * @param byteCount Byte count of the length field, from the mask (3 means 4 bytes)
+	 * @return the read length
+	 * @throws IOException
+	 */
+	static int readCount(WhiteSharkInputCursor in, int byteCount) throws IOException {
+		switch (byteCount) {
+			case 0:
+				return 0;
+			
+			case 1:
+				return in.readUnsignedByte();
+			
+			case 2:
+				return in.readShort();
+			
+			default:
+				return in.readInt();
+		}
+	}
+	
+	/**
+	 * Reads and resolves a class reference that is not in the classes dictionary
+	 * <p>
+	 * The class is not added to the dictionary.
+	 * 
+	 * @param in Input cursor
+	 * @return the resolved class
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	private Class<?> readClassName(WhiteSharkInputCursor in) throws IOException, ClassNotFoundException {
+		int classNameLength = in.readShort();
+		if (classNameLength == WhiteSharkConstants.TYPE_ID_MARKER)
+			return classMapper.getClassFromTypeId(in.readVarInt());
+		else
+			return classMapper.getClassFromExternal(in.readAscii(classNameLength));
+	}
+	
+	/**
+	 * Gets a class from the classes dictionary
+	 * <p>
+	 * Classes first referenced in skipped values are resolved on first use only.
+	 * 
+	 * @param index Index in the classes dictionary
+	 * @return the resolved class
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkIncompatibleSerializationVersionException
+	 */
+	private Class<?> classAt(int index) throws ClassNotFoundException, WhiteSharkIncompatibleSerializationVersionException {
+		Object entry = classDictionary.get(index);
+		if (entry instanceof Class)
+			return (Class<?>) entry;
+		
+		WhiteSharkLazyDocument.ClassReference reference = (WhiteSharkLazyDocument.ClassReference) entry;
+		Class<?> c = reference.resolve(classMapper);
+		if (reference.versioned)
+			checkSerializationVersion(c, reference.version);
+		classDictionary.set(index, c);
+		return c;
+	}
+	
+	/**
+	 * Checks the serialization version of a class against the one found in the stream
+	 * <p>
+	 * With schema evolution, all versions are accepted.
+	 * 
+	 * @param c Class
+	 * @param serializationVersionFromStream Serialization version found in the stream
+	 * @throws WhiteSharkIncompatibleSerializationVersionException If the runtime version is older than the stream version.
+	 */
+	private void checkSerializationVersion(Class<?> c, int serializationVersionFromStream) throws WhiteSharkIncompatibleSerializationVersionException {
+		if (schemaEvolution)
+			return;
+		
+		int serializationVersionFromCode = WhiteSharkUtils.getSerializationVersion(c);
+		if (serializationVersionFromCode < serializationVersionFromStream)
+			throw new WhiteSharkIncompatibleSerializationVersionException(String.format("Incompatible serialization versions found (runtime: %d, data stream: %d)", serializationVersionFromCode, serializationVersionFromStream));
+	}
+	
+	/**
+	 * Skips a value without decoding it
+	 * <p>
+	 * Dictionary entries defined in the value are still registered, as following values may reference them,
+	 * but classes are not resolved.
+	 * 
+	 * @param in Input cursor
+	 * @param options Serialization options
+	 * @throws IOException
+	 * @throws WhiteSharkNotAPropertyException
+	 */
+	private void skip(WhiteSharkInputCursor in, short options) throws IOException, WhiteSharkNotAPropertyException {
+		byte mask = in.readByte();
+		byte dataType = (byte) (mask & 0xf);
+		
+		if (dataType == WhiteSharkDataType.NULL.getMask() || dataType == WhiteSharkDataType.BOOLEAN.getMask())
+			return;
+		else if (dataType == WhiteSharkDataType.INTEGER.getMask())
+			in.skip((mask & 0xf0) >> 4);
+		else if (dataType == WhiteSharkDataType.REAL.getMask())
+			in.skip(WhiteSharkRealEncoding.getPayloadSize(mask));
+		else if (dataType == WhiteSharkDataType.CHAR.getMask())
+			in.skip(2);
+		else if (dataType == WhiteSharkDataType.STRING.getMask() || dataType == WhiteSharkDataType.BINARY.getMask()) {
+			switch ((mask & 0xf0) >> 4) {
+				case 1:
+					in.skip(in.readUnsignedByte());
+					break;
+				
+				case 2:
+					in.skip(in.readShort());
+					break;
+				
+				default:
+					in.skip(in.readInt());
+					break;
+			}
+		}
+		else if (dataType == WhiteSharkDataType.ARRAY.getMask()) {
+			skipClassReference(in, mask, false);
+			int count = readCount(in, (mask & 0x30) >> 4);
+			for (int i = 0; i < count; i++)
+				skip(in, options);
+		}
+		else if (dataType == WhiteSharkDataType.CUSTOM.getMask()) {
+			skipClassReference(in, mask, false);
+			in.skip(in.readInt());
+		}
+		else if (dataType == WhiteSharkDataType.FRAGMENT.getMask())
+			in.skip(in.readInt());
+		else {
+			if (!WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS) && ((mask & 0x80) == 0))
+				skipClassReference(in, mask, true);
+			int count = readCount(in, (mask & 0x30) >> 4);
+			for (int i = 0; i < count; i++) {
+				byte propertyMask = in.readByte();
+				if ((propertyMask & 0xf) != WhiteSharkDataType.PROPERTY.getMask())
+					throw new WhiteSharkNotAPropertyException("Not a property");
+				
+				if ((propertyMask & 0x20) != 0)
+					in.skip(2);
+				else
+					propertyDictionary.add(in.readAscii(((propertyMask & 0x10) != 0) ? in.readShort() : in.readUnsignedByte()));
+				skip(in, options);
+			}
+		}
+	}
+	
+	/**
+	 * Skips a class reference, registering it without resolving it if it is not in the classes dictionary
+	 * @param in Input cursor
+	 * @param mask Byte mask
+	 * @param withVersion If set, the class name is followed by a serialization version
+	 * @throws IOException
+	 */
+	private void skipClassReference(WhiteSharkInputCursor in, byte mask, boolean withVersion) throws IOException {
+		if ((mask & 0x40) != 0)
+			in.skip(2);
+		else
+			classDictionary.add(WhiteSharkLazyDocument.ClassReference.read(in, withVersion));
 	}
 	
 	/**
 	 * Deserializes an array
-	 * @param stream Stream to deserialize
+	 * @param in Input cursor
 	 * @param mask Byte mask
 	 * @param options Serialization options
+	 * @param projection Properties of the elements to deserialize, or <code>null</code> to deserialize everything
+	 * @param target Existing array to populate if its component type and length match, or <code>null</code>
 	 * @return an Object containing an array instance
-	 * @throws IOException
 	 * @throws ClassNotFoundException
-	 * @throws ArrayIndexOutOfBoundsException
-	 * @throws IllegalArgumentException
 	 * @throws NoSuchMethodException
 	 * @throws SecurityException
 	 * @throws InstantiationException
 	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
 	 * @throws InvocationTargetException
 	 * @throws WhiteSharkNotAPropertyException
 	 * @throws NoSuchFieldException
+	 * @throws IOException
 	 */
-	private static Object deserializeArray(InputStream stream, byte mask, short options) throws IOException, ClassNotFoundException, ArrayIndexOutOfBoundsException, IllegalArgumentException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, InvocationTargetException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, NoSuchFieldException {
-		byte[] b, classNameBytes = null;
-		ByteBuffer buf;
-		
+	private Object deserializeArray(WhiteSharkInputCursor in, byte mask, short options, WhiteSharkProjection projection, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, WhiteSharkMissingTypeAdapterException, NoSuchFieldException, IOException {
 		boolean classInDictionary = ((mask & 0x40) != 0);
-		int classDictionaryIndex = -1;
 		
-		b = new byte[2];
-		stream.read(b);
-		buf = WhiteSharkUtils.wrapWithByteBuffer(b);
+		Class<?> primitiveClass;
 		if (classInDictionary)
-			classDictionaryIndex = buf.getShort();
+			primitiveClass = classAt(in.readShort());
 		else {
-			int classNameLength = buf.getShort();
-			classNameBytes = new byte[classNameLength];
-			stream.read(classNameBytes);
-		}
-		
-		int lengthByteCount = ((mask & 0x30) >> 4);
-		if (lengthByteCount == 3)
-			lengthByteCount = 4;
-		int count;
-		if (lengthByteCount == 1)
-			count = stream.read();
-		else if (lengthByteCount == 2) {
-			b = new byte[2];
-			stream.read(b);
-			buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-			count = buf.getShort();
+			primitiveClass = readClassName(in);
+			classDictionary.add(primitiveClass);
+		}
+		
+		int count = readCount(in, (mask & 0x30) >> 4);
+		
+		boolean reuse = (target != null && target.getClass().getComponentType() == primitiveClass && Array.getLength(target) == count);
+		Object arr = reuse ? target : classMapper.newArray(primitiveClass, count);
+		deserializeElements(in, options, arr, primitiveClass, 0, count, projection, reuse);
+		return arr;
+	}
+	
+	/**
+	 * Deserializes a range of array elements
+	 * @param in Input cursor, positioned on the first element
+	 * @param options Serialization options
+	 * @param arr Array to populate
+	 * @param primitiveClass Component class of the array
+	 * @param from Index of the first element
+	 * @param to Index following the last element
+	 * @param projection Properties of the elements to deserialize, or <code>null</code> to deserialize everything
+	 * @param reuse If set, the current elements of the array are populated in place when possible
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkNotAPropertyException
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	private void deserializeElements(WhiteSharkInputCursor in, short options, Object arr, Class<?> primitiveClass, int from, int to, WhiteSharkProjection projection, boolean reuse) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, WhiteSharkMissingTypeAdapterException, NoSuchFieldException, IOException {
+		int primitiveKind = WhiteSharkPrimitives.kindOf(primitiveClass);
+		if (primitiveKind != WhiteSharkPrimitives.NONE) {
+			for (int i = from; i < to; i++) {
+				byte elementMask = in.readByte();
+				if (WhiteSharkPrimitives.accepts(primitiveKind, elementMask))
+					WhiteSharkPrimitives.set(arr, i, primitiveKind, in, elementMask);
+				else
+					Array.set(arr, i, deserialize(in, elementMask, options, false, false, null, null));
+			}
 		}
 		else {
-			b = new byte[4];
-			stream.read(b);
-			buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-			count = buf.getInt();
+			for (int i = from; i < to; i++) {
+				Object o = deserialize(in, in.readByte(), options, false, false, projection, reuse ? Array.get(arr, i) : null);
+				Array.set(arr, i, adaptValue(o, primitiveClass));
+			}
 		}
+	}
+	
+	/**
+	 * Deserializes a value encoded by a type adapter
+	 * @param in Input cursor
+	 * @param mask Byte mask
+	 * @param options Serialization options
+	 * @return the deserialized value
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkIncompatibleSerializationVersionException
+	 * @throws WhiteSharkMissingTypeAdapterException If no type adapter is registered for the class of the value.
+	 */
+	private Object deserializeCustom(WhiteSharkInputCursor in, byte mask, short options) throws IOException, ClassNotFoundException, WhiteSharkIncompatibleSerializationVersionException, WhiteSharkMissingTypeAdapterException {
+		boolean classInDictionary = ((mask & 0x40) != 0);
 		
-		Class<?> primitiveClass;
+		Class<?> adaptedClass;
 		if (classInDictionary)
-			primitiveClass = classDictionary.elementAt(classDictionaryIndex);
+			adaptedClass = classAt(in.readShort());
 		else {
-			String className = new String(classNameBytes, "US-ASCII");
-			primitiveClass = classMapper.getClassFromExternal(className);
-			classDictionary.add(primitiveClass);
+			adaptedClass = readClassName(in);
+			classDictionary.add(adaptedClass);
 		}
-		Object arr = Array.newInstance(primitiveClass, count);
-		for (int i = 0; i < count; i++)
-			Array.set(arr, i, deserialize(stream, options, false, false));
-		return arr;
+		
+		WhiteSharkInputCursor payload = in.slice(in.readInt());
+		
+		WhiteSharkTypeAdapter<Object> adapter = classMapper.getTypeAdapter(adaptedClass);
+		if (adapter == null)
+			throw new WhiteSharkMissingTypeAdapterException(String.format("No type adapter registered for class %s", adaptedClass.getName()));
+		return adapter.read(payload);
 	}
 	
 	/**
@@ -365,13 +1819,14 @@ public class WhiteSharkImmediateDeserializer {
 	 * <p>
 	 * This method must be used only with objects that are not primitive or array types.
 	 * 
-	 * @param stream Stream to deserialize
+	 * @param in Input cursor
 	 * @param mask Byte mask
 	 * @param options Serialization options
 	 * @param serializableMap If set, the deserializable object is a serializable map
 	 * @param serializableCollection If set, the deserializable object is a serializable collection
+	 * @param projection Properties to deserialize, or <code>null</code> to deserialize everything
+	 * @param target Existing object to populate if it is of the same class, or <code>null</code>
 	 * @return the deserialized Object instance
-	 * @throws IOException
 	 * @throws ClassNotFoundException
 	 * @throws NoSuchMethodException
 	 * @throws SecurityException
@@ -381,87 +1836,74 @@ public class WhiteSharkImmediateDeserializer {
 	 * @throws InvocationTargetException
 	 * @throws WhiteSharkNotAPropertyException
 	 * @throws NoSuchFieldException
+	 * @throws IOException
 	 */
-	private static Object deserializeObject(InputStream stream, byte mask, short options, boolean serializableMap, boolean serializableCollection) throws IOException, ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, NoSuchFieldException {
-		byte[] b, classNameBytes = null;
-		ByteBuffer buf;
+	private Object deserializeObject(WhiteSharkInputCursor in, byte mask, short options, boolean serializableMap, boolean serializableCollection, WhiteSharkProjection projection, Object target) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, WhiteSharkMissingTypeAdapterException, NoSuchFieldException, IOException {
 		boolean serializedAsGenerics = WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS) || ((mask & 0x80) != 0);
 		boolean classInDictionary = ((mask & 0x40) != 0);
-		int classDictionaryIndex = -1;
 		
-		int serializationVersionFromStream = 0;
+		Class<?> c = null;
 		if (!serializedAsGenerics) {
-			b = new byte[2];
-			stream.read(b);
-			buf = WhiteSharkUtils.wrapWithByteBuffer(b);
 			if (!classInDictionary) {
-				int classNameLength = buf.getShort();
-				b = new byte[classNameLength];
-				stream.read(b);
-				classNameBytes = b;
-				
-				b = new byte[4];
-				stream.read(b);
-				buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-				serializationVersionFromStream = buf.getInt();
+				c = readClassName(in);
+				checkSerializationVersion(c, in.readInt());
+				classDictionary.add(c);
 			}
 			else
-				classDictionaryIndex = buf.getShort();
+				c = classAt(in.readShort());
 		}
 		
-		int fieldCountByteCount = ((mask & 0x30) >> 4);
-		if (fieldCountByteCount == 3)
-			fieldCountByteCount = 4;
-		int count = 0;
-		if (fieldCountByteCount == 1)
-			count = stream.read();
-		else if (fieldCountByteCount == 2) {
-			b = new byte[2];
-			stream.read(b);
-			buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-			count = buf.getShort();
-		}
-		else if (fieldCountByteCount == 4) {
-			b = new byte[4];
-			stream.read(b);
-			buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-			count = buf.getInt();
-		}
+		int count = readCount(in, (mask & 0x30) >> 4);
 		
 		Object o;
+		boolean reuse = false;
+		WhiteSharkPropertyBinding.Table bindings = null;
 		if (serializedAsGenerics)
-			o = new WhiteSharkGenericObject(count);
+			o = new WhiteSharkGenericObject(genericShapes, count);
 		else {
-			Class<?> c;
-			if (!classInDictionary) {
-				String className = new String(classNameBytes, "US-ASCII");
-				c = classMapper.getClassFromExternal(className);
-				
-				int serializationVersionFromCode = WhiteSharkUtils.getSerializationVersion(c);
-				if (serializationVersionFromCode < serializationVersionFromStream)
-					throw new WhiteSharkIncompatibleSerializationVersionException(String.format("Incompatible serialization versions found (runtime: %d, data stream: %d)", serializationVersionFromCode, serializationVersionFromStream));
-				
-				classDictionary.add(c);
+			reuse = (target != null && target.getClass() == c);
+			if (reuse) {
+				o = target;
+				if (o instanceof Collection && (serializableCollection || c.getAnnotation(WhiteSharkSerializableCollection.class) != null))
+					((Collection<?>) o).clear();
+				if (o instanceof Map && (serializableMap || c.getAnnotation(WhiteSharkSerializableMap.class) != null))
+					((Map<?, ?>) o).clear();
 			}
 			else
-				c = classDictionary.elementAt(classDictionaryIndex);
-			Constructor<?> constructor = c.getConstructor();
-			o = constructor.newInstance();
+				o = classMapper.newInstance(c);
+			
+			bindings = bindingTables.get(c);
+			if (bindings == null) {
+				bindings = new WhiteSharkPropertyBinding.Table(c, schemaEvolution);
+				bindingTables.put(c, bindings);
+			}
 		}
 		
-		for (int i = 0; i < count; i++)
-			deserializeProperty(stream, o, serializedAsGenerics, serializableMap, serializableCollection, options);
+		// Fields missing from the stream are only reset on existing objects, and only if all properties are read
+		WhiteSharkEvolutionPlan plan = (reuse && projection == null) ? bindings.plan : null;
+		long[] seen = (plan != null) ? plan.newFieldMask() : null;
+		for (int i = 0; i < count; i++) {
+			WhiteSharkPropertyBinding binding = deserializeProperty(in, o, bindings, serializableMap, serializableCollection, options, projection, reuse);
+			if (plan != null && binding != null && binding.fieldIndex >= 0)
+				WhiteSharkEvolutionPlan.markField(seen, binding.fieldIndex);
+		}
+		if (plan != null && plan.hasMissingFields(seen))
+			plan.applyDefaults(o, seen);
 		
 		return o;
 	}
 	
 	/**
 	 * Deserializes an object's property
-	 * @param stream Stream to deserialize
+	 * @param in Input cursor
 	 * @param parentObj Object whose the property belongs
+	 * @param bindings Property binding table of the parent object's class, or <code>null</code> if the parent object is deserialized as generics
 	 * @param parentObjectIsSerializableMap If set, the parent object is a serializable map
 	 * @param parentObjectIsSerializableCollection If set, the parent object is a serializable collection
 	 * @param options Serialization options
+	 * @param projection Properties of the parent object to deserialize, or <code>null</code> to deserialize everything
+	 * @param reuse If set, the current values of the parent object's fields are populated in place when possible
+	 * @return the binding of the property, or <code>null</code> if the parent object is deserialized as generics or the property is not projected
 	 * @throws IOException
 	 * @throws WhiteSharkNotAPropertyException
 	 * @throws IllegalArgumentException
@@ -473,83 +1915,106 @@ public class WhiteSharkImmediateDeserializer {
 	 * @throws InstantiationException
 	 * @throws InvocationTargetException
 	 */
-	private static void deserializeProperty(InputStream stream, Object parentObj, boolean parentObjectAsGenerics, boolean parentObjectIsSerializableMap, boolean parentObjectIsSerializableCollection, short options) throws IOException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, IllegalArgumentException, IllegalAccessException, NoSuchFieldException, SecurityException, ClassNotFoundException, NoSuchMethodException, InstantiationException, InvocationTargetException {
-		byte mask = (byte) stream.read();
+	private WhiteSharkPropertyBinding deserializeProperty(WhiteSharkInputCursor in, Object parentObj, WhiteSharkPropertyBinding.Table bindings, boolean parentObjectIsSerializableMap, boolean parentObjectIsSerializableCollection, short options, WhiteSharkProjection projection, boolean reuse) throws IOException, WhiteSharkNotAPropertyException, WhiteSharkIncompatibleSerializationVersionException, WhiteSharkMissingTypeAdapterException, IllegalArgumentException, IllegalAccessException, NoSuchFieldException, SecurityException, ClassNotFoundException, NoSuchMethodException, InstantiationException, InvocationTargetException {
+		byte mask = in.readByte();
 		byte dataType = (byte) (mask & 0xf);
-		byte[] b;
-		ByteBuffer buf;
 		
 		if (dataType != WhiteSharkDataType.PROPERTY.getMask())
 			throw new WhiteSharkNotAPropertyException("Not a property");
 		
 		boolean propertyInDictionary = ((mask & 0x20) != 0);
+		int propertyIndex;
 		String fieldName;
 		if (propertyInDictionary) {
-			b = new byte[2];
-			stream.read(b);
-			buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-			int propertyDictionaryIndex = buf.getShort();
-			fieldName = propertyDictionary.elementAt(propertyDictionaryIndex);
+			propertyIndex = in.readShort();
+			fieldName = propertyDictionary.get(propertyIndex);
 		}
 		else {
-			int fieldNameByteLength = ((mask & 0x10) != 0) ? 2 : 1;
-			int fieldNameLength;
-			if (fieldNameByteLength == 1)
-				fieldNameLength = stream.read();
-			else {
-				b = new byte[2];
-				stream.read(b);
-				buf = WhiteSharkUtils.wrapWithByteBuffer(b);
-				fieldNameLength = buf.getShort();
+			int fieldNameLength = ((mask & 0x10) != 0) ? in.readShort() : in.readUnsignedByte();
+			fieldName = in.readAscii(fieldNameLength);
+			propertyIndex = propertyDictionary.size();
+			propertyDictionary.add(fieldName);
+		}
+		
+		WhiteSharkPropertyBinding binding = null;
+		if (projection != null) {
+			// With schema evolution, properties are projected by the name of the field they are bound to
+			String projectedName = fieldName;
+			if (bindings != null && bindings.plan != null) {
+				binding = bindings.get(propertyIndex, fieldName);
+				if (binding.field != null)
+					projectedName = binding.field.getName();
 			}
 			
-			b = new byte[fieldNameLength];
-			stream.read(b);
-			fieldName = new String(b, "US-ASCII");
-			
-			propertyDictionary.add(fieldName);
+			projection = projection.select(projectedName);
+			if (projection == null) {
+				skip(in, options);
+				return null;
+			}
+			else if (projection.isComplete())
+				projection = null;
 		}
 		
-		if (parentObjectAsGenerics) {
+		if (bindings == null) {
 			WhiteSharkGenericObject obj = (WhiteSharkGenericObject) parentObj;
-			obj.put(fieldName, deserialize(stream, options, false, false));
+			obj.add(fieldName, deserialize(in, options, false, false, projection));
+			return null;
 		}
-		else {
-			Class<?> c = parentObj.getClass();
-			
-			if (fieldName.equals(WhiteSharkConstants.COLLECTION_ITEM_PROPERTY_NAME)) {
-				Object o = deserialize(stream, options, false, false);
-				
-				try {
+		
+		if (binding == null)
+			binding = bindings.get(propertyIndex, fieldName);
+		switch (binding.kind) {
+			case WhiteSharkPropertyBinding.COLLECTION_ITEM: {
+				Object o = deserialize(in, options, false, false, projection);
+				if (o instanceof WhiteSharkUtf8String)
+					o = o.toString();
+				if (parentObj instanceof Collection && (parentObjectIsSerializableCollection || binding.ownerSerializable)) {
 					@SuppressWarnings("unchecked")
 					Collection<Object> coll = (Collection<Object>) parentObj;
-					if (coll != null && (parentObjectIsSerializableCollection || c.getAnnotation(WhiteSharkSerializableCollection.class) != null))
-						coll.add(o);
+					coll.add(o);
 				}
-				catch (ClassCastException e) { }
+				break;
 			}
-			else if (fieldName.startsWith(WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX)) {
-				Object o = deserialize(stream, options, false, false);
-				
-				try {
+			
+			case WhiteSharkPropertyBinding.SKIPPED:
+				skip(in, options);
+				break;
+			
+			case WhiteSharkPropertyBinding.MAP_ENTRY: {
+				Object o = deserialize(in, options, false, false, projection);
+				if (o instanceof WhiteSharkUtf8String)
+					o = o.toString();
+				if (parentObj instanceof Map && (parentObjectIsSerializableMap || binding.ownerSerializable)) {
 					@SuppressWarnings("unchecked")
 					Map<String,Object> map = (Map<String,Object>) parentObj;
-					if (map != null && (parentObjectIsSerializableMap || c.getAnnotation(WhiteSharkSerializableMap.class) != null))
-						map.put(fieldName.substring(WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX.length()), o);
+					map.put(binding.mapKey, o);
 				}
-				catch (ClassCastException e) { }
+				break;
 			}
-			else {
-				Field f = c.getField(fieldName);
-				boolean isSerializableMap = (f.getAnnotation(WhiteSharkSerializableMap.class) != null);
-				boolean isSerializableCollection = (f.getAnnotation(WhiteSharkSerializableCollection.class) != null);
+			
+			default: {
+				// Values of fields that are not serializable are skipped like unknown properties
+				if (!binding.serializable) {
+					skip(in, options);
+					break;
+				}
 				
-				Object o = deserialize(stream, options, isSerializableMap, isSerializableCollection);
+				if (binding.primitiveKind != WhiteSharkPrimitives.NONE) {
+					byte valueMask = in.readByte();
+					if (WhiteSharkPrimitives.accepts(binding.primitiveKind, valueMask))
+						WhiteSharkPrimitives.set(binding.field, parentObj, binding.primitiveKind, in, valueMask);
+					else
+						binding.field.set(parentObj, deserialize(in, valueMask, options, false, false, null, null));
+					break;
+				}
 				
-				if (f.getAnnotation(WhiteSharkSerializable.class) != null)
-					f.set(parentObj, o);
+				Object current = reuse ? binding.field.get(parentObj) : null;
+				Object o = deserialize(in, in.readByte(), options, binding.serializableMap, binding.serializableCollection, projection, current);
+				binding.field.set(parentObj, adaptValue(o, binding.field.getType()));
+				break;
 			}
 		}
+		return binding;
 	}
-	
+
 }
@@ -0,0 +1,238 @@
+package com.xhaleera.whiteshark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Set;
+
+import com.xhaleera.whiteshark.exceptions.WhiteSharkException;
+
+/**
+ * Random access to the root properties and elements of an indexed stream
+ * <p>
+ * Streams serialized with {@link WhiteSharkConstants#OPTIONS_OFFSET_INDEX} end with an offset index, recording the offset of
+ * every property of the root object and of one root array element or collection item out of {@link WhiteSharkExternalClassMapper#getIndexStride()},
+ * along with a snapshot of the dictionaries. An indexed document reads this index when opened, then decodes single properties or elements
+ * by jumping to their offset, or to the closest indexed element before them, without reading the rest of the stream.
+ * <p>
+ * Values are decoded like the immediate deserializer would decode them in their parent.
+ * Values re-emitted from lazy views, and pre-encoded fragments, are not indexed.
+ * Indexed documents can be used by several threads at once. Documents opened from a file must be closed.
+ *
+ * <pre>
+ * try (WhiteSharkIndexedDocument document = WhiteSharkIndexedDocument.open(streamId, path, mapper)) {
+ *     Employee employee = (Employee) document.getElement(500000);
+ * }
+ * </pre>
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkIndexedDocument implements Closeable {
+
+	/** Stream buffer, positioned at the start of the stream, or <code>null</code> if the stream is read from a file */
+	private final ByteBuffer buffer;
+	/** Stream file channel, or <code>null</code> if the stream is read from a buffer */
+	private final FileChannel channel;
+	/** Class mapper */
+	private final WhiteSharkExternalClassMapper classMapper;
+	/** Serialization options */
+	private final short options;
+	/** Offset index */
+	private final WhiteSharkOffsetIndex index;
+	/** Component class of the root array, class of the root object, or <code>null</code> if the root object is generic */
+	private final Class<?> rootClass;
+	/** Flag indicating if the root value is an array */
+	private final boolean array;
+	
+	/**
+	 * Constructor
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Stream buffer, or <code>null</code>
+	 * @param channel Stream file channel, or <code>null</code>
+	 * @param length Length of the stream, in bytes
+	 * @param classMapper External class mapper
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match, or if the stream has no offset index.
+	 * @throws IOException
+	 */
+	private WhiteSharkIndexedDocument(String identifier, ByteBuffer buffer, FileChannel channel, long length, WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException, WhiteSharkException, IOException {
+		this.buffer = buffer;
+		this.channel = channel;
+		this.classMapper = (classMapper == null) ? WhiteSharkImmediateDeserializer.defaultClassMapper : classMapper;
+		
+		WhiteSharkInputCursor in = cursor(0);
+		options = WhiteSharkImmediateDeserializer.readHeader(identifier, in);
+		if (!WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OFFSET_INDEX))
+			throw new WhiteSharkException("Stream has no offset index");
+		byte mask = in.readByte();
+		byte dataType = (byte) (mask & 0xf);
+		
+		if (length < 25)
+			throw new WhiteSharkException("Offset index unfound");
+		in = cursor(length - 8);
+		int indexLength = in.readInt();
+		if (!in.readAscii(4).equals(WhiteSharkConstants.OFFSET_INDEX_IDENTIFIER) || indexLength < 0 || indexLength > length - 25)
+			throw new WhiteSharkException("Offset index unfound");
+		index = WhiteSharkOffsetIndex.read(cursor(length - 12 - indexLength));
+		
+		array = (dataType == WhiteSharkDataType.ARRAY.getMask());
+		boolean typedObject = (dataType == WhiteSharkDataType.OBJECT.getMask() && !WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS) && (mask & 0x80) == 0);
+		if ((array || typedObject) && !index.classes.isEmpty())
+			rootClass = ((WhiteSharkLazyDocument.ClassReference) index.classes.get(0)).resolve(this.classMapper);
+		else
+			rootClass = null;
+	}
+	
+	/**
+	 * Opens a completely buffered indexed stream
+	 * <p>
+	 * The stream starts at the current position of the buffer, which can be a direct buffer, and ends at its limit.
+	 * The position of the buffer is not modified, and its bytes must not be modified while the document is in use.
+	 *
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer holding the stream
+	 * @param classMapper External class mapper, or <code>null</code> to use the default class mapper
+	 * @return the indexed document
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match, or if the stream has no offset index.
+	 * @throws IOException
+	 */
+	public static WhiteSharkIndexedDocument open(String identifier, ByteBuffer buffer, WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException, WhiteSharkException, IOException {
+		return new WhiteSharkIndexedDocument(identifier, buffer.duplicate(), null, buffer.remaining(), classMapper);
+	}
+	
+	/**
+	 * Opens an indexed stream stored in a file
+	 * <p>
+	 * The file is memory-mapped by windows, so files larger than 2 GB can be read. The stream must fill the whole file.
+	 *
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param path Path of the file holding the stream
+	 * @param classMapper External class mapper, or <code>null</code> to use the default class mapper
+	 * @return the indexed document, to be closed once done
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match, or if the stream has no offset index.
+	 * @throws IOException
+	 */
+	public static WhiteSharkIndexedDocument open(String identifier, Path path, WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException, WhiteSharkException, IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new WhiteSharkIndexedDocument(identifier, null, channel, channel.size(), classMapper);
+		}
+		catch (ClassNotFoundException | WhiteSharkException | IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Creates a cursor over the stream
+	 * @param offset Offset of the first byte to read from the start of the stream
+	 * @return the input cursor
+	 * @throws IOException
+	 */
+	private WhiteSharkInputCursor cursor(long offset) throws IOException {
+		if (channel != null)
+			return new WhiteSharkMappedFileInputCursor(channel, WhiteSharkMappedFileInputCursor.DEFAULT_WINDOW_SIZE, offset);
+		
+		WhiteSharkInputCursor in = new WhiteSharkInputCursor(buffer);
+		in.position += (int) offset;
+		return in;
+	}
+	
+	/**
+	 * Gets the serialization options of the stream
+	 * @return the serialization options
+	 */
+	public short getOptions() {
+		return options;
+	}
+	
+	/**
+	 * Gets the number of elements of the root value
+	 * @return the number of elements of the root array, or of items of the root collection, or 0 if the root value has no elements.
+	 */
+	public int getElementCount() {
+		return index.elementCount;
+	}
+	
+	/**
+	 * Gets the names of the root object properties
+	 * <p>
+	 * Collection items are not included. They are accessed with {@link #getElement(int)}.
+	 *
+	 * @return the property names, in stream order
+	 */
+	public Set<String> getPropertyNames() {
+		return Collections.unmodifiableSet(index.propertyEntries.keySet());
+	}
+	
+	/**
+	 * Decodes an element of the root array, or an item of the root collection
+	 *
+	 * @param elementIndex Index of the element
+	 * @return the decoded element
+	 * @throws IndexOutOfBoundsException If the index is negative or not lower than {@link #getElementCount()}.
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object getElement(int elementIndex) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		if (elementIndex < 0 || elementIndex >= index.elementCount)
+			throw new IndexOutOfBoundsException(String.format("Element index %d out of bounds", elementIndex));
+		
+		int entry = elementIndex / index.stride;
+		WhiteSharkOffsetIndex.Entries entries = index.elements;
+		return WhiteSharkImmediateDeserializer.threadDeserializer().readIndexed(cursor(entries.offsets[entry]), classMapper, index, options, rootClass, array, entries.classCounts[entry], entries.propertyCounts[entry], elementIndex % index.stride);
+	}
+	
+	/**
+	 * Decodes a property of the root object
+	 *
+	 * @param name Property name, prefixed with {@link WhiteSharkConstants#MAP_PROPERTY_NAME_PREFIX} for map entries
+	 * @return the decoded property value, or <code>null</code> if the root object has no such property.
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object getProperty(String name) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		Integer entry = index.propertyEntries.get(name);
+		if (entry == null)
+			return null;
+		
+		WhiteSharkOffsetIndex.Entries entries = index.propertyOffsets;
+		return WhiteSharkImmediateDeserializer.threadDeserializer().readIndexed(cursor(entries.offsets[entry]), classMapper, index, options, rootClass, false, entries.classCounts[entry], entries.propertyCounts[entry], 0);
+	}
+	
+	/**
+	 * Closes the file channel of the document, if any
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		if (channel != null)
+			channel.close();
+	}
+
+}
@@ -0,0 +1,444 @@
+package com.xhaleera.whiteshark;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Deserialization input cursor
+ * <p>
+ * This class reads WhiteShark primitives from a byte array or a ByteBuffer,
+ * using absolute reads in the format byte order and an index cursor.
+ * Reading past the end of the input throws an {@link EOFException}.
+ * <p>
+ * Input cursors are provided to {@link WhiteSharkTypeAdapter} instances during deserialization.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class WhiteSharkInputCursor {
+
+	/** Input buffer */
+	ByteBuffer buffer;
+	/** Backing array of the input buffer, or <code>null</code> if the buffer is not backed by an accessible array */
+	byte[] array;
+	/** Offset of the input buffer in its backing array */
+	int arrayOffset;
+	/** Input offset of the first byte of the buffer */
+	long base;
+	/** Current index in the buffer */
+	int position;
+	/** Limit index in the buffer */
+	int limit;
+	/** Scratch byte array used to decode strings from buffers not backed by an accessible array */
+	private byte[] scratch;
+	
+	/**
+	 * Constructor
+	 * @param b Input byte array
+	 */
+	public WhiteSharkInputCursor(byte[] b) {
+		this(b, 0, b.length);
+	}
+	
+	/**
+	 * Constructor
+	 * @param b Input byte array
+	 * @param off Start offset of the input in the byte array
+	 * @param len Length of the input
+	 */
+	public WhiteSharkInputCursor(byte[] b, int off, int len) {
+		this(ByteBuffer.wrap(b, off, len));
+	}
+	
+	/**
+	 * Constructor
+	 * <p>
+	 * The input starts at the current position of the buffer and ends at its limit.
+	 * The position of the buffer is not modified.
+	 *
+	 * @param buf Input buffer
+	 */
+	public WhiteSharkInputCursor(ByteBuffer buf) {
+		setBuffer(buf.duplicate(), -buf.position());
+		position = buf.position();
+		limit = buf.limit();
+	}
+	
+	/**
+	 * Constructor for subclasses, which must set their buffer before reading
+	 */
+	WhiteSharkInputCursor() {
+	}
+	
+	/**
+	 * Sets the input buffer
+	 * @param buf Input buffer
+	 * @param base Input offset of the first byte of the buffer
+	 */
+	final void setBuffer(ByteBuffer buf, long base) {
+		buffer = buf.order(WhiteSharkConstants.BYTE_ORDER);
+		if (buffer.hasArray()) {
+			array = buffer.array();
+			arrayOffset = buffer.arrayOffset();
+		}
+		else {
+			array = null;
+			arrayOffset = 0;
+		}
+		this.base = base;
+	}
+	
+	/**
+	 * Gets the current position of the cursor
+	 * @return the number of bytes read since the start of the input
+	 */
+	public final long position() {
+		return base + position;
+	}
+	
+	/**
+	 * Gets the number of bytes remaining in the current buffer
+	 * <p>
+	 * For plain byte array and ByteBuffer inputs, this is the number of bytes remaining in the input.
+	 *
+	 * @return the number of bytes between the current position and the end of the buffer
+	 */
+	public final long remaining() {
+		return limit - position;
+	}
+	
+	/**
+	 * Ensures a specific number of bytes remains in the input
+	 * @param count Number of bytes
+	 * @throws IOException
+	 * @throws EOFException If the input is too short.
+	 */
+	final void require(int count) throws IOException {
+		if (limit - position < count) {
+			if (count < 0 || !fill(count))
+				throw new EOFException("Unexpected end of WhiteShark input");
+		}
+	}
+	
+	/**
+	 * Makes a specific number of bytes available in the current buffer
+	 * <p>
+	 * Subclasses reading their input by blocks override this method.
+	 * On success, at least <code>count</code> bytes are available from the position in the current buffer.
+	 *
+	 * @param count Number of bytes
+	 * @return <code>true</code> if the bytes are available, <code>false</code> if the input is too short.
+	 * @throws IOException
+	 */
+	boolean fill(int count) throws IOException {
+		return false;
+	}
+	
+	/**
+	 * Releases the input once deserialization is complete
+	 * <p>
+	 * Subclasses reading ahead give back unread bytes to their source.
+	 *
+	 * @throws IOException
+	 */
+	void release() throws IOException {
+	}
+	
+	/**
+	 * Creates a cursor over the next bytes of the input, and skips them
+	 * @param len Number of bytes
+	 * @return a new cursor limited to these bytes
+	 * @throws IOException
+	 */
+	public final WhiteSharkInputCursor slice(int len) throws IOException {
+		require(len);
+		ByteBuffer buf = buffer.duplicate();
+		buf.limit(position + len);
+		buf.position(position);
+		position += len;
+		return new WhiteSharkInputCursor(buf);
+	}
+	
+	/**
+	 * Tells if the buffers of the cursor remain valid after reading
+	 * <p>
+	 * Subclasses reusing their buffers override this method.
+	 *
+	 * @return <code>true</code> if read bytes are never overwritten, <code>false</code> either.
+	 */
+	boolean retainsBuffers() {
+		return true;
+	}
+	
+	/**
+	 * Reads bytes as a read-only buffer
+	 * <p>
+	 * If the buffers of the cursor remain valid after reading, the returned buffer is a slice of the input. Otherwise, bytes are copied.
+	 *
+	 * @param len Number of bytes to read
+	 * @return a read-only buffer containing the bytes
+	 * @throws IOException
+	 */
+	final ByteBuffer readSlice(int len) throws IOException {
+		if (!retainsBuffers())
+			return ByteBuffer.wrap(readBytes(len)).asReadOnlyBuffer();
+		
+		require(len);
+		ByteBuffer buf = buffer.duplicate();
+		buf.limit(position + len);
+		buf.position(position);
+		position += len;
+		return buf.slice().asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Reads a byte
+	 * @return the read byte
+	 * @throws IOException
+	 */
+	public final byte readByte() throws IOException {
+		require(1);
+		return buffer.get(position++);
+	}
+	
+	/**
+	 * Reads an unsigned byte
+	 * @return the read byte, between 0 and 255
+	 * @throws IOException
+	 */
+	public final int readUnsignedByte() throws IOException {
+		return readByte() & 0xff;
+	}
+	
+	/**
+	 * Reads a boolean stored as a byte
+	 * @return <code>true</code> if the read byte is not zero, <code>false</code> either.
+	 * @throws IOException
+	 */
+	public final boolean readBoolean() throws IOException {
+		return (readByte() != 0);
+	}
+	
+	/**
+	 * Reads a short
+	 * @return the read short
+	 * @throws IOException
+	 */
+	public final short readShort() throws IOException {
+		require(2);
+		short value = buffer.getShort(position);
+		position += 2;
+		return value;
+	}
+	
+	/**
+	 * Reads a character
+	 * @return the read character
+	 * @throws IOException
+	 */
+	public final char readChar() throws IOException {
+		return (char) readShort();
+	}
+	
+	/**
+	 * Reads an int
+	 * @return the read int
+	 * @throws IOException
+	 */
+	public final int readInt() throws IOException {
+		require(4);
+		int value = buffer.getInt(position);
+		position += 4;
+		return value;
+	}
+	
+	/**
+	 * Reads a long
+	 * @return the read long
+	 * @throws IOException
+	 */
+	public final long readLong() throws IOException {
+		require(8);
+		long value = buffer.getLong(position);
+		position += 8;
+		return value;
+	}
+	
+	/**
+	 * Reads a single precision floating-point number
+	 * @return the read float
+	 * @throws IOException
+	 */
+	public final float readFloat() throws IOException {
+		return Float.intBitsToFloat(readInt());
+	}
+	
+	/**
+	 * Reads a double precision floating-point number
+	 * @return the read double
+	 * @throws IOException
+	 */
+	public final double readDouble() throws IOException {
+		return Double.longBitsToDouble(readLong());
+	}
+	
+	/**
+	 * Reads a variable-length unsigned integer
+	 * @return the decoded integer
+	 * @throws IOException
+	 */
+	public final int readVarInt() throws IOException {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = readByte();
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0 && shift < 35);
+		return value;
+	}
+	
+	/**
+	 * Reads bytes into a portion of a byte array
+	 * @param b Destination byte array
+	 * @param off Start offset in the byte array
+	 * @param len Number of bytes to read
+	 * @throws IOException
+	 */
+	public final void readBytes(byte[] b, int off, int len) throws IOException {
+		require(len);
+		if (array != null)
+			System.arraycopy(array, arrayOffset + position, b, off, len);
+		else if (len <= 16) {
+			for (int i = 0; i < len; i++)
+				b[off + i] = buffer.get(position + i);
+		}
+		else {
+			ByteBuffer src = buffer.duplicate();
+			src.position(position);
+			src.get(b, off, len);
+		}
+		position += len;
+	}
+	
+	/**
+	 * Reads bytes into a new byte array
+	 * @param len Number of bytes to read
+	 * @return the byte array
+	 * @throws IOException
+	 */
+	public final byte[] readBytes(int len) throws IOException {
+		byte[] b = new byte[len];
+		readBytes(b, 0, len);
+		return b;
+	}
+	
+	/**
+	 * Skips bytes
+	 * @param len Number of bytes to skip
+	 * @throws IOException
+	 */
+	public final void skip(int len) throws IOException {
+		require(len);
+		position += len;
+	}
+	
+	/**
+	 * Copies bytes to an output buffer, without decoding them
+	 * @param out Destination output buffer
+	 * @param len Number of bytes to copy
+	 * @throws IOException
+	 */
+	final void transferTo(WhiteSharkOutputBuffer out, int len) throws IOException {
+		require(len);
+		if (array != null)
+			out.writeBytes(array, arrayOffset + position, len);
+		else {
+			for (int i = 0; i < len; i++)
+				out.writeByte(buffer.get(position + i));
+		}
+		position += len;
+	}
+	
+	/**
+	 * Reads a string encoded with the US-ASCII charset
+	 * @param len Number of bytes to read
+	 * @return the decoded string
+	 * @throws IOException
+	 */
+	public final String readAscii(int len) throws IOException {
+		return readString(len, false);
+	}
+	
+	/**
+	 * Reads a string encoded with the UTF-8 charset
+	 * @param len Number of bytes to read
+	 * @return the decoded string
+	 * @throws IOException
+	 */
+	public final String readUtf8(int len) throws IOException {
+		return readString(len, true);
+	}
+	
+	/**
+	 * Reads a string encoded with the UTF-8 charset, through a string cache
+	 * @param len Number of bytes to read
+	 * @param cache String cache, or <code>null</code>
+	 * @return the cached or decoded string
+	 * @throws IOException
+	 */
+	final String readUtf8(int len, WhiteSharkStringCache cache) throws IOException {
+		if (cache == null || len > cache.getMaxLength())
+			return readString(len, true);
+		
+		require(len);
+		if (array == null) {
+			if (scratch == null || scratch.length < len)
+				scratch = new byte[Math.max(len, 64)];
+			readBytes(scratch, 0, len);
+			return cache.get(scratch, 0, len);
+		}
+		String str = cache.get(array, arrayOffset + position, len);
+		position += len;
+		return str;
+	}
+	
+	/**
+	 * Reads a string prefixed by its variable-length UTF-8 byte length
+	 * <p>
+	 * Reads strings written by {@link WhiteSharkOutputBuffer#writeString(String)}.
+	 *
+	 * @return the decoded string
+	 * @throws IOException
+	 */
+	public final String readString() throws IOException {
+		return readUtf8(readVarInt());
+	}
+	
+	/**
+	 * Reads a string
+	 * @param len Number of bytes to read
+	 * @param utf8 If set, the UTF-8 charset is used, US-ASCII either
+	 * @return the decoded string
+	 * @throws IOException
+	 */
+	private String readString(int len, boolean utf8) throws IOException {
+		require(len);
+		String str;
+		if (array != null)
+			str = new String(array, arrayOffset + position, len, utf8 ? StandardCharsets.UTF_8 : StandardCharsets.US_ASCII);
+		else {
+			if (scratch == null || scratch.length < len)
+				scratch = new byte[Math.max(len, 64)];
+			readBytes(scratch, 0, len);
+			return new String(scratch, 0, len, utf8 ? StandardCharsets.UTF_8 : StandardCharsets.US_ASCII);
+		}
+		position += len;
+		return str;
+	}
+
+}
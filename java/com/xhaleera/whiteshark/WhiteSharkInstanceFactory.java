@@ -0,0 +1,26 @@
+package com.xhaleera.whiteshark;
+
+/**
+ * WhiteShark instance factory
+ * <p>
+ * Instance factories create the objects of a class during deserialization, in place of its public no-arg constructor.
+ * They are registered on a {@link WhiteSharkExternalClassMapper}, and allow the deserialization of classes
+ * without a public no-arg constructor. Deserialized properties are assigned to the created instances afterwards.
+ * <p>
+ * Factories can be called concurrently by several deserializations sharing the same class mapper.
+ * 
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ * 
+ * @param <T> Created type
+ */
+public interface WhiteSharkInstanceFactory<T> {
+
+	/**
+	 * Creates a new instance
+	 * @return the new instance, never <code>null</code>
+	 */
+	T newInstance();
+
+}
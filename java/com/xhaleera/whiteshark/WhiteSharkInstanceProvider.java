@@ -0,0 +1,139 @@
+package com.xhaleera.whiteshark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+/**
+ * WhiteShark instance provider
+ * <p>
+ * Instance providers supply the objects and arrays created during deserialization, for example from pools
+ * of recycled instances. They are set on a {@link WhiteSharkExternalClassMapper}, and are used by both the immediate
+ * and the progressive deserializers. Objects deserialized as generics are not provided.
+ * <p>
+ * Provided objects must be ready to be populated: their serializable fields are assigned, and the items
+ * of serializable collections and maps are added to them, so collections and maps must be empty.
+ * Provided arrays must have the requested component type and length.
+ * <p>
+ * Once a deserialized graph is no longer used, {@link #releaseGraph(Object)} gives its objects and arrays back
+ * to the provider through {@link #release(Object)}. Providers can be called concurrently by several deserializations
+ * sharing the same class mapper.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public abstract class WhiteSharkInstanceProvider {
+
+	/** Serializable fields cache, by class */
+	private static final ConcurrentHashMap<Class<?>, Field[]> serializableFields = new ConcurrentHashMap<>();
+	
+	/**
+	 * Provides an object
+	 * @param cls Class of the object
+	 * @return an object of the exact class, or <code>null</code> to create it with the instance factory or the public no-arg constructor of the class.
+	 */
+	public Object newInstance(Class<?> cls) {
+		return null;
+	}
+	
+	/**
+	 * Provides an array
+	 * @param componentType Component type of the array
+	 * @param length Length of the array
+	 * @return an array of the exact component type and length, or <code>null</code> to allocate it.
+	 */
+	public Object newArray(Class<?> componentType, int length) {
+		return null;
+	}
+	
+	/**
+	 * Releases an object or an array
+	 * <p>
+	 * The value is no longer used by the caller, and can be reset and recycled.
+	 * 
+	 * @param value Released object or array
+	 */
+	public abstract void release(Object value);
+	
+	/**
+	 * Releases a deserialized graph
+	 * <p>
+	 * Objects and arrays reachable through serializable fields, array elements, collection items and map values
+	 * are released after their own content, once each. Strings, boxed primitives and generic objects are not released,
+	 * but the content of generic objects is.
+	 * 
+	 * @param root Root of the graph
+	 * @throws IllegalAccessException If a serializable field cannot be read.
+	 */
+	public final void releaseGraph(Object root) throws IllegalAccessException {
+		release(root, new IdentityHashMap<Object, Boolean>());
+	}
+	
+	/**
+	 * Releases a value and its content
+	 * @param value Released value
+	 * @param released Values already released
+	 * @throws IllegalAccessException If a serializable field cannot be read.
+	 */
+	private void release(Object value, IdentityHashMap<Object, Boolean> released) throws IllegalAccessException {
+		if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character)
+			return;
+		if (released.put(value, Boolean.TRUE) != null)
+			return;
+		
+		Class<?> c = value.getClass();
+		if (c.isArray()) {
+			if (!c.getComponentType().isPrimitive()) {
+				for (Object element : (Object[]) value)
+					release(element, released);
+			}
+			release(value);
+			return;
+		}
+		
+		if (value instanceof Map) {
+			for (Object v : ((Map<?, ?>) value).values())
+				release(v, released);
+		}
+		else if (value instanceof Collection) {
+			for (Object item : (Collection<?>) value)
+				release(item, released);
+		}
+		
+		if (value instanceof WhiteSharkGenericObject)
+			return;
+		
+		for (Field f : getSerializableFields(c)) {
+			if (!f.getType().isPrimitive())
+				release(f.get(value), released);
+		}
+		release(value);
+	}
+	
+	/**
+	 * Gets the serializable fields of a class
+	 * @param c Class
+	 * @return the public instance fields of the class annotated with {@link WhiteSharkSerializable}
+	 */
+	private static Field[] getSerializableFields(Class<?> c) {
+		Field[] fields = serializableFields.get(c);
+		if (fields == null) {
+			ArrayList<Field> list = new ArrayList<>();
+			for (Field f : c.getFields()) {
+				if (!Modifier.isStatic(f.getModifiers()) && f.getAnnotation(WhiteSharkSerializable.class) != null)
+					list.add(f);
+			}
+			fields = list.toArray(new Field[list.size()]);
+			serializableFields.put(c, fields);
+		}
+		return fields;
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.xhaleera.whiteshark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instantiator of deserialized classes
+ * <p>
+ * Instantiators create the objects of a class, either with its public no-arg constructor, looked up once
+ * as a method handle, or with a registered {@link WhiteSharkInstanceFactory}.
+ * Constructor instantiators are cached per class and shared by all deserializers.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkInstantiator {
+
+	/** Constructor instantiators cache */
+	private static final ConcurrentHashMap<Class<?>, WhiteSharkInstantiator> constructorInstantiators = new ConcurrentHashMap<>();
+	/** Type of constructor handles, once adapted */
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+	
+	/** Constructor handle, or <code>null</code> if instances are created by a factory */
+	private final MethodHandle constructor;
+	/** Instance factory, or <code>null</code> if instances are created by the constructor */
+	private final WhiteSharkInstanceFactory<?> factory;
+	
+	/**
+	 * Constructor
+	 * @param constructor Constructor handle
+	 * @param factory Instance factory
+	 */
+	private WhiteSharkInstantiator(MethodHandle constructor, WhiteSharkInstanceFactory<?> factory) {
+		this.constructor = constructor;
+		this.factory = factory;
+	}
+	
+	/**
+	 * Creates an instantiator from an instance factory
+	 * @param factory Instance factory
+	 * @return the instantiator
+	 */
+	static WhiteSharkInstantiator fromFactory(WhiteSharkInstanceFactory<?> factory) {
+		return new WhiteSharkInstantiator(null, factory);
+	}
+	
+	/**
+	 * Gets the constructor instantiator of a class
+	 * @param c Java class
+	 * @return the instantiator
+	 * @throws NoSuchMethodException If the class has no public no-arg constructor.
+	 * @throws IllegalAccessException If the class is not accessible.
+	 * @throws InstantiationException If the class is abstract.
+	 */
+	static WhiteSharkInstantiator forClass(Class<?> c) throws NoSuchMethodException, IllegalAccessException, InstantiationException {
+		WhiteSharkInstantiator instantiator = constructorInstantiators.get(c);
+		if (instantiator == null) {
+			if (Modifier.isAbstract(c.getModifiers()))
+				throw new InstantiationException(c.getName());
+			
+			MethodHandle constructor = MethodHandles.publicLookup().findConstructor(c, MethodType.methodType(void.class));
+			instantiator = new WhiteSharkInstantiator(constructor.asType(CONSTRUCTOR_TYPE), null);
+			constructorInstantiators.put(c, instantiator);
+		}
+		return instantiator;
+	}
+	
+	/**
+	 * Creates a new instance
+	 * @return the new instance
+	 * @throws InvocationTargetException If the constructor throws an exception.
+	 */
+	Object newInstance() throws InvocationTargetException {
+		if (factory != null)
+			return factory.newInstance();
+		
+		try {
+			return (Object) constructor.invokeExact();
+		}
+		catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+}
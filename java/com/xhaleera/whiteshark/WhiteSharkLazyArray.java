@@ -0,0 +1,110 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import com.xhaleera.whiteshark.exceptions.WhiteSharkNotAPropertyException;
+
+/**
+ * Lazy array view
+ * <p>
+ * This class is a read-only list view of an encoded array, or of the items of an encoded serializable collection,
+ * as returned by {@link WhiteSharkLazyDeserializer} and {@link WhiteSharkLazyObject#getItems()}.
+ * <p>
+ * Items are decoded on first access only. Objects and arrays are returned as lazy views.
+ * When serialized, a view is re-emitted from its encoded bytes, without decoding its items.
+ * <p>
+ * Views are not thread-safe.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkLazyArray extends AbstractList<Object> implements RandomAccess {
+
+	/** Marker of items not decoded yet */
+	private static final Object UNDECODED = new Object();
+	
+	/** Backing document */
+	final WhiteSharkLazyDocument document;
+	/** Index of the array mask in the document, or -1 for collection items */
+	final int offset;
+	/** Component class reference, or <code>null</code> for collection items */
+	private final WhiteSharkLazyDocument.ClassReference componentClassReference;
+	/** Indices of items in the document */
+	final int[] itemOffsets;
+	/** Decoded items */
+	private Object[] items;
+	
+	/**
+	 * Constructor
+	 * <p>
+	 * The array is skimmed to locate its items, and the cursor is left positioned after the array.
+	 *
+	 * @param document Backing document
+	 * @param offset Index of the array mask in the document
+	 * @param in Input cursor, positioned after the array mask
+	 * @param mask Array mask
+	 * @param register If set, dictionary entries defined in the array are registered
+	 * @throws IOException
+	 * @throws WhiteSharkNotAPropertyException
+	 */
+	WhiteSharkLazyArray(WhiteSharkLazyDocument document, int offset, WhiteSharkInputCursor in, byte mask, boolean register) throws IOException, WhiteSharkNotAPropertyException {
+		this.document = document;
+		this.offset = offset;
+		componentClassReference = document.readClassReference(in, mask, false, register);
+		
+		int count = WhiteSharkImmediateDeserializer.readCount(in, (mask & 0x30) >> 4);
+		itemOffsets = new int[count];
+		for (int i = 0; i < count; i++) {
+			itemOffsets[i] = in.position;
+			document.skip(in, register);
+		}
+	}
+	
+	/**
+	 * Constructor for collection items
+	 * @param document Backing document
+	 * @param itemOffsets Indices of items in the document
+	 */
+	WhiteSharkLazyArray(WhiteSharkLazyDocument document, int[] itemOffsets) {
+		this.document = document;
+		this.offset = -1;
+		componentClassReference = null;
+		this.itemOffsets = itemOffsets;
+	}
+	
+	/**
+	 * Gets the external name of the array's component class
+	 * <p>
+	 * The class itself is not loaded, unless it is referenced by a numeric type identifier.
+	 *
+	 * @return the external component class name, or <code>null</code> for collection items.
+	 * @throws ClassNotFoundException If the class is referenced by an unregistered type identifier.
+	 */
+	public String getComponentClassName() throws ClassNotFoundException {
+		return (componentClassReference == null) ? null : componentClassReference.getName(document.classMapper);
+	}
+	
+	@Override
+	public Object get(int index) {
+		if (index < 0 || index >= itemOffsets.length)
+			throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for length %d", index, itemOffsets.length));
+		
+		if (items == null) {
+			items = new Object[itemOffsets.length];
+			Arrays.fill(items, UNDECODED);
+		}
+		if (items[index] == UNDECODED)
+			items[index] = document.valueAt(itemOffsets[index]);
+		return items[index];
+	}
+	
+	@Override
+	public int size() {
+		return itemOffsets.length;
+	}
+
+}
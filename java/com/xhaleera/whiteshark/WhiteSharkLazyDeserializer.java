@@ -0,0 +1,100 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.xhaleera.whiteshark.exceptions.WhiteSharkException;
+
+/**
+ * Lazy deserializer class
+ * <p>
+ * This class opens completely buffered WhiteShark streams as lazy views: objects are returned as
+ * {@link WhiteSharkLazyObject} maps and arrays as {@link WhiteSharkLazyArray} lists, backed by the encoded bytes.
+ * Values are decoded on first access only, and classes are not loaded nor instantiated,
+ * so streams can be read even if their classes are not available.
+ * <p>
+ * Views can be passed to {@link WhiteSharkSerializer}: unmodified subtrees are then re-emitted
+ * from their encoded bytes, with only their dictionary references rewritten.
+ * <p>
+ * As the format does not store the encoded length of objects and arrays, the stream is skimmed once when opened.
+ * The encoded bytes must not be modified while views are in use.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class WhiteSharkLazyDeserializer {
+
+	/** Default class mapper */
+	private static final WhiteSharkExternalClassMapper defaultClassMapper = new WhiteSharkExternalClassMapper();
+	
+	/**
+	 * Opens a completely buffered WhiteShark stream as lazy views
+	 *
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param bytes Byte array to deserialize
+	 * @return a lazy view for objects and arrays, or the decoded value for other types
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, byte[] bytes) throws ClassNotFoundException, WhiteSharkException, IOException {
+		return deserialize(identifier, bytes, defaultClassMapper);
+	}
+	
+	/**
+	 * Opens a completely buffered WhiteShark stream as lazy views
+	 *
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param bytes Byte array to deserialize
+	 * @param classMapper External class mapper
+	 * @return a lazy view for objects and arrays, or the decoded value for other types
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, byte[] bytes, WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException, WhiteSharkException, IOException {
+		return deserialize(identifier, ByteBuffer.wrap(bytes), classMapper);
+	}
+	
+	/**
+	 * Opens a completely buffered WhiteShark stream as lazy views
+	 *
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer to deserialize
+	 * @return a lazy view for objects and arrays, or the decoded value for other types
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, ByteBuffer buffer) throws ClassNotFoundException, WhiteSharkException, IOException {
+		return deserialize(identifier, buffer, defaultClassMapper);
+	}
+	
+	/**
+	 * Opens a completely buffered WhiteShark stream as lazy views
+	 * <p>
+	 * Deserialization starts at the current position of the buffer, which can be a direct buffer.
+	 * The position of the buffer is then advanced right after the deserialized data.
+	 *
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer to deserialize
+	 * @param classMapper External class mapper
+	 * @return a lazy view for objects and arrays, or the decoded value for other types
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	public static Object deserialize(String identifier, ByteBuffer buffer, WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException, WhiteSharkException, IOException {
+		WhiteSharkInputCursor in = new WhiteSharkInputCursor(buffer);
+		short options = WhiteSharkImmediateDeserializer.readHeader(identifier, in);
+		
+		WhiteSharkLazyDocument document = new WhiteSharkLazyDocument(in.buffer, options, (classMapper == null) ? defaultClassMapper : classMapper);
+		Object result = document.value(in, true);
+		if (WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OFFSET_INDEX))
+			WhiteSharkOffsetIndex.skip(in);
+		buffer.position(buffer.position() + (int) in.position());
+		return result;
+	}
+
+}
@@ -0,0 +1,319 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import com.xhaleera.whiteshark.exceptions.WhiteSharkException;
+import com.xhaleera.whiteshark.exceptions.WhiteSharkMissingTypeAdapterException;
+import com.xhaleera.whiteshark.exceptions.WhiteSharkNotAPropertyException;
+
+/**
+ * Encoded document backing lazy views
+ * <p>
+ * WhiteShark objects and arrays do not store their encoded length, and dictionaries are filled
+ * in stream order. So when a document is opened, its root value is skimmed once: dictionary entries are
+ * registered and the offsets of the root properties or items are recorded, but no value is decoded.
+ * Nested values are then decoded only when accessed, and nested objects and arrays are skimmed again
+ * only to locate their own properties or items.
+ * <p>
+ * Pre-encoded fragments have their own dictionaries, so they are opened as distinct documents.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkLazyDocument {
+
+	/** Encoded bytes */
+	private final ByteBuffer buffer;
+	/** Serialization options */
+	final short options;
+	/** Class mapper */
+	final WhiteSharkExternalClassMapper classMapper;
+	
+	/** Classes dictionary */
+	private final ArrayList<ClassReference> classDictionary;
+	/** Properties dictionary */
+	private final ArrayList<String> propertyDictionary;
+	
+	/**
+	 * Constructor
+	 * <p>
+	 * Documents without encoded bytes only track the dictionaries of sequential reads, such as the ones of {@link WhiteSharkReader}.
+	 * 
+	 * @param buffer Encoded bytes, whose limit is the end of the document, or <code>null</code>
+	 * @param options Serialization options
+	 * @param classMapper Class mapper
+	 */
+	WhiteSharkLazyDocument(ByteBuffer buffer, short options, WhiteSharkExternalClassMapper classMapper) {
+		this.buffer = buffer;
+		this.options = options;
+		this.classMapper = classMapper;
+		classDictionary = new ArrayList<>();
+		propertyDictionary = new ArrayList<>();
+	}
+	
+	/**
+	 * Creates a cursor over the document
+	 * @param index Index of the first byte to read in the encoded bytes
+	 * @return the input cursor
+	 */
+	WhiteSharkInputCursor cursor(int index) {
+		WhiteSharkInputCursor in = new WhiteSharkInputCursor(buffer);
+		in.position = index;
+		return in;
+	}
+	
+	/**
+	 * Decodes the value at a specific index, for views
+	 * @param index Index of the value mask
+	 * @return the decoded value, or a view if the value is an object or an array
+	 * @throws IllegalStateException If the value cannot be decoded.
+	 */
+	Object valueAt(int index) {
+		try {
+			return value(cursor(index), false);
+		}
+		catch (IOException | WhiteSharkException | ClassNotFoundException e) {
+			throw new IllegalStateException("Unable to decode lazy WhiteShark value", e);
+		}
+	}
+	
+	/**
+	 * Decodes a value
+	 * <p>
+	 * Objects and arrays are returned as views. Values encoded by type adapters are decoded immediately.
+	 *
+	 * @param in Input cursor, positioned on the value mask
+	 * @param register If set, dictionary entries defined in the value are registered. Only set when opening the document.
+	 * @return the decoded value, or a view if the value is an object or an array
+	 * @throws IOException
+	 * @throws WhiteSharkException
+	 * @throws ClassNotFoundException
+	 */
+	Object value(WhiteSharkInputCursor in, boolean register) throws IOException, WhiteSharkException, ClassNotFoundException {
+		int offset = in.position;
+		byte mask = in.readByte();
+		byte dataType = (byte) (mask & 0xf);
+		
+		if (dataType == WhiteSharkDataType.NULL.getMask())
+			return null;
+		else if (dataType == WhiteSharkDataType.BOOLEAN.getMask())
+			return ((mask & 0xf0) != 0);
+		else if (dataType == WhiteSharkDataType.INTEGER.getMask())
+			return WhiteSharkImmediateDeserializer.deserializeInteger(in, mask, options);
+		else if (dataType == WhiteSharkDataType.REAL.getMask())
+			return WhiteSharkImmediateDeserializer.deserializeReal(in, mask, options);
+		else if (dataType == WhiteSharkDataType.CHAR.getMask())
+			return WhiteSharkImmediateDeserializer.deserializeCharacter(in, mask, options);
+		else if (dataType == WhiteSharkDataType.STRING.getMask())
+			return WhiteSharkImmediateDeserializer.deserializeString(in, mask, options, classMapper.getStringCache());
+		else if (dataType == WhiteSharkDataType.BINARY.getMask())
+			return WhiteSharkImmediateDeserializer.deserializeBinary(in, mask, options, classMapper.hasBinarySlices(), null);
+		else if (dataType == WhiteSharkDataType.ARRAY.getMask())
+			return new WhiteSharkLazyArray(this, offset, in, mask, register);
+		else if (dataType == WhiteSharkDataType.CUSTOM.getMask()) {
+			Class<?> adaptedClass = readClassReference(in, mask, false, register).resolve(classMapper);
+			WhiteSharkInputCursor payload = in.slice(in.readInt());
+			WhiteSharkTypeAdapter<Object> adapter = classMapper.getTypeAdapter(adaptedClass);
+			if (adapter == null)
+				throw new WhiteSharkMissingTypeAdapterException(String.format("No type adapter registered for class %s", adaptedClass.getName()));
+			return adapter.read(payload);
+		}
+		else if (dataType == WhiteSharkDataType.FRAGMENT.getMask()) {
+			WhiteSharkInputCursor fragment = in.slice(in.readInt());
+			WhiteSharkLazyDocument document = new WhiteSharkLazyDocument(fragment.buffer, options, classMapper);
+			return document.value(document.cursor(fragment.position), true);
+		}
+		else
+			return new WhiteSharkLazyObject(this, offset, in, mask, register);
+	}
+	
+	/**
+	 * Skips a value without decoding it
+	 * @param in Input cursor, positioned on the value mask
+	 * @param register If set, dictionary entries defined in the value are registered
+	 * @throws IOException
+	 * @throws WhiteSharkNotAPropertyException
+	 */
+	void skip(WhiteSharkInputCursor in, boolean register) throws IOException, WhiteSharkNotAPropertyException {
+		byte mask = in.readByte();
+		byte dataType = (byte) (mask & 0xf);
+		
+		if (dataType == WhiteSharkDataType.NULL.getMask() || dataType == WhiteSharkDataType.BOOLEAN.getMask())
+			return;
+		else if (dataType == WhiteSharkDataType.INTEGER.getMask())
+			in.skip((mask & 0xf0) >> 4);
+		else if (dataType == WhiteSharkDataType.REAL.getMask())
+			in.skip(WhiteSharkRealEncoding.getPayloadSize(mask));
+		else if (dataType == WhiteSharkDataType.CHAR.getMask())
+			in.skip(2);
+		else if (dataType == WhiteSharkDataType.STRING.getMask() || dataType == WhiteSharkDataType.BINARY.getMask()) {
+			switch ((mask & 0xf0) >> 4) {
+				case 1:
+					in.skip(in.readUnsignedByte());
+					break;
+				
+				case 2:
+					in.skip(in.readShort());
+					break;
+				
+				default:
+					in.skip(in.readInt());
+					break;
+			}
+		}
+		else if (dataType == WhiteSharkDataType.ARRAY.getMask()) {
+			readClassReference(in, mask, false, register);
+			int count = WhiteSharkImmediateDeserializer.readCount(in, (mask & 0x30) >> 4);
+			for (int i = 0; i < count; i++)
+				skip(in, register);
+		}
+		else if (dataType == WhiteSharkDataType.CUSTOM.getMask()) {
+			readClassReference(in, mask, false, register);
+			in.skip(in.readInt());
+		}
+		else if (dataType == WhiteSharkDataType.FRAGMENT.getMask())
+			in.skip(in.readInt());
+		else {
+			if (!isGenerics(mask))
+				readClassReference(in, mask, true, register);
+			int count = WhiteSharkImmediateDeserializer.readCount(in, (mask & 0x30) >> 4);
+			for (int i = 0; i < count; i++) {
+				readPropertyName(in, register);
+				skip(in, register);
+			}
+		}
+	}
+	
+	/**
+	 * Tells if an object has been serialized as generics
+	 * @param mask Object mask
+	 * @return <code>true</code> if the object has no class reference, <code>false</code> either.
+	 */
+	boolean isGenerics(byte mask) {
+		return WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS) || ((mask & 0x80) != 0);
+	}
+	
+	/**
+	 * Reads a class reference, without resolving the class
+	 * @param in Input cursor, positioned after the value mask
+	 * @param mask Value mask
+	 * @param withVersion If set, the class name is followed by a serialization version
+	 * @param register If set, a class name is registered in the classes dictionary
+	 * @return the class reference
+	 * @throws IOException
+	 */
+	ClassReference readClassReference(WhiteSharkInputCursor in, byte mask, boolean withVersion, boolean register) throws IOException {
+		if ((mask & 0x40) != 0)
+			return classDictionary.get(in.readShort());
+		
+		ClassReference reference = ClassReference.read(in, withVersion);
+		if (register)
+			classDictionary.add(reference);
+		return reference;
+	}
+	
+	/**
+	 * Reads a property name
+	 * @param in Input cursor, positioned on the property mask
+	 * @param register If set, a literal property name is registered in the properties dictionary
+	 * @return the property name
+	 * @throws IOException
+	 * @throws WhiteSharkNotAPropertyException
+	 */
+	String readPropertyName(WhiteSharkInputCursor in, boolean register) throws IOException, WhiteSharkNotAPropertyException {
+		byte mask = in.readByte();
+		if ((mask & 0xf) != WhiteSharkDataType.PROPERTY.getMask())
+			throw new WhiteSharkNotAPropertyException("Not a property");
+		
+		if ((mask & 0x20) != 0)
+			return propertyDictionary.get(in.readShort());
+		
+		int nameLength = ((mask & 0x10) != 0) ? in.readShort() : in.readUnsignedByte();
+		String name = in.readAscii(nameLength);
+		if (register)
+			propertyDictionary.add(name);
+		return name;
+	}
+	
+	/**
+	 * Unresolved class reference
+	 * <p>
+	 * Classes are only resolved when needed, so documents can be read and re-emitted
+	 * even if the referenced classes are not available.
+	 */
+	static final class ClassReference {
+	
+		/** External class name, or <code>null</code> if the class is referenced by its type identifier */
+		final String name;
+		/** Numeric type identifier, or a negative value if the class is referenced by its name */
+		final int typeId;
+		/** Serialization version, as read from the document */
+		int version;
+		/** Flag indicating if the serialization version has been read from the document */
+		boolean versioned;
+		/** Dictionary key of the reference, distinct from classes */
+		final Object key;
+		/** Resolved class */
+		private Class<?> resolvedClass;
+		
+		/**
+		 * Constructor
+		 * @param name External class name, or <code>null</code>
+		 * @param typeId Numeric type identifier, or a negative value
+		 */
+		ClassReference(String name, int typeId) {
+			this.name = name;
+			this.typeId = typeId;
+			version = WhiteSharkConstants.DEFAULT_SERIALIZATION_VERSION;
+			key = (name != null) ? name : Integer.valueOf(typeId);
+		}
+		
+		/**
+		 * Reads a class name or a type identifier
+		 * @param in Input cursor, positioned on the class name length
+		 * @param withVersion If set, the class name is followed by a serialization version
+		 * @return the class reference
+		 * @throws IOException
+		 */
+		static ClassReference read(WhiteSharkInputCursor in, boolean withVersion) throws IOException {
+			ClassReference reference;
+			int classNameLength = in.readShort();
+			if (classNameLength == WhiteSharkConstants.TYPE_ID_MARKER)
+				reference = new ClassReference(null, in.readVarInt());
+			else
+				reference = new ClassReference(in.readAscii(classNameLength), -1);
+			if (withVersion) {
+				reference.version = in.readInt();
+				reference.versioned = true;
+			}
+			return reference;
+		}
+		
+		/**
+		 * Resolves the referenced class
+		 * @param classMapper Class mapper
+		 * @return the class
+		 * @throws ClassNotFoundException
+		 */
+		Class<?> resolve(WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException {
+			if (resolvedClass == null)
+				resolvedClass = (name == null) ? classMapper.getClassFromTypeId(typeId) : classMapper.getClassFromExternal(name);
+			return resolvedClass;
+		}
+		
+		/**
+		 * Gets the external name of the referenced class
+		 * @param classMapper Class mapper
+		 * @return the external class name
+		 * @throws ClassNotFoundException If the class is referenced by an unregistered type identifier.
+		 */
+		String getName(WhiteSharkExternalClassMapper classMapper) throws ClassNotFoundException {
+			return (name != null) ? name : classMapper.getExternalFromClass(resolve(classMapper));
+		}
+	
+	}
+
+}
@@ -0,0 +1,265 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import com.xhaleera.whiteshark.exceptions.WhiteSharkNotAPropertyException;
+
+/**
+ * Lazy object view
+ * <p>
+ * This class is a read-only map view of an encoded object, as returned by {@link WhiteSharkLazyDeserializer}.
+ * Keys are property names. Entries of serializable maps are keyed by their property name, i.e. their key
+ * prefixed with {@link WhiteSharkConstants#MAP_PROPERTY_NAME_PREFIX}, and serializable collection items are
+ * available from {@link #getItems()}.
+ * <p>
+ * Property values are decoded on first access only. Objects and arrays are returned as lazy views.
+ * When serialized, a view is re-emitted from its encoded bytes, without decoding its values.
+ * <p>
+ * Views are not thread-safe.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkLazyObject extends AbstractMap<String, Object> {
+
+	/** Marker of values not decoded yet */
+	private static final Object UNDECODED = new Object();
+	
+	/** Backing document */
+	final WhiteSharkLazyDocument document;
+	/** Index of the object mask in the document */
+	final int offset;
+	/** Class reference, or <code>null</code> if the object has been serialized as generics */
+	private final WhiteSharkLazyDocument.ClassReference classReference;
+	/** Property names */
+	private final String[] names;
+	/** Indices of property values in the document */
+	private final int[] valueOffsets;
+	/** Decoded property values */
+	private Object[] values;
+	/** Indices of collection items in the document */
+	private final int[] itemOffsets;
+	/** Collection items view */
+	private WhiteSharkLazyArray items;
+	/** Entry set view */
+	private Set<Map.Entry<String, Object>> entrySet;
+	
+	/**
+	 * Constructor
+	 * <p>
+	 * The object is skimmed to locate its properties, and the cursor is left positioned after the object.
+	 *
+	 * @param document Backing document
+	 * @param offset Index of the object mask in the document
+	 * @param in Input cursor, positioned after the object mask
+	 * @param mask Object mask
+	 * @param register If set, dictionary entries defined in the object are registered
+	 * @throws IOException
+	 * @throws WhiteSharkNotAPropertyException
+	 */
+	WhiteSharkLazyObject(WhiteSharkLazyDocument document, int offset, WhiteSharkInputCursor in, byte mask, boolean register) throws IOException, WhiteSharkNotAPropertyException {
+		this.document = document;
+		this.offset = offset;
+		classReference = document.isGenerics(mask) ? null : document.readClassReference(in, mask, true, register);
+		
+		int count = WhiteSharkImmediateDeserializer.readCount(in, (mask & 0x30) >> 4);
+		String[] names = new String[count];
+		int[] valueOffsets = new int[count];
+		int[] itemOffsets = new int[count];
+		int propertyCount = 0;
+		int itemCount = 0;
+		for (int i = 0; i < count; i++) {
+			String name = document.readPropertyName(in, register);
+			if (name.equals(WhiteSharkConstants.COLLECTION_ITEM_PROPERTY_NAME))
+				itemOffsets[itemCount++] = in.position;
+			else {
+				names[propertyCount] = name;
+				valueOffsets[propertyCount++] = in.position;
+			}
+			document.skip(in, register);
+		}
+		
+		this.names = (propertyCount == count) ? names : Arrays.copyOf(names, propertyCount);
+		this.valueOffsets = (propertyCount == count) ? valueOffsets : Arrays.copyOf(valueOffsets, propertyCount);
+		this.itemOffsets = Arrays.copyOf(itemOffsets, itemCount);
+	}
+	
+	/**
+	 * Tells if the object has been serialized as generics
+	 * @return <code>true</code> if the object has no class, <code>false</code> either.
+	 */
+	public boolean isGenerics() {
+		return (classReference == null);
+	}
+	
+	/**
+	 * Gets the external name of the object's class
+	 * <p>
+	 * The class itself is not loaded, unless it is referenced by a numeric type identifier.
+	 *
+	 * @return the external class name, or <code>null</code> if the object has been serialized as generics.
+	 * @throws ClassNotFoundException If the class is referenced by an unregistered type identifier.
+	 */
+	public String getClassName() throws ClassNotFoundException {
+		return (classReference == null) ? null : classReference.getName(document.classMapper);
+	}
+	
+	/**
+	 * Gets the serializable collection items of the object
+	 * @return a read-only lazy list of the items, empty if the object is not a serializable collection.
+	 */
+	public List<Object> getItems() {
+		if (items == null)
+			items = new WhiteSharkLazyArray(document, itemOffsets);
+		return items;
+	}
+	
+	/**
+	 * Gets the index of a property
+	 * @param key Property name
+	 * @return the property index, or -1 if the object has no such property.
+	 */
+	private int indexOf(Object key) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(key))
+				return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Gets the value of a property, decoding it on first access
+	 * @param index Property index
+	 * @return the property value
+	 */
+	private Object valueAt(int index) {
+		if (values == null) {
+			values = new Object[names.length];
+			Arrays.fill(values, UNDECODED);
+		}
+		if (values[index] == UNDECODED)
+			values[index] = document.valueAt(valueOffsets[index]);
+		return values[index];
+	}
+	
+	@Override
+	public int size() {
+		return names.length;
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return (indexOf(key) >= 0);
+	}
+	
+	@Override
+	public Object get(Object key) {
+		int index = indexOf(key);
+		return (index < 0) ? null : valueAt(index);
+	}
+	
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+			
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					return new Iterator<Map.Entry<String, Object>>() {
+					
+						/** Next property index */
+						private int next = 0;
+						
+						@Override
+						public boolean hasNext() {
+							return (next < names.length);
+						}
+						
+						@Override
+						public Map.Entry<String, Object> next() {
+							if (next >= names.length)
+								throw new NoSuchElementException();
+							return new Entry(next++);
+						}
+						
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					
+					};
+				}
+				
+				@Override
+				public int size() {
+					return names.length;
+				}
+			
+			};
+		}
+		return entrySet;
+	}
+	
+	/**
+	 * Property entry, whose value is decoded on first access
+	 */
+	private final class Entry implements Map.Entry<String, Object> {
+	
+		/** Property index */
+		private final int index;
+		
+		/**
+		 * Constructor
+		 * @param index Property index
+		 */
+		private Entry(int index) {
+			this.index = index;
+		}
+		
+		@Override
+		public String getKey() {
+			return names[index];
+		}
+		
+		@Override
+		public Object getValue() {
+			return valueAt(index);
+		}
+		
+		@Override
+		public Object setValue(Object value) {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+		
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ Objects.hashCode(getValue());
+		}
+		
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input cursor reading from a memory-mapped file
+ * <p>
+ * The file is mapped by windows, as a single mapping cannot exceed 2 GB.
+ * When a read crosses the end of the current window, a new window is mapped
+ * starting at the current position, so files of any size can be read.
+ * Bytes are read directly from the mapped buffers, without read calls nor copies to the heap.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkMappedFileInputCursor extends WhiteSharkInputCursor {
+
+	/** Default window size */
+	static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+	
+	/** Source file channel */
+	private final FileChannel channel;
+	/** Size of the file */
+	private final long fileSize;
+	/** Window size */
+	private final int windowSize;
+	
+	/**
+	 * Constructor
+	 * @param channel Source file channel, opened for reading
+	 * @param windowSize Window size, in bytes
+	 * @throws IOException
+	 */
+	WhiteSharkMappedFileInputCursor(FileChannel channel, int windowSize) throws IOException {
+		this(channel, windowSize, 0);
+	}
+	
+	/**
+	 * Constructor
+	 * @param channel Source file channel, opened for reading
+	 * @param windowSize Window size, in bytes
+	 * @param offset File offset of the first byte to read
+	 * @throws IOException
+	 */
+	WhiteSharkMappedFileInputCursor(FileChannel channel, int windowSize, long offset) throws IOException {
+		this.channel = channel;
+		this.windowSize = windowSize;
+		fileSize = channel.size();
+		map(offset, 0);
+	}
+	
+	/**
+	 * Maps a new window
+	 * @param offset File offset of the window
+	 * @param minSize Minimum size of the window
+	 * @return <code>true</code> if the window has the minimum size, <code>false</code> if the end of the file is reached before.
+	 * @throws IOException
+	 */
+	private boolean map(long offset, int minSize) throws IOException {
+		int size = (int) Math.min(Math.max(windowSize, minSize), fileSize - offset);
+		MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+		setBuffer(window, offset);
+		position = 0;
+		limit = size;
+		return (size >= minSize);
+	}
+	
+	@Override
+	boolean fill(int count) throws IOException {
+		return map(base + position, count);
+	}
+
+}
@@ -0,0 +1,162 @@
+package com.xhaleera.whiteshark;
+
+import java.util.HashMap;
+
+/**
+ * Shape of generic objects
+ * <p>
+ * A shape is the immutable sequence of property names of generic objects. During deserialization, generic objects
+ * with the same property sequence share the same shape, so they only store their values.
+ * Shapes are linked by transitions: the shape of an object with one more property is found from the shape of the object
+ * without it. Property names are the ones of the properties dictionary, so transitions are mostly found by identity.
+ * <p>
+ * Transitions are only used by deserializers, from a root shape kept by each deserializer across deserializations,
+ * so successive messages with the same layout share their shapes. The number of shapes derived from a root is bounded:
+ * once it is reached, no more shapes are created and the deserializer starts over from a new root for the next deserialization.
+ * Property names and their indices are safe to read from any thread.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkObjectShape {
+
+	/** Empty shape, without transitions */
+	static final WhiteSharkObjectShape EMPTY = new WhiteSharkObjectShape(new String[0]);
+	
+	/** Maximum number of properties of shared shapes */
+	static final int MAX_SIZE = 64;
+	/** Maximum number of shapes derived from a root shape */
+	static final int MAX_SHAPES = 4096;
+	/** Number of properties above which property indices are hashed */
+	static final int INDEX_THRESHOLD = 8;
+	
+	/** Property names */
+	final String[] keys;
+	/** Root shape this shape derives from */
+	private final WhiteSharkObjectShape root;
+	/** Number of shapes derived from this shape, only maintained for root shapes */
+	private int shapeCount;
+	/** Property indices, by name, only built for large shapes */
+	private volatile HashMap<String, Integer> indices;
+	
+	/** Property name of the first transition */
+	private String firstTransitionKey;
+	/** Target of the first transition, or <code>null</code> if the transition is not possible */
+	private WhiteSharkObjectShape firstTransition;
+	/** Other transitions, by property name */
+	private HashMap<String, WhiteSharkObjectShape> transitions;
+	
+	/**
+	 * Creates an empty root shape
+	 */
+	WhiteSharkObjectShape() {
+		this(new String[0]);
+	}
+	
+	/**
+	 * Creates a root shape
+	 * @param keys Property names
+	 */
+	private WhiteSharkObjectShape(String[] keys) {
+		this.keys = keys;
+		root = this;
+	}
+	
+	/**
+	 * Creates a derived shape
+	 * @param keys Property names
+	 * @param root Root shape
+	 */
+	private WhiteSharkObjectShape(String[] keys, WhiteSharkObjectShape root) {
+		this.keys = keys;
+		this.root = root;
+	}
+	
+	/**
+	 * Indicates if the maximum number of shapes derived from the root of this shape is reached
+	 * @return <code>true</code> if no more shapes can be created from the root of this shape, <code>false</code> otherwise.
+	 */
+	boolean isFull() {
+		return root.shapeCount >= MAX_SHAPES;
+	}
+	
+	/**
+	 * Gets the index of a property
+	 * @param key Property name
+	 * @return the property index, or -1 if the shape has no such property.
+	 */
+	int indexOf(Object key) {
+		if (keys.length > INDEX_THRESHOLD) {
+			HashMap<String, Integer> indices = this.indices;
+			if (indices == null) {
+				indices = new HashMap<>(keys.length * 2);
+				for (int i = 0; i < keys.length; i++)
+					indices.put(keys[i], i);
+				this.indices = indices;
+			}
+			Integer index = indices.get(key);
+			return (index == null) ? -1 : index;
+		}
+		
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] == key)
+				return i;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i].equals(key))
+				return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Finds the shape with one more property
+	 * <p>
+	 * Transitions are cached, so this method must only be used by a single deserialization at once.
+	 *
+	 * @param key Name of the appended property
+	 * @return the shape with the appended property, or <code>null</code> if the shape already has the property, is too large,
+	 * or if the maximum number of shapes is reached.
+	 */
+	WhiteSharkObjectShape next(String key) {
+		if (key.equals(firstTransitionKey))
+			return firstTransition;
+		if (transitions != null) {
+			WhiteSharkObjectShape shape = transitions.get(key);
+			if (shape != null || transitions.containsKey(key))
+				return shape;
+		}
+		if (isFull())
+			return null;
+		
+		WhiteSharkObjectShape shape = append(key);
+		if (firstTransitionKey == null) {
+			firstTransitionKey = key;
+			firstTransition = shape;
+		}
+		else {
+			if (transitions == null)
+				transitions = new HashMap<>();
+			transitions.put(key, shape);
+		}
+		return shape;
+	}
+	
+	/**
+	 * Creates the shape with one more property
+	 * @param key Name of the appended property
+	 * @return the new shape, or <code>null</code> if the shape already has the property or is too large.
+	 */
+	private WhiteSharkObjectShape append(String key) {
+		if (keys.length >= MAX_SIZE || indexOf(key) >= 0)
+			return null;
+		
+		String[] nextKeys = new String[keys.length + 1];
+		System.arraycopy(keys, 0, nextKeys, 0, keys.length);
+		nextKeys[keys.length] = key;
+		root.shapeCount++;
+		return new WhiteSharkObjectShape(nextKeys, root);
+	}
+
+}
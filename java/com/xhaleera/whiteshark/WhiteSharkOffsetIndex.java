@@ -0,0 +1,154 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import com.xhaleera.whiteshark.exceptions.WhiteSharkException;
+
+/**
+ * Offset index of a stream
+ * <p>
+ * Streams serialized with {@link WhiteSharkConstants#OPTIONS_OFFSET_INDEX} are followed by an offset index, right after the root value:
+ * <ul>
+ * <li>an int giving the byte length of the index content;</li>
+ * <li>the index content: the index stride, the number of root elements, a snapshot of the classes and properties dictionaries
+ * at the end of the root value, then the element entries and the property entries;</li>
+ * <li>the byte length of the index content again, and {@link WhiteSharkConstants#OFFSET_INDEX_IDENTIFIER}.</li>
+ * </ul>
+ * Sequential readers skip the index using its leading length, and random access readers locate it from the end of the stream.
+ * <p>
+ * Each entry records the offset of a root element or property from the start of the stream, and the sizes of the dictionaries at this offset.
+ * As dictionaries only grow, a value can then be decoded from its offset with the matching prefixes of the dictionary snapshot.
+ * Element entries are recorded for one root array element or collection item out of <code>stride</code>,
+ * and property entries for every other property of the root object.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkOffsetIndex {
+
+	/** Number of root elements between two element entries */
+	final int stride;
+	/** Number of root array elements or collection items */
+	final int elementCount;
+	/** Classes dictionary snapshot, holding unresolved class references */
+	final ArrayList<Object> classes;
+	/** Properties dictionary snapshot */
+	final ArrayList<String> properties;
+	/** Element entries */
+	final Entries elements;
+	/** Property entries, by property name */
+	final LinkedHashMap<String, Integer> propertyEntries;
+	/** Property entries */
+	final Entries propertyOffsets;
+	
+	/**
+	 * Constructor
+	 * @param stride Number of root elements between two element entries
+	 * @param elementCount Number of root array elements or collection items
+	 */
+	private WhiteSharkOffsetIndex(int stride, int elementCount) {
+		this.stride = stride;
+		this.elementCount = elementCount;
+		classes = new ArrayList<>();
+		properties = new ArrayList<>();
+		elements = new Entries();
+		propertyEntries = new LinkedHashMap<>();
+		propertyOffsets = new Entries();
+	}
+	
+	/**
+	 * Reads the offset index of a stream
+	 * @param in Input cursor, positioned on the byte length of the index content
+	 * @return the offset index
+	 * @throws IOException
+	 * @throws WhiteSharkException If the index is malformed.
+	 */
+	static WhiteSharkOffsetIndex read(WhiteSharkInputCursor in) throws IOException, WhiteSharkException {
+		int length = in.readInt();
+		long start = in.position();
+		
+		int stride = in.readInt();
+		int elementCount = in.readInt();
+		if (stride < 1 || elementCount < 0)
+			throw new WhiteSharkException("Malformed offset index");
+		WhiteSharkOffsetIndex index = new WhiteSharkOffsetIndex(stride, elementCount);
+		
+		int classCount = in.readInt();
+		for (int i = 0; i < classCount; i++)
+			index.classes.add(WhiteSharkLazyDocument.ClassReference.read(in, false));
+		int propertyCount = in.readInt();
+		for (int i = 0; i < propertyCount; i++)
+			index.properties.add(in.readAscii(in.readShort()));
+		
+		int elementEntryCount = in.readInt();
+		for (int i = 0; i < elementEntryCount; i++)
+			index.elements.add(in.readLong(), in.readInt(), in.readInt());
+		int propertyEntryCount = in.readInt();
+		for (int i = 0; i < propertyEntryCount; i++) {
+			index.propertyEntries.put(in.readAscii(in.readShort()), i);
+			index.propertyOffsets.add(in.readLong(), in.readInt(), in.readInt());
+		}
+		
+		if (in.position() - start != length || in.readInt() != length || elementEntryCount != (elementCount + stride - 1) / stride)
+			throw new WhiteSharkException("Malformed offset index");
+		return index;
+	}
+	
+	/**
+	 * Skips the offset index following a root value
+	 * @param in Input cursor, positioned right after the root value
+	 * @throws IOException
+	 */
+	static void skip(WhiteSharkInputCursor in) throws IOException {
+		in.skip(in.readInt() + 8);
+	}
+	
+	/**
+	 * Growable list of index entries
+	 */
+	static final class Entries {
+	
+		/** Offsets from the start of the stream */
+		long[] offsets;
+		/** Sizes of the classes dictionary */
+		int[] classCounts;
+		/** Sizes of the properties dictionary */
+		int[] propertyCounts;
+		/** Number of entries */
+		int size;
+		
+		/**
+		 * Constructor
+		 */
+		Entries() {
+			offsets = new long[16];
+			classCounts = new int[16];
+			propertyCounts = new int[16];
+			size = 0;
+		}
+		
+		/**
+		 * Adds an entry
+		 * @param offset Offset from the start of the stream
+		 * @param classCount Size of the classes dictionary
+		 * @param propertyCount Size of the properties dictionary
+		 */
+		void add(long offset, int classCount, int propertyCount) {
+			if (size == offsets.length) {
+				offsets = Arrays.copyOf(offsets, size * 2);
+				classCounts = Arrays.copyOf(classCounts, size * 2);
+				propertyCounts = Arrays.copyOf(propertyCounts, size * 2);
+			}
+			offsets[size] = offset;
+			classCounts[size] = classCount;
+			propertyCounts[size] = propertyCount;
+			size++;
+		}
+	
+	}
+
+}
@@ -0,0 +1,434 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Serialization output buffer
+ * <p>
+ * Serialized bytes are accumulated in a growable byte array, using the format byte order,
+ * and are flushed to the destination stream or buffer by large blocks.
+ * <p>
+ * A counting output buffer has no destination. Its bytes are discarded, and strings are not
+ * even encoded, so it can be used to compute the size of a serialized stream cheaply.
+ * Type adapters still write their values to counting output buffers.
+ * <p>
+ * Output buffers are provided to {@link WhiteSharkTypeAdapter} instances during serialization.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkOutputBuffer {
+
+	/** Default buffer capacity */
+	private static final int DEFAULT_CAPACITY = 8192;
+	
+	/** Destination stream */
+	private final OutputStream stream;
+	/** Destination buffer */
+	private final ByteBuffer target;
+	/** Flag indicating if the output buffer only counts bytes */
+	private final boolean counting;
+	
+	/** Byte array holding pending bytes */
+	private byte[] buffer;
+	/** Number of pending bytes */
+	private int position;
+	/** Number of bytes already flushed (or discarded) */
+	private long flushedCount;
+	/** Number of pending placeholders preventing pending bytes from being flushed */
+	private int pinCount;
+	
+	/**
+	 * Constructor
+	 * @param stream Destination stream, or <code>null</code>
+	 * @param target Destination buffer, or <code>null</code>
+	 * @param counting If set, bytes are only counted
+	 */
+	private WhiteSharkOutputBuffer(OutputStream stream, ByteBuffer target, boolean counting) {
+		this.stream = stream;
+		this.target = target;
+		this.counting = counting;
+		buffer = new byte[counting ? 64 : DEFAULT_CAPACITY];
+		position = 0;
+		flushedCount = 0;
+		pinCount = 0;
+	}
+	
+	/**
+	 * Creates an output buffer writing to a stream
+	 * @param stream Destination stream
+	 * @return a new output buffer instance
+	 */
+	static WhiteSharkOutputBuffer forStream(OutputStream stream) {
+		return new WhiteSharkOutputBuffer(stream, null, false);
+	}
+	
+	/**
+	 * Creates an output buffer writing to a ByteBuffer, starting at its current position
+	 * @param target Destination buffer
+	 * @return a new output buffer instance
+	 */
+	static WhiteSharkOutputBuffer forByteBuffer(ByteBuffer target) {
+		return new WhiteSharkOutputBuffer(null, target, false);
+	}
+	
+	/**
+	 * Creates an output buffer counting bytes only
+	 * @return a new output buffer instance
+	 */
+	static WhiteSharkOutputBuffer forCounting() {
+		return new WhiteSharkOutputBuffer(null, null, true);
+	}
+	
+	/**
+	 * Indicates if the output buffer only counts bytes
+	 * @return <code>true</code> if bytes are only counted, <code>false</code> otherwise.
+	 */
+	boolean isCounting() {
+		return counting;
+	}
+	
+	/**
+	 * Counts bytes without writing them
+	 * @param count Number of bytes
+	 * @throws IllegalStateException If the output buffer is not a counting one.
+	 */
+	void count(long count) {
+		if (!counting)
+			throw new IllegalStateException("Only counting output buffers can count bytes without writing them");
+		flushedCount += count;
+	}
+	
+	/**
+	 * Gets the number of bytes written so far
+	 * @return the number of bytes written to this output buffer
+	 */
+	public long size() {
+		return flushedCount + position;
+	}
+	
+	/**
+	 * Flushes pending bytes to the destination
+	 * @throws IOException
+	 */
+	void flush() throws IOException {
+		if (position == 0)
+			return;
+		
+		if (stream != null)
+			stream.write(buffer, 0, position);
+		else if (target != null)
+			target.put(buffer, 0, position);
+		flushedCount += position;
+		position = 0;
+	}
+	
+	/**
+	 * Ensures pending bytes can be extended by a specific number of bytes
+	 * @param count Number of bytes to be written
+	 * @throws IOException
+	 */
+	private void ensureCapacity(int count) throws IOException {
+		if (position + count <= buffer.length)
+			return;
+		
+		if (pinCount > 0) {
+			byte[] newBuffer = new byte[Math.max(position + count, buffer.length * 2)];
+			System.arraycopy(buffer, 0, newBuffer, 0, position);
+			buffer = newBuffer;
+			return;
+		}
+		
+		flush();
+		if (count > buffer.length)
+			buffer = new byte[Math.max(count, buffer.length * 2)];
+	}
+	
+	/**
+	 * Writes a byte
+	 * @param value Byte to write
+	 * @throws IOException
+	 */
+	public void writeByte(int value) throws IOException {
+		ensureCapacity(1);
+		buffer[position++] = (byte) value;
+	}
+	
+	/**
+	 * Writes a short
+	 * @param value Short to write
+	 * @throws IOException
+	 */
+	public void writeShort(int value) throws IOException {
+		ensureCapacity(2);
+		buffer[position++] = (byte) value;
+		buffer[position++] = (byte) (value >> 8);
+	}
+	
+	/**
+	 * Writes a character
+	 * @param value Character to write
+	 * @throws IOException
+	 */
+	public void writeChar(char value) throws IOException {
+		writeShort(value);
+	}
+	
+	/**
+	 * Writes an int
+	 * @param value Int to write
+	 * @throws IOException
+	 */
+	public void writeInt(int value) throws IOException {
+		ensureCapacity(4);
+		buffer[position++] = (byte) value;
+		buffer[position++] = (byte) (value >> 8);
+		buffer[position++] = (byte) (value >> 16);
+		buffer[position++] = (byte) (value >> 24);
+	}
+	
+	/**
+	 * Writes a long
+	 * @param value Long to write
+	 * @throws IOException
+	 */
+	public void writeLong(long value) throws IOException {
+		ensureCapacity(8);
+		for (int i = 0; i < 8; i++) {
+			buffer[position++] = (byte) value;
+			value >>= 8;
+		}
+	}
+	
+	/**
+	 * Writes an unsigned int as a variable-length integer
+	 * <p>
+	 * Seven bits are stored per byte, least significant group first.
+	 * The most significant bit of each byte is set if another byte follows.
+	 * 
+	 * @param value Int to write, considered as unsigned
+	 * @throws IOException
+	 */
+	public void writeVarInt(int value) throws IOException {
+		ensureCapacity(5);
+		while ((value & ~0x7f) != 0) {
+			buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+	}
+	
+	/**
+	 * Writes a single precision floating-point number
+	 * @param value Float to write
+	 * @throws IOException
+	 */
+	public void writeFloat(float value) throws IOException {
+		writeInt(Float.floatToRawIntBits(value));
+	}
+	
+	/**
+	 * Writes a double precision floating-point number
+	 * @param value Double to write
+	 * @throws IOException
+	 */
+	public void writeDouble(double value) throws IOException {
+		writeLong(Double.doubleToRawLongBits(value));
+	}
+	
+	/**
+	 * Writes a byte array
+	 * @param b Source byte array
+	 * @throws IOException
+	 */
+	public void writeBytes(byte[] b) throws IOException {
+		writeBytes(b, 0, b.length);
+	}
+	
+	/**
+	 * Writes a portion of a byte array
+	 * @param b Source byte array
+	 * @param off Start offset in the byte array
+	 * @param len Number of bytes to write
+	 * @throws IOException
+	 */
+	public void writeBytes(byte[] b, int off, int len) throws IOException {
+		if (counting) {
+			flushedCount += len;
+			return;
+		}
+		
+		if (pinCount == 0 && len > buffer.length - position && len >= DEFAULT_CAPACITY) {
+			flush();
+			if (stream != null)
+				stream.write(b, off, len);
+			else
+				target.put(b, off, len);
+			flushedCount += len;
+			return;
+		}
+		
+		ensureCapacity(len);
+		System.arraycopy(b, off, buffer, position, len);
+		position += len;
+	}
+	
+	/**
+	 * Writes a string using the US-ASCII charset
+	 * @param str String to write
+	 * @param length Encoded length of the string, as returned by {@link #getAsciiLength(String)}
+	 * @throws IOException
+	 */
+	void writeAscii(String str, int length) throws IOException {
+		if (counting) {
+			flushedCount += length;
+			return;
+		}
+		
+		if (length != str.length()) {
+			byte[] b = str.getBytes("US-ASCII");
+			writeBytes(b, 0, b.length);
+			return;
+		}
+		
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++)
+			buffer[position++] = (byte) str.charAt(i);
+	}
+	
+	/**
+	 * Writes a string using the UTF-8 charset
+	 * @param str String to write
+	 * @param length Encoded length of the string, as returned by {@link #getUtf8Length(String)}
+	 * @throws IOException
+	 */
+	void writeUtf8(String str, int length) throws IOException {
+		if (counting) {
+			flushedCount += length;
+			return;
+		}
+		
+		ensureCapacity(length);
+		int count = str.length();
+		for (int i = 0; i < count; i++) {
+			char c = str.charAt(i);
+			if (c < 0x80)
+				buffer[position++] = (byte) c;
+			else if (c < 0x800) {
+				buffer[position++] = (byte) (0xc0 | (c >> 6));
+				buffer[position++] = (byte) (0x80 | (c & 0x3f));
+			}
+			else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(str.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, str.charAt(++i));
+					buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+					buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+					buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+					buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+				}
+				else
+					buffer[position++] = (byte) '?';
+			}
+			else {
+				buffer[position++] = (byte) (0xe0 | (c >> 12));
+				buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				buffer[position++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+	}
+	
+	/**
+	 * Writes a string using the UTF-8 charset, prefixed by its variable-length byte length
+	 * <p>
+	 * Such strings can be read back with {@link WhiteSharkInputCursor#readString()}.
+	 * 
+	 * @param str String to write
+	 * @throws IOException
+	 */
+	public void writeString(String str) throws IOException {
+		int length = getUtf8Length(str);
+		writeVarInt(length);
+		writeUtf8(str, length);
+	}
+	
+	/**
+	 * Reserves an int placeholder to be patched later
+	 * <p>
+	 * Pending bytes are not flushed until the placeholder is patched.
+	 * 
+	 * @return the placeholder index, to be provided to {@link #patchInt(int, int)}
+	 * @throws IOException
+	 */
+	int reserveInt() throws IOException {
+		writeInt(0);
+		if (counting)
+			return -1;
+		
+		pinCount++;
+		return position - 4;
+	}
+	
+	/**
+	 * Patches an int placeholder
+	 * @param index Placeholder index, as returned by {@link #reserveInt()}
+	 * @param value Int to write
+	 */
+	void patchInt(int index, int value) {
+		if (counting)
+			return;
+		
+		buffer[index] = (byte) value;
+		buffer[index + 1] = (byte) (value >> 8);
+		buffer[index + 2] = (byte) (value >> 16);
+		buffer[index + 3] = (byte) (value >> 24);
+		pinCount--;
+	}
+	
+	/**
+	 * Computes the US-ASCII encoded length of a string
+	 * @param str Source string
+	 * @return the number of bytes of the encoded string
+	 * @throws IOException
+	 */
+	static int getAsciiLength(String str) throws IOException {
+		int count = str.length();
+		for (int i = 0; i < count; i++) {
+			if (str.charAt(i) >= 0x80)
+				return str.getBytes("US-ASCII").length;
+		}
+		return count;
+	}
+	
+	/**
+	 * Computes the UTF-8 encoded length of a string
+	 * <p>
+	 * Malformed surrogates count for a single replacement byte, as done by {@link String#getBytes(String)}.
+	 *
+	 * @param str Source string
+	 * @return the number of bytes of the encoded string
+	 */
+	static int getUtf8Length(String str) {
+		int count = str.length();
+		int length = count;
+		for (int i = 0; i < count; i++) {
+			char c = str.charAt(i);
+			if (c < 0x80)
+				continue;
+			else if (c < 0x800)
+				length += 1;
+			else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(str.charAt(i + 1))) {
+					length += 2;
+					i++;
+				}
+			}
+			else
+				length += 2;
+		}
+		return length;
+	}
+
+}
@@ -0,0 +1,244 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.xhaleera.whiteshark.exceptions.WhiteSharkException;
+
+/**
+ * Parallel deserializer class
+ * <p>
+ * This class deserializes a single large, completely buffered WhiteShark stream using several threads.
+ * A structural scan first walks the elements of the root value without decoding them, finding element boundaries
+ * and building the dictionaries. Ranges of elements are then decoded concurrently on a ForkJoinPool,
+ * each from a copy of the dictionary entries defined before it, and assembled in order.
+ * <p>
+ * The root value must be an array, or a collection annotated with
+ * {@link com.xhaleera.whiteshark.annotations.WhiteSharkSerializableCollection}. Other streams, and streams with too few
+ * elements, are deserialized on the calling thread. Results are the same as with {@link WhiteSharkImmediateDeserializer}.
+ * When several elements fail to decode, the reported failure is the one of the first element in stream order.
+ * Parallel deserializers are immutable and can be used by several threads at once.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkParallelDeserializer {
+
+	/** Number of ranges per pool thread, for load balancing */
+	private static final int RANGES_PER_THREAD = 4;
+	/** Minimum number of elements per range */
+	private static final int MIN_RANGE_SIZE = 256;
+	
+	/** Custom stream identifier */
+	private final String identifier;
+	/** External class mapper */
+	private final WhiteSharkExternalClassMapper classMapper;
+	/** Pool running the decoding tasks */
+	private final ForkJoinPool pool;
+	
+	/**
+	 * Constructor
+	 * @param identifier Custom stream identifier
+	 * @param classMapper External class mapper, or <code>null</code> to use the default class mapper
+	 * @param pool Pool running the decoding tasks
+	 */
+	public WhiteSharkParallelDeserializer(String identifier, WhiteSharkExternalClassMapper classMapper, ForkJoinPool pool) {
+		this.identifier = identifier;
+		this.classMapper = (classMapper == null) ? WhiteSharkImmediateDeserializer.defaultClassMapper : classMapper;
+		this.pool = pool;
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream
+	 *
+	 * @param bytes Byte array to deserialize
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object deserialize(byte[] bytes) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		return deserialize(ByteBuffer.wrap(bytes));
+	}
+	
+	/**
+	 * Deserializes a completely buffered WhiteShark stream
+	 * <p>
+	 * Deserialization starts at the current position of the buffer, which can be a direct buffer.
+	 * The position of the buffer is then advanced right after the deserialized data.
+	 *
+	 * @param buffer ByteBuffer to deserialize
+	 * @return a generic Object containing the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	public Object deserialize(ByteBuffer buffer) throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		WhiteSharkInputCursor in = new WhiteSharkInputCursor(buffer);
+		WhiteSharkRootLayout layout = WhiteSharkImmediateDeserializer.threadDeserializer().scan(identifier, in, classMapper, pool.getParallelism() * RANGES_PER_THREAD, MIN_RANGE_SIZE);
+		if (layout == null)
+			return WhiteSharkImmediateDeserializer.deserialize(identifier, buffer, classMapper);
+		
+		int rangeCount = layout.rangeCount();
+		Object[] sinks = new Object[rangeCount];
+		Object array = null;
+		if (layout.array) {
+			array = classMapper.newArray(layout.rootClass, layout.count);
+			for (int i = 0; i < rangeCount; i++)
+				sinks[i] = array;
+		}
+		else {
+			for (int i = 0; i < rangeCount; i++)
+				sinks[i] = new ArrayList<Object>(layout.starts[i + 1] - layout.starts[i]);
+		}
+		
+		Throwable[] failures = new Throwable[rangeCount];
+		AtomicInteger firstFailure = new AtomicInteger(rangeCount);
+		pool.invoke(new Ranges(buffer, layout, sinks, 0, rangeCount, failures, firstFailure));
+		if (firstFailure.get() < rangeCount)
+			rethrow(failures[firstFailure.get()]);
+		
+		Object root;
+		if (layout.array)
+			root = array;
+		else {
+			@SuppressWarnings("unchecked")
+			Collection<Object> coll = (Collection<Object>) classMapper.newInstance(layout.rootClass);
+			for (Object sink : sinks) {
+				for (Object item : (ArrayList<?>) sink)
+					coll.add(item);
+			}
+			root = coll;
+		}
+		
+		buffer.position(layout.end);
+		return root;
+	}
+	
+	/**
+	 * Rethrows the failure of a range
+	 * @param t Failure
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException
+	 * @throws NoSuchFieldException
+	 * @throws IOException
+	 */
+	private static void rethrow(Throwable t) throws ClassNotFoundException, NoSuchMethodException, InstantiationException, IllegalAccessException, InvocationTargetException, WhiteSharkException, NoSuchFieldException, IOException {
+		if (t instanceof Error)
+			throw (Error) t;
+		else if (t instanceof RuntimeException)
+			throw (RuntimeException) t;
+		else if (t instanceof IOException)
+			throw (IOException) t;
+		else if (t instanceof WhiteSharkException)
+			throw (WhiteSharkException) t;
+		else if (t instanceof ClassNotFoundException)
+			throw (ClassNotFoundException) t;
+		else if (t instanceof NoSuchMethodException)
+			throw (NoSuchMethodException) t;
+		else if (t instanceof InstantiationException)
+			throw (InstantiationException) t;
+		else if (t instanceof IllegalAccessException)
+			throw (IllegalAccessException) t;
+		else if (t instanceof InvocationTargetException)
+			throw (InvocationTargetException) t;
+		else if (t instanceof NoSuchFieldException)
+			throw (NoSuchFieldException) t;
+		else
+			throw new IllegalStateException(t);
+	}
+	
+	/**
+	 * Task decoding ranges of elements, split in halves until a single range remains
+	 * <p>
+	 * Ranges following a failed range are not decoded, but preceding ranges still are,
+	 * so the failure of the first failing range is the one reported.
+	 */
+	private final class Ranges extends RecursiveAction {
+	
+		static final long serialVersionUID = 1;
+		
+		/** Input buffer */
+		private final ByteBuffer buffer;
+		/** Layout of the root value */
+		private final WhiteSharkRootLayout layout;
+		/** Root array or item lists, by range */
+		private final Object[] sinks;
+		/** Index of the first range */
+		private final int start;
+		/** Index after the last range */
+		private final int end;
+		/** Failures, by range */
+		private final Throwable[] failures;
+		/** Index of the first failed range, or the number of ranges if none failed */
+		private final AtomicInteger firstFailure;
+		
+		/**
+		 * Constructor
+		 * @param buffer Input buffer
+		 * @param layout Layout of the root value
+		 * @param sinks Root array or item lists, by range
+		 * @param start Index of the first range
+		 * @param end Index after the last range
+		 * @param failures Failures, by range
+		 * @param firstFailure Index of the first failed range, or the number of ranges if none failed
+		 */
+		private Ranges(ByteBuffer buffer, WhiteSharkRootLayout layout, Object[] sinks, int start, int end, Throwable[] failures, AtomicInteger firstFailure) {
+			this.buffer = buffer;
+			this.layout = layout;
+			this.sinks = sinks;
+			this.start = start;
+			this.end = end;
+			this.failures = failures;
+			this.firstFailure = firstFailure;
+		}
+		
+		@Override
+		protected void compute() {
+			if (end - start > 1) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new Ranges(buffer, layout, sinks, start, middle, failures, firstFailure), new Ranges(buffer, layout, sinks, middle, end, failures, firstFailure));
+				return;
+			}
+			
+			if (firstFailure.get() < start)
+				return;
+			try {
+				WhiteSharkImmediateDeserializer.threadDeserializer().readRange(new WhiteSharkInputCursor(buffer), classMapper, layout, start, sinks[start]);
+			}
+			catch (Throwable t) {
+				failures[start] = t;
+				int first = firstFailure.get();
+				while (start < first && !firstFailure.compareAndSet(first, start))
+					first = firstFailure.get();
+			}
+		}
+	
+	}
+
+}
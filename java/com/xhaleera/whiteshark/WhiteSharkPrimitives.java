@@ -0,0 +1,263 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+
+/**
+ * Unboxed assignment of primitive values
+ * <p>
+ * When the type of a field or of an array component is a primitive type, scalar values are decoded
+ * and stored directly, without boxing them. Values are only assigned if the assignment would also succeed
+ * with their boxed value, i.e. with the same widening conversions. Other values are left to the boxed path.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkPrimitives {
+
+	/** Not a primitive type */
+	static final int NONE = 0;
+	/** boolean type */
+	static final int BOOLEAN = 1;
+	/** byte type */
+	static final int BYTE = 2;
+	/** short type */
+	static final int SHORT = 3;
+	/** char type */
+	static final int CHAR = 4;
+	/** int type */
+	static final int INT = 5;
+	/** long type */
+	static final int LONG = 6;
+	/** float type */
+	static final int FLOAT = 7;
+	/** double type */
+	static final int DOUBLE = 8;
+	
+	/**
+	 * Private constructor
+	 */
+	private WhiteSharkPrimitives() {
+	}
+	
+	/**
+	 * Gets the primitive kind of a type
+	 * @param type Field type or array component type
+	 * @return the primitive kind, or {@link #NONE} if the type is not a primitive type.
+	 */
+	static int kindOf(Class<?> type) {
+		if (!type.isPrimitive())
+			return NONE;
+		else if (type == int.class)
+			return INT;
+		else if (type == long.class)
+			return LONG;
+		else if (type == double.class)
+			return DOUBLE;
+		else if (type == float.class)
+			return FLOAT;
+		else if (type == boolean.class)
+			return BOOLEAN;
+		else if (type == short.class)
+			return SHORT;
+		else if (type == byte.class)
+			return BYTE;
+		else if (type == char.class)
+			return CHAR;
+		else
+			return NONE;
+	}
+	
+	/**
+	 * Tells if a value can be assigned without boxing
+	 * @param kind Primitive kind of the target
+	 * @param mask Value mask
+	 * @return <code>true</code> if the value is a scalar whose type widens to the target type, <code>false</code> either.
+	 */
+	static boolean accepts(int kind, byte mask) {
+		byte dataType = (byte) (mask & 0xf);
+		if (dataType == WhiteSharkDataType.INTEGER.getMask()) {
+			int size = (mask & 0xf0) >> 4;
+			switch (kind) {
+				case BYTE:
+					return (size == 1);
+				
+				case SHORT:
+					return (size <= 2);
+				
+				case INT:
+					return (size <= 4);
+				
+				case LONG:
+				case FLOAT:
+				case DOUBLE:
+					return true;
+				
+				default:
+					return false;
+			}
+		}
+		else if (dataType == WhiteSharkDataType.REAL.getMask())
+			return (kind == DOUBLE || (kind == FLOAT && !WhiteSharkRealEncoding.isDouble(mask)));
+		else if (dataType == WhiteSharkDataType.BOOLEAN.getMask())
+			return (kind == BOOLEAN);
+		else if (dataType == WhiteSharkDataType.CHAR.getMask())
+			return (kind == CHAR || kind >= INT);
+		else
+			return false;
+	}
+	
+	/**
+	 * Decodes an integer or a character value
+	 * @param in Input cursor
+	 * @param mask Value mask
+	 * @return the decoded value
+	 * @throws IOException
+	 */
+	private static long readLong(WhiteSharkInputCursor in, byte mask) throws IOException {
+		if ((mask & 0xf) == WhiteSharkDataType.CHAR.getMask())
+			return in.readChar();
+		
+		switch ((mask & 0xf0) >> 4) {
+			case 1:
+				return in.readByte();
+			
+			case 2:
+				return in.readShort();
+			
+			case 4:
+				return in.readInt();
+			
+			default:
+				return in.readLong();
+		}
+	}
+	
+	/**
+	 * Decodes a numeric value as a double, with the precision of its declared type
+	 * @param in Input cursor
+	 * @param mask Value mask
+	 * @return the decoded value
+	 * @throws IOException
+	 */
+	private static double readDouble(WhiteSharkInputCursor in, byte mask) throws IOException {
+		if ((mask & 0xf) != WhiteSharkDataType.REAL.getMask())
+			return readLong(in, mask);
+		
+		double value = WhiteSharkRealEncoding.decodeDouble(mask, in);
+		return WhiteSharkRealEncoding.isDouble(mask) ? value : (float) value;
+	}
+	
+	/**
+	 * Decodes a numeric value as a float
+	 * @param in Input cursor
+	 * @param mask Value mask
+	 * @return the decoded value
+	 * @throws IOException
+	 */
+	private static float readFloat(WhiteSharkInputCursor in, byte mask) throws IOException {
+		if ((mask & 0xf) != WhiteSharkDataType.REAL.getMask())
+			return readLong(in, mask);
+		
+		return (float) WhiteSharkRealEncoding.decodeDouble(mask, in);
+	}
+	
+	/**
+	 * Decodes a value into a primitive field
+	 * <p>
+	 * The value must have been accepted by {@link #accepts(int, byte)}.
+	 *
+	 * @param field Target field
+	 * @param obj Object the field belongs to
+	 * @param kind Primitive kind of the field
+	 * @param in Input cursor, positioned after the value mask
+	 * @param mask Value mask
+	 * @throws IOException
+	 * @throws IllegalAccessException
+	 */
+	static void set(Field field, Object obj, int kind, WhiteSharkInputCursor in, byte mask) throws IOException, IllegalAccessException {
+		switch (kind) {
+			case BOOLEAN:
+				field.setBoolean(obj, (mask & 0xf0) != 0);
+				break;
+			
+			case BYTE:
+				field.setByte(obj, (byte) readLong(in, mask));
+				break;
+			
+			case SHORT:
+				field.setShort(obj, (short) readLong(in, mask));
+				break;
+			
+			case CHAR:
+				field.setChar(obj, (char) readLong(in, mask));
+				break;
+			
+			case INT:
+				field.setInt(obj, (int) readLong(in, mask));
+				break;
+			
+			case LONG:
+				field.setLong(obj, readLong(in, mask));
+				break;
+			
+			case FLOAT:
+				field.setFloat(obj, readFloat(in, mask));
+				break;
+			
+			default:
+				field.setDouble(obj, readDouble(in, mask));
+				break;
+		}
+	}
+	
+	/**
+	 * Decodes a value into a primitive array element
+	 * <p>
+	 * The value must have been accepted by {@link #accepts(int, byte)}.
+	 *
+	 * @param array Target array
+	 * @param index Element index
+	 * @param kind Primitive kind of the array component
+	 * @param in Input cursor, positioned after the value mask
+	 * @param mask Value mask
+	 * @throws IOException
+	 */
+	static void set(Object array, int index, int kind, WhiteSharkInputCursor in, byte mask) throws IOException {
+		switch (kind) {
+			case BOOLEAN:
+				((boolean[]) array)[index] = ((mask & 0xf0) != 0);
+				break;
+			
+			case BYTE:
+				((byte[]) array)[index] = (byte) readLong(in, mask);
+				break;
+			
+			case SHORT:
+				((short[]) array)[index] = (short) readLong(in, mask);
+				break;
+			
+			case CHAR:
+				((char[]) array)[index] = (char) readLong(in, mask);
+				break;
+			
+			case INT:
+				((int[]) array)[index] = (int) readLong(in, mask);
+				break;
+			
+			case LONG:
+				((long[]) array)[index] = readLong(in, mask);
+				break;
+			
+			case FLOAT:
+				((float[]) array)[index] = readFloat(in, mask);
+				break;
+			
+			default:
+				((double[]) array)[index] = readDouble(in, mask);
+				break;
+		}
+	}
+
+}
@@ -1,22 +1,21 @@
 package com.xhaleera.whiteshark;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.ByteBuffer;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
 import java.util.Vector;
 
-import com.xhaleera.whiteshark.annotations.WhiteSharkSerializableCollection;
-import com.xhaleera.whiteshark.annotations.WhiteSharkSerializableMap;
 import com.xhaleera.whiteshark.exceptions.WhiteSharkException;
 import com.xhaleera.whiteshark.exceptions.WhiteSharkIncompatibleSerializationVersionException;
 import com.xhaleera.whiteshark.exceptions.WhiteSharkMissingFormatIdentifierException;
+import com.xhaleera.whiteshark.exceptions.WhiteSharkMissingTypeAdapterException;
 import com.xhaleera.whiteshark.exceptions.WhiteSharkUnsupportedVersionException;
 
 /**
@@ -130,6 +129,10 @@ public final class WhiteSharkProgressiveDeserializer {
 	private Vector<Class<?>> classDictionary;
 	/** Property dictionary */
 	private Vector<String> propertyDictionary;
+	/** Property binding tables, by class, indexed like the property dictionary */
+	private HashMap<Class<?>, WhiteSharkPropertyBinding.Table> bindingTables;
+	/** Root shape of generic objects */
+	private WhiteSharkObjectShape genericShapes;
 	
 	/** Default class mapper */
 	private static final WhiteSharkExternalClassMapper defaultClassMapper = new WhiteSharkExternalClassMapper();
@@ -154,6 +157,10 @@ public final class WhiteSharkProgressiveDeserializer {
 		public final int maxIndex;
 		/** Current object's sub property name */
 		public String propertyName;
+		/** Current object's sub property binding, if the object has not been serialized as generics */
+		public WhiteSharkPropertyBinding binding;
+		/** Current object's property binding table */
+		public WhiteSharkPropertyBinding.Table bindings;
 		/** Current object's is a serializable map */
 		public boolean serializableMap;
 		/** Current object's is a serializable collection */
@@ -173,6 +180,8 @@ public final class WhiteSharkProgressiveDeserializer {
 			this.currentIndex = 0;
 			this.maxIndex = maxIndex;
 			this.propertyName = null;
+			this.binding = null;
+			this.bindings = null;
 			this.serializableMap = serializableMap;
 			this.serializableCollection = serializableCollection;
 		}
@@ -187,7 +196,7 @@ public final class WhiteSharkProgressiveDeserializer {
 	public WhiteSharkProgressiveDeserializer(String identifier) {
 		this(identifier, defaultClassMapper);
 	}
-
+	
 	/**
 	 * Constructor
 	 * @param identifier Custom stream identifier
@@ -205,6 +214,8 @@ public final class WhiteSharkProgressiveDeserializer {
 		
 		classDictionary = new Vector<>();
 		propertyDictionary = new Vector<>();
+		bindingTables = new HashMap<>();
+		genericShapes = new WhiteSharkObjectShape();
 	}
 	
 	/**
@@ -323,7 +334,7 @@ public final class WhiteSharkProgressiveDeserializer {
 			throw new WhiteSharkException("Deserialization incomplete");
 		return result;
 	}
-
+	
 	/**
 	 * Removes bytes for the start of the container ByteArrayOutputStream
 	 * @param length Number of bytes to remove
@@ -365,17 +376,15 @@ public final class WhiteSharkProgressiveDeserializer {
 			}
 			
 			// Real
-			else if (dataType == WhiteSharkDataType.REAL.getMask()) {
-				int precision = (mask & 0xf0) >> 4;
-				return (baos.size() >= offset + 1 + ((precision == 0) ? 4 : 8)); 
-			}
+			else if (dataType == WhiteSharkDataType.REAL.getMask())
+				return (baos.size() >= offset + 1 + WhiteSharkRealEncoding.getPayloadSize(mask));
 			
 			// Character
 			else if (dataType == WhiteSharkDataType.CHAR.getMask())
 				return (baos.size() >= offset + 3);
 			
-			// String
-			else if (dataType == WhiteSharkDataType.STRING.getMask()) {
+			// String / Binary
+			else if (dataType == WhiteSharkDataType.STRING.getMask() || dataType == WhiteSharkDataType.BINARY.getMask()) {
 				int lengthByteCount = (mask & 0xf0) >> 4;
 				if (baos.size() < offset + 1 + lengthByteCount)
 					return false;
@@ -425,11 +434,40 @@ public final class WhiteSharkProgressiveDeserializer {
 					return false;
 				
 				int classNameLength = 2;
-				if ((mask & 0x40) == 0)
-					classNameLength += buf.getShort(offset + 1);
+				if ((mask & 0x40) == 0) {
+					int length = getClassNameLength(buf, offset + 1);
+					if (length < 0)
+						return false;
+					classNameLength += length;
+				}
 				return (baos.size() >= offset + 1 + classNameLength + lengthByteCount);
 			}
 			
+			// Custom
+			else if (dataType == WhiteSharkDataType.CUSTOM.getMask()) {
+				if (baos.size() < offset + 3)
+					return false;
+				
+				int classNameLength = 2;
+				if ((mask & 0x40) == 0) {
+					int length = getClassNameLength(buf, offset + 1);
+					if (length < 0)
+						return false;
+					classNameLength += length;
+				}
+				int payloadOffset = offset + 1 + classNameLength + 4;
+				if (baos.size() < payloadOffset)
+					return false;
+				return (baos.size() >= payloadOffset + buf.getInt(payloadOffset - 4));
+			}
+			
+			// Fragment
+			else if (dataType == WhiteSharkDataType.FRAGMENT.getMask()) {
+				if (baos.size() < offset + 5)
+					return false;
+				return (baos.size() >= offset + 5 + buf.getInt(offset + 1));
+			}
+			
 			// Object
 			else {
 				if (baos.size() < offset + 3)
@@ -445,14 +483,31 @@ public final class WhiteSharkProgressiveDeserializer {
 					classNameAndVersionLength = 0;
 				else {
 					classNameAndVersionLength = 2;
-					if (!classInDictionary)
-						classNameAndVersionLength += buf.getShort(offset + 1) + 4;
+					if (!classInDictionary) {
+						int length = getClassNameLength(buf, offset + 1);
+						if (length < 0)
+							return false;
+						classNameAndVersionLength += length + 4;
+					}
 				}
 				return (baos.size() >= offset + 1 + classNameAndVersionLength + lengthByteCount);
 			}
 		}
 	}
 	
+	/**
+	 * Gets the byte length of a class name, or of a type identifier, following its 2-byte length field 
+	 * @param buf Buffer wrapping the ByteArrayOutputStream
+	 * @param offset Offset of the 2-byte length field
+	 * @return the byte length, or -1 if a type identifier is not completely available.
+	 */
+	private int getClassNameLength(ByteBuffer buf, int offset) {
+		short classNameLength = buf.getShort(offset);
+		if (classNameLength == WhiteSharkConstants.TYPE_ID_MARKER)
+			return WhiteSharkUtils.getVarIntLength(buf, offset + 2, baos.size());
+		return classNameLength;
+	}
+	
 	/**
 	 * Deserializes the next element in the stream
 	 * @return a DeserializationResult instance containing progress and result information
@@ -465,7 +520,7 @@ public final class WhiteSharkProgressiveDeserializer {
 	 * @throws IllegalArgumentException
 	 * @throws InvocationTargetException
 	 */
-	private DeserializationResult deserializeNext() throws UnsupportedEncodingException, ClassNotFoundException, NoSuchFieldException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkIncompatibleSerializationVersionException {
+	private DeserializationResult deserializeNext() throws UnsupportedEncodingException, ClassNotFoundException, NoSuchFieldException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException {
 		byte[] bytes = baos.toByteArray();
 		byte mask = bytes[0];
 		byte dataType = (byte) (mask & 0xf);
@@ -500,6 +555,10 @@ public final class WhiteSharkProgressiveDeserializer {
 		else if (dataType == WhiteSharkDataType.STRING.getMask())
 			result = new DeserializationResult(isRoot, deserializeString(mask));
 		
+		// Binary
+		else if (dataType == WhiteSharkDataType.BINARY.getMask())
+			result = new DeserializationResult(isRoot, deserializeBinary(mask));
+		
 		// Property
 		else if (dataType == WhiteSharkDataType.PROPERTY.getMask())
 			result = deserializeProperty(mask);
@@ -508,6 +567,14 @@ public final class WhiteSharkProgressiveDeserializer {
 		else if (dataType == WhiteSharkDataType.ARRAY.getMask())
 			result = deserializeArray(isRoot, mask);
 		
+		// Custom
+		else if (dataType == WhiteSharkDataType.CUSTOM.getMask())
+			result = new DeserializationResult(isRoot, deserializeCustom(mask));
+		
+		// Fragment
+		else if (dataType == WhiteSharkDataType.FRAGMENT.getMask())
+			result = new DeserializationResult(isRoot, deserializeFragment());
+		
 		// Object
 		else
 			result = deserializeObject(isRoot, mask);
@@ -522,37 +589,41 @@ public final class WhiteSharkProgressiveDeserializer {
 					if (level.propertyName != null) {
 						if (level.objectAsGenerics) {
 							WhiteSharkGenericObject obj = (WhiteSharkGenericObject) level.object;
-							obj.put(level.propertyName, result.result);
+							obj.add(level.propertyName, result.result);
 						}
 						else {
-							Class<?> c = level.object.getClass();
-							
-							if (level.propertyName.equals(WhiteSharkConstants.COLLECTION_ITEM_PROPERTY_NAME)) {
-								try {
-									@SuppressWarnings("unchecked")
-									Collection<Object> coll = (Collection<Object>) level.object;
-									if (coll != null && (level.serializableCollection || c.getAnnotation(WhiteSharkSerializableCollection.class) != null))
+							WhiteSharkPropertyBinding binding = level.binding;
+							switch (binding.kind) {
+								case WhiteSharkPropertyBinding.COLLECTION_ITEM:
+									if (level.object instanceof Collection && (level.serializableCollection || binding.ownerSerializable)) {
+										@SuppressWarnings("unchecked")
+										Collection<Object> coll = (Collection<Object>) level.object;
 										coll.add(result.result);
-								}
-								catch (ClassCastException e) { }
-							}
-							else if (level.propertyName.startsWith(WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX)) {
-								try {
-									@SuppressWarnings("unchecked")
-									Map<String, Object> map = (Map<String,Object>) level.object;
-									if (map != null && (level.serializableMap || c.getAnnotation(WhiteSharkSerializableMap.class) != null))
-										map.put(level.propertyName.substring(WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX.length()), result.result);
-								}
-								catch (ClassCastException e) { }
-							}
-							else {
-								Field f = c.getField(level.propertyName);
-								f.set(level.object, result.result);
+									}
+									break;
+								
+								case WhiteSharkPropertyBinding.MAP_ENTRY:
+									if (level.object instanceof Map && (level.serializableMap || binding.ownerSerializable)) {
+										@SuppressWarnings("unchecked")
+										Map<String, Object> map = (Map<String,Object>) level.object;
+										map.put(binding.mapKey, result.result);
+									}
+									break;
+								
+								// Unknown properties are decoded, then dropped
+								case WhiteSharkPropertyBinding.SKIPPED:
+									break;
+								
+								// Values of fields that are not serializable are dropped too
+								default:
+									if (binding.serializable)
+										binding.field.set(level.object, WhiteSharkImmediateDeserializer.adaptValue(result.result, binding.field.getType()));
+									break;
 							}
 						}
 					}
 					else
-						Array.set(level.object, level.currentIndex, result.result);
+						Array.set(level.object, level.currentIndex, WhiteSharkImmediateDeserializer.adaptValue(result.result, level.object.getClass().getComponentType()));
 					level.currentIndex++;
 					
 					if (!result.isComplex) {
@@ -578,11 +649,9 @@ public final class WhiteSharkProgressiveDeserializer {
 					levels = new Stack<DeserializationLevel>();
 				else if (levels.size() > 0) {
 					DeserializationLevel level = levels.peek();
-					if (level.propertyName != null && !level.propertyName.equals(WhiteSharkConstants.COLLECTION_ITEM_PROPERTY_NAME) && !level.propertyName.startsWith(WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX)) {
-						Class<?> c = level.object.getClass();
-						Field f = c.getField(level.propertyName);
-						serializableMap = (f.getAnnotation(WhiteSharkSerializableMap.class) != null);
-						serializableCollection = (f.getAnnotation(WhiteSharkSerializableCollection.class) != null);
+					if (level.binding != null && level.binding.kind == WhiteSharkPropertyBinding.FIELD) {
+						serializableMap = level.binding.serializableMap;
+						serializableCollection = level.binding.serializableCollection;
 					}
 				}
 				levels.add(new DeserializationLevel(result.result, result.objectAsGenerics, result.subElementCount, serializableMap, serializableCollection));
@@ -615,13 +684,13 @@ public final class WhiteSharkProgressiveDeserializer {
 		{
 			case 1:
 				return buf.get();
-				
+			
 			case 2:
 				return buf.getShort();
-				
+			
 			case 4:
 				return buf.getInt();
-				
+			
 			default:
 				return buf.getLong();
 		}
@@ -631,18 +700,16 @@ public final class WhiteSharkProgressiveDeserializer {
 	 * Deserializes a floating-point value
 	 * @param mask Byte mask
 	 * @return a Number instance representing the deserialized floating-point value
+	 * @throws WhiteSharkException If the value is malformed.
 	 */
-	private Number deserializeReal(byte mask) {
+	private Number deserializeReal(byte mask) throws WhiteSharkException {
 		ByteBuffer buf = WhiteSharkUtils.wrapWithByteBuffer(baos.toByteArray());
-		
-		if ((mask & 0xf0) != 0)
-		{
-			removeFirstBytesFromStream(8);
-			return buf.getDouble();
+		removeFirstBytesFromStream(WhiteSharkRealEncoding.getPayloadSize(mask));
+		try {
+			return WhiteSharkRealEncoding.decode(mask, buf);
 		}
-		else {
-			removeFirstBytesFromStream(4);
-			return buf.getFloat();
+		catch (IOException e) {
+			throw new WhiteSharkException("Unable to read real value", e);
 		}
 	}
 	
@@ -672,11 +739,11 @@ public final class WhiteSharkProgressiveDeserializer {
 			case 1:
 				length = buf.get();
 				break;
-				
+			
 			case 2:
 				length = buf.getShort();
 				break;
-				
+			
 			default:
 				length = buf.getInt();
 				break;
@@ -684,11 +751,49 @@ public final class WhiteSharkProgressiveDeserializer {
 		
 		removeFirstBytesFromStream(lengthByteCount + length);
 		
+		WhiteSharkStringCache cache = classMapper.getStringCache();
+		if (cache != null && length <= cache.getMaxLength())
+			return cache.get(buf.array(), buf.arrayOffset() + buf.position(), length);
+		
 		byte[] b = new byte[length];
 		buf.get(b);
 		return new String(b, "UTF-8");
 	}
 	
+	/**
+	 * Deserializes binary data
+	 * <p>
+	 * The stream buffer is not kept, so binary data is always copied. If binary slices are enabled, it is returned as a read-only buffer.
+	 * 
+	 * @param mask Byte mask
+	 * @return the deserialized data, as a byte array or a read-only <code>ByteBuffer</code>
+	 */
+	private Object deserializeBinary(byte mask) {
+		ByteBuffer buf = WhiteSharkUtils.wrapWithByteBuffer(baos.toByteArray());
+		
+		int length;
+		int lengthByteCount = ((mask & 0xf0) >> 4);
+		switch (lengthByteCount) {
+			case 1:
+				length = buf.get() & 0xff;
+				break;
+			
+			case 2:
+				length = buf.getShort();
+				break;
+			
+			default:
+				length = buf.getInt();
+				break;
+		}
+		
+		removeFirstBytesFromStream(lengthByteCount + length);
+		
+		byte[] b = new byte[length];
+		buf.get(b);
+		return classMapper.hasBinarySlices() ? ByteBuffer.wrap(b).asReadOnlyBuffer() : b;
+	}
+	
 	/**
 	 * Deserializes an array
 	 * @param isRoot Flag indicating if this element is the stream's root
@@ -702,13 +807,20 @@ public final class WhiteSharkProgressiveDeserializer {
 		
 		boolean classInDictionary = ((mask & 0x40) != 0);
 		int classDictionaryIndex = -1;
+		int typeId = -1;
 		
 		int classNameLength = 0;
 		byte[] b = null;
 		if (!classInDictionary) {
 			classNameLength = buf.getShort();
-			b = new byte[classNameLength];
-			buf.get(b);
+			if (classNameLength == WhiteSharkConstants.TYPE_ID_MARKER) {
+				typeId = WhiteSharkUtils.readVarInt(buf);
+				classNameLength = buf.position() - 2;
+			}
+			else {
+				b = new byte[classNameLength];
+				buf.get(b);
+			}
 		}
 		else
 			classDictionaryIndex = buf.getShort();
@@ -716,12 +828,12 @@ public final class WhiteSharkProgressiveDeserializer {
 		int lengthByteCount = ((mask & 0x30) >> 4);
 		if (lengthByteCount == 3)
 			lengthByteCount = 4;
-		int count;
+		int count = 0;
 		if (lengthByteCount == 1)
 			count = buf.get();
 		else if (lengthByteCount == 2)
 			count = buf.getShort();
-		else
+		else if (lengthByteCount == 4)
 			count = buf.getInt();
 		
 		removeFirstBytesFromStream(2 + classNameLength + lengthByteCount);
@@ -730,18 +842,108 @@ public final class WhiteSharkProgressiveDeserializer {
 		if (classInDictionary)
 			primitiveClass = classDictionary.elementAt(classDictionaryIndex);
 		else {
-			String className = new String(b, "US-ASCII");
-			primitiveClass = classMapper.getClassFromExternal(className);
+			if (typeId >= 0)
+				primitiveClass = classMapper.getClassFromTypeId(typeId);
+			else {
+				String className = new String(b, "US-ASCII");
+				primitiveClass = classMapper.getClassFromExternal(className);
+			}
 			classDictionary.add(primitiveClass);
 		}
 		
-		Object arr = Array.newInstance(primitiveClass, count);
-		if (isRoot && count == 0)
-			return new DeserializationResult(true, arr);
+		Object arr = classMapper.newArray(primitiveClass, count);
+		if (count == 0)
+			return new DeserializationResult(isRoot, arr);
 		else
 			return new DeserializationResult(arr, WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS), count);
 	}
 	
+	/**
+	 * Deserializes a value encoded by a type adapter
+	 * <p>
+	 * The whole payload is available when this method is called.
+	 * 
+	 * @param mask Byte mask
+	 * @return the deserialized value
+	 * @throws ClassNotFoundException
+	 * @throws UnsupportedEncodingException
+	 * @throws WhiteSharkException If no type adapter is registered for the class of the value, or if the adapter fails to read its payload.
+	 */
+	private Object deserializeCustom(byte mask) throws ClassNotFoundException, UnsupportedEncodingException, WhiteSharkException {
+		ByteBuffer buf = WhiteSharkUtils.wrapWithByteBuffer(baos.toByteArray());
+		
+		boolean classInDictionary = ((mask & 0x40) != 0);
+		
+		Class<?> adaptedClass;
+		if (classInDictionary)
+			adaptedClass = classDictionary.elementAt(buf.getShort());
+		else {
+			int classNameLength = buf.getShort();
+			if (classNameLength == WhiteSharkConstants.TYPE_ID_MARKER)
+				adaptedClass = classMapper.getClassFromTypeId(WhiteSharkUtils.readVarInt(buf));
+			else {
+				byte[] b = new byte[classNameLength];
+				buf.get(b);
+				adaptedClass = classMapper.getClassFromExternal(new String(b, "US-ASCII"));
+			}
+			classDictionary.add(adaptedClass);
+		}
+		
+		int payloadLength = buf.getInt();
+		buf.limit(buf.position() + payloadLength);
+		removeFirstBytesFromStream(buf.limit());
+		
+		WhiteSharkTypeAdapter<Object> adapter = classMapper.getTypeAdapter(adaptedClass);
+		if (adapter == null)
+			throw new WhiteSharkMissingTypeAdapterException(String.format("No type adapter registered for class %s", adaptedClass.getName()));
+		try {
+			return adapter.read(new WhiteSharkInputCursor(buf));
+		}
+		catch (IOException e) {
+			throw new WhiteSharkException(String.format("Unable to read custom encoded value of class %s", adaptedClass.getName()), e);
+		}
+	}
+	
+	/**
+	 * Deserializes a pre-encoded fragment
+	 * <p>
+	 * The whole fragment is available when this method is called. It is decoded at once,
+	 * with its own dictionaries, by the immediate deserializer.
+	 * 
+	 * @return the deserialized value
+	 * @throws NoSuchFieldException
+	 * @throws ClassNotFoundException
+	 * @throws NoSuchMethodException
+	 * @throws SecurityException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 * @throws IllegalArgumentException
+	 * @throws InvocationTargetException
+	 * @throws WhiteSharkException
+	 */
+	private Object deserializeFragment() throws NoSuchFieldException, ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, WhiteSharkException {
+		byte[] bytes = baos.toByteArray();
+		int length = WhiteSharkUtils.wrapWithByteBuffer(bytes).getInt();
+		removeFirstBytesFromStream(4 + length);
+		
+		boolean serializableMap = false;
+		boolean serializableCollection = false;
+		if (levels != null && levels.size() > 0) {
+			DeserializationLevel level = levels.peek();
+			if (level.binding != null && level.binding.kind == WhiteSharkPropertyBinding.FIELD) {
+				serializableMap = level.binding.serializableMap;
+				serializableCollection = level.binding.serializableCollection;
+			}
+		}
+		
+		try {
+			return WhiteSharkImmediateDeserializer.deserializeFragment(new WhiteSharkInputCursor(bytes, 4, length), options, classMapper, serializableMap, serializableCollection);
+		}
+		catch (IOException e) {
+			throw new WhiteSharkException("Unable to read fragment", e);
+		}
+	}
+	
 	/**
 	 * Deserializes an object
 	 * @param isRoot Flag indicating if this element is the stream's root
@@ -761,6 +963,7 @@ public final class WhiteSharkProgressiveDeserializer {
 		boolean serializedAsGenerics = WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS) || ((mask & 0x80) != 0);
 		boolean classInDictionary = ((mask & 0x40) != 0);
 		int classDictionaryIndex = -1;
+		int typeId = -1;
 		
 		int serializationVersionFromStream = 0;
 		int classNameLength = 0;
@@ -768,8 +971,14 @@ public final class WhiteSharkProgressiveDeserializer {
 		if (!serializedAsGenerics) {
 			if (!classInDictionary) {
 				classNameLength = buf.getShort();
-				classNameBytes = new byte[classNameLength];
-				buf.get(classNameBytes);
+				if (classNameLength == WhiteSharkConstants.TYPE_ID_MARKER) {
+					typeId = WhiteSharkUtils.readVarInt(buf);
+					classNameLength = buf.position() - 2;
+				}
+				else {
+					classNameBytes = new byte[classNameLength];
+					buf.get(classNameBytes);
+				}
 				
 				serializationVersionFromStream = buf.getInt();
 			}
@@ -791,17 +1000,21 @@ public final class WhiteSharkProgressiveDeserializer {
 		Object o;
 		if (serializedAsGenerics) {
 			removeFirstBytesFromStream(fieldCountByteCount);
-			o = new WhiteSharkGenericObject(count);
+			o = new WhiteSharkGenericObject(genericShapes, count);
 		}
 		else {
 			Class<?> c;
 			if (!classInDictionary) {
 				removeFirstBytesFromStream(2 + classNameLength + 4 + fieldCountByteCount);
-				String className = new String(classNameBytes, "US-ASCII");
-				c = classMapper.getClassFromExternal(className);
+				if (typeId >= 0)
+					c = classMapper.getClassFromTypeId(typeId);
+				else {
+					String className = new String(classNameBytes, "US-ASCII");
+					c = classMapper.getClassFromExternal(className);
+				}
 				
 				int serializationVersionFromCode = WhiteSharkUtils.getSerializationVersion(c);
-				if (serializationVersionFromCode < serializationVersionFromStream)
+				if (serializationVersionFromCode < serializationVersionFromStream && !classMapper.hasSchemaEvolution())
 					throw new WhiteSharkIncompatibleSerializationVersionException(String.format("Incompatible serialization versions found (runtime: %d, data stream: %d)", serializationVersionFromCode, serializationVersionFromStream));
 				
 				classDictionary.add(c);
@@ -810,12 +1023,11 @@ public final class WhiteSharkProgressiveDeserializer {
 				removeFirstBytesFromStream(2 + fieldCountByteCount);
 				c = classDictionary.elementAt(classDictionaryIndex);
 			}
-			Constructor<?> constructor = c.getConstructor();
-			o = constructor.newInstance();
+			o = classMapper.newInstance(c);
 		}
 		
-		if (isRoot && count == 0)
-			return new DeserializationResult(true, o);
+		if (count == 0)
+			return new DeserializationResult(isRoot, o);
 		else
 			return new DeserializationResult(o, serializedAsGenerics, count);
 	}
@@ -837,10 +1049,11 @@ public final class WhiteSharkProgressiveDeserializer {
 		ByteBuffer buf = WhiteSharkUtils.wrapWithByteBuffer(baos.toByteArray());
 		
 		boolean propertyInDictionary = ((mask & 0x20) != 0);
+		int propertyDictionaryIndex;
 		String fieldName;
 		
 		if (propertyInDictionary) {
-			int propertyDictionaryIndex = buf.getShort();
+			propertyDictionaryIndex = buf.getShort();
 			fieldName = propertyDictionary.elementAt(propertyDictionaryIndex);
 			removeFirstBytesFromStream(2);
 		}
@@ -858,10 +1071,26 @@ public final class WhiteSharkProgressiveDeserializer {
 			buf.get(b);
 			fieldName = new String(b, "US-ASCII");
 			
+			propertyDictionaryIndex = propertyDictionary.size();
 			propertyDictionary.add(fieldName);
 		}
 		
+		if (levels != null && levels.size() > 0) {
+			DeserializationLevel level = levels.peek();
+			if (!level.objectAsGenerics) {
+				if (level.bindings == null) {
+					Class<?> c = level.object.getClass();
+					level.bindings = bindingTables.get(c);
+					if (level.bindings == null) {
+						level.bindings = new WhiteSharkPropertyBinding.Table(c, classMapper.hasSchemaEvolution());
+						bindingTables.put(c, level.bindings);
+					}
+				}
+				level.binding = level.bindings.get(propertyDictionaryIndex, fieldName);
+			}
+		}
+		
 		return new DeserializationResult(fieldName);
 	}
-	
+
 }
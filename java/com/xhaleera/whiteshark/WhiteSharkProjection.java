@@ -0,0 +1,137 @@
+package com.xhaleera.whiteshark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deserialization projection
+ * <p>
+ * A projection is a set of property paths selecting the values to materialize during deserialization.
+ * Properties that are not selected are skipped by the parser: their values are neither decoded
+ * nor instantiated, and their classes are not resolved. Objects keep the default values of their skipped fields.
+ * <p>
+ * Paths are made of property names separated by dots, and select the whole value of their last property:
+ * <ul>
+ * <li><code>monthDays</code> selects the <code>monthDays</code> property of the root object,</li>
+ * <li><code>:ci:[*].firstName</code> selects the <code>firstName</code> property of each serializable collection item,</li>
+ * <li><code>*</code> matches any property name, including collection items and map entries.</li>
+ * </ul>
+ * Paths apply to each element of arrays. Appending <code>[*]</code> to a name only makes it explicit.
+ * With schema evolution, properties of typed objects are selected by the name of the field they are bound to,
+ * so paths use current field names even when the stream holds their aliases.
+ * <p>
+ * Projections are immutable, and can be shared between threads and deserializations.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkProjection {
+
+	/** Property name wildcard */
+	public static final String ANY_PROPERTY = "*";
+	/** Element wildcard */
+	public static final String ANY_ELEMENT = "[*]";
+	
+	/** Flag indicating if the whole value is selected */
+	private final boolean complete;
+	/** Projections of selected properties, by name */
+	private final HashMap<String, WhiteSharkProjection> properties;
+	/** Projection of properties matching the wildcard, or <code>null</code> */
+	private final WhiteSharkProjection anyProperty;
+	
+	/**
+	 * Constructor
+	 * @param paths Property paths to select
+	 */
+	public WhiteSharkProjection(String... paths) {
+		this(parse(paths));
+	}
+	
+	/**
+	 * Constructor
+	 * @param suffixes Remaining segments of the paths selecting this value
+	 */
+	private WhiteSharkProjection(List<List<String>> suffixes) {
+		boolean complete = false;
+		LinkedHashMap<String, List<List<String>>> named = new LinkedHashMap<>();
+		List<List<String>> any = new ArrayList<>();
+		for (List<String> suffix : suffixes) {
+			if (suffix.isEmpty()) {
+				complete = true;
+				break;
+			}
+			
+			List<String> next = suffix.subList(1, suffix.size());
+			String name = suffix.get(0);
+			if (name.equals(ANY_PROPERTY))
+				any.add(next);
+			else {
+				List<List<String>> list = named.get(name);
+				if (list == null) {
+					list = new ArrayList<>();
+					named.put(name, list);
+				}
+				list.add(next);
+			}
+		}
+		
+		this.complete = complete;
+		properties = new HashMap<>();
+		if (complete)
+			anyProperty = null;
+		else {
+			for (Map.Entry<String, List<List<String>>> entry : named.entrySet()) {
+				List<List<String>> list = entry.getValue();
+				list.addAll(any);
+				properties.put(entry.getKey(), new WhiteSharkProjection(list));
+			}
+			anyProperty = any.isEmpty() ? null : new WhiteSharkProjection(any);
+		}
+	}
+	
+	/**
+	 * Splits paths into segments
+	 * @param paths Property paths
+	 * @return the segments of each path
+	 */
+	private static List<List<String>> parse(String[] paths) {
+		List<List<String>> parsedPaths = new ArrayList<>();
+		for (String path : paths) {
+			List<String> segments = new ArrayList<>();
+			for (String segment : path.split("\\.")) {
+				if (segment.endsWith(ANY_ELEMENT))
+					segment = segment.substring(0, segment.length() - ANY_ELEMENT.length());
+				if (!segment.isEmpty())
+					segments.add(segment);
+			}
+			parsedPaths.add(segments);
+		}
+		return parsedPaths;
+	}
+	
+	/**
+	 * Tells if the whole value is selected
+	 * @return <code>true</code> if no property of the value has to be skipped, <code>false</code> either.
+	 */
+	boolean isComplete() {
+		return complete;
+	}
+	
+	/**
+	 * Selects a property
+	 * @param name Property name
+	 * @return the projection of the property value, or <code>null</code> if the property is not selected.
+	 */
+	WhiteSharkProjection select(String name) {
+		if (complete)
+			return this;
+		
+		WhiteSharkProjection projection = properties.get(name);
+		return (projection != null) ? projection : anyProperty;
+	}
+
+}
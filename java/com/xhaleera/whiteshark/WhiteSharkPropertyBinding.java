@@ -0,0 +1,200 @@
+package com.xhaleera.whiteshark;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializableCollection;
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializableMap;
+
+/**
+ * Property binding
+ * <p>
+ * A property binding holds everything needed to assign a deserialized property value to an object of a specific class:
+ * the kind of the property, its resolved field and its primitive kind, and the annotations of the field or of the class.
+ * Field bindings are resolved once per class and property name, then shared.
+ * <p>
+ * Deserializers bind each entry of their property dictionary once per class with a {@link Table},
+ * so later occurrences of a property skip string comparisons and reflective lookups.
+ * With schema evolution, tables resolve properties through the {@link WhiteSharkEvolutionPlan} of their class.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkPropertyBinding {
+
+	/** Field property kind */
+	static final int FIELD = 0;
+	/** Collection item property kind */
+	static final int COLLECTION_ITEM = 1;
+	/** Map entry property kind */
+	static final int MAP_ENTRY = 2;
+	/** Skipped property kind, for properties unknown to an evolution plan */
+	static final int SKIPPED = 3;
+	
+	/** Field bindings cache */
+	private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, WhiteSharkPropertyBinding>> fieldBindings = new ConcurrentHashMap<>();
+	
+	/** Property kind */
+	final int kind;
+	/** Bound field, for field properties */
+	final Field field;
+	/** Flag indicating if the bound field is annotated with {@link WhiteSharkSerializable} */
+	final boolean serializable;
+	/** Flag indicating if the bound field is a serializable map */
+	final boolean serializableMap;
+	/** Flag indicating if the bound field is a serializable collection */
+	final boolean serializableCollection;
+	/** Flag indicating if the class is annotated as a serializable collection (for collection items) or map (for map entries) */
+	final boolean ownerSerializable;
+	/** Map key, for map entries */
+	final String mapKey;
+	/** Primitive kind of the bound field, or {@link WhiteSharkPrimitives#NONE} */
+	final int primitiveKind;
+	/** Index of the bound field in its evolution plan, or -1 if the field is not tracked */
+	final int fieldIndex;
+	
+	/**
+	 * Constructor
+	 * @param c Class the property belongs to
+	 * @param name Property name
+	 * @throws NoSuchFieldException If the property is a field property but the class has no such public field.
+	 */
+	private WhiteSharkPropertyBinding(Class<?> c, String name) throws NoSuchFieldException {
+		if (name.equals(WhiteSharkConstants.COLLECTION_ITEM_PROPERTY_NAME)) {
+			kind = COLLECTION_ITEM;
+			field = null;
+			serializable = false;
+			serializableMap = false;
+			serializableCollection = false;
+			ownerSerializable = (c.getAnnotation(WhiteSharkSerializableCollection.class) != null);
+			mapKey = null;
+			primitiveKind = WhiteSharkPrimitives.NONE;
+			fieldIndex = -1;
+		}
+		else if (name.startsWith(WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX)) {
+			kind = MAP_ENTRY;
+			field = null;
+			serializable = false;
+			serializableMap = false;
+			serializableCollection = false;
+			ownerSerializable = (c.getAnnotation(WhiteSharkSerializableMap.class) != null);
+			mapKey = name.substring(WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX.length());
+			primitiveKind = WhiteSharkPrimitives.NONE;
+			fieldIndex = -1;
+		}
+		else {
+			kind = FIELD;
+			field = c.getField(name);
+			serializable = (field.getAnnotation(WhiteSharkSerializable.class) != null);
+			serializableMap = (field.getAnnotation(WhiteSharkSerializableMap.class) != null);
+			serializableCollection = (field.getAnnotation(WhiteSharkSerializableCollection.class) != null);
+			ownerSerializable = false;
+			mapKey = null;
+			primitiveKind = WhiteSharkPrimitives.kindOf(field.getType());
+			fieldIndex = -1;
+		}
+	}
+	
+	/**
+	 * Constructor for evolution plans
+	 * @param field Bound field, or <code>null</code> for skipped properties
+	 * @param fieldIndex Index of the field in its evolution plan, or -1
+	 */
+	WhiteSharkPropertyBinding(Field field, int fieldIndex) {
+		kind = (field == null) ? SKIPPED : FIELD;
+		this.field = field;
+		serializable = (field != null && field.getAnnotation(WhiteSharkSerializable.class) != null);
+		serializableMap = (field != null && field.getAnnotation(WhiteSharkSerializableMap.class) != null);
+		serializableCollection = (field != null && field.getAnnotation(WhiteSharkSerializableCollection.class) != null);
+		ownerSerializable = false;
+		mapKey = null;
+		primitiveKind = (field == null) ? WhiteSharkPrimitives.NONE : WhiteSharkPrimitives.kindOf(field.getType());
+		this.fieldIndex = fieldIndex;
+	}
+	
+	/**
+	 * Resolves the binding of a property
+	 * <p>
+	 * Map entry bindings are not shared, as map keys are unbounded.
+	 *
+	 * @param c Class the property belongs to
+	 * @param name Property name
+	 * @return the property binding
+	 * @throws NoSuchFieldException If the property is a field property but the class has no such public field.
+	 */
+	static WhiteSharkPropertyBinding resolve(Class<?> c, String name) throws NoSuchFieldException {
+		if (name.startsWith(WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX))
+			return new WhiteSharkPropertyBinding(c, name);
+		
+		ConcurrentHashMap<String, WhiteSharkPropertyBinding> classBindings = fieldBindings.get(c);
+		if (classBindings == null) {
+			classBindings = new ConcurrentHashMap<>();
+			ConcurrentHashMap<String, WhiteSharkPropertyBinding> previous = fieldBindings.putIfAbsent(c, classBindings);
+			if (previous != null)
+				classBindings = previous;
+		}
+		
+		WhiteSharkPropertyBinding binding = classBindings.get(name);
+		if (binding == null) {
+			binding = new WhiteSharkPropertyBinding(c, name);
+			classBindings.put(name, binding);
+		}
+		return binding;
+	}
+	
+	/**
+	 * Property binding table of a class
+	 * <p>
+	 * Bindings are indexed by property dictionary index, so a table is only valid with the dictionary it has been filled with.
+	 *
+	 * @author Christophe SAUVEUR (christophe@xhaleera.com)
+	 * @since 1.1
+	 * @version 1.1
+	 */
+	static final class Table {
+	
+		/** Class the properties belong to */
+		private final Class<?> c;
+		/** Evolution plan of the class, or <code>null</code> if schema evolution is disabled */
+		final WhiteSharkEvolutionPlan plan;
+		/** Bindings, indexed by property dictionary index */
+		private WhiteSharkPropertyBinding[] bindings;
+		
+		/**
+		 * Constructor
+		 * @param c Class the properties belong to
+		 * @param schemaEvolution If set, properties are resolved through the evolution plan of the class
+		 */
+		Table(Class<?> c, boolean schemaEvolution) {
+			this.c = c;
+			plan = schemaEvolution ? WhiteSharkEvolutionPlan.of(c) : null;
+			bindings = new WhiteSharkPropertyBinding[16];
+		}
+		
+		/**
+		 * Gets the binding of a property dictionary entry, resolving it the first time
+		 * @param index Property dictionary index
+		 * @param name Property name
+		 * @return the property binding
+		 * @throws NoSuchFieldException If the property is a field property but the class has no such public field.
+		 */
+		WhiteSharkPropertyBinding get(int index, String name) throws NoSuchFieldException {
+			if (index < bindings.length) {
+				WhiteSharkPropertyBinding binding = bindings[index];
+				if (binding != null)
+					return binding;
+			}
+			else
+				bindings = Arrays.copyOf(bindings, Math.max(index + 1, bindings.length * 2));
+			
+			WhiteSharkPropertyBinding binding = (plan != null) ? plan.binding(name) : resolve(c, name);
+			bindings[index] = binding;
+			return binding;
+		}
+	
+	}
+
+}
@@ -0,0 +1,573 @@
+package com.xhaleera.whiteshark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.xhaleera.whiteshark.exceptions.WhiteSharkException;
+import com.xhaleera.whiteshark.exceptions.WhiteSharkMissingTypeAdapterException;
+import com.xhaleera.whiteshark.exceptions.WhiteSharkNotAPropertyException;
+
+/**
+ * Pull parser class
+ * <p>
+ * This class reads completely buffered WhiteShark streams as a sequence of tokens, without materializing any value.
+ * Each call to {@link #nextToken()} advances to the next token, whose value is then available from the accessors:
+ * <pre>
+ * try (WhiteSharkReader reader = new WhiteSharkReader(streamId, bytes)) {
+ *     WhiteSharkToken token;
+ *     while ((token = reader.nextToken()) != null) {
+ *         if (token == WhiteSharkToken.PROPERTY_NAME &amp;&amp; reader.propertyName().equals("age")) {
+ *             reader.nextToken();
+ *             total += reader.intValue();
+ *         }
+ *     }
+ * }
+ * </pre>
+ * Objects start with a {@link WhiteSharkToken#START_OBJECT} token and end with a {@link WhiteSharkToken#END_OBJECT} token,
+ * each property being a {@link WhiteSharkToken#PROPERTY_NAME} token followed by the tokens of its value. Arrays are read the same way,
+ * without property names. Pre-encoded fragments are transparent.
+ * <p>
+ * Dictionaries are handled internally, and classes are not resolved. Scalar values are decoded without allocation,
+ * and strings are only decoded if requested.
+ * <p>
+ * Readers are not thread-safe.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class WhiteSharkReader implements Closeable {
+
+	/** Default class mapper */
+	private static final WhiteSharkExternalClassMapper defaultClassMapper = new WhiteSharkExternalClassMapper();
+	
+	/** Object frame kind */
+	private static final byte FRAME_OBJECT = 0;
+	/** Array frame kind */
+	private static final byte FRAME_ARRAY = 1;
+	/** Fragment frame kind */
+	private static final byte FRAME_FRAGMENT = 2;
+	
+	/** Input cursor */
+	private final WhiteSharkInputCursor in;
+	/** Serialization options */
+	private final short options;
+	/** Class mapper */
+	private final WhiteSharkExternalClassMapper classMapper;
+	/** Dictionaries of the document or fragment being read */
+	private WhiteSharkLazyDocument dictionaries;
+	/** Dictionaries of the documents enclosing the fragments being read */
+	private final ArrayList<WhiteSharkLazyDocument> parentDictionaries = new ArrayList<>();
+	
+	/** Kinds of the open frames */
+	private byte[] frameKinds = new byte[16];
+	/** Number of properties or items remaining in the open frames */
+	private int[] frameRemaining = new int[16];
+	/** Property names of the open frames */
+	private String[] frameNames = new String[16];
+	/** Number of open frames */
+	private int depth = 0;
+	/** Flag indicating if the root value has been read */
+	private boolean rootRead = false;
+	/** Flag indicating if a property value is expected */
+	private boolean valueExpected = false;
+	
+	/** Current token */
+	private WhiteSharkToken token;
+	/** Name of the current property */
+	private String propertyName;
+	/** Class reference of the current object, array or custom value */
+	private WhiteSharkLazyDocument.ClassReference classReference;
+	/** Number of properties or items of the current object or array */
+	private int count;
+	/** Current boolean value */
+	private boolean booleanValue;
+	/** Current integer value */
+	private long longValue;
+	/** Current floating-point number value */
+	private double doubleValue;
+	/** Current character value */
+	private char charValue;
+	/** Byte length of the current string, binary or custom value payload */
+	private int payloadLength;
+	/** Flag indicating if the payload of the current value has not been read yet */
+	private boolean payloadPending = false;
+	/** Decoded current string, binary or custom value */
+	private Object decodedValue;
+	
+	/**
+	 * Constructor
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param bytes Byte array to read
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	public WhiteSharkReader(String identifier, byte[] bytes) throws WhiteSharkException, IOException {
+		this(identifier, bytes, defaultClassMapper);
+	}
+	
+	/**
+	 * Constructor
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param bytes Byte array to read
+	 * @param classMapper External class mapper
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	public WhiteSharkReader(String identifier, byte[] bytes, WhiteSharkExternalClassMapper classMapper) throws WhiteSharkException, IOException {
+		this(identifier, new WhiteSharkInputCursor(bytes), classMapper);
+	}
+	
+	/**
+	 * Constructor
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer to read
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	public WhiteSharkReader(String identifier, ByteBuffer buffer) throws WhiteSharkException, IOException {
+		this(identifier, buffer, defaultClassMapper);
+	}
+	
+	/**
+	 * Constructor
+	 * <p>
+	 * Reading starts at the current position of the buffer, which can be a direct buffer.
+	 * The position of the buffer is not modified.
+	 *
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param buffer Buffer to read
+	 * @param classMapper External class mapper
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	public WhiteSharkReader(String identifier, ByteBuffer buffer, WhiteSharkExternalClassMapper classMapper) throws WhiteSharkException, IOException {
+		this(identifier, new WhiteSharkInputCursor(buffer), classMapper);
+	}
+	
+	/**
+	 * Constructor
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param stream Stream to read
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	public WhiteSharkReader(String identifier, InputStream stream) throws WhiteSharkException, IOException {
+		this(identifier, stream, defaultClassMapper);
+	}
+	
+	/**
+	 * Constructor
+	 * <p>
+	 * Streams supporting marks are read by blocks, and left positioned right after the read data when the reader is closed.
+	 * Other streams are read with many small reads, so they should be wrapped in a BufferedInputStream.
+	 *
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param stream Stream to read
+	 * @param classMapper External class mapper
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	public WhiteSharkReader(String identifier, InputStream stream, WhiteSharkExternalClassMapper classMapper) throws WhiteSharkException, IOException {
+		this(identifier, new WhiteSharkStreamInputCursor(stream), classMapper);
+	}
+	
+	/**
+	 * Constructor
+	 * @param identifier Custom WhiteShark stream identifier to handle
+	 * @param in Input cursor
+	 * @param classMapper External class mapper
+	 * @throws WhiteSharkException In case the format identifier, the custom identifier or the stream version do not match.
+	 * @throws IOException
+	 */
+	WhiteSharkReader(String identifier, WhiteSharkInputCursor in, WhiteSharkExternalClassMapper classMapper) throws WhiteSharkException, IOException {
+		this.in = in;
+		this.classMapper = (classMapper == null) ? defaultClassMapper : classMapper;
+		options = WhiteSharkImmediateDeserializer.readHeader(identifier, in);
+		dictionaries = new WhiteSharkLazyDocument(null, options, this.classMapper);
+	}
+	
+	/**
+	 * Gets the serialization options of the stream
+	 * @return the serialization options
+	 */
+	public short getOptions() {
+		return options;
+	}
+	
+	/**
+	 * Advances to the next token
+	 * <p>
+	 * The unread payload of the current value, if any, is skipped.
+	 *
+	 * @return the next token, or <code>null</code> if the root value has been completely read.
+	 * @throws IOException
+	 * @throws WhiteSharkNotAPropertyException
+	 */
+	public WhiteSharkToken nextToken() throws IOException, WhiteSharkNotAPropertyException {
+		if (payloadPending) {
+			in.skip(payloadLength);
+			payloadPending = false;
+		}
+		decodedValue = null;
+		classReference = null;
+		
+		if (valueExpected) {
+			valueExpected = false;
+			return readValue();
+		}
+		
+		while (depth > 0) {
+			int top = depth - 1;
+			if (frameRemaining[top] > 0) {
+				frameRemaining[top]--;
+				if (frameKinds[top] == FRAME_OBJECT) {
+					propertyName = dictionaries.readPropertyName(in, true);
+					valueExpected = true;
+					return (token = WhiteSharkToken.PROPERTY_NAME);
+				}
+				return readValue();
+			}
+			
+			depth--;
+			propertyName = frameNames[top];
+			frameNames[top] = null;
+			if (frameKinds[top] == FRAME_OBJECT)
+				return (token = WhiteSharkToken.END_OBJECT);
+			else if (frameKinds[top] == FRAME_ARRAY)
+				return (token = WhiteSharkToken.END_ARRAY);
+			else
+				dictionaries = parentDictionaries.remove(parentDictionaries.size() - 1);
+		}
+		
+		if (!rootRead) {
+			rootRead = true;
+			return readValue();
+		}
+		return (token = null);
+	}
+	
+	/**
+	 * Reads a value
+	 * @return the value token
+	 * @throws IOException
+	 */
+	private WhiteSharkToken readValue() throws IOException {
+		byte mask = in.readByte();
+		byte dataType = (byte) (mask & 0xf);
+		
+		if (dataType == WhiteSharkDataType.NULL.getMask())
+			token = WhiteSharkToken.NULL;
+		else if (dataType == WhiteSharkDataType.BOOLEAN.getMask()) {
+			booleanValue = ((mask & 0xf0) != 0);
+			token = WhiteSharkToken.BOOLEAN;
+		}
+		else if (dataType == WhiteSharkDataType.INTEGER.getMask()) {
+			switch ((mask & 0xf0) >> 4) {
+				case 1:
+					longValue = in.readByte();
+					break;
+				
+				case 2:
+					longValue = in.readShort();
+					break;
+				
+				case 4:
+					longValue = in.readInt();
+					break;
+				
+				default:
+					longValue = in.readLong();
+					break;
+			}
+			token = WhiteSharkToken.INTEGER;
+		}
+		else if (dataType == WhiteSharkDataType.REAL.getMask()) {
+			doubleValue = WhiteSharkRealEncoding.decodeDouble(mask, in);
+			if (!WhiteSharkRealEncoding.isDouble(mask))
+				doubleValue = (float) doubleValue;
+			token = WhiteSharkToken.REAL;
+		}
+		else if (dataType == WhiteSharkDataType.CHAR.getMask()) {
+			charValue = in.readChar();
+			token = WhiteSharkToken.CHAR;
+		}
+		else if (dataType == WhiteSharkDataType.STRING.getMask()) {
+			switch ((mask & 0xf0) >> 4) {
+				case 1:
+					payloadLength = in.readUnsignedByte();
+					break;
+				
+				case 2:
+					payloadLength = in.readShort();
+					break;
+				
+				default:
+					payloadLength = in.readInt();
+					break;
+			}
+			payloadPending = true;
+			token = WhiteSharkToken.STRING;
+		}
+		else if (dataType == WhiteSharkDataType.BINARY.getMask()) {
+			payloadLength = WhiteSharkImmediateDeserializer.readCount(in, (mask & 0xf0) >> 4);
+			payloadPending = true;
+			token = WhiteSharkToken.BINARY;
+		}
+		else if (dataType == WhiteSharkDataType.ARRAY.getMask()) {
+			classReference = dictionaries.readClassReference(in, mask, false, true);
+			count = WhiteSharkImmediateDeserializer.readCount(in, (mask & 0x30) >> 4);
+			pushFrame(FRAME_ARRAY, count);
+			token = WhiteSharkToken.START_ARRAY;
+		}
+		else if (dataType == WhiteSharkDataType.CUSTOM.getMask()) {
+			classReference = dictionaries.readClassReference(in, mask, false, true);
+			payloadLength = in.readInt();
+			payloadPending = true;
+			token = WhiteSharkToken.CUSTOM;
+		}
+		else if (dataType == WhiteSharkDataType.FRAGMENT.getMask()) {
+			in.skip(4);
+			pushFrame(FRAME_FRAGMENT, 0);
+			parentDictionaries.add(dictionaries);
+			dictionaries = new WhiteSharkLazyDocument(null, options, classMapper);
+			return readValue();
+		}
+		else {
+			classReference = dictionaries.isGenerics(mask) ? null : dictionaries.readClassReference(in, mask, true, true);
+			count = WhiteSharkImmediateDeserializer.readCount(in, (mask & 0x30) >> 4);
+			pushFrame(FRAME_OBJECT, count);
+			token = WhiteSharkToken.START_OBJECT;
+		}
+		return token;
+	}
+	
+	/**
+	 * Opens a frame
+	 * @param kind Frame kind
+	 * @param remaining Number of properties or items of the frame
+	 */
+	private void pushFrame(byte kind, int remaining) {
+		if (depth == frameKinds.length) {
+			frameKinds = Arrays.copyOf(frameKinds, depth * 2);
+			frameRemaining = Arrays.copyOf(frameRemaining, depth * 2);
+			frameNames = Arrays.copyOf(frameNames, depth * 2);
+		}
+		frameKinds[depth] = kind;
+		frameRemaining[depth] = remaining;
+		frameNames[depth] = propertyName;
+		depth++;
+	}
+	
+	/**
+	 * Skips the content of the current object or array
+	 * <p>
+	 * If the current token is {@link WhiteSharkToken#START_OBJECT} or {@link WhiteSharkToken#START_ARRAY},
+	 * the reader advances to the matching end token, without returning the tokens in between. Otherwise, nothing happens.
+	 *
+	 * @throws IOException
+	 * @throws WhiteSharkNotAPropertyException
+	 */
+	public void skipChildren() throws IOException, WhiteSharkNotAPropertyException {
+		if (token != WhiteSharkToken.START_OBJECT && token != WhiteSharkToken.START_ARRAY)
+			return;
+		
+		int top = depth - 1;
+		boolean object = (frameKinds[top] == FRAME_OBJECT);
+		for (int remaining = frameRemaining[top]; remaining > 0; remaining--) {
+			if (object)
+				dictionaries.readPropertyName(in, true);
+			dictionaries.skip(in, true);
+		}
+		frameRemaining[top] = 0;
+		nextToken();
+	}
+	
+	/**
+	 * Gets the current token
+	 * @return the current token, or <code>null</code> before the first token and after the last one.
+	 */
+	public WhiteSharkToken currentToken() {
+		return token;
+	}
+	
+	/**
+	 * Gets the name of the current property
+	 * <p>
+	 * The name remains available while the property value is read, up to its end token for objects and arrays.
+	 *
+	 * @return the property name, or <code>null</code> outside of object properties.
+	 */
+	public String propertyName() {
+		return propertyName;
+	}
+	
+	/**
+	 * Gets the external class name of the current object, array component or custom value
+	 * <p>
+	 * The class itself is not loaded, unless it is referenced by a numeric type identifier.
+	 *
+	 * @return the external class name, or <code>null</code> if the current object has been serialized as generics.
+	 * @throws ClassNotFoundException If the class is referenced by an unregistered type identifier.
+	 * @throws IllegalStateException If the current token is not {@link WhiteSharkToken#START_OBJECT}, {@link WhiteSharkToken#START_ARRAY} or {@link WhiteSharkToken#CUSTOM}.
+	 */
+	public String className() throws ClassNotFoundException {
+		if (token != WhiteSharkToken.START_OBJECT && token != WhiteSharkToken.START_ARRAY && token != WhiteSharkToken.CUSTOM)
+			throw new IllegalStateException(String.format("No class for token %s", token));
+		return (classReference == null) ? null : classReference.getName(classMapper);
+	}
+	
+	/**
+	 * Gets the number of properties or items of the current object or array
+	 * @return the number of properties of an object, including collection items and map entries, or the number of items of an array
+	 * @throws IllegalStateException If the current token is not {@link WhiteSharkToken#START_OBJECT} or {@link WhiteSharkToken#START_ARRAY}.
+	 */
+	public int count() {
+		if (token != WhiteSharkToken.START_OBJECT && token != WhiteSharkToken.START_ARRAY)
+			throw new IllegalStateException(String.format("No count for token %s", token));
+		return count;
+	}
+	
+	/**
+	 * Gets the current boolean value
+	 * @return the boolean value
+	 * @throws IllegalStateException If the current token is not {@link WhiteSharkToken#BOOLEAN}.
+	 */
+	public boolean booleanValue() {
+		checkToken(WhiteSharkToken.BOOLEAN);
+		return booleanValue;
+	}
+	
+	/**
+	 * Gets the current numeric value as an int
+	 * @return the numeric value, narrowed if needed
+	 * @throws IllegalStateException If the current token is not {@link WhiteSharkToken#INTEGER} or {@link WhiteSharkToken#REAL}.
+	 */
+	public int intValue() {
+		return (token == WhiteSharkToken.REAL) ? (int) doubleValue : (int) longValue();
+	}
+	
+	/**
+	 * Gets the current numeric value as a long
+	 * @return the numeric value, narrowed if needed
+	 * @throws IllegalStateException If the current token is not {@link WhiteSharkToken#INTEGER} or {@link WhiteSharkToken#REAL}.
+	 */
+	public long longValue() {
+		if (token == WhiteSharkToken.REAL)
+			return (long) doubleValue;
+		checkToken(WhiteSharkToken.INTEGER);
+		return longValue;
+	}
+	
+	/**
+	 * Gets the current numeric value as a double
+	 * @return the numeric value
+	 * @throws IllegalStateException If the current token is not {@link WhiteSharkToken#INTEGER} or {@link WhiteSharkToken#REAL}.
+	 */
+	public double doubleValue() {
+		if (token == WhiteSharkToken.INTEGER)
+			return longValue;
+		checkToken(WhiteSharkToken.REAL);
+		return doubleValue;
+	}
+	
+	/**
+	 * Gets the current character value
+	 * @return the character value
+	 * @throws IllegalStateException If the current token is not {@link WhiteSharkToken#CHAR}.
+	 */
+	public char charValue() {
+		checkToken(WhiteSharkToken.CHAR);
+		return charValue;
+	}
+	
+	/**
+	 * Gets the current string value
+	 * <p>
+	 * The string is decoded on first call only. If it is never requested, its bytes are skipped.
+	 *
+	 * @return the string value
+	 * @throws IOException
+	 * @throws IllegalStateException If the current token is not {@link WhiteSharkToken#STRING}.
+	 */
+	public String stringValue() throws IOException {
+		checkToken(WhiteSharkToken.STRING);
+		if (payloadPending) {
+			decodedValue = in.readUtf8(payloadLength, classMapper.getStringCache());
+			payloadPending = false;
+		}
+		return (String) decodedValue;
+	}
+	
+	/**
+	 * Gets the current binary value
+	 * <p>
+	 * The value is read on first call only. If it is never requested, its bytes are skipped.
+	 * The returned buffer is a read-only slice of the input.
+	 *
+	 * @return the binary value
+	 * @throws IOException
+	 * @throws IllegalStateException If the current token is not {@link WhiteSharkToken#BINARY}.
+	 */
+	public ByteBuffer binaryValue() throws IOException {
+		checkToken(WhiteSharkToken.BINARY);
+		if (payloadPending) {
+			decodedValue = in.readSlice(payloadLength);
+			payloadPending = false;
+		}
+		return ((ByteBuffer) decodedValue).duplicate();
+	}
+	
+	/**
+	 * Gets the current custom value, decoded by its type adapter
+	 * <p>
+	 * The value is decoded on first call only. If it is never requested, its bytes are skipped.
+	 *
+	 * @return the decoded value
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 * @throws WhiteSharkMissingTypeAdapterException If no type adapter is registered for the class of the value.
+	 * @throws IllegalStateException If the current token is not {@link WhiteSharkToken#CUSTOM}.
+	 */
+	public Object customValue() throws IOException, ClassNotFoundException, WhiteSharkMissingTypeAdapterException {
+		checkToken(WhiteSharkToken.CUSTOM);
+		if (payloadPending) {
+			Class<?> adaptedClass = classReference.resolve(classMapper);
+			WhiteSharkTypeAdapter<Object> adapter = classMapper.getTypeAdapter(adaptedClass);
+			if (adapter == null)
+				throw new WhiteSharkMissingTypeAdapterException(String.format("No type adapter registered for class %s", adaptedClass.getName()));
+			
+			WhiteSharkInputCursor payload = in.slice(payloadLength);
+			payloadPending = false;
+			decodedValue = adapter.read(payload);
+		}
+		return decodedValue;
+	}
+	
+	/**
+	 * Checks the current token
+	 * @param expected Expected token
+	 * @throws IllegalStateException If the current token is not the expected one.
+	 */
+	private void checkToken(WhiteSharkToken expected) {
+		if (token != expected)
+			throw new IllegalStateException(String.format("Current token is %s, not %s", token, expected));
+	}
+	
+	/**
+	 * Releases the input
+	 * <p>
+	 * Streams are not closed. Streams supporting marks are left positioned right after the read data.
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		in.release();
+	}
+
+}
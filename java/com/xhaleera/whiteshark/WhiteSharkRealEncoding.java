@@ -0,0 +1,306 @@
+package com.xhaleera.whiteshark;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Floating-point number encoding helper
+ * <p>
+ * The upper nibble of a real value mask is organized as follows:
+ * <ul>
+ * <li>bit 4 (0x10) is set if the declared type is <code>double</code>, and unset if it is <code>float</code>,</li>
+ * <li>bits 5 to 7 (0xe0) contain the encoding of the value.</li>
+ * </ul>
+ * Encodings other than {@link #NATIVE} are only produced if the stream is serialized with
+ * {@link WhiteSharkConstants#OPTIONS_COMPACT_REALS}. Fixed-point encodings are followed by
+ * a byte containing the number of decimal digits, then by the scaled integer value.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkRealEncoding {
+
+	/** IEEE 754 value of the declared precision */
+	static final int NATIVE = 0;
+	/** Double precision value stored as a single precision value */
+	static final int FLOAT32 = 1;
+	/** Integral value stored as a signed byte */
+	static final int INT8 = 2;
+	/** Integral value stored as a signed short */
+	static final int INT16 = 3;
+	/** Integral value stored as a signed int */
+	static final int INT32 = 4;
+	/** Fixed-point value stored as a signed byte */
+	static final int FIXED8 = 5;
+	/** Fixed-point value stored as a signed short */
+	static final int FIXED16 = 6;
+	/** Fixed-point value stored as a signed int */
+	static final int FIXED32 = 7;
+	
+	/** Maximum number of decimal digits of fixed-point values */
+	static final int MAX_DECIMALS = 9;
+	
+	/** Powers of ten used by fixed-point encodings */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9 };
+	
+	/**
+	 * Private constructor
+	 */
+	private WhiteSharkRealEncoding() {
+	}
+	
+	/**
+	 * Builds the mask of a real value
+	 * @param isDouble Flag indicating if the declared type is <code>double</code>
+	 * @param encoding Encoding of the value
+	 * @return the mask byte
+	 */
+	static byte mask(boolean isDouble, int encoding) {
+		byte mask = WhiteSharkDataType.REAL.getMask();
+		if (isDouble)
+			mask |= 0x10;
+		return (byte) (mask | (encoding << 5));
+	}
+	
+	/**
+	 * Tells if the declared type of a real value is <code>double</code>
+	 * @param mask Byte mask
+	 * @return <code>true</code> if the declared type is <code>double</code>, <code>false</code> if it is <code>float</code>.
+	 */
+	static boolean isDouble(byte mask) {
+		return ((mask & 0x10) != 0);
+	}
+	
+	/**
+	 * Gets the encoding of a real value
+	 * @param mask Byte mask
+	 * @return the encoding of the value
+	 */
+	static int getEncoding(byte mask) {
+		return ((mask & 0xe0) >> 5) & 0x7;
+	}
+	
+	/**
+	 * Gets the number of bytes following the mask of a real value
+	 * @param mask Byte mask
+	 * @return the payload size in bytes
+	 */
+	static int getPayloadSize(byte mask) {
+		switch (getEncoding(mask)) {
+			case NATIVE:
+				return isDouble(mask) ? 8 : 4;
+			case FLOAT32:
+				return 4;
+			case INT8:
+				return 1;
+			case INT16:
+				return 2;
+			case INT32:
+				return 4;
+			case FIXED8:
+				return 2;
+			case FIXED16:
+				return 3;
+			default:
+				return 5;
+		}
+	}
+	
+	/**
+	 * Encodes a real value
+	 * @param out Destination output buffer
+	 * @param number Float or Double instance to encode
+	 * @param compact If set, the smallest lossless encoding is selected
+	 * @param decimals Number of decimal digits for fixed-point encoding, or a negative value to disable it
+	 * @throws IOException
+	 */
+	static void encode(WhiteSharkOutputBuffer out, Number number, boolean compact, int decimals) throws IOException {
+		boolean isDouble = (number instanceof Double);
+		if (!compact) {
+			out.writeByte(mask(isDouble, NATIVE));
+			if (isDouble)
+				out.writeDouble(number.doubleValue());
+			else
+				out.writeFloat(number.floatValue());
+			return;
+		}
+		
+		double value = number.doubleValue();
+		
+		// Integral values
+		int integral = (int) value;
+		if (Double.compare(value, integral) == 0) {
+			if (integral >= Byte.MIN_VALUE && integral <= Byte.MAX_VALUE) {
+				writeInteger(out, isDouble, INT8, integral);
+				return;
+			}
+			else if (integral >= Short.MIN_VALUE && integral <= Short.MAX_VALUE) {
+				writeInteger(out, isDouble, INT16, integral);
+				return;
+			}
+			else if (isDouble) {
+				writeInteger(out, isDouble, INT32, integral);
+				return;
+			}
+		}
+		
+		// Fixed-point values
+		if (decimals >= 0 && !Double.isNaN(value) && !Double.isInfinite(value)) {
+			decimals = Math.min(decimals, MAX_DECIMALS);
+			double scaled = Math.rint(value * POWERS_OF_TEN[decimals]);
+			if (scaled >= Integer.MIN_VALUE && scaled <= Integer.MAX_VALUE) {
+				int fixed = (int) scaled;
+				while (decimals > 0 && fixed % 10 == 0) {
+					fixed /= 10;
+					decimals--;
+				}
+				int encoding;
+				if (fixed >= Byte.MIN_VALUE && fixed <= Byte.MAX_VALUE)
+					encoding = FIXED8;
+				else if (fixed >= Short.MIN_VALUE && fixed <= Short.MAX_VALUE)
+					encoding = FIXED16;
+				else
+					encoding = FIXED32;
+				if (encoding != FIXED32 || (isDouble && !isLosslessFloat(value))) {
+					out.writeByte(mask(isDouble, encoding));
+					out.writeByte(decimals);
+					writeInteger(out, encoding, fixed);
+					return;
+				}
+			}
+		}
+		
+		// Lossless single precision
+		if (isDouble && isLosslessFloat(value)) {
+			out.writeByte(mask(true, FLOAT32));
+			out.writeFloat((float) value);
+			return;
+		}
+		
+		encode(out, number, false, decimals);
+	}
+	
+	/**
+	 * Tells if a double precision value can be stored as a single precision value without loss
+	 * @param value Double precision value
+	 * @return <code>true</code> if the single precision value has the exact same bits once widened, <code>false</code> either.
+	 */
+	private static boolean isLosslessFloat(double value) {
+		return (Double.doubleToRawLongBits((double) (float) value) == Double.doubleToRawLongBits(value));
+	}
+	
+	/**
+	 * Encodes an integral real value
+	 * @param out Destination output buffer
+	 * @param isDouble Flag indicating if the declared type is <code>double</code>
+	 * @param encoding Integer encoding
+	 * @param value Integral value
+	 * @throws IOException
+	 */
+	private static void writeInteger(WhiteSharkOutputBuffer out, boolean isDouble, int encoding, int value) throws IOException {
+		out.writeByte(mask(isDouble, encoding));
+		writeInteger(out, encoding, value);
+	}
+	
+	/**
+	 * Writes an integer using the size of an integer or fixed-point encoding
+	 * @param out Destination output buffer
+	 * @param encoding Integer or fixed-point encoding
+	 * @param value Value to write
+	 * @throws IOException
+	 */
+	private static void writeInteger(WhiteSharkOutputBuffer out, int encoding, int value) throws IOException {
+		switch (encoding) {
+			case INT8:
+			case FIXED8:
+				out.writeByte(value);
+				break;
+			case INT16:
+			case FIXED16:
+				out.writeShort(value);
+				break;
+			default:
+				out.writeInt(value);
+				break;
+		}
+	}
+	
+	/**
+	 * Decodes a real value
+	 * @param mask Byte mask
+	 * @param buf Source buffer, positioned at the start of the payload
+	 * @return a Float or Double instance, according to the declared type
+	 * @throws BufferUnderflowException If the payload is incomplete.
+	 * @throws IOException If the payload is malformed.
+	 */
+	static Number decode(byte mask, ByteBuffer buf) throws IOException {
+		WhiteSharkInputCursor in = new WhiteSharkInputCursor(buf);
+		try {
+			Number value = decode(mask, in);
+			buf.position(buf.position() + (int) in.position());
+			return value;
+		}
+		catch (EOFException e) {
+			throw new BufferUnderflowException();
+		}
+	}
+	
+	/**
+	 * Decodes a real value
+	 * @param mask Byte mask
+	 * @param in Input cursor, positioned at the start of the payload
+	 * @return a Float or Double instance, according to the declared type
+	 * @throws IOException If the payload is incomplete or malformed.
+	 */
+	static Number decode(byte mask, WhiteSharkInputCursor in) throws IOException {
+		if (isDouble(mask))
+			return decodeDouble(mask, in);
+		else
+			return (float) decodeDouble(mask, in);
+	}
+	
+	/**
+	 * Decodes a real value as a double precision number, without boxing it
+	 * <p>
+	 * The value is not narrowed to single precision, even if declared so.
+	 * 
+	 * @param mask Byte mask
+	 * @param in Input cursor, positioned at the start of the payload
+	 * @return the decoded value
+	 * @throws IOException If the payload is incomplete or malformed.
+	 */
+	static double decodeDouble(byte mask, WhiteSharkInputCursor in) throws IOException {
+		int encoding = getEncoding(mask);
+		switch (encoding) {
+			case NATIVE:
+				if (isDouble(mask))
+					return in.readDouble();
+				else
+					return in.readFloat();
+			case FLOAT32:
+				return in.readFloat();
+			case INT8:
+				return in.readByte();
+			case INT16:
+				return in.readShort();
+			case INT32:
+				return in.readInt();
+			default:
+				int decimals = in.readByte();
+				if (decimals < 0 || decimals > MAX_DECIMALS)
+					throw new IOException(String.format("Invalid number of decimal digits %d in fixed-point real value", decimals));
+				int fixed;
+				if (encoding == FIXED8)
+					fixed = in.readByte();
+				else if (encoding == FIXED16)
+					fixed = in.readShort();
+				else
+					fixed = in.readInt();
+				return fixed / POWERS_OF_TEN[decimals];
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.xhaleera.whiteshark;
+
+import java.util.ArrayList;
+
+/**
+ * Layout of a root array or collection, found by a structural scan
+ * <p>
+ * The elements of the root value are split into ranges. For each range, the layout records the position of its
+ * first element and the sizes of the dictionaries at this position, so each range can be decoded independently
+ * from a copy of the dictionary entries defined before it.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkRootLayout {
+
+	/** Serialization options of the stream */
+	final short options;
+	/** Component class of the root array, or class of the root collection */
+	final Class<?> rootClass;
+	/** Flag indicating if the root value is an array, a collection either */
+	final boolean array;
+	/** Number of elements */
+	final int count;
+	/** Classes dictionary at the end of the scan */
+	final ArrayList<Object> classes;
+	/** Properties dictionary at the end of the scan */
+	final ArrayList<String> properties;
+	/** Index of the first element of each range, followed by the number of elements */
+	final int[] starts;
+	/** Input position of the first element of each range */
+	final int[] positions;
+	/** Size of the classes dictionary at the start of each range */
+	final int[] classCounts;
+	/** Size of the properties dictionary at the start of each range */
+	final int[] propertyCounts;
+	/** Input position following the root value */
+	int end;
+	
+	/**
+	 * Constructor
+	 * @param options Serialization options of the stream
+	 * @param rootClass Component class of the root array, or class of the root collection
+	 * @param array If set, the root value is an array
+	 * @param count Number of elements
+	 * @param rangeCount Number of ranges
+	 * @param classes Classes dictionary, filled during the scan
+	 * @param properties Properties dictionary, filled during the scan
+	 */
+	WhiteSharkRootLayout(short options, Class<?> rootClass, boolean array, int count, int rangeCount, ArrayList<Object> classes, ArrayList<String> properties) {
+		this.options = options;
+		this.rootClass = rootClass;
+		this.array = array;
+		this.count = count;
+		this.classes = classes;
+		this.properties = properties;
+		
+		starts = new int[rangeCount + 1];
+		int rangeSize = (count + rangeCount - 1) / rangeCount;
+		for (int i = 0; i < rangeCount; i++)
+			starts[i] = Math.min(i * rangeSize, count);
+		starts[rangeCount] = count;
+		positions = new int[rangeCount];
+		classCounts = new int[rangeCount];
+		propertyCounts = new int[rangeCount];
+	}
+	
+	/**
+	 * Gets the number of ranges
+	 * @return the number of ranges
+	 */
+	int rangeCount() {
+		return positions.length;
+	}
+
+}
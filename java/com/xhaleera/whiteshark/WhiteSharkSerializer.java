@@ -1,23 +1,32 @@
 package com.xhaleera.whiteshark;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.xhaleera.whiteshark.annotations.WhiteSharkAsGenerics;
+import com.xhaleera.whiteshark.annotations.WhiteSharkFixedPoint;
+import com.xhaleera.whiteshark.annotations.WhiteSharkImmutable;
 import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
 import com.xhaleera.whiteshark.annotations.WhiteSharkSerializableCollection;
 import com.xhaleera.whiteshark.annotations.WhiteSharkSerializableMap;
+import com.xhaleera.whiteshark.exceptions.WhiteSharkNotAPropertyException;
 
 /**
  * WhiteShark serializer class
- * 
+ * <p>
+ * Each serialization is processed by its own serializer instance,
+ * holding the class mapper, the dictionaries and the output buffer of the stream.
+ *
  * @author Christophe SAUVEUR (christophe@xhaleera.com)
  * @since 1.0
  * @version 1.0
@@ -26,20 +35,64 @@ public class WhiteSharkSerializer {
 
 	/** Default class mapper */
 	private static final WhiteSharkExternalClassMapper defaultClassMapper = new WhiteSharkExternalClassMapper();
+	
+	/** Reflection fields container */
+	private static final ConcurrentHashMap<Class<?>, Vector<Field>> fieldsContainer = new ConcurrentHashMap<>();
+	
+	/** Array component classes kept when serializing as generics */
+	private static final Class<?>[] KEPT_COMPONENT_CLASSES = { boolean.class, byte.class, short.class, int.class, long.class, float.class, double.class, char.class, String.class, Boolean.class };
+	
+	/** Pre-encoded fragments cache */
+	private static final WhiteSharkFragmentCache fragmentCache = new WhiteSharkFragmentCache();
+	
 	/** Class mapper used for serialization */
-	private static WhiteSharkExternalClassMapper classMapper = null;
+	private final WhiteSharkExternalClassMapper classMapper;
+	/** Serialization options */
+	private final short options;
+	/** Output buffer */
+	private final WhiteSharkOutputBuffer out;
 	
-	/** Classes dictionary */
-	private static Vector<Class<?>> classDictionary = new Vector<>();
-	/** Properties dictionary */
-	private static Vector<String> propertyDictionary = new Vector<>();
+	/** Classes dictionary, mapping classes, or class reference keys of re-emitted lazy views, to their dictionary index */
+	private final HashMap<Object, Integer> classDictionary;
+	/** Properties dictionary, mapping property names to their dictionary index */
+	private final HashMap<String, Integer> propertyDictionary;
 	
-	/** Reflection fields container */
-	private static HashMap<Class<?>, Vector<Field>> fieldsContainer = new HashMap<>(); 
+	/** Root instance of the fragment encoded by this serializer, if any */
+	private Object fragmentRoot;
+	
+	/** Root value whose elements and properties are recorded in the offset index, until its serialization starts */
+	private Object indexedRoot;
+	/** Output size at the start of the stream, or a negative value if no offset index is recorded */
+	private long streamStart = -1;
+	/** Number of root elements between two offset index entries */
+	private int indexStride;
+	/** Number of root array elements or collection items */
+	private int indexedElementCount;
+	/** Offset index entries of root elements */
+	private WhiteSharkOffsetIndex.Entries elementEntries;
+	/** Offset index entries of root properties */
+	private WhiteSharkOffsetIndex.Entries propertyEntries;
+	/** Names of the root properties, matching their offset index entries */
+	private ArrayList<String> propertyEntryNames;
+	
+	/**
+	 * Constructor
+	 * @param out Output buffer
+	 * @param options Serialization options
+	 * @param classMapper External class mapper
+	 */
+	private WhiteSharkSerializer(WhiteSharkOutputBuffer out, short options, WhiteSharkExternalClassMapper classMapper) {
+		this.out = out;
+		this.options = options;
+		this.classMapper = (classMapper == null) ? defaultClassMapper : classMapper;
+		
+		classDictionary = new HashMap<>();
+		propertyDictionary = new HashMap<>();
+	}
 	
 	/**
 	 * Serializes an object using WhiteShark serialization format
-	 * 
+	 *
 	 * @param identifier Custom WhiteShark stream identifier. This identifier is sanitized to a four-byte identifier.
 	 * @param stream Destination stream
 	 * @param obj Object to serialize
@@ -52,7 +105,7 @@ public class WhiteSharkSerializer {
 	
 	/**
 	 * Serializes an object using WhiteShark serialization format
-	 * 
+	 *
 	 * @param identifier Custom WhiteShark stream identifier. This identifier is sanitized to a four-byte identifier.
 	 * @param stream Destination stream
 	 * @param obj Object to serialize
@@ -66,7 +119,7 @@ public class WhiteSharkSerializer {
 	
 	/**
 	 * Serializes an object using WhiteShark serialization format
-	 * 
+	 *
 	 * @param identifier Custom WhiteShark stream identifier. This identifier is sanitized to a four-byte identifier.
 	 * @param stream Destination stream
 	 * @param obj Object to serialize
@@ -80,7 +133,7 @@ public class WhiteSharkSerializer {
 	
 	/**
 	 * Serializes an object using WhiteShark serialization format
-	 * 
+	 *
 	 * @param identifier Custom WhiteShark stream identifier. This identifier is sanitized to a four-byte identifier.
 	 * @param stream Destination stream
 	 * @param obj Object to serialize
@@ -90,80 +143,302 @@ public class WhiteSharkSerializer {
 	 * @throws IllegalAccessException
 	 */
 	public static void serialize(String identifier, OutputStream stream, Object obj, short options, WhiteSharkExternalClassMapper classMapper) throws IOException, IllegalAccessException {
-		WhiteSharkSerializer.classMapper = (classMapper == null) ? defaultClassMapper : classMapper;
+		new WhiteSharkSerializer(WhiteSharkOutputBuffer.forStream(stream), options, classMapper).serializeStream(identifier, obj);
+	}
+	
+	/**
+	 * Serializes an object using WhiteShark serialization format into a ByteBuffer
+	 * <p>
+	 * The stream is written at the current position of the buffer, which can be a direct buffer.
+	 * Use {@link #computeSerializedSize(String, Object, short, WhiteSharkExternalClassMapper)} to allocate a buffer of the exact size.
+	 *
+	 * @param identifier Custom WhiteShark stream identifier. This identifier is sanitized to a four-byte identifier.
+	 * @param buffer Destination buffer
+	 * @param obj Object to serialize
+	 * @param options Serialization options
+	 * @param classMapper External class mapper
+	 * @throws IOException
+	 * @throws IllegalAccessException
+	 * @throws java.nio.BufferOverflowException If the remaining space of the buffer is not sufficient.
+	 */
+	public static void serialize(String identifier, ByteBuffer buffer, Object obj, short options, WhiteSharkExternalClassMapper classMapper) throws IOException, IllegalAccessException {
+		new WhiteSharkSerializer(WhiteSharkOutputBuffer.forByteBuffer(buffer), options, classMapper).serializeStream(identifier, obj);
+	}
+	
+	/**
+	 * Computes the exact size of the WhiteShark stream of an object, without serializing it
+	 *
+	 * @param identifier Custom WhiteShark stream identifier
+	 * @param obj Object to serialize
+	 * @return the size in bytes of the serialized stream
+	 * @throws IOException
+	 * @throws IllegalAccessException
+	 */
+	public static long computeSerializedSize(String identifier, Object obj) throws IOException, IllegalAccessException {
+		return computeSerializedSize(identifier, obj, WhiteSharkConstants.OPTIONS_DEFAULT, defaultClassMapper);
+	}
+	
+	/**
+	 * Computes the exact size of the WhiteShark stream of an object, without serializing it
+	 * <p>
+	 * The object graph is walked with the same dictionary logic than {@link #serialize(String, OutputStream, Object, short, WhiteSharkExternalClassMapper)},
+	 * but nothing is written and strings are not encoded.
+	 * Registered {@link WhiteSharkTypeAdapter} instances are still invoked, writing their values to a counting output buffer.
+	 * Immutable values are sized without consulting or filling the fragments cache, so its content and statistics are left unchanged.
+	 *
+	 * @param identifier Custom WhiteShark stream identifier
+	 * @param obj Object to serialize
+	 * @param options Serialization options
+	 * @param classMapper External class mapper
+	 * @return the size in bytes of the serialized stream
+	 * @throws IOException
+	 * @throws IllegalAccessException
+	 */
+	public static long computeSerializedSize(String identifier, Object obj, short options, WhiteSharkExternalClassMapper classMapper) throws IOException, IllegalAccessException {
+		WhiteSharkOutputBuffer counter = WhiteSharkOutputBuffer.forCounting();
+		new WhiteSharkSerializer(counter, options, classMapper).serializeStream(identifier, obj);
+		return counter.size();
+	}
+	
+	/**
+	 * Gets the pre-encoded fragments cache
+	 * <p>
+	 * Instances of immutable classes, and values of fields annotated with {@link WhiteSharkImmutable},
+	 * are encoded once then spliced from this cache.
+	 * 
+	 * @return the fragments cache shared by all serializations
+	 */
+	public static WhiteSharkFragmentCache getFragmentCache() {
+		return fragmentCache;
+	}
+	
+	/**
+	 * Serializes the stream header and the root object, then flushes the output buffer
+	 * @param identifier Custom WhiteShark stream identifier
+	 * @param obj Object to serialize
+	 * @throws IOException
+	 * @throws IllegalAccessException
+	 */
+	private void serializeStream(String identifier, Object obj) throws IOException, IllegalAccessException {
+		identifier = WhiteSharkUtils.sanitizeIdentifier(identifier);
 		
-		classDictionary.clear();
-		propertyDictionary.clear();
+		out.writeAscii(WhiteSharkConstants.FORMAT_IDENTIFIER, 4);
+		out.writeAscii(identifier, 4);
+		out.writeShort(WhiteSharkConstants.VERSION);
+		out.writeShort(options);
 		
-		identifier = WhiteSharkUtils.sanitizeIdentifier(identifier);
+		if (WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OFFSET_INDEX)) {
+			streamStart = out.size() - 12;
+			indexedRoot = obj;
+			indexStride = classMapper.getIndexStride();
+			elementEntries = new WhiteSharkOffsetIndex.Entries();
+			propertyEntries = new WhiteSharkOffsetIndex.Entries();
+			propertyEntryNames = new ArrayList<>();
+		}
+		
+		serialize(obj, false, false, -1);
+		if (streamStart >= 0)
+			serializeOffsetIndex();
+		out.flush();
+	}
+	
+	/**
+	 * Records an offset index entry at the current output position
+	 * @param entries Entries to complete
+	 */
+	private void recordIndexEntry(WhiteSharkOffsetIndex.Entries entries) {
+		entries.add(out.size() - streamStart, classDictionary.size(), propertyDictionary.size());
+	}
+	
+	/**
+	 * Serializes the offset index following the root value
+	 * <p>
+	 * See {@link WhiteSharkOffsetIndex} for the layout of the index.
+	 * 
+	 * @throws IOException
+	 */
+	private void serializeOffsetIndex() throws IOException {
+		int lengthIndex = out.reserveInt();
+		long start = out.size();
+		
+		out.writeInt(indexStride);
+		out.writeInt(indexedElementCount);
+		
+		Object[] classes = new Object[classDictionary.size()];
+		for (Map.Entry<Object, Integer> entry : classDictionary.entrySet())
+			classes[entry.getValue()] = entry.getKey();
+		out.writeInt(classes.length);
+		for (Object key : classes) {
+			if (key instanceof Class)
+				serializeClassName((Class<?>) key);
+			else if (key instanceof Integer) {
+				out.writeShort(WhiteSharkConstants.TYPE_ID_MARKER);
+				out.writeVarInt((Integer) key);
+			}
+			else
+				serializeIndexName(key.toString());
+		}
+		
+		String[] properties = new String[propertyDictionary.size()];
+		for (Map.Entry<String, Integer> entry : propertyDictionary.entrySet())
+			properties[entry.getValue()] = entry.getKey();
+		out.writeInt(properties.length);
+		for (String name : properties)
+			serializeIndexName(name);
 		
-		ByteBuffer buffer = WhiteSharkUtils.allocateByteBuffer(12);
-		buffer.put(WhiteSharkConstants.FORMAT_IDENTIFIER.getBytes("US-ASCII"));
-		buffer.put(identifier.getBytes("US-ASCII"), 0, 4);
-		buffer.putShort(WhiteSharkConstants.VERSION);
-		buffer.putShort(options);
-		stream.write(buffer.array());
+		out.writeInt(elementEntries.size);
+		for (int i = 0; i < elementEntries.size; i++) {
+			out.writeLong(elementEntries.offsets[i]);
+			out.writeInt(elementEntries.classCounts[i]);
+			out.writeInt(elementEntries.propertyCounts[i]);
+		}
+		out.writeInt(propertyEntries.size);
+		for (int i = 0; i < propertyEntries.size; i++) {
+			serializeIndexName(propertyEntryNames.get(i));
+			out.writeLong(propertyEntries.offsets[i]);
+			out.writeInt(propertyEntries.classCounts[i]);
+			out.writeInt(propertyEntries.propertyCounts[i]);
+		}
 		
-		serialize(stream, obj, options, false, false);
+		int length = (int) (out.size() - start);
+		out.patchInt(lengthIndex, length);
+		out.writeInt(length);
+		out.writeAscii(WhiteSharkConstants.OFFSET_INDEX_IDENTIFIER, 4);
+	}
+	
+	/**
+	 * Serializes a class or property name of the offset index
+	 * @param name Name to serialize
+	 * @throws IOException
+	 */
+	private void serializeIndexName(String name) throws IOException {
+		int length = WhiteSharkOutputBuffer.getAsciiLength(name);
+		out.writeShort(length);
+		out.writeAscii(name, length);
 	}
 	
 	/**
 	 * Generic serialization method
-	 * 
-	 * @param stream Destination stream
+	 *
 	 * @param obj Object to serialize
-	 * @param options Serialization options
 	 * @param serializableMap If set, the serialized object is a serializable map
 	 * @param serializableCollection If set, the serialized object is a serializable collection
+	 * @param fixedPointDecimals Number of decimal digits of fixed-point values, or a negative value if not applicable
 	 * @throws IOException
 	 * @throws IllegalAccessException
 	 */
-	private static void serialize(OutputStream stream, Object obj, short options, boolean serializableMap, boolean serializableCollection) throws IOException, IllegalAccessException {
+	private void serialize(Object obj, boolean serializableMap, boolean serializableCollection, int fixedPointDecimals) throws IOException, IllegalAccessException {
 		if (obj == null)
-			serializeNull(stream, options);
+			serializeNull();
 		
 		else if (obj instanceof String)
-			serializeString(stream, obj.toString(), options);
+			serializeString(obj.toString());
+		
+		else if (obj instanceof WhiteSharkUtf8String)
+			serializeUtf8String((WhiteSharkUtf8String) obj);
 		
 		else if (obj instanceof Character)
-			serializeCharacter(stream, (Character) obj, options); 
+			serializeCharacter((Character) obj);
 		
 		else if (obj instanceof Number)
-			serializeNumber(stream, (Number) obj, options);
+			serializeNumber((Number) obj, fixedPointDecimals);
 		
 		else if (obj instanceof Boolean)
-			serializeBoolean(stream, (Boolean) obj, options);
+			serializeBoolean((Boolean) obj);
+		
+		else if (obj instanceof WhiteSharkLazyObject)
+			serializeLazyView(((WhiteSharkLazyObject) obj).document, ((WhiteSharkLazyObject) obj).offset, null);
+		
+		else if (obj instanceof WhiteSharkLazyArray)
+			serializeLazyView(((WhiteSharkLazyArray) obj).document, ((WhiteSharkLazyArray) obj).offset, ((WhiteSharkLazyArray) obj).itemOffsets);
+		
+		else if (obj instanceof byte[] && WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_BINARY_BLOBS))
+			serializeBinary((byte[]) obj, 0, ((byte[]) obj).length);
+		
+		else if (obj instanceof ByteBuffer)
+			serializeBinary((ByteBuffer) obj);
 		
 		else if (obj.getClass().isArray())
-			serializeArray(stream, obj, options);
+			serializeArray(obj, fixedPointDecimals);
 		
-		else
-			serializeObject(stream, obj, options, serializableMap, serializableCollection);
+		else {
+			Map.Entry<Class<?>, WhiteSharkTypeAdapter<Object>> adapter = classMapper.getTypeAdapterEntry(obj.getClass());
+			if (adapter != null)
+				serializeCustom(obj, adapter.getKey(), adapter.getValue());
+			else if (obj != fragmentRoot && classMapper.isImmutableClass(obj.getClass()))
+				serializeFragment(obj, serializableMap, serializableCollection, -1);
+			else
+				serializeObject(obj, serializableMap, serializableCollection);
+		}
 	}
 	
 	/**
 	 * Serializes a null value
-	 * @param stream Destination stream
-	 * @param options Serialization options
 	 * @throws IOException
 	 */
-	private static void serializeNull(OutputStream stream, short options) throws IOException {
-		stream.write(WhiteSharkDataType.NULL.getMask());
+	private void serializeNull() throws IOException {
+		out.writeByte(WhiteSharkDataType.NULL.getMask());
 	}
 	
 	/**
 	 * Serializes a string
-	 * @param stream Destination stream
 	 * @param str String to serialize
-	 * @param options Serialization options
 	 * @throws IOException
 	 */
-	private static void serializeString(OutputStream stream, String str, short options) throws IOException {
-		byte[] stringBytes = str.getBytes("UTF-8");
-		
-		byte mask = WhiteSharkDataType.STRING.getMask();
-		
-		int length = stringBytes.length;
+	private void serializeString(String str) throws IOException {
+		int length = WhiteSharkOutputBuffer.getUtf8Length(str);
+		writeLengthHeader(WhiteSharkDataType.STRING.getMask(), length);
+		out.writeUtf8(str, length);
+	}
+	
+	/**
+	 * Serializes a lazy string by copying its bytes
+	 * @param str Lazy string to serialize
+	 * @throws IOException
+	 */
+	private void serializeUtf8String(WhiteSharkUtf8String str) throws IOException {
+		byte[] bytes = str.bytes();
+		writeLengthHeader(WhiteSharkDataType.STRING.getMask(), bytes.length);
+		out.writeBytes(bytes, 0, bytes.length);
+	}
+	
+	/**
+	 * Serializes a portion of a byte array as binary data
+	 * @param b Source byte array
+	 * @param off Start offset in the byte array
+	 * @param len Number of bytes
+	 * @throws IOException
+	 */
+	private void serializeBinary(byte[] b, int off, int len) throws IOException {
+		writeLengthHeader(WhiteSharkDataType.BINARY.getMask(), len);
+		out.writeBytes(b, off, len);
+	}
+	
+	/**
+	 * Serializes the remaining bytes of a buffer as binary data
+	 * <p>
+	 * The position of the buffer is not modified.
+	 * 
+	 * @param buf Source buffer
+	 * @throws IOException
+	 */
+	private void serializeBinary(ByteBuffer buf) throws IOException {
+		if (buf.hasArray())
+			serializeBinary(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+		else {
+			byte[] b = new byte[buf.remaining()];
+			buf.duplicate().get(b);
+			serializeBinary(b, 0, b.length);
+		}
+	}
+	
+	/**
+	 * Writes the mask and the length of a string or of binary data
+	 * @param mask Data type mask
+	 * @param length Byte length of the value
+	 * @throws IOException
+	 */
+	private void writeLengthHeader(byte mask, int length) throws IOException {
 		int lengthByteCount;
 		if (length < Byte.MAX_VALUE)
 			lengthByteCount = 1;
@@ -172,108 +447,79 @@ public class WhiteSharkSerializer {
 		else
 			lengthByteCount = 4;
 		
-		mask |= ((byte) lengthByteCount) << 4;
-		length += 1 + lengthByteCount;
-		ByteBuffer buf = WhiteSharkUtils.allocateByteBuffer(length);
-		buf.put(mask);
+		mask |= lengthByteCount << 4;
+		out.writeByte(mask);
 		switch (lengthByteCount) {
 		case 1:
-			buf.put((byte) stringBytes.length);
+			out.writeByte(length);
 			break;
 		case 2:
-			buf.putShort((short) stringBytes.length);
+			out.writeShort(length);
 			break;
 		default:
-			buf.putInt(stringBytes.length);
+			out.writeInt(length);
 			break;
 		}
-		buf.put(stringBytes);
-		
-		stream.write(buf.array());
 	}
 	
 	/**
 	 * Serializes a character
-	 * @param stream Destination stream
 	 * @param character Character to serialize
-	 * @param options Serialization options
 	 * @throws IOException
 	 */
-	private static void serializeCharacter(OutputStream stream, Character character, short options) throws IOException {
-		ByteBuffer buf = WhiteSharkUtils.allocateByteBuffer(3);
-		buf.put(WhiteSharkDataType.CHAR.getMask());
-		buf.putChar(character);
-		stream.write(buf.array());
+	private void serializeCharacter(Character character) throws IOException {
+		out.writeByte(WhiteSharkDataType.CHAR.getMask());
+		out.writeChar(character);
 	}
 	
 	/**
 	 * Serializes a Number
-	 * @param stream Destination stream
 	 * @param number Number to serialize
-	 * @param options Serialization options
+	 * @param fixedPointDecimals Number of decimal digits of fixed-point values, or a negative value if not applicable
 	 * @throws IOException
 	 */
-	private static void serializeNumber(OutputStream stream, Number number, short options) throws IOException {
-		ByteBuffer buf = null;
-		
+	private void serializeNumber(Number number, int fixedPointDecimals) throws IOException {
 		if (number instanceof Byte) {
-			buf = WhiteSharkUtils.allocateByteBuffer(2);
-			buf.put((byte) (WhiteSharkDataType.INTEGER.getMask() | 0x10));
-			buf.put(number.byteValue());
+			out.writeByte(WhiteSharkDataType.INTEGER.getMask() | 0x10);
+			out.writeByte(number.byteValue());
 		}
 		else if (number instanceof Short) {
-			buf = WhiteSharkUtils.allocateByteBuffer(3);
-			buf.put((byte) (WhiteSharkDataType.INTEGER.getMask() | 0x20));
-			buf.putShort(number.shortValue());
+			out.writeByte(WhiteSharkDataType.INTEGER.getMask() | 0x20);
+			out.writeShort(number.shortValue());
 		}
 		else if (number instanceof Integer) {
-			buf = WhiteSharkUtils.allocateByteBuffer(5);
-			buf.put((byte) (WhiteSharkDataType.INTEGER.getMask() | 0x40));
-			buf.putInt(number.intValue());
+			out.writeByte(WhiteSharkDataType.INTEGER.getMask() | 0x40);
+			out.writeInt(number.intValue());
 		}
 		else if (number instanceof Long) {
-			buf = WhiteSharkUtils.allocateByteBuffer(9);
-			buf.put((byte) (WhiteSharkDataType.INTEGER.getMask() | 0x80));
-			buf.putLong(number.longValue());
+			out.writeByte(WhiteSharkDataType.INTEGER.getMask() | 0x80);
+			out.writeLong(number.longValue());
 		}
 		
-		else if (number instanceof Float) {
-			buf = WhiteSharkUtils.allocateByteBuffer(5);
-			buf.put(WhiteSharkDataType.REAL.getMask());
-			buf.putFloat(number.floatValue());
-		}
-		else if (number instanceof Double) {
-			buf = WhiteSharkUtils.allocateByteBuffer(9);
-			buf.put((byte) (WhiteSharkDataType.REAL.getMask() | 0x10));
-			buf.putDouble(number.doubleValue());
-		}
-		
-		stream.write(buf.array());
+		else if (number instanceof Float || number instanceof Double)
+			WhiteSharkRealEncoding.encode(out, number, WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_COMPACT_REALS), fixedPointDecimals);
 	}
-
+	
 	/**
 	 * Serializes a boolean value
-	 * @param stream Destination stream
 	 * @param bool Boolean value to serialize
-	 * @param options Serialization options
 	 * @throws IOException
 	 */
-	private static void serializeBoolean(OutputStream stream, Boolean bool, short options) throws IOException {
+	private void serializeBoolean(Boolean bool) throws IOException {
 		byte b = WhiteSharkDataType.BOOLEAN.getMask();
 		if (bool)
 			b |= 0x10;
-		stream.write(b);
+		out.writeByte(b);
 	}
 	
 	/**
 	 * Serializes an array
-	 * @param stream Destination stream
 	 * @param array Array instance to serialize
-	 * @param options Serialization options
+	 * @param fixedPointDecimals Number of decimal digits of fixed-point items, or a negative value if not applicable
 	 * @throws IOException
 	 * @throws IllegalAccessException
 	 */
-	private static void serializeArray(OutputStream stream, Object array, short options) throws IOException, IllegalAccessException {
+	private void serializeArray(Object array, int fixedPointDecimals) throws IOException, IllegalAccessException {
 		byte mask = WhiteSharkDataType.ARRAY.getMask();
 		
 		int lengthByteCount;
@@ -302,68 +548,382 @@ public class WhiteSharkSerializer {
 			}
 		}
 		
-		byte[] classNameBytes = null;
-		int classNameLength = 2;
-		boolean classInDictionary = classDictionary.contains(componentClass);
-		int classDictionaryIndex = -1;
-		if (!classInDictionary) {
-			classDictionary.add(componentClass);
-			classNameBytes = classMapper.getExternalFromClass(componentClass).getBytes("US-ASCII");
-			classNameLength += classNameBytes.length;
-		}
-		else
-			classDictionaryIndex = classDictionary.indexOf(componentClass);
+		Integer classDictionaryIndex = classDictionary.get(componentClass);
+		boolean classInDictionary = (classDictionaryIndex != null);
 		
-		mask |= ((byte) lengthByteCountMask) << 4;
+		mask |= lengthByteCountMask << 4;
 		if (classInDictionary)
 			mask |= 0x40;
-		ByteBuffer buf = WhiteSharkUtils.allocateByteBuffer(1 + classNameLength + lengthByteCount);
-		buf.put(mask);
+		out.writeByte(mask);
 		if (classInDictionary)
-			buf.putShort((short) classDictionaryIndex);
+			out.writeShort(classDictionaryIndex);
 		else {
-			buf.putShort((short) classNameBytes.length);
-			buf.put(classNameBytes);
+			classDictionary.put(componentClass, classDictionary.size());
+			serializeClassName(componentClass);
 		}
 		switch (lengthByteCount) {
 		case 0:
 			break;
 		case 1:
-			buf.put((byte) length);
+			out.writeByte(length);
 			break;
 		case 2:
-			buf.putShort((short) length);
+			out.writeShort(length);
 			break;
 		default:
-			buf.putInt(length);
+			out.writeInt(length);
 			break;
 		}
 		
-		stream.write(buf.array());
+		boolean indexed = (array == indexedRoot);
+		if (indexed) {
+			indexedRoot = null;
+			indexedElementCount = length;
+		}
+		for (int i = 0; i < length; i++) {
+			if (indexed && i % indexStride == 0)
+				recordIndexEntry(elementEntries);
+			serialize(Array.get(array, i), false, false, fixedPointDecimals);
+		}
+	}
+	
+	/**
+	 * Serializes a value using its type adapter
+	 * @param obj Value to serialize
+	 * @param adaptedClass Class for which the type adapter is registered
+	 * @param adapter Type adapter
+	 * @throws IOException
+	 */
+	private void serializeCustom(Object obj, Class<?> adaptedClass, WhiteSharkTypeAdapter<Object> adapter) throws IOException {
+		byte mask = WhiteSharkDataType.CUSTOM.getMask();
+		
+		Integer classDictionaryIndex = classDictionary.get(adaptedClass);
+		boolean classInDictionary = (classDictionaryIndex != null);
 		
-		for (int i = 0; i < length; i++)
-			serialize(stream, Array.get(array, i), options, false, false);
+		if (classInDictionary)
+			mask |= 0x40;
+		out.writeByte(mask);
+		if (classInDictionary)
+			out.writeShort(classDictionaryIndex);
+		else {
+			classDictionary.put(adaptedClass, classDictionary.size());
+			serializeClassName(adaptedClass);
+		}
+		
+		int lengthIndex = out.reserveInt();
+		long start = out.size();
+		adapter.write(out, obj);
+		out.patchInt(lengthIndex, (int) (out.size() - start));
+	}
+	
+	/**
+	 * Serializes an immutable value as a pre-encoded fragment
+	 * <p>
+	 * Fragments are encoded by a distinct serializer, with empty dictionaries,
+	 * so the cached bytes can be spliced into any stream.
+	 * When only counting bytes, fragments are sized by a distinct counting serializer and the cache is left untouched.
+	 * 
+	 * @param obj Value to serialize
+	 * @param serializableMap If set, the serialized value is a serializable map
+	 * @param serializableCollection If set, the serialized value is a serializable collection
+	 * @param fixedPointDecimals Number of decimal digits of fixed-point values, or a negative value if not applicable
+	 * @throws IOException
+	 * @throws IllegalAccessException
+	 */
+	private void serializeFragment(Object obj, boolean serializableMap, boolean serializableCollection, int fixedPointDecimals) throws IOException, IllegalAccessException {
+		if (out.isCounting()) {
+			WhiteSharkSerializer serializer = new WhiteSharkSerializer(WhiteSharkOutputBuffer.forCounting(), options, classMapper);
+			serializer.fragmentRoot = obj;
+			serializer.serialize(obj, serializableMap, serializableCollection, fixedPointDecimals);
+			out.writeByte(WhiteSharkDataType.FRAGMENT.getMask());
+			out.writeInt((int) serializer.out.size());
+			out.count(serializer.out.size());
+			return;
+		}
+		
+		WhiteSharkFragmentCache.Key key = fragmentCache.key(obj, classMapper, options, serializableMap, serializableCollection, fixedPointDecimals);
+		byte[] fragment = fragmentCache.get(key);
+		if (fragment == null) {
+			ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			WhiteSharkSerializer serializer = new WhiteSharkSerializer(WhiteSharkOutputBuffer.forStream(stream), options, classMapper);
+			serializer.fragmentRoot = obj;
+			serializer.serialize(obj, serializableMap, serializableCollection, fixedPointDecimals);
+			serializer.out.flush();
+			fragment = stream.toByteArray();
+			fragmentCache.put(key, fragment);
+		}
+		
+		out.writeByte(WhiteSharkDataType.FRAGMENT.getMask());
+		out.writeInt(fragment.length);
+		out.writeBytes(fragment, 0, fragment.length);
+	}
+	
+	/**
+	 * Serializes a lazy view from its encoded bytes
+	 * <p>
+	 * Collection items views are serialized as arrays of objects.
+	 * 
+	 * @param document Backing document of the view
+	 * @param offset Index of the encoded value in the document, or -1 for collection items
+	 * @param itemOffsets Indices of collection items in the document
+	 * @throws IOException
+	 */
+	private void serializeLazyView(WhiteSharkLazyDocument document, int offset, int[] itemOffsets) throws IOException {
+		try {
+			if (offset >= 0) {
+				serializeLazy(document, document.cursor(offset));
+				return;
+			}
+			
+			int length = itemOffsets.length;
+			int lengthByteCount;
+			if (length == 0)
+				lengthByteCount = 0;
+			else if (length < Byte.MAX_VALUE)
+				lengthByteCount = 1;
+			else if (length < Short.MAX_VALUE)
+				lengthByteCount = 2;
+			else
+				lengthByteCount = 3;
+			
+			serializeLazyClassReference((byte) (WhiteSharkDataType.ARRAY.getMask() | (lengthByteCount << 4)), Object.class);
+			serializeLazyCount(lengthByteCount, length);
+			
+			for (int itemOffset : itemOffsets)
+				serializeLazy(document, document.cursor(itemOffset));
+		}
+		catch (WhiteSharkNotAPropertyException e) {
+			throw new IOException("Invalid lazy WhiteShark value", e);
+		}
+	}
+	
+	/**
+	 * Serializes an encoded value by copying its bytes
+	 * <p>
+	 * Only dictionary references are rewritten, to match the dictionaries of this stream.
+	 * 
+	 * @param document Backing document of the value
+	 * @param in Input cursor, positioned on the value mask
+	 * @throws IOException
+	 * @throws WhiteSharkNotAPropertyException
+	 */
+	private void serializeLazy(WhiteSharkLazyDocument document, WhiteSharkInputCursor in) throws IOException, WhiteSharkNotAPropertyException {
+		int start = in.position;
+		byte mask = in.readByte();
+		byte dataType = (byte) (mask & 0xf);
+		
+		if (dataType == WhiteSharkDataType.ARRAY.getMask()) {
+			WhiteSharkLazyDocument.ClassReference reference = document.readClassReference(in, mask, false, false);
+			Class<?> genericComponentClass = null;
+			if (WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS) && !WhiteSharkUtils.hasOption(document.options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS))
+				genericComponentClass = getGenericComponentClass(document, reference);
+			if (genericComponentClass != null)
+				serializeLazyClassReference(mask, genericComponentClass);
+			else
+				serializeLazyClassReference(mask, reference, false);
+			int lengthByteCount = (mask & 0x30) >> 4;
+			int length = WhiteSharkImmediateDeserializer.readCount(in, lengthByteCount);
+			serializeLazyCount(lengthByteCount, length);
+			for (int i = 0; i < length; i++)
+				serializeLazy(document, in);
+		}
+		
+		else if (dataType == WhiteSharkDataType.CUSTOM.getMask()) {
+			serializeLazyClassReference(mask, document.readClassReference(in, mask, false, false), false);
+			int length = in.readInt();
+			out.writeInt(length);
+			in.transferTo(out, length);
+		}
+		
+		else if (dataType == WhiteSharkDataType.OBJECT.getMask()) {
+			int fieldCountByteCount = (mask & 0x30) >> 4;
+			if (document.isGenerics(mask) || WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS)) {
+				if (!document.isGenerics(mask))
+					document.readClassReference(in, mask, true, false);
+				out.writeByte((mask & 0x3f) | 0x80);
+			}
+			else
+				serializeLazyClassReference(mask, document.readClassReference(in, mask, true, false), true);
+			
+			int fieldCount = WhiteSharkImmediateDeserializer.readCount(in, fieldCountByteCount);
+			serializeLazyCount(fieldCountByteCount, fieldCount);
+			for (int i = 0; i < fieldCount; i++) {
+				serializePropertyName(document.readPropertyName(in, false));
+				serializeLazy(document, in);
+			}
+		}
+		
+		// Fragments are copied as is, unless their objects have to be converted to generics
+		else if (dataType == WhiteSharkDataType.FRAGMENT.getMask() && WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS)
+				&& !WhiteSharkUtils.hasOption(document.options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS)) {
+			WhiteSharkInputCursor fragment = in.slice(in.readInt());
+			WhiteSharkLazyDocument fragmentDocument = new WhiteSharkLazyDocument(fragment.buffer, document.options, document.classMapper);
+			fragmentDocument.skip(fragmentDocument.cursor(fragment.position), true);
+			
+			ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			WhiteSharkSerializer serializer = new WhiteSharkSerializer(WhiteSharkOutputBuffer.forStream(stream), options, classMapper);
+			serializer.serializeLazy(fragmentDocument, fragmentDocument.cursor(fragment.position));
+			serializer.out.flush();
+			byte[] bytes = stream.toByteArray();
+			
+			out.writeByte(WhiteSharkDataType.FRAGMENT.getMask());
+			out.writeInt(bytes.length);
+			out.writeBytes(bytes, 0, bytes.length);
+		}
+		
+		// Scalars and fragments do not reference dictionaries
+		else {
+			in.position = start;
+			document.skip(in, false);
+			int length = in.position - start;
+			in.position = start;
+			in.transferTo(out, length);
+		}
+	}
+	
+	/**
+	 * Serializes the mask and the class reference of an encoded array, object or custom value
+	 * @param mask Encoded value mask
+	 * @param reference Class reference
+	 * @param withVersion If set, the class name is followed by the serialization version
+	 * @throws IOException
+	 */
+	private void serializeLazyClassReference(byte mask, WhiteSharkLazyDocument.ClassReference reference, boolean withVersion) throws IOException {
+		mask &= 0x3f;
+		Integer classDictionaryIndex = classDictionary.get(reference.key);
+		if (classDictionaryIndex != null) {
+			out.writeByte(mask | 0x40);
+			out.writeShort(classDictionaryIndex);
+			return;
+		}
+		
+		out.writeByte(mask);
+		classDictionary.put(reference.key, classDictionary.size());
+		if (reference.name == null) {
+			out.writeShort(WhiteSharkConstants.TYPE_ID_MARKER);
+			out.writeVarInt(reference.typeId);
+		}
+		else {
+			int classNameLength = WhiteSharkOutputBuffer.getAsciiLength(reference.name);
+			out.writeShort(classNameLength);
+			out.writeAscii(reference.name, classNameLength);
+		}
+		if (withVersion)
+			out.writeInt(reference.version);
+	}
+	
+	/**
+	 * Serializes the mask and a class reference of an encoded array
+	 * @param mask Encoded array mask
+	 * @param c Component class
+	 * @throws IOException
+	 */
+	private void serializeLazyClassReference(byte mask, Class<?> c) throws IOException {
+		mask &= 0x3f;
+		Integer classDictionaryIndex = classDictionary.get(c);
+		if (classDictionaryIndex != null) {
+			out.writeByte(mask | 0x40);
+			out.writeShort(classDictionaryIndex);
+		}
+		else {
+			out.writeByte(mask);
+			classDictionary.put(c, classDictionary.size());
+			serializeClassName(c);
+		}
+	}
+	
+	/**
+	 * Gets the component class of an encoded array, when it is serialized as generics
+	 * <p>
+	 * As in {@link #serializeArray(Object, int)}, arrays of objects become arrays of <code>Object</code>.
+	 * Classes referenced by name are not loaded.
+	 * 
+	 * @param document Backing document of the array
+	 * @param reference Component class reference
+	 * @return <code>Object</code> or <code>Object[]</code>, or <code>null</code> if the component class is kept.
+	 * @throws IOException If the class is referenced by an unregistered type identifier.
+	 */
+	private Class<?> getGenericComponentClass(WhiteSharkLazyDocument document, WhiteSharkLazyDocument.ClassReference reference) throws IOException {
+		String name = reference.name;
+		if (name == null) {
+			try {
+				name = reference.getName(document.classMapper);
+			}
+			catch (ClassNotFoundException e) {
+				throw new IOException("Unable to resolve lazy WhiteShark array class", e);
+			}
+		}
+		
+		if (name.endsWith("[]"))
+			return Object[].class;
+		for (Class<?> c : KEPT_COMPONENT_CLASSES) {
+			if (name.equals(document.classMapper.getExternalFromClass(c)))
+				return null;
+		}
+		return Object.class;
+	}
+	
+	/**
+	 * Serializes the item or property count of an encoded array or object
+	 * @param byteCount Byte count of the count field, as in the mask (3 means 4 bytes)
+	 * @param count Item or property count
+	 * @throws IOException
+	 */
+	private void serializeLazyCount(int byteCount, int count) throws IOException {
+		switch (byteCount) {
+		case 0:
+			break;
+		case 1:
+			out.writeByte(count);
+			break;
+		case 2:
+			out.writeShort(count);
+			break;
+		default:
+			out.writeInt(count);
+			break;
+		}
+	}
+	
+	/**
+	 * Serializes the name of a class not yet in the classes dictionary
+	 * <p>
+	 * Classes registered with a type identifier in the class mapper are serialized
+	 * as {@link WhiteSharkConstants#TYPE_ID_MARKER} followed by their variable-length identifier.
+	 * 
+	 * @param c Class to serialize
+	 * @throws IOException
+	 */
+	private void serializeClassName(Class<?> c) throws IOException {
+		int typeId = classMapper.getTypeIdFromClass(c);
+		if (typeId >= 0) {
+			out.writeShort(WhiteSharkConstants.TYPE_ID_MARKER);
+			out.writeVarInt(typeId);
+		}
+		else {
+			String className = classMapper.getExternalFromClass(c);
+			int classNameLength = WhiteSharkOutputBuffer.getAsciiLength(className);
+			out.writeShort(classNameLength);
+			out.writeAscii(className, classNameLength);
+		}
 	}
 	
 	/**
 	 * Serializes an object
 	 * <p>
 	 * This method must only be used to serialize objects that are not of primitive or array types
-	 *  
-	 * @param stream Destination stream
+	 *
 	 * @param obj Object to serialize
-	 * @param options Serialization options
 	 * @param serializableMap If set, the serialized object is a serializable map
 	 * @param serializableCollection If set, the serialized object is a serializable collection
 	 * @throws IOException
 	 * @throws IllegalAccessException
 	 */
-	private static void serializeObject(OutputStream stream, Object obj, short options, boolean serializableMap, boolean serializableCollection) throws IOException, IllegalAccessException {
+	private void serializeObject(Object obj, boolean serializableMap, boolean serializableCollection) throws IOException, IllegalAccessException {
 		Class<?> c = obj.getClass();
-		byte[] classCanonicalNameBytes = null;
 		
 		boolean serializesAsGenerics = WhiteSharkUtils.hasOption(options, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS) || (c.getAnnotation(WhiteSharkAsGenerics.class) != null);
-
+		
 		Map<String,Object> map = null;
 		try {
 			@SuppressWarnings("unchecked")
@@ -382,36 +942,23 @@ public class WhiteSharkSerializer {
 		catch (ClassCastException e) { }
 		boolean isSerializableCollection = (coll != null && (serializableCollection || c.getAnnotation(WhiteSharkSerializableCollection.class) != null));
 		
-		boolean classInDictionary = classDictionary.contains(c);
-		int classDictionaryIndex = -1;
-		
-		int serializationVersion = 0;
-		if (!serializesAsGenerics) {
-			if (!classInDictionary) {
-				classDictionary.add(c);
-				classCanonicalNameBytes = classMapper.getExternalFromClass(c).getBytes("US-ASCII");
-				serializationVersion = WhiteSharkUtils.getSerializationVersion(c);
-			}
-			else
-				classDictionaryIndex = classDictionary.indexOf(c);
-		}
+		Integer classDictionaryIndex = null;
+		if (!serializesAsGenerics)
+			classDictionaryIndex = classDictionary.get(c);
+		boolean classInDictionary = (classDictionaryIndex != null);
 		
 		// Locating fields
-		Vector<Field> serializableFields = null;
-		if (fieldsContainer.containsKey(c))
-			serializableFields = fieldsContainer.get(c);
-		else {
+		Vector<Field> serializableFields = fieldsContainer.get(c);
+		if (serializableFields == null) {
+			serializableFields = new Vector<Field>();
 			Field[] fields = c.getFields();
 			for (Field f : fields) {
-				if (f.getAnnotation(WhiteSharkSerializable.class) != null) {
-					if (serializableFields == null)
-						serializableFields = new Vector<Field>();
+				if (f.getAnnotation(WhiteSharkSerializable.class) != null)
 					serializableFields.add(f);
-				}
 			}
 			fieldsContainer.put(c, serializableFields);
 		}
-		int fieldCount = (serializableFields == null) ? 0 : serializableFields.size();
+		int fieldCount = serializableFields.size();
 		// -- Serializable map?
 		if (isSerializableMap)
 			fieldCount += map.size();
@@ -429,71 +976,80 @@ public class WhiteSharkSerializer {
 		else
 			fieldCountByteCount = 4;
 		byte fieldCountByteMask = (byte) ((fieldCountByteCount == 4) ? 3 : fieldCountByteCount);
-	
+		
 		byte mask = WhiteSharkDataType.OBJECT.getMask();
-		mask |= ((byte) fieldCountByteMask) << 4;
+		mask |= fieldCountByteMask << 4;
 		if (serializesAsGenerics)
 			mask |= 0x80;
 		else if (classInDictionary)
 			mask |= 0x40;
 		
-		int byteBufferLength = 1 + fieldCountByteCount;
-		if (!serializesAsGenerics) {
-			byteBufferLength += 2;
-			if (!classInDictionary)
-				byteBufferLength += classCanonicalNameBytes.length + 4;
-		}
-		ByteBuffer buf = WhiteSharkUtils.allocateByteBuffer(byteBufferLength);
-		buf.put(mask);
+		out.writeByte(mask);
 		if (!serializesAsGenerics) {
 			if (classInDictionary)
-				buf.putShort((short) classDictionaryIndex);
+				out.writeShort(classDictionaryIndex);
 			else {
-				buf.putShort((short) classCanonicalNameBytes.length);
-				buf.put(classCanonicalNameBytes);
-				buf.putInt(serializationVersion);
+				classDictionary.put(c, classDictionary.size());
+				serializeClassName(c);
+				out.writeInt(WhiteSharkUtils.getSerializationVersion(c));
 			}
 		}
 		switch (fieldCountByteCount) {
 		default:
 			break;
 		case 1:
-			buf.put((byte) fieldCount);
+			out.writeByte(fieldCount);
 			break;
 		case 2:
-			buf.putShort((short) fieldCount);
+			out.writeShort(fieldCount);
 			break;
 		case 4:
-			buf.putInt(fieldCount);
+			out.writeInt(fieldCount);
 			break;
 		}
 		
-		stream.write(buf.array());
+		boolean indexed = (obj == indexedRoot);
+		if (indexed) {
+			indexedRoot = null;
+			if (isSerializableCollection)
+				indexedElementCount = coll.size();
+		}
 		
-		if (serializableFields != null) {
-			for (Field f : serializableFields)
-				serializeProperty(stream, obj, f, options);
+		for (Field f : serializableFields) {
+			if (indexed) {
+				recordIndexEntry(propertyEntries);
+				propertyEntryNames.add(f.getName());
+			}
+			serializeProperty(obj, f);
 		}
 		if (isSerializableMap) {
-			for (Map.Entry<String,Object> entry : map.entrySet())
-				serializeProperty(stream, WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX + entry.getKey(), entry.getValue(), options, false, false);
+			for (Map.Entry<String,Object> entry : map.entrySet()) {
+				String name = WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX + entry.getKey();
+				if (indexed) {
+					recordIndexEntry(propertyEntries);
+					propertyEntryNames.add(name);
+				}
+				serializeProperty(name, entry.getValue(), false, false, -1, false);
+			}
 		}
 		if (isSerializableCollection) {
-			for (Object o : coll)
-				serializeProperty(stream, WhiteSharkConstants.COLLECTION_ITEM_PROPERTY_NAME, o, options, false, false);
+			int i = 0;
+			for (Object o : coll) {
+				if (indexed && i++ % indexStride == 0)
+					recordIndexEntry(elementEntries);
+				serializeProperty(WhiteSharkConstants.COLLECTION_ITEM_PROPERTY_NAME, o, false, false, -1, false);
+			}
 		}
 	}
 	
 	/**
 	 * Serializes an object property (field)
-	 * @param stream Destination stream
 	 * @param obj Object whose the property belongs
 	 * @param f Property (Field) to serialize
-	 * @param options Serialization options
 	 * @throws IOException
 	 * @throws IllegalAccessException
 	 */
-	private static void serializeProperty(OutputStream stream, Object obj, Field f, short options) throws IOException, IllegalAccessException {
+	private void serializeProperty(Object obj, Field f) throws IOException, IllegalAccessException {
 		Object o = f.get(obj);
 		
 		boolean serializableMap = false;
@@ -516,58 +1072,65 @@ public class WhiteSharkSerializer {
 			catch (ClassCastException e) { }
 		}
 		
-		serializeProperty(stream, f.getName(), o, options, serializableMap, serializableCollection);
+		int fixedPointDecimals = -1;
+		WhiteSharkFixedPoint fixedPointAnnotation = f.getAnnotation(WhiteSharkFixedPoint.class);
+		if (fixedPointAnnotation != null)
+			fixedPointDecimals = fixedPointAnnotation.value();
+		
+		boolean immutable = (o != null && f.getAnnotation(WhiteSharkImmutable.class) != null
+				&& !(o instanceof String || o instanceof WhiteSharkUtf8String || o instanceof Character || o instanceof Number || o instanceof Boolean));
+		
+		serializeProperty(f.getName(), o, serializableMap, serializableCollection, fixedPointDecimals, immutable);
 	}
 	
 	/**
 	 * Serializes an object property using its name and value
-	 * @param stream Destination stream
 	 * @param name Property name
 	 * @param obj Property value
-	 * @param options Serialization options
 	 * @param serializableMap If set, the property value is a serializable map
 	 * @param serializableCollection If set, the property value is a serializable collection
+	 * @param fixedPointDecimals Number of decimal digits of fixed-point values, or a negative value if not applicable
+	 * @param immutable If set, the property value is serialized as a pre-encoded fragment
 	 * @throws IOException
 	 * @throws IllegalAccessException
 	 */
-	private static void serializeProperty(OutputStream stream, String name, Object obj, short options, boolean serializableMap, boolean serializableCollection) throws IOException, IllegalAccessException {
+	private void serializeProperty(String name, Object obj, boolean serializableMap, boolean serializableCollection, int fixedPointDecimals, boolean immutable) throws IOException, IllegalAccessException {
+		serializePropertyName(name);
+		
+		if (immutable)
+			serializeFragment(obj, serializableMap, serializableCollection, fixedPointDecimals);
+		else
+			serialize(obj, serializableMap, serializableCollection, fixedPointDecimals);
+	}
+	
+	/**
+	 * Serializes the mask and the name of a property
+	 * @param name Property name
+	 * @throws IOException
+	 */
+	private void serializePropertyName(String name) throws IOException {
 		byte mask = WhiteSharkDataType.PROPERTY.getMask();
-		byte[] fieldNameBytes = null;
-		int bufferByteCount;
-		boolean longFieldName = false;
-		
-		boolean propertyInDictionary = propertyDictionary.contains(name);
-		int propertyDictionaryIndex = -1;
-		if (propertyInDictionary) {
-			propertyDictionaryIndex = propertyDictionary.indexOf(name);
-			bufferByteCount = 3;
+		
+		Integer propertyDictionaryIndex = propertyDictionary.get(name);
+		if (propertyDictionaryIndex != null) {
 			mask |= 0x20;
+			out.writeByte(mask);
+			out.writeShort(propertyDictionaryIndex);
 		}
 		else {
-			fieldNameBytes = name.getBytes("US-ASCII");
-			propertyDictionary.add(name);
+			propertyDictionary.put(name, propertyDictionary.size());
 			
-			int fieldNameByteLength = fieldNameBytes.length;
-			longFieldName = (fieldNameByteLength >= Byte.MAX_VALUE);
+			int fieldNameByteLength = WhiteSharkOutputBuffer.getAsciiLength(name);
+			boolean longFieldName = (fieldNameByteLength >= Byte.MAX_VALUE);
 			if (longFieldName)
 				mask |= 0x10;
-			bufferByteCount = 1 + (longFieldName ? 2 : 1) + fieldNameBytes.length;
-		}
-		
-		ByteBuffer buf = WhiteSharkUtils.allocateByteBuffer(bufferByteCount);
-		buf.put(mask);
-		if (propertyInDictionary)
-			buf.putShort((short) propertyDictionaryIndex);
-		else {
+			out.writeByte(mask);
 			if (!longFieldName)
-				buf.put((byte) fieldNameBytes.length);
+				out.writeByte(fieldNameByteLength);
 			else
-				buf.putShort((short) fieldNameBytes.length);
-			buf.put(fieldNameBytes);
+				out.writeShort(fieldNameByteLength);
+			out.writeAscii(name, fieldNameByteLength);
 		}
-		stream.write(buf.array());
-		
-		serialize(stream, obj, options, serializableMap, serializableCollection);
 	}
-	
+
 }
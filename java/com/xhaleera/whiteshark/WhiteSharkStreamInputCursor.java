@@ -0,0 +1,98 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input cursor reading from a stream
+ * <p>
+ * Bytes are read from the stream into a growable byte array, on demand.
+ * If the stream supports marks, bytes are read by large blocks, and bytes read ahead are given back
+ * to the stream on release, so the stream is left positioned right after the deserialized data.
+ * Otherwise, only the bytes actually needed are read from the stream.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+final class WhiteSharkStreamInputCursor extends WhiteSharkInputCursor {
+
+	/** Default buffer capacity */
+	private static final int DEFAULT_CAPACITY = 8192;
+	
+	/** Source stream */
+	private final InputStream stream;
+	/** Flag indicating if the stream supports marks */
+	private final boolean markSupported;
+	/** Byte array holding read bytes */
+	private byte[] bytes;
+	/** Number of bytes read from the stream since the last mark */
+	private int readSinceMark;
+	
+	/**
+	 * Constructor
+	 * @param stream Source stream
+	 */
+	WhiteSharkStreamInputCursor(InputStream stream) {
+		this.stream = stream;
+		markSupported = stream.markSupported();
+		bytes = new byte[DEFAULT_CAPACITY];
+		setBuffer(ByteBuffer.wrap(bytes), 0);
+		position = 0;
+		limit = 0;
+		readSinceMark = 0;
+	}
+	
+	@Override
+	boolean fill(int count) throws IOException {
+		int remaining = limit - position;
+		if (count > bytes.length) {
+			byte[] newBytes = new byte[Math.max(count, bytes.length * 2)];
+			System.arraycopy(bytes, position, newBytes, 0, remaining);
+			bytes = newBytes;
+		}
+		else if (remaining > 0)
+			System.arraycopy(bytes, position, bytes, 0, remaining);
+		setBuffer(ByteBuffer.wrap(bytes), base + position);
+		position = 0;
+		limit = remaining;
+		
+		int needed = count - remaining;
+		int max = markSupported ? bytes.length - remaining : needed;
+		if (markSupported)
+			stream.mark(max);
+		readSinceMark = 0;
+		while (readSinceMark < needed) {
+			int read = stream.read(bytes, limit, max - readSinceMark);
+			if (read < 0)
+				return false;
+			readSinceMark += read;
+			limit += read;
+		}
+		return true;
+	}
+	
+	@Override
+	boolean retainsBuffers() {
+		return false;
+	}
+	
+	@Override
+	void release() throws IOException {
+		int unread = limit - position;
+		if (!markSupported || unread == 0)
+			return;
+		
+		stream.reset();
+		long toSkip = readSinceMark - unread;
+		while (toSkip > 0) {
+			long skipped = stream.skip(toSkip);
+			if (skipped <= 0)
+				break;
+			toSkip -= skipped;
+		}
+		limit = position;
+	}
+
+}
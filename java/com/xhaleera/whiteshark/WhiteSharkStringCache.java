@@ -0,0 +1,188 @@
+package com.xhaleera.whiteshark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * WhiteShark string cache
+ * <p>
+ * String caches intern the strings read by deserializers, so repeated values share a single instance.
+ * Strings are looked up by their raw UTF-8 bytes before being decoded, so a hit neither decodes nor allocates.
+ * The cache is a fixed-size table where each string replaces the previous string of its slot,
+ * so its memory footprint is bounded and it needs no eviction.
+ * <p>
+ * String caches are opt-in, and set on a {@link WhiteSharkExternalClassMapper}. They can be shared by several
+ * deserializations running concurrently. Hit and miss counts are updated without synchronization, so they are
+ * approximate under concurrent use.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkStringCache {
+
+	/** Default number of entries */
+	public static final int DEFAULT_CAPACITY = 4096;
+	/** Default maximum byte length of cached strings */
+	public static final int DEFAULT_MAX_LENGTH = 64;
+	
+	/** Cache entries */
+	private final Entry[] entries;
+	/** Maximum byte length of cached strings */
+	private final int maxLength;
+	
+	/** Number of hits */
+	private long hitCount;
+	/** Number of misses */
+	private long missCount;
+	
+	/**
+	 * Constructor with default capacity and maximum length
+	 */
+	public WhiteSharkStringCache() {
+		this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+	}
+	
+	/**
+	 * Constructor
+	 * @param capacity Number of entries, rounded up to a power of two
+	 * @param maxLength Maximum byte length of cached strings. Longer strings are decoded without caching.
+	 * @throws IllegalArgumentException If the capacity is not positive or the maximum length is negative.
+	 */
+	public WhiteSharkStringCache(int capacity, int maxLength) {
+		if (capacity <= 0 || capacity > (1 << 30))
+			throw new IllegalArgumentException(String.format("Invalid capacity: %d", capacity));
+		if (maxLength < 0)
+			throw new IllegalArgumentException(String.format("Invalid maximum length: %d", maxLength));
+		
+		int size = 1;
+		while (size < capacity)
+			size <<= 1;
+		entries = new Entry[size];
+		this.maxLength = maxLength;
+	}
+	
+	/**
+	 * Gets the number of entries
+	 * @return the number of entries of the cache
+	 */
+	public int getCapacity() {
+		return entries.length;
+	}
+	
+	/**
+	 * Gets the maximum byte length of cached strings
+	 * @return the maximum byte length of cached strings
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+	
+	/**
+	 * Gets the number of hits
+	 * @return the number of strings found in the cache
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+	
+	/**
+	 * Gets the number of misses
+	 * @return the number of strings decoded and added to the cache
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+	
+	/**
+	 * Gets the hit rate
+	 * @return the ratio of hits to lookups, or 0 if no lookup has been made.
+	 */
+	public double getHitRate() {
+		long hits = hitCount;
+		long lookups = hits + missCount;
+		return (lookups == 0) ? 0 : (double) hits / lookups;
+	}
+	
+	/**
+	 * Clears the cache and its statistics
+	 */
+	public void clear() {
+		Arrays.fill(entries, null);
+		hitCount = 0;
+		missCount = 0;
+	}
+	
+	/**
+	 * Gets a string from its UTF-8 bytes
+	 * <p>
+	 * The length must not exceed the maximum length of the cache.
+	 * 
+	 * @param b Byte array
+	 * @param off Offset of the string bytes
+	 * @param len Byte length of the string
+	 * @return the cached string, or the decoded string if it was not cached.
+	 */
+	String get(byte[] b, int off, int len) {
+		int hash = 0;
+		for (int i = off, end = off + len; i < end; i++)
+			hash = 31 * hash + b[i];
+		hash ^= (hash >>> 16);
+		
+		int index = hash & (entries.length - 1);
+		Entry entry = entries[index];
+		if (entry != null && entry.hash == hash && entry.matches(b, off, len)) {
+			hitCount++;
+			return entry.value;
+		}
+		
+		missCount++;
+		String value = new String(b, off, len, StandardCharsets.UTF_8);
+		entries[index] = new Entry(hash, Arrays.copyOfRange(b, off, off + len), value);
+		return value;
+	}
+	
+	/**
+	 * Cache entry
+	 */
+	private static final class Entry {
+	
+		/** Hash of the string bytes */
+		private final int hash;
+		/** UTF-8 bytes of the string */
+		private final byte[] bytes;
+		/** String value */
+		private final String value;
+		
+		/**
+		 * Constructor
+		 * @param hash Hash of the string bytes
+		 * @param bytes UTF-8 bytes of the string
+		 * @param value String value
+		 */
+		private Entry(int hash, byte[] bytes, String value) {
+			this.hash = hash;
+			this.bytes = bytes;
+			this.value = value;
+		}
+		
+		/**
+		 * Tells if the entry matches string bytes
+		 * @param b Byte array
+		 * @param off Offset of the string bytes
+		 * @param len Byte length of the string
+		 * @return <code>true</code> if the bytes are the ones of the entry, <code>false</code> either.
+		 */
+		private boolean matches(byte[] b, int off, int len) {
+			if (bytes.length != len)
+				return false;
+			for (int i = 0; i < len; i++) {
+				if (bytes[i] != b[off + i])
+					return false;
+			}
+			return true;
+		}
+	
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.xhaleera.whiteshark;
+
+/**
+ * Enum containing the tokens returned by {@link WhiteSharkReader}.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public enum WhiteSharkToken {
+	/** Start of an object, typed or generics */
+	START_OBJECT,
+	/** End of an object */
+	END_OBJECT,
+	/** Start of an array */
+	START_ARRAY,
+	/** End of an array */
+	END_ARRAY,
+	/** Name of an object's property, followed by the property value */
+	PROPERTY_NAME,
+	/** Null value */
+	NULL,
+	/** Boolean value */
+	BOOLEAN,
+	/** Integer value (up to signed 64 bits) */
+	INTEGER,
+	/** Floating-point number value (single or double precision) */
+	REAL,
+	/** Character value */
+	CHAR,
+	/** String value */
+	STRING,
+	/** Binary value */
+	BINARY,
+	/** Value encoded by a type adapter */
+	CUSTOM;
+}
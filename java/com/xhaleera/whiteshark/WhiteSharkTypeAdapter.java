@@ -0,0 +1,43 @@
+package com.xhaleera.whiteshark;
+
+import java.io.IOException;
+
+/**
+ * WhiteShark type adapter
+ * <p>
+ * Type adapters replace the reflective serialization of a class with a custom binary encoding.
+ * They are registered on a {@link WhiteSharkExternalClassMapper} and apply to the registered class,
+ * as well as to its subclasses and implementations that have no adapter of their own.
+ * <p>
+ * Adapted values are serialized with the name (or type identifier) of the registered class,
+ * followed by the length of the payload and the payload itself.
+ * Adapters write and read the payload directly against the serializer output buffer
+ * and the deserializer input cursor.
+ * A payload is always fully available when {@link #read(WhiteSharkInputCursor)} is called,
+ * even during progressive deserialization, and reading past its end throws an {@link java.io.EOFException}.
+ * 
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ * 
+ * @param <T> Adapted type
+ */
+public interface WhiteSharkTypeAdapter<T> {
+
+	/**
+	 * Writes the payload of a value
+	 * @param out Output buffer
+	 * @param value Value to write, never <code>null</code>
+	 * @throws IOException
+	 */
+	void write(WhiteSharkOutputBuffer out, T value) throws IOException;
+	
+	/**
+	 * Reads a value from its payload
+	 * @param in Input cursor, limited to the payload
+	 * @return the read value
+	 * @throws IOException
+	 */
+	T read(WhiteSharkInputCursor in) throws IOException;
+
+}
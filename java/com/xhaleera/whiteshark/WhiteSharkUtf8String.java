@@ -0,0 +1,171 @@
+package com.xhaleera.whiteshark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lazily decoded UTF-8 string
+ * <p>
+ * This class holds the UTF-8 bytes of a deserialized string value, and only decodes them on first use
+ * as characters. ASCII strings are never decoded: their characters are read from the bytes directly.
+ * Lazy strings are returned by deserializers when enabled with {@link WhiteSharkExternalClassMapper#setLazyStrings(boolean)},
+ * and are serialized again by copying their bytes.
+ * <p>
+ * Equality and hash codes are computed from the bytes, so a lazy string is only equal to another lazy string
+ * and its hash code differs from the one of the matching {@link String}. Use {@link #toString()} to compare it with strings.
+ *
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public final class WhiteSharkUtf8String implements CharSequence {
+
+	/** Unknown encoding state */
+	private static final byte UNKNOWN = 0;
+	/** ASCII-only state */
+	private static final byte ASCII = 1;
+	/** Non-ASCII state */
+	private static final byte NON_ASCII = 2;
+	
+	/** UTF-8 bytes */
+	private final byte[] bytes;
+	/** Encoding state */
+	private byte state;
+	/** Decoded string, or <code>null</code> if not decoded yet */
+	private String decoded;
+	/** Hash code, or 0 if not computed yet */
+	private int hash;
+	
+	/**
+	 * Constructor
+	 * @param bytes UTF-8 bytes, copied
+	 */
+	public WhiteSharkUtf8String(byte[] bytes) {
+		this(bytes.clone(), null);
+	}
+	
+	/**
+	 * Constructor
+	 * @param str String value
+	 */
+	public WhiteSharkUtf8String(String str) {
+		this(str.getBytes(StandardCharsets.UTF_8), str);
+	}
+	
+	/**
+	 * Constructor
+	 * @param bytes UTF-8 bytes, not copied
+	 * @param decoded Decoded string, or <code>null</code>
+	 */
+	private WhiteSharkUtf8String(byte[] bytes, String decoded) {
+		this.bytes = bytes;
+		this.decoded = decoded;
+	}
+	
+	/**
+	 * Wraps UTF-8 bytes without copying them
+	 * @param bytes UTF-8 bytes, which must not be modified afterwards
+	 * @return the lazy string
+	 */
+	static WhiteSharkUtf8String wrap(byte[] bytes) {
+		return new WhiteSharkUtf8String(bytes, null);
+	}
+	
+	/**
+	 * Gets the UTF-8 bytes
+	 * @return the UTF-8 bytes, not copied
+	 */
+	byte[] bytes() {
+		return bytes;
+	}
+	
+	/**
+	 * Gets the byte length
+	 * @return the number of UTF-8 bytes
+	 */
+	public int byteLength() {
+		return bytes.length;
+	}
+	
+	/**
+	 * Gets the UTF-8 bytes
+	 * @return a copy of the UTF-8 bytes
+	 */
+	public byte[] getBytes() {
+		return bytes.clone();
+	}
+	
+	/**
+	 * Tells if the string only contains ASCII characters
+	 * @return <code>true</code> if all bytes are ASCII characters, <code>false</code> either.
+	 */
+	private boolean isAscii() {
+		if (state == UNKNOWN) {
+			state = ASCII;
+			for (byte b : bytes) {
+				if (b < 0) {
+					state = NON_ASCII;
+					break;
+				}
+			}
+		}
+		return (state == ASCII);
+	}
+	
+	@Override
+	public int length() {
+		return isAscii() ? bytes.length : toString().length();
+	}
+	
+	@Override
+	public char charAt(int index) {
+		if (isAscii()) {
+			if (index < 0 || index >= bytes.length)
+				throw new StringIndexOutOfBoundsException(index);
+			return (char) bytes[index];
+		}
+		return toString().charAt(index);
+	}
+	
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (isAscii()) {
+			if (start < 0 || end > bytes.length || start > end)
+				throw new StringIndexOutOfBoundsException(String.format("begin %d, end %d, length %d", start, end, bytes.length));
+			return new WhiteSharkUtf8String(Arrays.copyOfRange(bytes, start, end), null);
+		}
+		return toString().subSequence(start, end);
+	}
+	
+	@Override
+	public String toString() {
+		String str = decoded;
+		if (str == null) {
+			str = new String(bytes, StandardCharsets.UTF_8);
+			decoded = str;
+		}
+		return str;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+		if (!(o instanceof WhiteSharkUtf8String))
+			return false;
+		
+		WhiteSharkUtf8String other = (WhiteSharkUtf8String) o;
+		return (bytes.length == other.bytes.length && hashCode() == other.hashCode() && Arrays.equals(bytes, other.bytes));
+	}
+	
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = Arrays.hashCode(bytes);
+			hash = h;
+		}
+		return h;
+	}
+
+}
@@ -116,4 +116,38 @@ final class WhiteSharkUtils {
 			return WhiteSharkConstants.DEFAULT_SERIALIZATION_VERSION;
 	}
 	
+	/**
+	 * Reads a variable-length unsigned integer
+	 * 
+	 * @param buf Source buffer, positioned at the start of the integer
+	 * @return the decoded integer
+	 */
+	public static int readVarInt(ByteBuffer buf) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buf.get();
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0 && shift < 35);
+		return value;
+	}
+	
+	/**
+	 * Gets the byte length of a variable-length unsigned integer
+	 * 
+	 * @param buf Source buffer
+	 * @param offset Absolute offset of the integer in the buffer
+	 * @param limit Number of available bytes in the buffer
+	 * @return the byte length of the integer, or -1 if it is not completely available.
+	 */
+	public static int getVarIntLength(ByteBuffer buf, int offset, int limit) {
+		for (int i = 0; i < 5 && offset + i < limit; i++) {
+			if ((buf.get(offset + i) & 0x80) == 0)
+				return i + 1;
+		}
+		return (limit - offset >= 5) ? 5 : -1;
+	}
+	
 }
@@ -0,0 +1,25 @@
+package com.xhaleera.whiteshark.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation defining former names of a field
+ * 
+ * Used on deserialization only, when schema evolution is enabled in the external class mapper.
+ * Properties found in the stream with one of these names are assigned to the annotated field.
+ * Names of existing fields take precedence over aliases.
+ * 
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface WhiteSharkAlias {
+
+	String[] value();
+	
+}
@@ -0,0 +1,27 @@
+package com.xhaleera.whiteshark.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation defining the fixed-point precision of a floating-point field
+ * 
+ * Used only if the stream is serialized with the compact reals option.
+ * The value is the number of decimal digits to keep (0 to 9).
+ * If the field is an array, the precision applies to its items.
+ * 
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@Inherited
+public @interface WhiteSharkFixedPoint {
+
+	int value();
+	
+}
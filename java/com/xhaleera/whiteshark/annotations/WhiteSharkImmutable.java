@@ -0,0 +1,26 @@
+package com.xhaleera.whiteshark.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation identifying immutable types or field values
+ * 
+ * Instances of annotated types, and object or array values of annotated fields,
+ * are serialized as self-contained fragments whose encoded bytes are cached and reused
+ * each time the same instance is serialized again.
+ * 
+ * Annotated instances must not be modified once serialized.
+ * This annotation is not inherited, as subclasses may not be immutable.
+ * 
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.FIELD })
+public @interface WhiteSharkImmutable {
+
+}
@@ -0,0 +1,27 @@
+package com.xhaleera.whiteshark.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation defining the numeric type identifier of a class
+ * 
+ * Used only if the class is registered in the external class mapper,
+ * on both the serialization and deserialization sides.
+ * The value must be unique among registered classes, between 0 and 65535.
+ * 
+ * This annotation is not inherited, as subclasses require their own identifiers.
+ * 
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface WhiteSharkTypeId {
+
+	int value();
+	
+}
@@ -0,0 +1,38 @@
+package com.xhaleera.whiteshark.exceptions;
+
+/**
+ * Exception thrown when a message of a batch cannot be deserialized.
+ * The cause of the exception is the failure of the message.
+ * 
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class WhiteSharkBatchException extends WhiteSharkException {
+
+	/** Serialization version UID */
+	static final long serialVersionUID = 1;
+	
+	/** Index of the failed message in the batch */
+	private final int index;
+	
+	/**
+	 * Constructor with custom message and cause Throwable
+	 * @param arg0 Custom message
+	 * @param index Index of the failed message in the batch
+	 * @param arg1 Failure of the message
+	 */
+	public WhiteSharkBatchException(String arg0, int index, Throwable arg1) {
+		super(arg0, arg1);
+		this.index = index;
+	}
+	
+	/**
+	 * Gets the index of the failed message
+	 * @return the index of the failed message in the batch
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+}
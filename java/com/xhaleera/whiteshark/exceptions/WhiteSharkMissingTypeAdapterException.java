@@ -0,0 +1,23 @@
+package com.xhaleera.whiteshark.exceptions;
+
+/**
+ * Exception thrown when a custom encoded value is read but no type adapter is registered for its class.
+ * 
+ * @author Christophe SAUVEUR (christophe@xhaleera.com)
+ * @since 1.1
+ * @version 1.1
+ */
+public class WhiteSharkMissingTypeAdapterException extends WhiteSharkException {
+
+	/** Serialization version UID */
+	static final long serialVersionUID = 1;
+	
+	/**
+	 * Constructor with custom message
+	 * @param arg0 Custom message
+	 */
+	public WhiteSharkMissingTypeAdapterException(String arg0) {
+		super(arg0);
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.xhaleera.whiteshark.tests;
+
+import java.nio.ByteBuffer;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+public class Attachment {
+
+	@WhiteSharkSerializable
+	public String name;
+	@WhiteSharkSerializable
+	public byte[] data;
+	@WhiteSharkSerializable
+	public ByteBuffer payload;
+	
+	public Attachment() { }
+	
+	public static Attachment buildTestData() {
+		Attachment attachment = new Attachment();
+		attachment.name = "report.bin";
+		attachment.data = new byte[1000];
+		for (int i = 0; i < attachment.data.length; i++)
+			attachment.data[i] = (byte) (i * 7);
+		attachment.payload = ByteBuffer.wrap(new byte[]{ 1, 2, 3, -4 });
+		return attachment;
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.xhaleera.whiteshark.tests;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+import com.xhaleera.whiteshark.annotations.WhiteSharkTypeId;
+
+@WhiteSharkTypeId(1001)
+public class Badge {
+
+	@WhiteSharkSerializable
+	public String label;
+	@WhiteSharkSerializable
+	public int level;
+	
+	public Badge() { }
+	
+	public Badge(String label, int level) {
+		this.label = label;
+		this.level = level;
+	}
+
+}
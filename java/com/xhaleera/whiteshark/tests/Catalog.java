@@ -0,0 +1,23 @@
+package com.xhaleera.whiteshark.tests;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkImmutable;
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+@WhiteSharkImmutable
+public class Catalog {
+
+	@WhiteSharkSerializable
+	public String name;
+	@WhiteSharkSerializable
+	public Employee[] staff;
+	
+	public Catalog() { }
+	
+	public static Catalog buildTestData() {
+		Catalog catalog = new Catalog();
+		catalog.name = "Staff";
+		catalog.staff = Employee.buildTestData().toArray(new Employee[0]);
+		return catalog;
+	}
+
+}
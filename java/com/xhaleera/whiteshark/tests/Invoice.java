@@ -0,0 +1,24 @@
+package com.xhaleera.whiteshark.tests;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+public class Invoice {
+
+	@WhiteSharkSerializable
+	public String customer;
+	@WhiteSharkSerializable
+	public Money total;
+	@WhiteSharkSerializable
+	public Money[] lines;
+	
+	public Invoice() { }
+	
+	public static Invoice buildTestData() {
+		Invoice invoice = new Invoice();
+		invoice.customer = "HUMBERT";
+		invoice.lines = new Money[]{ new Money(1250, "EUR"), new Money(4999, "EUR"), null };
+		invoice.total = new Money(6249, "EUR");
+		return invoice;
+	}
+
+}
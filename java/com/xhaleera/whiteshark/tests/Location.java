@@ -0,0 +1,18 @@
+package com.xhaleera.whiteshark.tests;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+public class Location {
+
+	@WhiteSharkSerializable
+	public String name;
+	@WhiteSharkSerializable
+	public int x;
+	@WhiteSharkSerializable
+	public int y;
+	
+	public Location(String name) {
+		this.name = name;
+	}
+
+}
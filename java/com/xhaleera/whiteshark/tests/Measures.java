@@ -0,0 +1,36 @@
+package com.xhaleera.whiteshark.tests;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkFixedPoint;
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+public class Measures {
+
+	@WhiteSharkSerializable
+	public double ratio;
+	@WhiteSharkSerializable
+	public float weight;
+	@WhiteSharkSerializable
+	@WhiteSharkFixedPoint(2)
+	public double price;
+	@WhiteSharkSerializable
+	@WhiteSharkFixedPoint(1)
+	public float temperature;
+	@WhiteSharkSerializable
+	public double[] samples;
+	@WhiteSharkSerializable
+	public Object value;
+	
+	public Measures() { }
+	
+	public static Measures buildTestData() {
+		Measures m = new Measures();
+		m.ratio = 0.1;
+		m.weight = 1.75f;
+		m.price = 12.34;
+		m.temperature = 21.5f;
+		m.samples = new double[]{ -0.0, Double.NaN, 1e300, 70000, 0.5, Double.POSITIVE_INFINITY, -128, 40000.0 };
+		m.value = 2.5f;
+		return m;
+	}
+
+}
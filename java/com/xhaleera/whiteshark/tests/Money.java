@@ -0,0 +1,19 @@
+package com.xhaleera.whiteshark.tests;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+public class Money {
+
+	@WhiteSharkSerializable
+	public long cents;
+	@WhiteSharkSerializable
+	public String currency;
+	
+	public Money() { }
+	
+	public Money(long cents, String currency) {
+		this.cents = cents;
+		this.currency = currency;
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.xhaleera.whiteshark.tests;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+public class Primitives {
+
+	@WhiteSharkSerializable
+	public boolean flag;
+	@WhiteSharkSerializable
+	public byte b;
+	@WhiteSharkSerializable
+	public short s;
+	@WhiteSharkSerializable
+	public char c;
+	@WhiteSharkSerializable
+	public int i;
+	@WhiteSharkSerializable
+	public long l;
+	@WhiteSharkSerializable
+	public float f;
+	@WhiteSharkSerializable
+	public double d;
+	@WhiteSharkSerializable
+	public boolean[] flags;
+	@WhiteSharkSerializable
+	public byte[] bytes;
+	@WhiteSharkSerializable
+	public short[] shorts;
+	@WhiteSharkSerializable
+	public char[] chars;
+	@WhiteSharkSerializable
+	public int[] ints;
+	@WhiteSharkSerializable
+	public long[] longs;
+	@WhiteSharkSerializable
+	public float[] floats;
+	@WhiteSharkSerializable
+	public double[] doubles;
+	
+	public Primitives() { }
+	
+	public static Primitives buildTestData() {
+		Primitives p = new Primitives();
+		p.flag = true;
+		p.b = Byte.MIN_VALUE;
+		p.s = Short.MAX_VALUE;
+		p.c = '\u00e9';
+		p.i = Integer.MIN_VALUE;
+		p.l = Long.MAX_VALUE;
+		p.f = -1.5f;
+		p.d = Math.PI;
+		p.flags = new boolean[]{ true, false, true };
+		p.bytes = new byte[]{ 0, -1, 127 };
+		p.shorts = new short[]{ Short.MIN_VALUE, 0, 300 };
+		p.chars = new char[]{ 'a', '\u4e2d' };
+		p.ints = new int[]{ 0, 200, 70000, -1 };
+		p.longs = new long[]{ 1, Long.MIN_VALUE, 1L << 40 };
+		p.floats = new float[]{ 0.25f, Float.NaN };
+		p.doubles = new double[]{ 1e-300, -0.0 };
+		return p;
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.xhaleera.whiteshark.tests;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializationVersion;
+
+@WhiteSharkSerializationVersion(2)
+public class ProfileV1 {
+
+	@WhiteSharkSerializable
+	public String name;
+	@WhiteSharkSerializable
+	public String email;
+	@WhiteSharkSerializable
+	public int age;
+	@WhiteSharkSerializable
+	public Location home;
+	
+	public ProfileV1() { }
+	
+	public ProfileV1(String name, String email, int age) {
+		this.name = name;
+		this.email = email;
+		this.age = age;
+	}
+
+}
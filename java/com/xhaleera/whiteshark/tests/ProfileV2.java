@@ -0,0 +1,24 @@
+package com.xhaleera.whiteshark.tests;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkAlias;
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+public class ProfileV2 {
+
+	@WhiteSharkSerializable
+	public String name;
+	@WhiteSharkSerializable
+	@WhiteSharkAlias({ "email" })
+	public String mail;
+	@WhiteSharkSerializable
+	public String nickname = "none";
+	public int age;
+	public Location home;
+	
+	public static int instanceCount = 0;
+	
+	public ProfileV2() {
+		instanceCount++;
+	}
+
+}
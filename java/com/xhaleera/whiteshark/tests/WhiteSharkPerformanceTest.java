@@ -4,6 +4,9 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -18,6 +21,7 @@ public class WhiteSharkPerformanceTest {
 
 	private static final int RUN_COUNT = 10000;
 	private static final int PROGRESS_STEP = 1000;
+	private static final int HEAP_OBJECT_COUNT = 200000;
 	
 	public static void main(String[] args) {
 		try {
@@ -101,6 +105,37 @@ public class WhiteSharkPerformanceTest {
 			System.out.println("");
 			System.gc();
 			
+			// Deserializing (immediate, byte array)
+			start = System.currentTimeMillis();
+			System.out.println("Deserializing (immediate, byte array) ...");
+			for (int i = 0; i < RUN_COUNT; i++) {
+				WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper);
+				if (i % PROGRESS_STEP == 0)
+					System.out.print(String.format("%d%% ", (i / PROGRESS_STEP) * 10));
+			}
+			duration = System.currentTimeMillis() - start;
+			System.out.println("100%");
+			System.out.println(String.format("%d runs in %f s (%f ms / run)", RUN_COUNT, (float) duration / 1000f, (float) duration / (float) RUN_COUNT));
+			System.out.println("");
+			System.gc();
+			
+			// Deserializing (immediate, direct buffer)
+			ByteBuffer buffer = ByteBuffer.allocateDirect(b.length);
+			buffer.put(b);
+			start = System.currentTimeMillis();
+			System.out.println("Deserializing (immediate, direct buffer) ...");
+			for (int i = 0; i < RUN_COUNT; i++) {
+				buffer.rewind();
+				WhiteSharkImmediateDeserializer.deserialize(streamId, buffer, classMapper);
+				if (i % PROGRESS_STEP == 0)
+					System.out.print(String.format("%d%% ", (i / PROGRESS_STEP) * 10));
+			}
+			duration = System.currentTimeMillis() - start;
+			System.out.println("100%");
+			System.out.println(String.format("%d runs in %f s (%f ms / run)", RUN_COUNT, (float) duration / 1000f, (float) duration / (float) RUN_COUNT));
+			System.out.println("");
+			System.gc();
+			
 			// Deserializing (progressive)
 			start = System.currentTimeMillis();
 			System.out.println("Deserializing (progressive) ...");
@@ -155,12 +190,55 @@ public class WhiteSharkPerformanceTest {
 			System.out.println(String.format("%d runs in %f s (%f ms / run)", RUN_COUNT, (float) duration / 1000f, (float) duration / (float) RUN_COUNT));
 			System.out.println("");
 			System.gc();
+			
+			// Retained heap (generic objects), each object being decoded from a separate message
+			System.out.println("Retained heap (generic objects)...");
+			byte[][] messages = new byte[data.size()][];
+			for (int i = 0; i < messages.length; i++) {
+				oStream = new ByteArrayOutputStream();
+				WhiteSharkSerializer.serialize(streamId, oStream, data.get(i), WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS, classMapper);
+				messages[i] = oStream.toByteArray();
+				oStream.close();
+			}
+			Object[] generics = new Object[HEAP_OBJECT_COUNT];
+			long before = usedMemory();
+			for (int i = 0; i < generics.length; i++)
+				generics[i] = WhiteSharkImmediateDeserializer.deserialize(streamId, messages[i % messages.length], classMapper);
+			long genericsSize = usedMemory() - before;
+			Object maps = toHashMaps(generics);
+			long mapsSize = usedMemory() - before - genericsSize;
+			System.out.println(String.format("%d objects: %d KB as generic objects, %d KB as hash maps", Math.min(generics.length, ((Object[]) maps).length), genericsSize / 1024, mapsSize / 1024));
+			System.out.println("");
 		}
 		catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 	
+	private static Object toHashMaps(Object o) {
+		if (o instanceof Object[]) {
+			Object[] arr = (Object[]) o;
+			Object[] copy = new Object[arr.length];
+			for (int i = 0; i < arr.length; i++)
+				copy[i] = toHashMaps(arr[i]);
+			return copy;
+		}
+		else if (o instanceof Map) {
+			HashMap<Object, Object> copy = new HashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) o).entrySet())
+				copy.put(entry.getKey(), toHashMaps(entry.getValue()));
+			return copy;
+		}
+		return o;
+	}
+	
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
 	static JSONObject buildJSONObject(Team data) {
 		JSONObject json = new JSONObject();
 		JSONArray arr = new JSONArray();
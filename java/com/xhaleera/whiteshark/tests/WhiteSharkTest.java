@@ -1,29 +1,70 @@
 package com.xhaleera.whiteshark.tests;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import com.xhaleera.whiteshark.WhiteSharkBatchDeserializer;
+import com.xhaleera.whiteshark.WhiteSharkBatchResult;
 import com.xhaleera.whiteshark.WhiteSharkConstants;
 import com.xhaleera.whiteshark.WhiteSharkExternalClassMapper;
+import com.xhaleera.whiteshark.WhiteSharkFragmentCache;
 import com.xhaleera.whiteshark.WhiteSharkGenericObject;
 import com.xhaleera.whiteshark.WhiteSharkImmediateDeserializer;
+import com.xhaleera.whiteshark.WhiteSharkIndexedDocument;
+import com.xhaleera.whiteshark.WhiteSharkInputCursor;
+import com.xhaleera.whiteshark.WhiteSharkInstanceFactory;
+import com.xhaleera.whiteshark.WhiteSharkInstanceProvider;
+import com.xhaleera.whiteshark.WhiteSharkLazyDeserializer;
+import com.xhaleera.whiteshark.WhiteSharkLazyObject;
+import com.xhaleera.whiteshark.WhiteSharkOutputBuffer;
+import com.xhaleera.whiteshark.WhiteSharkParallelDeserializer;
 import com.xhaleera.whiteshark.WhiteSharkProgressiveDeserializer;
+import com.xhaleera.whiteshark.WhiteSharkProjection;
+import com.xhaleera.whiteshark.WhiteSharkReader;
 import com.xhaleera.whiteshark.WhiteSharkSerializer;
+import com.xhaleera.whiteshark.WhiteSharkStringCache;
+import com.xhaleera.whiteshark.WhiteSharkToken;
+import com.xhaleera.whiteshark.WhiteSharkTypeAdapter;
+import com.xhaleera.whiteshark.WhiteSharkUtf8String;
 import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
 import com.xhaleera.whiteshark.annotations.WhiteSharkSerializableCollection;
 import com.xhaleera.whiteshark.annotations.WhiteSharkSerializableMap;
+import com.xhaleera.whiteshark.exceptions.WhiteSharkBatchException;
+import com.xhaleera.whiteshark.exceptions.WhiteSharkException;
+import com.xhaleera.whiteshark.exceptions.WhiteSharkIncompatibleSerializationVersionException;
 
 public class WhiteSharkTest {
 
+	private static int checkCount = 0;
+	private static int failureCount = 0;
+	
 	public static void main(String[] args) {
 		try {
 			WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
@@ -96,10 +137,1017 @@ public class WhiteSharkTest {
 				dump(result.result);
 			else
 				System.out.println("Deserialization incomplete");
+			System.out.println("");
+			
+			// Checking
+			System.out.println("Checking...");
+			checkCompactReals(streamId);
+			checkSerializedSize(classMapper, streamId);
+			checkTypeIds(streamId);
+			checkTypeAdapters(streamId);
+			checkFragments(streamId);
+			checkInputCursors(classMapper, streamId);
+			checkMappedFiles(classMapper, streamId);
+			checkPropertyBindings(classMapper, streamId);
+			checkLazyViews(classMapper, streamId);
+			checkProjections(classMapper, streamId);
+			checkPullReader(streamId);
+			checkGenericObjects(classMapper, streamId);
+			checkPrimitives(streamId);
+			checkClassResolution();
+			checkInstanceFactories(streamId);
+			checkReentrancy(classMapper, streamId);
+			checkBatches(classMapper, streamId);
+			checkDeserializeInto(classMapper, streamId);
+			checkInstanceProviders(streamId);
+			checkStringCache(streamId);
+			checkLazyStrings(streamId);
+			checkBinaryData(streamId);
+			checkSchemaEvolution(streamId);
+			checkParallelDeserializer(classMapper, streamId);
+			checkIndexedDocuments(streamId);
+			checkSharedShapes(classMapper, streamId);
+			checkFailedStreamPosition(classMapper, streamId);
+			System.out.println(String.format("%d checks, %d failed", checkCount, failureCount));
 		}
 		catch (Exception e) {
 			e.printStackTrace();
+			failureCount++;
+		}
+		
+		if (failureCount > 0)
+			System.exit(1);
+	}
+	
+	private static void checkCompactReals(String streamId) throws Exception {
+		WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		Measures data = Measures.buildTestData();
+		byte[] plain = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		byte[] compact = serialize(streamId, data, WhiteSharkConstants.OPTIONS_COMPACT_REALS, classMapper);
+		check("Compact reals are smaller", compact.length < plain.length);
+		
+		String expected = describe(data);
+		check("Compact reals round trip", expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, new ByteArrayInputStream(compact), classMapper))));
+		check("Compact reals progressive round trip", expected.equals(describe(deserializeProgressively(streamId, compact, classMapper))));
+		
+		// The price is written as 2 decimals and 1234
+		int decimalsOffset = -1;
+		for (int i = 0; i + 2 < compact.length && decimalsOffset < 0; i++) {
+			if (compact[i] == 2 && compact[i + 1] == (byte) 0xd2 && compact[i + 2] == 0x04)
+				decimalsOffset = i;
+		}
+		check("Fixed-point fields are written as scaled integers", decimalsOffset >= 0);
+		
+		compact[decimalsOffset] = 40;
+		try {
+			WhiteSharkImmediateDeserializer.deserialize(streamId, compact, classMapper);
+			check("Invalid number of decimals is rejected", false);
+		}
+		catch (IOException e) {
+			check("Invalid number of decimals is rejected", true);
+		}
+		try {
+			deserializeProgressively(streamId, compact, classMapper);
+			check("Invalid number of decimals is rejected progressively", false);
+		}
+		catch (WhiteSharkException e) {
+			check("Invalid number of decimals is rejected progressively", true);
+		}
+	}
+	
+	private static void checkSerializedSize(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		Object[] samples = { Employee.buildTestData(), Measures.buildTestData(), "h\u00e9llo \u4e2d", new String[]{ "a", null }, 42, null };
+		short[] optionSets = { WhiteSharkConstants.OPTIONS_DEFAULT, WhiteSharkConstants.OPTIONS_COMPACT_REALS, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS };
+		boolean exact = true;
+		for (Object o : samples) {
+			for (short options : optionSets) {
+				byte[] b = serialize(streamId, o, options, classMapper);
+				long size = WhiteSharkSerializer.computeSerializedSize(streamId, o, options, classMapper);
+				ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+				WhiteSharkSerializer.serialize(streamId, buffer, o, options, classMapper);
+				buffer.flip();
+				byte[] b2 = new byte[buffer.remaining()];
+				buffer.get(b2);
+				exact &= (size == b.length && Arrays.equals(b, b2));
+			}
+		}
+		check("Computed serialized sizes match written bytes", exact);
+	}
+	
+	private static void checkTypeIds(String streamId) throws Exception {
+		final WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		classMapper.registerClass(Badge.class);
+		Badge[] data = { new Badge("gold", 3), new Badge("silver", 2) };
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		String expected = describe(data);
+		check("Type identifiers round trip", expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, new ByteArrayInputStream(b), classMapper))));
+		check("Type identifiers progressive round trip", expected.equals(describe(deserializeProgressively(streamId, b, classMapper))));
+		check("Type identifiers replace class names", !new String(b, "ISO-8859-1").contains(Badge.class.getName()));
+		
+		// Concurrent registrations must not lose each other
+		final Class<?>[] classes = { Employee.class, Team.class, Measures.class, String.class, Integer.class, Long.class, Double.class, Object.class };
+		Thread[] threads = new Thread[classes.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						classMapper.unregisterClass(classes[index]);
+						classMapper.registerClass(classes[index], 2000 + index);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		boolean registered = true;
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+			registered &= (classMapper.getClassFromTypeId(2000 + i) == classes[i]);
+		}
+		check("Concurrent type identifier registrations", registered && classMapper.getClassFromTypeId(1001) == Badge.class);
+	}
+	
+	private static void checkTypeAdapters(String streamId) throws Exception {
+		final WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		Invoice data = Invoice.buildTestData();
+		byte[] plain = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		classMapper.registerTypeAdapter(Money.class, new MoneyAdapter());
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		String expected = describe(data);
+		check("Type adapters round trip", expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, new ByteArrayInputStream(b), classMapper))));
+		check("Type adapters progressive round trip", expected.equals(describe(deserializeProgressively(streamId, b, classMapper))));
+		check("Type adapters write custom payloads", b.length < plain.length && WhiteSharkSerializer.computeSerializedSize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper) == b.length);
+		
+		// Resolutions cached while adapters are registered concurrently must not outlive them
+		Thread registering = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 1000; i++) {
+					classMapper.unregisterTypeAdapter(Money.class);
+					classMapper.registerTypeAdapter(Money.class, new MoneyAdapter());
+				}
+				classMapper.unregisterTypeAdapter(Money.class);
+			}
+		};
+		registering.start();
+		while (registering.isAlive())
+			classMapper.getTypeAdapter(Money.class);
+		registering.join();
+		check("Unregistered type adapters are not resolved", classMapper.getTypeAdapter(Money.class) == null);
+		
+		// Serializations racing with unregistrations must write either encoding
+		registering = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 1000; i++) {
+					classMapper.registerTypeAdapter(Money.class, new MoneyAdapter());
+					classMapper.unregisterTypeAdapter(Money.class);
+				}
+			}
+		};
+		registering.start();
+		boolean serialized = true;
+		while (registering.isAlive()) {
+			try {
+				serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+			}
+			catch (NullPointerException e) {
+				serialized = false;
+			}
+		}
+		registering.join();
+		check("Type adapters unregistered while serializing", serialized);
+	}
+	
+	private static class MoneyAdapter implements WhiteSharkTypeAdapter<Money> {
+		
+		@Override
+		public void write(WhiteSharkOutputBuffer out, Money value) throws IOException {
+			out.writeLong(value.cents);
+			out.writeString(value.currency);
+		}
+		
+		@Override
+		public Money read(WhiteSharkInputCursor in) throws IOException {
+			return new Money(in.readLong(), in.readString());
+		}
+		
+	}
+	
+	private static void checkFragments(String streamId) throws Exception {
+		WhiteSharkFragmentCache cache = WhiteSharkSerializer.getFragmentCache();
+		cache.clear();
+		cache.resetStatistics();
+		WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		classMapper.mapClass(Employee.class, "Xhaleera::WhiteShark::Tests::Employee");
+		Catalog catalog = Catalog.buildTestData();
+		Object[] data = { catalog, "between", catalog };
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		String expected = describe(data);
+		check("Repeated immutable instances are encoded once", cache.getMissCount() == 1 && cache.getHitCount() == 1 && cache.size() == 1);
+		check("Fragments round trip", expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, new ByteArrayInputStream(b), classMapper))));
+		check("Fragments progressive round trip", expected.equals(describe(deserializeProgressively(streamId, b, classMapper))));
+		
+		check("Cached fragments are spliced", Arrays.equals(b, serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper)) && cache.getMissCount() == 1 && cache.getHitCount() == 3 && cache.size() == 1);
+		check("Fragment cache hit rate", cache.getHitRate() == 0.75 && cache.getByteSize() > 0 && cache.getEvictionCount() == 0);
+		
+		long byteSize = cache.getByteSize();
+		Object[] uncached = { Catalog.buildTestData() };
+		long cachedSize = WhiteSharkSerializer.computeSerializedSize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		long uncachedSize = WhiteSharkSerializer.computeSerializedSize(streamId, uncached, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		check("Sizing leaves the fragment cache untouched", cachedSize == b.length && cache.getMissCount() == 1 && cache.getHitCount() == 3 && cache.size() == 1 && cache.getByteSize() == byteSize);
+		check("Sizing matches uncached fragments", uncachedSize == serialize(streamId, uncached, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper).length && cache.getMissCount() == 2 && cache.size() == 2);
+		uncached = null;
+		
+		classMapper.mapClass(Team.class, "Xhaleera::WhiteShark::Tests::Team");
+		serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		check("Fragments are dropped when their class mapper is modified", cache.size() == 1 && cache.getMissCount() == 3);
+		
+		catalog = null;
+		data = null;
+		classMapper = null;
+		for (int i = 0; i < 20 && cache.size() > 0; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		check("Fragments are dropped once their instance is collected", cache.size() == 0 && cache.getByteSize() == 0);
+	}
+	
+	private static void checkInputCursors(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		Team data = Employee.buildTestData();
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		String expected = describe(data);
+		ByteBuffer direct = ByteBuffer.allocateDirect(b.length + 5);
+		direct.position(5);
+		direct.put(b);
+		direct.position(5);
+		boolean same = expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper)));
+		same &= expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, new ByteArrayInputStream(b), classMapper)));
+		same &= expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, ByteBuffer.wrap(b), classMapper)));
+		same &= expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, direct, classMapper)));
+		check("Stream, byte array and buffer readers give the same results", same && !direct.hasRemaining());
+		
+		// Header excluded, every truncation must end with an EOF
+		int eofCount = 0;
+		for (int length = 12; length < b.length; length++) {
+			byte[] truncated = Arrays.copyOf(b, length);
+			try {
+				WhiteSharkImmediateDeserializer.deserialize(streamId, truncated, classMapper);
+			}
+			catch (EOFException e) {
+				try {
+					WhiteSharkImmediateDeserializer.deserialize(streamId, new ByteArrayInputStream(truncated), classMapper);
+				}
+				catch (EOFException e2) {
+					eofCount++;
+				}
+			}
+		}
+		check("Truncated inputs end with an EOF", eofCount == b.length - 12);
+	}
+	
+	private static void checkMappedFiles(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		Team data = Employee.buildTestData();
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		Path path = Files.createTempFile("WhiteSharkTest", ".bin");
+		try {
+			Files.write(path, b);
+			String expected = describe(WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper));
+			check("Mapped file and byte array readers give the same results", expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, path, classMapper))));
+			
+			Files.write(path, Arrays.copyOf(b, b.length - 1));
+			try {
+				WhiteSharkImmediateDeserializer.deserialize(streamId, path, classMapper);
+				check("Truncated mapped files end with an EOF", false);
+			}
+			catch (EOFException e) {
+				check("Truncated mapped files end with an EOF", true);
+			}
+		}
+		finally {
+			Files.delete(path);
+		}
+	}
+	
+	private static void checkPropertyBindings(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		// Properties of different classes share the dictionary, and are bound once per class
+		Object[] data = { new Badge("gold", 3), Invoice.buildTestData(), new Badge("silver", 2), Employee.buildTestData(), Invoice.buildTestData() };
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		String expected = describe(data);
+		check("Mixed classes round trip", expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper))));
+		check("Mixed classes progressive round trip", expected.equals(describe(deserializeProgressively(streamId, b, classMapper))));
+	}
+	
+	private static void checkLazyViews(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		Team data = Employee.buildTestData();
+		short[] optionSets = { WhiteSharkConstants.OPTIONS_DEFAULT, WhiteSharkConstants.OPTIONS_COMPACT_REALS, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS };
+		boolean identical = true;
+		for (short options : optionSets) {
+			byte[] b = serialize(streamId, data, options, classMapper);
+			identical &= Arrays.equals(b, serialize(streamId, WhiteSharkLazyDeserializer.deserialize(streamId, b, classMapper), options, classMapper));
+		}
+		check("Lazy views are re-emitted byte for byte", identical);
+		
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		WhiteSharkLazyObject team = (WhiteSharkLazyObject) WhiteSharkLazyDeserializer.deserialize(streamId, b, classMapper);
+		WhiteSharkLazyObject employee = (WhiteSharkLazyObject) team.getItems().get(1);
+		List<?> monthDays = (List<?>) team.get("monthDays");
+		check("Lazy views decode accessed values", team.getItems().size() == data.size() && Team.class.getName().equals(team.getClassName())
+				&& data.get(1).firstName.equals(employee.get("firstName")) && monthDays.get(1).equals(data.monthDays[1]));
+		
+		Object[] forwarded = (Object[]) WhiteSharkImmediateDeserializer.deserialize(streamId, serialize(streamId, new Object[]{ employee }, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper), classMapper);
+		check("Lazy subtrees are forwarded", describe(data.get(1)).equals(describe(forwarded[0])));
+	}
+	
+	private static void checkProjections(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		Team data = Employee.buildTestData();
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		Team projected = (Team) WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper, new WhiteSharkProjection(":ci:[*].firstName", "monthDays"));
+		
+		Team expected = new Team();
+		expected.monthDays = data.monthDays;
+		for (Employee employee : data) {
+			Employee e = new Employee();
+			e.firstName = employee.firstName;
+			expected.add(e);
+		}
+		check("Projections only decode selected paths", describe(expected).equals(describe(projected)));
+		
+		Invoice invoice = Invoice.buildTestData();
+		b = serialize(streamId, invoice, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS, classMapper);
+		Map<?, ?> generic = (Map<?, ?>) WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper, new WhiteSharkProjection("lines[*].cents"));
+		Map<?, ?> line = (Map<?, ?>) ((Object[]) generic.get("lines"))[0];
+		check("Projections apply to generic objects", generic.size() == 1 && line.size() == 1 && line.get("cents").equals(invoice.lines[0].cents));
+	}
+	
+	private static void checkPullReader(String streamId) throws Exception {
+		WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		Object[] data = { new Badge("gold", 3), 2.5, null, true };
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		StringBuilder sb = new StringBuilder();
+		try (WhiteSharkReader reader = new WhiteSharkReader(streamId, b, classMapper)) {
+			WhiteSharkToken token;
+			while ((token = reader.nextToken()) != null) {
+				sb.append(token);
+				if (token == WhiteSharkToken.PROPERTY_NAME)
+					sb.append('(').append(reader.propertyName()).append(')');
+				else if (token == WhiteSharkToken.STRING)
+					sb.append('(').append(reader.stringValue()).append(')');
+				else if (token == WhiteSharkToken.INTEGER)
+					sb.append('(').append(reader.intValue()).append(')');
+				else if (token == WhiteSharkToken.REAL)
+					sb.append('(').append(reader.doubleValue()).append(')');
+				else if (token == WhiteSharkToken.BOOLEAN)
+					sb.append('(').append(reader.booleanValue()).append(')');
+				sb.append(' ');
+			}
+		}
+		check("Pull reader token sequence", sb.toString().equals("START_ARRAY START_OBJECT PROPERTY_NAME(label) STRING(gold) PROPERTY_NAME(level) INTEGER(3) END_OBJECT REAL(2.5) NULL BOOLEAN(true) END_ARRAY "));
+		
+		try (WhiteSharkReader reader = new WhiteSharkReader(streamId, b, classMapper)) {
+			reader.nextToken();
+			reader.nextToken();
+			reader.skipChildren();
+			check("Pull reader skips children", reader.nextToken() == WhiteSharkToken.REAL && reader.doubleValue() == 2.5);
+		}
+	}
+	
+	private static void checkGenericObjects(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		Invoice[] data = { Invoice.buildTestData(), Invoice.buildTestData() };
+		data[1].customer = "BALLET";
+		Object[] generics = (Object[]) WhiteSharkImmediateDeserializer.deserialize(streamId, serialize(streamId, data, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS, classMapper), classMapper);
+		WhiteSharkGenericObject first = (WhiteSharkGenericObject) generics[0];
+		WhiteSharkGenericObject second = (WhiteSharkGenericObject) generics[1];
+		check("Generic objects keep stream order", new ArrayList<>(first.keySet()).equals(Arrays.asList("customer", "total", "lines")) && "BALLET".equals(second.get("customer")));
+		
+		HashMap<String, Object> expected = new HashMap<>(second);
+		WhiteSharkGenericObject copy = second.clone();
+		second.put("paid", true);
+		expected.put("paid", true);
+		second.remove("customer");
+		expected.remove("customer");
+		second.put("total", null);
+		expected.put("total", null);
+		check("Generic objects behave as maps", second.equals(expected) && expected.equals(second) && "HUMBERT".equals(first.get("customer")) && "BALLET".equals(copy.get("customer")) && !copy.containsKey("paid"));
+	}
+	
+	private static void checkPrimitives(String streamId) throws Exception {
+		WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		Primitives data = Primitives.buildTestData();
+		String expected = describe(data);
+		boolean same = true;
+		for (short options : new short[]{ WhiteSharkConstants.OPTIONS_DEFAULT, WhiteSharkConstants.OPTIONS_COMPACT_REALS }) {
+			byte[] b = serialize(streamId, data, options, classMapper);
+			same &= expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper)));
+			same &= expected.equals(describe(deserializeProgressively(streamId, b, classMapper)));
+		}
+		check("Primitive fields and arrays round trip", same);
+	}
+	
+	private static void checkClassResolution() throws Exception {
+		final WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		final String external = "Xhaleera::WhiteShark::Tests::Badge";
+		classMapper.mapClass(Badge.class, external);
+		check("Mapped classes resolve both ways", classMapper.getClassFromExternal(external) == Badge.class && external.equals(classMapper.getExternalFromClass(Badge.class)));
+		
+		classMapper.unmapClass(Badge.class);
+		check("Unmapped classes no longer resolve", !resolves(classMapper, external) && !resolves(classMapper, external));
+		classMapper.mapClass(Badge.class, external);
+		check("Unresolved classes resolve once mapped", resolves(classMapper, external));
+		
+		// Mappings take precedence over cached resolutions of Java class names
+		String javaName = Money.class.getName();
+		boolean resolvedJavaName = (classMapper.getClassFromExternal(javaName) == Money.class);
+		classMapper.mapClass(Badge.class, javaName);
+		boolean remapped = (classMapper.getClassFromExternal(javaName) == Badge.class);
+		classMapper.unmapClass(Badge.class);
+		check("Cached resolutions are overridden by mappings", resolvedJavaName && remapped && classMapper.getClassFromExternal(javaName) == Money.class && !resolves(classMapper, external));
+		classMapper.mapClass(Badge.class, external);
+		
+		// Array class names are unbounded, so resolutions are only cached up to a limit
+		String[] components = { "I", "J", "Z" };
+		boolean arrays = true;
+		for (int pass = 0; pass < 2; pass++) {
+			for (String component : components) {
+				String arrayName = component;
+				for (int dimensions = 1; dimensions < 200; dimensions++) {
+					arrayName = "[" + arrayName;
+					Class<?> cls = classMapper.getClassFromExternal(arrayName);
+					arrays &= cls.isArray() && cls.getName().equals(arrayName);
+				}
+			}
+		}
+		check("Resolutions past the cache limit", arrays && classMapper.getClassFromExternal(Money.class.getName()) == Money.class);
+		
+		final String name = Money.class.getName();
+		final boolean[] resolved = new boolean[8];
+		Thread[] threads = new Thread[resolved.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					boolean ok = true;
+					for (int j = 0; j < 1000; j++)
+						ok &= resolves(classMapper, name) && resolves(classMapper, external);
+					resolved[index] = ok;
+				}
+			};
+			threads[i].start();
+		}
+		boolean ok = true;
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+			ok &= resolved[i];
+		}
+		check("Concurrent class resolutions", ok && classMapper.getClassFromExternal(name) == Money.class);
+	}
+	
+	private static boolean resolves(WhiteSharkExternalClassMapper classMapper, String externalClass) {
+		try {
+			return (classMapper.getClassFromExternal(externalClass) != null);
+		}
+		catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+	
+	private static void checkInstanceFactories(String streamId) throws Exception {
+		WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		Location location = new Location("office");
+		location.x = 12;
+		location.y = -4;
+		Location[] data = { location, location };
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		try {
+			WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper);
+			check("Classes without no-arg constructor need a factory", false);
+		}
+		catch (NoSuchMethodException e) {
+			check("Classes without no-arg constructor need a factory", true);
+		}
+		
+		classMapper.registerInstanceFactory(Location.class, new WhiteSharkInstanceFactory<Location>() {
+			@Override
+			public Location newInstance() {
+				return new Location(null);
+			}
+		});
+		Location[] decoded = (Location[]) WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper);
+		check("Instance factories round trip", describe(data).equals(describe(decoded)) && decoded[0] != decoded[1]);
+		check("Instance factories progressive round trip", describe(data).equals(describe(deserializeProgressively(streamId, b, classMapper))));
+	}
+	
+	private static void checkReentrancy(final WhiteSharkExternalClassMapper classMapper, final String streamId) throws Exception {
+		final byte[] b = serialize(streamId, Employee.buildTestData(), WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		final String expected = describe(Employee.buildTestData());
+		final boolean[] same = new boolean[8];
+		Thread[] threads = new Thread[same.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						boolean ok = true;
+						for (int j = 0; j < 200; j++)
+							ok &= expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper)));
+						same[index] = ok;
+					}
+					catch (Exception e) {
+						e.printStackTrace();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		boolean ok = true;
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+			ok &= same[i];
+		}
+		check("Concurrent static deserializations", ok);
+		
+		WhiteSharkImmediateDeserializer deserializer = new WhiteSharkImmediateDeserializer(streamId, classMapper);
+		check("Deserializer instances are reusable", expected.equals(describe(deserializer.read(b))) && expected.equals(describe(deserializer.read(b))));
+		
+		// Type adapters decoding nested streams while the outer stream is being decoded
+		WhiteSharkExternalClassMapper nestingClassMapper = new WhiteSharkExternalClassMapper();
+		nestingClassMapper.registerTypeAdapter(Money.class, new NestedMoneyAdapter(streamId));
+		Invoice invoice = Invoice.buildTestData();
+		byte[] nesting = serialize(streamId, invoice, WhiteSharkConstants.OPTIONS_DEFAULT, nestingClassMapper);
+		check("Nested deserializations", describe(invoice).equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, nesting, nestingClassMapper))));
+	}
+	
+	private static class NestedMoneyAdapter implements WhiteSharkTypeAdapter<Money> {
+		
+		private final String streamId;
+		
+		NestedMoneyAdapter(String streamId) {
+			this.streamId = streamId;
+		}
+		
+		@Override
+		public void write(WhiteSharkOutputBuffer out, Money value) throws IOException {
+			try {
+				byte[] b = serialize(streamId, value, WhiteSharkConstants.OPTIONS_DEFAULT, null);
+				out.writeInt(b.length);
+				out.writeBytes(b);
+			}
+			catch (IOException e) {
+				throw e;
+			}
+			catch (Exception e) {
+				throw new IOException(e);
+			}
+		}
+		
+		@Override
+		public Money read(WhiteSharkInputCursor in) throws IOException {
+			try {
+				return (Money) WhiteSharkImmediateDeserializer.deserialize(streamId, in.readBytes(in.readInt()));
+			}
+			catch (IOException e) {
+				throw e;
+			}
+			catch (Exception e) {
+				throw new IOException(e);
+			}
+		}
+		
+	}
+	
+	private static void checkBatches(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		byte[] b = serialize(streamId, Employee.buildTestData(), WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		byte[] badge = serialize(streamId, new Badge("gold", 3), WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		List<Object> messages = Arrays.<Object>asList(b, Arrays.copyOf(b, b.length / 2), ByteBuffer.wrap(badge), "not a message".getBytes("US-ASCII"), b);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			WhiteSharkBatchDeserializer deserializer = new WhiteSharkBatchDeserializer(streamId, classMapper, executor);
+			WhiteSharkBatchResult result = deserializer.deserializeEach(messages);
+			String expected = describe(Employee.buildTestData());
+			check("Batch failures are reported by index", result.size() == 5 && result.getErrorCount() == 2 && result.getError(1) instanceof EOFException && result.getError(3) != null);
+			check("Batch values are in message order", expected.equals(describe(result.getValue(0))) && describe(new Badge("gold", 3)).equals(describe(result.getValue(2)))
+					&& expected.equals(describe(result.getValue(4))) && result.getValue(1) == null && result.getError(0) == null);
+			
+			try {
+				deserializer.deserializeAll(messages.subList(0, 2));
+				check("Aborted batches report the failed message", false);
+			}
+			catch (WhiteSharkBatchException e) {
+				check("Aborted batches report the failed message", e.getIndex() == 1);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+	
+	private static void checkDeserializeInto(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		Invoice data = Invoice.buildTestData();
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		Invoice target = new Invoice();
+		target.customer = "stale";
+		target.total = new Money(1, "USD");
+		Money total = target.total;
+		Object result = WhiteSharkImmediateDeserializer.deserializeInto(streamId, b, classMapper, target);
+		check("Deserializing into an existing object", result == target && target.total == total && describe(data).equals(describe(target)));
+		
+		Team team = Employee.buildTestData();
+		team.monthDays = new int[]{ 1 };
+		team.add(new Employee("Stale", "EMPLOYEE", 50, true, 1.7f));
+		b = serialize(streamId, Employee.buildTestData(), WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		result = WhiteSharkImmediateDeserializer.deserializeInto(streamId, b, classMapper, team);
+		check("Deserializing into an existing collection", result == team && describe(Employee.buildTestData()).equals(describe(team)));
+	}
+	
+	private static void checkInstanceProviders(String streamId) throws Exception {
+		WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		MoneyPool pool = new MoneyPool();
+		classMapper.setInstanceProvider(pool);
+		Invoice data = Invoice.buildTestData();
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		Invoice invoice = (Invoice) WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper);
+		pool.releaseGraph(invoice);
+		check("Released graphs give their objects back", pool.releaseCount == 5 && pool.moneys.size() == 3);
+		
+		IdentityHashMap<Money, Boolean> pooled = new IdentityHashMap<>();
+		for (Money money : pool.moneys)
+			pooled.put(money, true);
+		invoice = (Invoice) deserializeProgressively(streamId, b, classMapper);
+		check("Provided objects are populated", describe(data).equals(describe(invoice)) && pooled.containsKey(invoice.total) && pooled.containsKey(invoice.lines[1]) && pool.moneys.isEmpty());
+	}
+	
+	private static class MoneyPool extends WhiteSharkInstanceProvider {
+		
+		private final ArrayDeque<Money> moneys = new ArrayDeque<>();
+		private int releaseCount = 0;
+		
+		@Override
+		public synchronized Object newInstance(Class<?> cls) {
+			return (cls == Money.class) ? moneys.poll() : null;
+		}
+		
+		@Override
+		public synchronized void release(Object value) {
+			releaseCount++;
+			if (value instanceof Money)
+				moneys.push((Money) value);
+		}
+		
+	}
+	
+	private static void checkStringCache(String streamId) throws Exception {
+		WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		byte[] b = serialize(streamId, Employee.buildTestData(), WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		Team first = (Team) WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper);
+		Team second = (Team) WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper);
+		check("Strings are not interned by default", first.get(1).firstName != second.get(1).firstName);
+		
+		WhiteSharkStringCache cache = new WhiteSharkStringCache(64, 4);
+		classMapper.setStringCache(cache);
+		first = (Team) WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper);
+		second = (Team) deserializeProgressively(streamId, b, classMapper);
+		check("Short strings are interned", first.get(1).firstName == second.get(1).firstName && "Eric".equals(first.get(1).firstName) && cache.getHitCount() > 0);
+		check("Long strings are not interned", first.get(0).firstName != second.get(0).firstName && first.get(0).firstName.equals(second.get(0).firstName));
+	}
+	
+	private static void checkLazyStrings(String streamId) throws Exception {
+		WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		classMapper.setLazyStrings(true);
+		Object[] data = { "h\u00e9llo \u4e2d", "ascii", new Badge("gold", 3) };
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		Object[] decoded = (Object[]) WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper);
+		check("Lazy strings are returned where accepted", decoded[0] instanceof WhiteSharkUtf8String && data[0].equals(decoded[0].toString())
+				&& new WhiteSharkUtf8String("ascii").equals(decoded[1]) && ((CharSequence) decoded[1]).charAt(2) == 'c' && "gold".equals(((Badge) decoded[2]).label));
+		check("Lazy strings are re-emitted byte for byte", Arrays.equals(b, serialize(streamId, decoded, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper)));
+		
+		Map<?, ?> generic = (Map<?, ?>) WhiteSharkImmediateDeserializer.deserialize(streamId, serialize(streamId, Invoice.buildTestData(), WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS, classMapper), classMapper);
+		check("Generic objects hold lazy strings", new WhiteSharkUtf8String("HUMBERT").equals(generic.get("customer")));
+	}
+	
+	private static void checkBinaryData(String streamId) throws Exception {
+		WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		Attachment data = Attachment.buildTestData();
+		byte[] plain = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_BINARY_BLOBS, classMapper);
+		String expected = describe(data);
+		check("Binary blobs are smaller", b.length < plain.length);
+		check("Binary blobs round trip", expected.equals(describe(WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper))));
+		check("Binary blobs progressive round trip", expected.equals(describe(deserializeProgressively(streamId, b, classMapper))));
+		
+		classMapper.setBinarySlices(true);
+		b = serialize(streamId, new Object[]{ data.payload }, WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		ByteBuffer slice = (ByteBuffer) ((Object[]) WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper))[0];
+		int offset = b.length - 4;
+		b[offset] = 42;
+		check("Binary slices share the input bytes", slice.isReadOnly() && slice.remaining() == 4 && slice.get(slice.position()) == 42);
+		
+		try (WhiteSharkReader reader = new WhiteSharkReader(streamId, b, classMapper)) {
+			reader.nextToken();
+			check("Pull reader reads binary values", reader.nextToken() == WhiteSharkToken.BINARY && reader.binaryValue().equals(ByteBuffer.wrap(b, offset, 4)));
+		}
+	}
+	
+	private static void checkSchemaEvolution(String streamId) throws Exception {
+		WhiteSharkExternalClassMapper writer = new WhiteSharkExternalClassMapper();
+		writer.mapClass(ProfileV1.class, "Xhaleera::WhiteShark::Tests::Profile");
+		WhiteSharkExternalClassMapper reader = new WhiteSharkExternalClassMapper();
+		reader.mapClass(ProfileV2.class, "Xhaleera::WhiteShark::Tests::Profile");
+		ProfileV1[] data = { new ProfileV1("Charlotte", "charlotte@example.com", 30), new ProfileV1("Eric", null, 38) };
+		byte[] b = serialize(streamId, data, WhiteSharkConstants.OPTIONS_DEFAULT, writer);
+		try {
+			WhiteSharkImmediateDeserializer.deserialize(streamId, b, reader);
+			check("Newer streams are rejected without schema evolution", false);
+		}
+		catch (WhiteSharkIncompatibleSerializationVersionException | NoSuchFieldException e) {
+			check("Newer streams are rejected without schema evolution", true);
+		}
+		
+		reader.setSchemaEvolution(true);
+		ProfileV2[] profiles = (ProfileV2[]) WhiteSharkImmediateDeserializer.deserialize(streamId, b, reader);
+		check("Evolved fields are bound by alias and defaulted", "Charlotte".equals(profiles[0].name) && "charlotte@example.com".equals(profiles[0].mail) && "none".equals(profiles[0].nickname) && profiles[1].mail == null);
+		check("Evolved fields progressive round trip", describe(profiles).equals(describe(deserializeProgressively(streamId, b, reader))));
+		
+		profiles = (ProfileV2[]) WhiteSharkImmediateDeserializer.deserialize(streamId, b, reader, new WhiteSharkProjection("mail"));
+		check("Evolved fields are projected by their current name", profiles[0].name == null && "charlotte@example.com".equals(profiles[0].mail));
+		
+		ProfileV2 target = new ProfileV2();
+		target.nickname = "stale";
+		WhiteSharkImmediateDeserializer.deserializeInto(streamId, serialize(streamId, data[0], WhiteSharkConstants.OPTIONS_DEFAULT, writer), reader, target);
+		check("Fields missing from the stream are reset", "Charlotte".equals(target.name) && "none".equals(target.nickname));
+		
+		byte[] single = serialize(streamId, data[1], WhiteSharkConstants.OPTIONS_DEFAULT, writer);
+		int instanceCount = ProfileV2.instanceCount;
+		boolean reset = true;
+		for (int i = 0; i < 10; i++) {
+			target.nickname = "stale";
+			WhiteSharkImmediateDeserializer.deserializeInto(streamId, single, reader, target);
+			reset &= "none".equals(target.nickname) && "Eric".equals(target.name);
+		}
+		check("Default values are captured once", reset && ProfileV2.instanceCount == instanceCount);
+		
+		// Fields past the 64th are reset too
+		WhiteSharkExternalClassMapper wideReader = new WhiteSharkExternalClassMapper();
+		wideReader.mapClass(WideProfile.class, "Xhaleera::WhiteShark::Tests::Profile");
+		wideReader.setSchemaEvolution(true);
+		WideProfile wide = new WideProfile();
+		wide.score00 = 1;
+		wide.score69 = 1;
+		wide.nickname = "stale";
+		WhiteSharkImmediateDeserializer.deserializeInto(streamId, single, wideReader, wide);
+		check("Fields of wide classes missing from the stream are reset", "Eric".equals(wide.name) && wide.score00 == 0 && wide.score69 == 0 && "none".equals(wide.nickname));
+		
+		// Fields that are no longer serializable are skipped, even if their values cannot be decoded
+		ProfileV1 located = new ProfileV1("Marine", null, 35);
+		located.home = new Location("office");
+		ProfileV2 profile = (ProfileV2) WhiteSharkImmediateDeserializer.deserialize(streamId, serialize(streamId, located, WhiteSharkConstants.OPTIONS_DEFAULT, writer), reader);
+		profiles = (ProfileV2[]) deserializeProgressively(streamId, b, reader);
+		check("Fields that are not serializable are skipped", "Marine".equals(profile.name) && profile.age == 0 && profile.home == null && profiles[0].age == 0);
+	}
+	
+	private static void checkParallelDeserializer(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		Team team = new Team();
+		team.monthDays = new int[]{ 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+		Employee[] employees = new Employee[5000];
+		for (int i = 0; i < employees.length; i++) {
+			employees[i] = new Employee("First" + i, "LAST" + (i % 97), 20 + i % 45, i % 2 == 0, 1.5f + (i % 50) / 100f);
+			team.add(employees[i]);
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			WhiteSharkParallelDeserializer deserializer = new WhiteSharkParallelDeserializer(streamId, classMapper, pool);
+			short[] options = { WhiteSharkConstants.OPTIONS_DEFAULT, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS, WhiteSharkConstants.OPTIONS_OFFSET_INDEX };
+			String[] names = { "typed", "generic", "indexed" };
+			for (int i = 0; i < options.length; i++) {
+				for (Object root : new Object[]{ employees, team }) {
+					byte[] b = serialize(streamId, root, options[i], classMapper);
+					String expected = describe(WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper));
+					check(String.format("Parallel decoding matches immediate decoding (%s %s)", names[i], root.getClass().getSimpleName()), expected.equals(describe(deserializer.deserialize(b))));
+				}
+			}
+			
+			byte[] b = serialize(streamId, employees, WhiteSharkConstants.OPTIONS_OFFSET_INDEX, classMapper);
+			ByteBuffer direct = ByteBuffer.allocateDirect(b.length + 7);
+			direct.position(7);
+			direct.put(b);
+			direct.position(7);
+			String expected = describe(employees);
+			check("Parallel decoding starts at the buffer position", expected.equals(describe(deserializer.deserialize(direct))) && !direct.hasRemaining());
+			
+			WhiteSharkExternalClassMapper rejectingClassMapper = new WhiteSharkExternalClassMapper();
+			rejectingClassMapper.registerTypeAdapter(Money.class, new RejectingMoneyAdapter());
+			Money[] amounts = new Money[5000];
+			for (int i = 0; i < amounts.length; i++)
+				amounts[i] = new Money(i, "EUR");
+			b = serialize(streamId, amounts, WhiteSharkConstants.OPTIONS_DEFAULT, rejectingClassMapper);
+			WhiteSharkParallelDeserializer rejectingDeserializer = new WhiteSharkParallelDeserializer(streamId, rejectingClassMapper, pool);
+			boolean firstFailure = true;
+			for (int i = 0; i < 20; i++) {
+				try {
+					rejectingDeserializer.deserialize(b);
+					firstFailure = false;
+				}
+				catch (IOException e) {
+					firstFailure &= "Rejected amount: 999".equals(e.getMessage());
+				}
+			}
+			check("Parallel decoding reports the first failure in stream order", firstFailure);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+	
+	private static class RejectingMoneyAdapter extends MoneyAdapter {
+		
+		@Override
+		public Money read(WhiteSharkInputCursor in) throws IOException {
+			Money value = super.read(in);
+			if (value.cents % 1000 == 999)
+				throw new IOException(String.format("Rejected amount: %d", value.cents));
+			return value;
+		}
+		
+	}
+	
+	private static void checkIndexedDocuments(String streamId) throws Exception {
+		WhiteSharkExternalClassMapper classMapper = new WhiteSharkExternalClassMapper();
+		classMapper.mapClass(Employee.class, "Xhaleera::WhiteShark::Tests::Employee");
+		classMapper.setIndexStride(16);
+		Team team = new Team();
+		team.monthDays = new int[]{ 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+		Employee[] employees = new Employee[100];
+		for (int i = 0; i < employees.length; i++) {
+			employees[i] = new Employee("First" + i, "LAST" + i, 20 + i % 45, i % 2 == 0, 1.5f + (i % 50) / 100f);
+			team.add(employees[i]);
+		}
+		
+		byte[] b = serialize(streamId, employees, WhiteSharkConstants.OPTIONS_OFFSET_INDEX, classMapper);
+		Object[] decoded = (Object[]) WhiteSharkImmediateDeserializer.deserialize(streamId, b, classMapper);
+		check("Indexed streams round trip", describe(employees).equals(describe(decoded)));
+		
+		int[] indices = { 0, 15, 16, 17, 47, 48, 49, 99 };
+		WhiteSharkIndexedDocument document = WhiteSharkIndexedDocument.open(streamId, ByteBuffer.wrap(b), classMapper);
+		boolean same = (document.getElementCount() == employees.length);
+		for (int i : indices)
+			same &= describe(decoded[i]).equals(describe(document.getElement(i)));
+		check("Indexed elements match full decoding at stride boundaries", same);
+		try {
+			document.getElement(employees.length);
+			check("Out of bounds indexed elements are rejected", false);
+		}
+		catch (IndexOutOfBoundsException e) {
+			check("Out of bounds indexed elements are rejected", true);
+		}
+		
+		Path file = Files.createTempFile("whiteshark", ".bin");
+		try {
+			Files.write(file, serialize(streamId, team, WhiteSharkConstants.OPTIONS_OFFSET_INDEX, classMapper));
+			try (WhiteSharkIndexedDocument fileDocument = WhiteSharkIndexedDocument.open(streamId, file, classMapper)) {
+				same = (fileDocument.getElementCount() == team.size());
+				for (int i : indices)
+					same &= describe(team.get(i)).equals(describe(fileDocument.getElement(i)));
+				check("Indexed collection items match from a file", same);
+				check("Indexed properties are decoded alone", Arrays.equals(team.monthDays, (int[]) fileDocument.getProperty("monthDays"))
+						&& fileDocument.getProperty("missing") == null);
+			}
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+	
+	private static void checkSharedShapes(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		WhiteSharkGenericObject[] generics = new WhiteSharkGenericObject[5000];
+		for (int i = 0; i < generics.length; i++) {
+			Employee employee = new Employee();
+			employee.put(String.format("entry%d", i), i);
+			generics[i] = (WhiteSharkGenericObject) WhiteSharkImmediateDeserializer.deserialize(streamId, serialize(streamId, employee, WhiteSharkConstants.OPTIONS_OBJECTS_AS_GENERICS, classMapper), classMapper);
+		}
+		boolean separate = true;
+		for (int i = 0; i < generics.length; i++) {
+			ArrayList<String> keys = new ArrayList<>(generics[i].keySet());
+			String key = keys.get(keys.size() - 1);
+			separate &= key.endsWith(String.format("entry%d", i)) && Integer.valueOf(i).equals(generics[i].get(key)) && generics[i].size() == generics[0].size();
+		}
+		check("Generic objects of separate messages", separate);
+	}
+	
+	
+	private static void checkFailedStreamPosition(WhiteSharkExternalClassMapper classMapper, String streamId) throws Exception {
+		byte[] rejected = serialize("OTHR", "rejected", WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		byte[] accepted = serialize(streamId, "accepted", WhiteSharkConstants.OPTIONS_DEFAULT, classMapper);
+		ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+		concatenated.write(rejected);
+		concatenated.write(accepted);
+		BufferedInputStream stream = new BufferedInputStream(new ByteArrayInputStream(concatenated.toByteArray()));
+		boolean failed = false;
+		try {
+			WhiteSharkImmediateDeserializer.deserialize(streamId, stream, classMapper);
+		}
+		catch (WhiteSharkException e) {
+			failed = true;
+		}
+		int consumed = rejected.length + accepted.length - stream.available();
+		boolean rewound = (consumed < rejected.length);
+		stream.skip(rejected.length - consumed);
+		check("Failed reads leave the stream after the consumed bytes", failed && rewound && "accepted".equals(WhiteSharkImmediateDeserializer.deserialize(streamId, stream, classMapper)));
+	}
+	
+	
+	private static void check(String name, boolean condition) {
+		checkCount++;
+		if (!condition)
+			failureCount++;
+		System.out.println(String.format("%s %s", condition ? "OK    " : "FAILED", name));
+	}
+	
+	private static byte[] serialize(String streamId, Object o, short options, WhiteSharkExternalClassMapper classMapper) throws Exception {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		WhiteSharkSerializer.serialize(streamId, stream, o, options, classMapper);
+		return stream.toByteArray();
+	}
+	
+	private static Object deserializeProgressively(String streamId, byte[] b, WhiteSharkExternalClassMapper classMapper) throws Exception {
+		WhiteSharkProgressiveDeserializer deserializer = new WhiteSharkProgressiveDeserializer(streamId, classMapper);
+		WhiteSharkProgressiveDeserializer.DeserializationResult result = null;
+		for (int offset = 0; offset < b.length; offset += 3) {
+			result = deserializer.update(b, offset, Math.min(3, b.length - offset));
+			if (result.complete)
+				return result.result;
+		}
+		throw new Exception("Deserialization incomplete");
+	}
+	
+	private static String describe(Object o) {
+		StringBuilder sb = new StringBuilder();
+		describe(o, sb);
+		return sb.toString();
+	}
+	
+	private static void describe(Object o, StringBuilder sb) {
+		if (o == null) {
+			sb.append("null");
+			return;
+		}
+		
+		Class<?> c = o.getClass();
+		if (o instanceof String || o instanceof Number || o instanceof Boolean || o instanceof Character) {
+			sb.append(c.getSimpleName()).append(':').append(o);
+			return;
+		}
+		if (o instanceof ByteBuffer) {
+			ByteBuffer buffer = ((ByteBuffer) o).duplicate();
+			sb.append("ByteBuffer[");
+			while (buffer.hasRemaining())
+				sb.append(buffer.get()).append(',');
+			sb.append(']');
+			return;
+		}
+		if (c.isArray()) {
+			sb.append(c.getComponentType().getSimpleName()).append('[');
+			for (int i = 0; i < Array.getLength(o); i++) {
+				describe(Array.get(o, i), sb);
+				sb.append(',');
+			}
+			sb.append(']');
+			return;
+		}
+		
+		sb.append(c.getSimpleName()).append('{');
+		for (Field f : c.getFields()) {
+			if (f.getAnnotation(WhiteSharkSerializable.class) != null) {
+				sb.append(f.getName()).append('=');
+				try {
+					describe(f.get(o), sb);
+				}
+				catch (IllegalAccessException e) {
+					sb.append('?');
+				}
+				sb.append(';');
+			}
+		}
+		if (o instanceof Map) {
+			TreeMap<String, Object> entries = new TreeMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) o).entrySet())
+				entries.put(String.valueOf(entry.getKey()), entry.getValue());
+			for (Map.Entry<String, Object> entry : entries.entrySet()) {
+				sb.append(WhiteSharkConstants.MAP_PROPERTY_NAME_PREFIX).append(entry.getKey()).append('=');
+				describe(entry.getValue(), sb);
+				sb.append(';');
+			}
+		}
+		if (o instanceof Collection) {
+			for (Object item : (Collection<?>) o) {
+				sb.append(WhiteSharkConstants.COLLECTION_ITEM_PROPERTY_NAME);
+				describe(item, sb);
+				sb.append(';');
+			}
 		}
+		sb.append('}');
 	}
 	
 	private static void dump(Object o) {
@@ -0,0 +1,154 @@
+package com.xhaleera.whiteshark.tests;
+
+import com.xhaleera.whiteshark.annotations.WhiteSharkSerializable;
+
+public class WideProfile {
+
+	@WhiteSharkSerializable
+	public String name;
+	@WhiteSharkSerializable
+	public int score00;
+	@WhiteSharkSerializable
+	public int score01;
+	@WhiteSharkSerializable
+	public int score02;
+	@WhiteSharkSerializable
+	public int score03;
+	@WhiteSharkSerializable
+	public int score04;
+	@WhiteSharkSerializable
+	public int score05;
+	@WhiteSharkSerializable
+	public int score06;
+	@WhiteSharkSerializable
+	public int score07;
+	@WhiteSharkSerializable
+	public int score08;
+	@WhiteSharkSerializable
+	public int score09;
+	@WhiteSharkSerializable
+	public int score10;
+	@WhiteSharkSerializable
+	public int score11;
+	@WhiteSharkSerializable
+	public int score12;
+	@WhiteSharkSerializable
+	public int score13;
+	@WhiteSharkSerializable
+	public int score14;
+	@WhiteSharkSerializable
+	public int score15;
+	@WhiteSharkSerializable
+	public int score16;
+	@WhiteSharkSerializable
+	public int score17;
+	@WhiteSharkSerializable
+	public int score18;
+	@WhiteSharkSerializable
+	public int score19;
+	@WhiteSharkSerializable
+	public int score20;
+	@WhiteSharkSerializable
+	public int score21;
+	@WhiteSharkSerializable
+	public int score22;
+	@WhiteSharkSerializable
+	public int score23;
+	@WhiteSharkSerializable
+	public int score24;
+	@WhiteSharkSerializable
+	public int score25;
+	@WhiteSharkSerializable
+	public int score26;
+	@WhiteSharkSerializable
+	public int score27;
+	@WhiteSharkSerializable
+	public int score28;
+	@WhiteSharkSerializable
+	public int score29;
+	@WhiteSharkSerializable
+	public int score30;
+	@WhiteSharkSerializable
+	public int score31;
+	@WhiteSharkSerializable
+	public int score32;
+	@WhiteSharkSerializable
+	public int score33;
+	@WhiteSharkSerializable
+	public int score34;
+	@WhiteSharkSerializable
+	public int score35;
+	@WhiteSharkSerializable
+	public int score36;
+	@WhiteSharkSerializable
+	public int score37;
+	@WhiteSharkSerializable
+	public int score38;
+	@WhiteSharkSerializable
+	public int score39;
+	@WhiteSharkSerializable
+	public int score40;
+	@WhiteSharkSerializable
+	public int score41;
+	@WhiteSharkSerializable
+	public int score42;
+	@WhiteSharkSerializable
+	public int score43;
+	@WhiteSharkSerializable
+	public int score44;
+	@WhiteSharkSerializable
+	public int score45;
+	@WhiteSharkSerializable
+	public int score46;
+	@WhiteSharkSerializable
+	public int score47;
+	@WhiteSharkSerializable
+	public int score48;
+	@WhiteSharkSerializable
+	public int score49;
+	@WhiteSharkSerializable
+	public int score50;
+	@WhiteSharkSerializable
+	public int score51;
+	@WhiteSharkSerializable
+	public int score52;
+	@WhiteSharkSerializable
+	public int score53;
+	@WhiteSharkSerializable
+	public int score54;
+	@WhiteSharkSerializable
+	public int score55;
+	@WhiteSharkSerializable
+	public int score56;
+	@WhiteSharkSerializable
+	public int score57;
+	@WhiteSharkSerializable
+	public int score58;
+	@WhiteSharkSerializable
+	public int score59;
+	@WhiteSharkSerializable
+	public int score60;
+	@WhiteSharkSerializable
+	public int score61;
+	@WhiteSharkSerializable
+	public int score62;
+	@WhiteSharkSerializable
+	public int score63;
+	@WhiteSharkSerializable
+	public int score64;
+	@WhiteSharkSerializable
+	public int score65;
+	@WhiteSharkSerializable
+	public int score66;
+	@WhiteSharkSerializable
+	public int score67;
+	@WhiteSharkSerializable
+	public int score68;
+	@WhiteSharkSerializable
+	public int score69;
+	@WhiteSharkSerializable
+	public String nickname = "none";
+	
+	public WideProfile() { }
+
+}